@@ -18,6 +18,9 @@ java.sourceCompatibility = JavaVersion.VERSION_17
 dependencies {
     jmh("org.openjdk.jmh:jmh-core:1.35")
     jmh("org.openjdk.jmh:jmh-generator-annprocess:1.35")
+
+    testImplementation("org.junit.jupiter:junit-jupiter:5.9.1")
+    testImplementation("org.openjdk.jol:jol-core:0.16")
 }
 
 java {
@@ -32,7 +35,6 @@ publishing {
 
 tasks {
     withType<JavaCompile>() {
-        options.compilerArgs.addAll(listOf("--add-exports", "java.base/jdk.internal.vm.annotation=ALL-UNNAMED"))
         options.encoding = "UTF-8"
     }
 
@@ -40,6 +42,10 @@ tasks {
         from(rootProject.file("LICENSE"))
     }
 
+    test {
+        useJUnitPlatform()
+    }
+
     jcstress {
         jcstressDependency = "org.openjdk.jcstress:jcstress-core:0.15"
         mode = "quick"
@@ -0,0 +1,34 @@
+package io.denery.concurrentutil.lock;
+
+import ca.spottedleaf.concurrentutil.lock.SeqLock;
+import ca.spottedleaf.concurrentutil.lock.SeqLockWaitStrategy;
+import ca.spottedleaf.concurrentutil.lock.VolatileSeqLock;
+import org.openjdk.jcstress.annotations.*;
+import org.openjdk.jcstress.infra.results.III_Result;
+
+@JCStressTest
+@Outcome(expect = Expect.FORBIDDEN)
+@Outcome(id = "0, 0, 0", expect = Expect.ACCEPTABLE, desc = "read happened before any writes.")
+@Outcome(id = "1, 3, 6", expect = Expect.ACCEPTABLE, desc = "first writer happened before read.")
+@Outcome(id = "2, 4, 8", expect = Expect.ACCEPTABLE, desc = "second writer happened before read.")
+public class ParkingSeqLockMultiWriterTest {
+    /* park immediately, so that lost wakeups show up as a hung test */
+    public final SeqLock parkingSeqLock = new VolatileSeqLock(SeqLockWaitStrategy.spinThenPark(0));
+    @Actor
+    public void writer(SharedData sharedData) {
+        sharedData.safeWrite(parkingSeqLock,1, 3, 6);
+    }
+
+    @Actor
+    public void writer1(SharedData sharedData) {
+        sharedData.safeWrite(parkingSeqLock,2, 4, 8);
+    }
+
+    @Actor
+    public void reader(SharedData sharedData, III_Result r) {
+        var trio = sharedData.safeRead(parkingSeqLock);
+        r.r1 = trio.a();
+        r.r2 = trio.b();
+        r.r3 = trio.c();
+    }
+}
@@ -0,0 +1,42 @@
+package io.denery.concurrentutil.lock;
+
+import ca.spottedleaf.concurrentutil.lock.ReadWriteSeqLock;
+import org.openjdk.jcstress.annotations.*;
+import org.openjdk.jcstress.infra.results.III_Result;
+
+@JCStressTest
+@Outcome(expect = Expect.FORBIDDEN)
+@Outcome(id = "0, 0, 0", expect = Expect.ACCEPTABLE, desc = "shared read happened before any writes.")
+@Outcome(id = "1, 3, 6", expect = Expect.ACCEPTABLE, desc = "first writer happened before shared read.")
+@Outcome(id = "2, 4, 8", expect = Expect.ACCEPTABLE, desc = "upgraded writer happened before shared read.")
+public class ReadWriteSeqLockSharedReadTest {
+    public final ReadWriteSeqLock readWriteSeqLock = new ReadWriteSeqLock();
+    @Actor
+    public void writer(SharedData sharedData) {
+        sharedData.safeWrite(readWriteSeqLock,1, 3, 6);
+    }
+
+    @Actor
+    public void upgrader(SharedData sharedData) {
+        readWriteSeqLock.acquireShared();
+        if (readWriteSeqLock.tryUpgrade()) {
+            sharedData.a = 2;
+            sharedData.b = 4;
+            sharedData.c = 8;
+            readWriteSeqLock.downgrade();
+        }
+        readWriteSeqLock.releaseShared();
+    }
+
+    @Actor
+    public void reader(SharedData sharedData, III_Result r) {
+        readWriteSeqLock.acquireShared();
+        try {
+            r.r1 = sharedData.a;
+            r.r2 = sharedData.b;
+            r.r3 = sharedData.c;
+        } finally {
+            readWriteSeqLock.releaseShared();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package io.denery.concurrentutil.lock;
+
+import ca.spottedleaf.concurrentutil.lock.ReaderBiasedSeqLock;
+import ca.spottedleaf.concurrentutil.lock.SeqLock;
+import org.openjdk.jcstress.annotations.*;
+import org.openjdk.jcstress.infra.results.III_Result;
+
+@JCStressTest
+@Outcome(expect = Expect.FORBIDDEN)
+@Outcome(id = "0, 0, 0", expect = Expect.ACCEPTABLE, desc = "read happened before any writes.")
+@Outcome(id = "1, 3, 6", expect = Expect.ACCEPTABLE, desc = "first writer happened before read.")
+@Outcome(id = "2, 4, 8", expect = Expect.ACCEPTABLE, desc = "second writer happened before read.")
+public class ReaderBiasedSeqLockMultiWriterTest {
+    public final SeqLock readerBiasedSeqLock = new ReaderBiasedSeqLock();
+    @Actor
+    public void writer(SharedData sharedData) {
+        sharedData.safeWrite(readerBiasedSeqLock,1, 3, 6);
+    }
+
+    @Actor
+    public void writer1(SharedData sharedData) {
+        sharedData.safeWrite(readerBiasedSeqLock,2, 4, 8);
+    }
+
+    @Actor
+    public void reader(SharedData sharedData, III_Result r) {
+        var trio = sharedData.safeRead(readerBiasedSeqLock);
+        r.r1 = trio.a();
+        r.r2 = trio.b();
+        r.r3 = trio.c();
+    }
+}
+
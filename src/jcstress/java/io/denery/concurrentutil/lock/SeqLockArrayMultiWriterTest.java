@@ -0,0 +1,40 @@
+package io.denery.concurrentutil.lock;
+
+import ca.spottedleaf.concurrentutil.lock.SeqLock;
+import ca.spottedleaf.concurrentutil.lock.SeqLockArray;
+import org.openjdk.jcstress.annotations.*;
+import org.openjdk.jcstress.infra.results.III_Result;
+
+@JCStressTest
+@Outcome(expect = Expect.FORBIDDEN)
+@Outcome(id = "0, 0, 0", expect = Expect.ACCEPTABLE, desc = "read happened before any writes.")
+@Outcome(id = "1, 3, 6", expect = Expect.ACCEPTABLE, desc = "first writer happened before read.")
+@Outcome(id = "2, 4, 8", expect = Expect.ACCEPTABLE, desc = "second writer happened before read.")
+public class SeqLockArrayMultiWriterTest {
+    public final SeqLockArray seqLocks = new SeqLockArray(4, true);
+    public final SeqLock seqLock = seqLocks.getLock(1);
+    @Actor
+    public void writer(SharedData sharedData) {
+        sharedData.safeWrite(seqLock,1, 3, 6);
+    }
+
+    @Actor
+    public void writer1(SharedData sharedData) {
+        sharedData.safeWrite(seqLock,2, 4, 8);
+    }
+
+    @Actor
+    public void otherIndexWriter() {
+        /* must not interfere with the lock at index 1 */
+        seqLocks.acquireWrite(2);
+        seqLocks.releaseWrite(2);
+    }
+
+    @Actor
+    public void reader(SharedData sharedData, III_Result r) {
+        var trio = sharedData.safeRead(seqLock);
+        r.r1 = trio.a();
+        r.r2 = trio.b();
+        r.r3 = trio.c();
+    }
+}
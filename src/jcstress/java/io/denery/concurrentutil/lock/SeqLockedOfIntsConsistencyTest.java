@@ -0,0 +1,29 @@
+package io.denery.concurrentutil.lock;
+
+import ca.spottedleaf.concurrentutil.lock.SeqLocked;
+import ca.spottedleaf.concurrentutil.lock.VolatileSeqLock;
+import org.openjdk.jcstress.annotations.*;
+import org.openjdk.jcstress.infra.results.III_Result;
+
+@JCStressTest
+@Outcome(expect = Expect.FORBIDDEN)
+@Outcome(id = "1, 3, 6", expect = Expect.ACCEPTABLE, desc = "full read happened after write.")
+@Outcome(id = "0, 0, 0", expect = Expect.ACCEPTABLE, desc = "full read happened before write.")
+@State
+public class SeqLockedOfIntsConsistencyTest {
+    /* a single optimistic attempt, so that the pessimistic fallback is exercised as well */
+    public final SeqLocked.OfInts seqLocked = new SeqLocked.OfInts(3, new VolatileSeqLock(), 1);
+
+    @Actor
+    public void reader(III_Result r) {
+        final int[] values = seqLocked.get(new int[3]);
+        r.r1 = values[0];
+        r.r2 = values[1];
+        r.r3 = values[2];
+    }
+
+    @Actor
+    public void writer() {
+        seqLocked.set(new int[] { 1, 3, 6 });
+    }
+}
@@ -0,0 +1,38 @@
+package io.denery.concurrentutil.map;
+
+import ca.spottedleaf.concurrentutil.map.primitive.ConcurrentIntObjectOpenHashMap;
+import org.openjdk.jcstress.annotations.*;
+import org.openjdk.jcstress.infra.results.IIII_Result;
+
+/**
+ * Two writers put the same absent key. Exactly one of them claims it, and the other must observe its value.
+ * Results are the values returned by both puts, the final value and the final size, with 0 for null.
+ */
+@JCStressTest
+@Outcome(expect = Expect.FORBIDDEN)
+@Outcome(id = "0, 1, 2, 1", expect = Expect.ACCEPTABLE, desc = "first writer happened before the second.")
+@Outcome(id = "2, 0, 1, 1", expect = Expect.ACCEPTABLE, desc = "second writer happened before the first.")
+@State
+public class ConcurrentIntObjectOpenHashMapPutPutTest {
+    public final ConcurrentIntObjectOpenHashMap<Integer> map = new ConcurrentIntObjectOpenHashMap<>();
+
+    @Actor
+    public void writer(IIII_Result r) {
+        r.r1 = unbox(map.put(5, 1));
+    }
+
+    @Actor
+    public void writer1(IIII_Result r) {
+        r.r2 = unbox(map.put(5, 2));
+    }
+
+    @Arbiter
+    public void arbiter(IIII_Result r) {
+        r.r3 = unbox(map.get(5));
+        r.r4 = map.size();
+    }
+
+    static int unbox(final Integer value) {
+        return value == null ? 0 : value;
+    }
+}
@@ -0,0 +1,36 @@
+package io.denery.concurrentutil.map;
+
+import ca.spottedleaf.concurrentutil.map.primitive.ConcurrentIntObjectOpenHashMap;
+import org.openjdk.jcstress.annotations.*;
+import org.openjdk.jcstress.infra.results.IIII_Result;
+
+import static io.denery.concurrentutil.map.ConcurrentIntObjectOpenHashMapPutPutTest.unbox;
+
+/**
+ * One writer puts an absent key while another removes it. Results are the values returned by the put and the remove,
+ * the final value and the final size, with 0 for null.
+ */
+@JCStressTest
+@Outcome(expect = Expect.FORBIDDEN)
+@Outcome(id = "0, 1, 0, 0", expect = Expect.ACCEPTABLE, desc = "put happened before remove.")
+@Outcome(id = "0, 0, 1, 1", expect = Expect.ACCEPTABLE, desc = "remove happened before put.")
+@State
+public class ConcurrentIntObjectOpenHashMapPutRemoveTest {
+    public final ConcurrentIntObjectOpenHashMap<Integer> map = new ConcurrentIntObjectOpenHashMap<>();
+
+    @Actor
+    public void writer(IIII_Result r) {
+        r.r1 = unbox(map.put(5, 1));
+    }
+
+    @Actor
+    public void remover(IIII_Result r) {
+        r.r2 = unbox(map.remove(5));
+    }
+
+    @Arbiter
+    public void arbiter(IIII_Result r) {
+        r.r3 = unbox(map.get(5));
+        r.r4 = map.size();
+    }
+}
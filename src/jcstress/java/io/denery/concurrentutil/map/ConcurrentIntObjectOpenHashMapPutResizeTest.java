@@ -0,0 +1,43 @@
+package io.denery.concurrentutil.map;
+
+import ca.spottedleaf.concurrentutil.map.primitive.ConcurrentIntObjectOpenHashMap;
+import org.openjdk.jcstress.annotations.*;
+import org.openjdk.jcstress.infra.results.IIII_Result;
+
+import static io.denery.concurrentutil.map.ConcurrentIntObjectOpenHashMapPutPutTest.unbox;
+
+/**
+ * The 8 slot table holds 5 keys, so the resizer's put claims the 6th slot and starts copying the table to the next
+ * one. Meanwhile another writer replaces the value of a key being copied, which must not be lost to a stale copy.
+ * Results are the value returned by the replacing put, both final values and the final size.
+ */
+@JCStressTest
+@Outcome(expect = Expect.FORBIDDEN)
+@Outcome(id = "1, 10, 6, 6", expect = Expect.ACCEPTABLE, desc = "both writes survived the resize.")
+@State
+public class ConcurrentIntObjectOpenHashMapPutResizeTest {
+    public final ConcurrentIntObjectOpenHashMap<Integer> map = new ConcurrentIntObjectOpenHashMap<>(8, 0.75f);
+
+    {
+        for (int key = 1; key <= 5; ++key) {
+            map.put(key, key);
+        }
+    }
+
+    @Actor
+    public void resizer() {
+        map.put(6, 6);
+    }
+
+    @Actor
+    public void writer(IIII_Result r) {
+        r.r1 = unbox(map.put(1, 10));
+    }
+
+    @Arbiter
+    public void arbiter(IIII_Result r) {
+        r.r2 = unbox(map.get(1));
+        r.r3 = unbox(map.get(6));
+        r.r4 = map.size();
+    }
+}
@@ -0,0 +1,43 @@
+package io.denery.concurrentutil.map;
+
+import ca.spottedleaf.concurrentutil.map.primitive.ConcurrentIntObjectOpenHashMap;
+import org.openjdk.jcstress.annotations.*;
+import org.openjdk.jcstress.infra.results.IIII_Result;
+
+import static io.denery.concurrentutil.map.ConcurrentIntObjectOpenHashMapPutPutTest.unbox;
+
+/**
+ * The 8 slot table holds 5 keys, so the resizer's put claims the 6th slot and starts copying the table to the next
+ * one. Meanwhile another writer removes a key being copied, which a stale copy must not bring back.
+ * Results are the value returned by the remove, both final values and the final size, with 0 for null.
+ */
+@JCStressTest
+@Outcome(expect = Expect.FORBIDDEN)
+@Outcome(id = "3, 0, 6, 5", expect = Expect.ACCEPTABLE, desc = "the removal survived the resize.")
+@State
+public class ConcurrentIntObjectOpenHashMapRemoveCopyTest {
+    public final ConcurrentIntObjectOpenHashMap<Integer> map = new ConcurrentIntObjectOpenHashMap<>(8, 0.75f);
+
+    {
+        for (int key = 1; key <= 5; ++key) {
+            map.put(key, key);
+        }
+    }
+
+    @Actor
+    public void resizer() {
+        map.put(6, 6);
+    }
+
+    @Actor
+    public void remover(IIII_Result r) {
+        r.r1 = unbox(map.remove(3));
+    }
+
+    @Arbiter
+    public void arbiter(IIII_Result r) {
+        r.r2 = unbox(map.get(3));
+        r.r3 = unbox(map.get(6));
+        r.r4 = map.size();
+    }
+}
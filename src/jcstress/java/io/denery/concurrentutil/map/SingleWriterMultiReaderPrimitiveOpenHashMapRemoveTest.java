@@ -0,0 +1,87 @@
+package io.denery.concurrentutil.map;
+
+import ca.spottedleaf.concurrentutil.map.primitive.SingleWriterMultiReaderIntIntOpenHashMap;
+import ca.spottedleaf.concurrentutil.map.primitive.SingleWriterMultiReaderLongLongOpenHashMap;
+import ca.spottedleaf.concurrentutil.util.IntegerUtil;
+import org.openjdk.jcstress.annotations.*;
+import org.openjdk.jcstress.infra.results.II_Result;
+
+/**
+ * In both maps every key shares the same slot of a 16 slot table, so they are stored one after the other. The writer
+ * removes the first two keys, which shifts the other three back over them, while the reader looks up the other three.
+ * None of them may be missed. Results are the number of remaining keys found in the int keyed and the long keyed map.
+ * <p>
+ * The int and long keyed maps hash their keys differently, so each needs its own colliding keys. The long to int map
+ * probes and shifts exactly like the long to long map, so it is not checked separately.
+ * </p>
+ */
+@JCStressTest
+@Outcome(expect = Expect.FORBIDDEN)
+@Outcome(id = "3, 3", expect = Expect.ACCEPTABLE, desc = "every remaining key was found.")
+@State
+public class SingleWriterMultiReaderPrimitiveOpenHashMapRemoveTest {
+    private static final int CAPACITY = 16;
+    private static final int KEYS = 5;
+
+    /* must match the hashes of the maps */
+    private static final int[] INT_KEYS = collidingIntKeys();
+    private static final long[] LONG_KEYS = collidingLongKeys();
+
+    private static int[] collidingIntKeys() {
+        final int[] ret = new int[KEYS];
+        final int slot = IntegerUtil.hash0(1) & (CAPACITY - 1);
+        int found = 0;
+        for (int key = 1; found < KEYS; ++key) {
+            if ((IntegerUtil.hash0(key) & (CAPACITY - 1)) == slot) {
+                ret[found++] = key;
+            }
+        }
+        return ret;
+    }
+
+    private static long[] collidingLongKeys() {
+        final long[] ret = new long[KEYS];
+        final int slot = (int)IntegerUtil.hash1(1L) & (CAPACITY - 1);
+        int found = 0;
+        for (long key = 1L; found < KEYS; ++key) {
+            if (((int)IntegerUtil.hash1(key) & (CAPACITY - 1)) == slot) {
+                ret[found++] = key;
+            }
+        }
+        return ret;
+    }
+
+    public final SingleWriterMultiReaderIntIntOpenHashMap intMap = new SingleWriterMultiReaderIntIntOpenHashMap(CAPACITY, 0.75f, -1);
+    public final SingleWriterMultiReaderLongLongOpenHashMap longMap = new SingleWriterMultiReaderLongLongOpenHashMap(CAPACITY, 0.75f, -1L);
+
+    {
+        for (int i = 0; i < KEYS; ++i) {
+            intMap.put(INT_KEYS[i], INT_KEYS[i] * 10);
+            longMap.put(LONG_KEYS[i], LONG_KEYS[i] * 10L);
+        }
+    }
+
+    @Actor
+    public void writer() {
+        intMap.remove(INT_KEYS[0]);
+        intMap.remove(INT_KEYS[1]);
+        longMap.remove(LONG_KEYS[0]);
+        longMap.remove(LONG_KEYS[1]);
+    }
+
+    @Actor
+    public void reader(II_Result r) {
+        int intFound = 0;
+        int longFound = 0;
+        for (int i = 2; i < KEYS; ++i) {
+            if (intMap.get(INT_KEYS[i]) == INT_KEYS[i] * 10) {
+                ++intFound;
+            }
+            if (longMap.get(LONG_KEYS[i]) == LONG_KEYS[i] * 10L) {
+                ++longFound;
+            }
+        }
+        r.r1 = intFound;
+        r.r2 = longFound;
+    }
+}
@@ -0,0 +1,33 @@
+package io.denery.concurrentutil.set;
+
+import ca.spottedleaf.concurrentutil.set.ConcurrentBitSet;
+import org.openjdk.jcstress.annotations.*;
+import org.openjdk.jcstress.infra.results.III_Result;
+
+/**
+ * Word 0 starts with only bit 63 OFF and word 1 starts empty. Both actors claim the first OFF bit, so exactly one of
+ * them must win bit 63 and the other must retry into the next word, leaving both bits ON.
+ */
+@JCStressTest
+@Outcome(expect = Expect.FORBIDDEN)
+@Outcome(id = "63, 64, 65", expect = Expect.ACCEPTABLE, desc = "first actor claimed bit 63.")
+@Outcome(id = "64, 63, 65", expect = Expect.ACCEPTABLE, desc = "second actor claimed bit 63.")
+@State
+public class ConcurrentBitSetClaimTest {
+    public final ConcurrentBitSet bitSet = new ConcurrentBitSet.LargeConcurrentBitset(128, new long[] { ~(1L << 63), 0L });
+
+    @Actor
+    public void claim1(III_Result r) {
+        r.r1 = bitSet.claimNextClearBit();
+    }
+
+    @Actor
+    public void claim2(III_Result r) {
+        r.r2 = bitSet.claimNextClearBit();
+    }
+
+    @Arbiter
+    public void arbiter(III_Result r) {
+        r.r3 = bitSet.nextClearBit(0);
+    }
+}
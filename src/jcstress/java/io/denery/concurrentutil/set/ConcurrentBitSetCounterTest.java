@@ -0,0 +1,38 @@
+package io.denery.concurrentutil.set;
+
+import ca.spottedleaf.concurrentutil.set.ConcurrentBitSet;
+import org.openjdk.jcstress.annotations.*;
+import org.openjdk.jcstress.infra.results.II_Result;
+
+/**
+ * Bit 1 starts ON. Both actors write bits 0 and 1 through single bit and word operations, so each update of the
+ * population counter races with a write to the same word. Whatever the order, the counter must match the bits once
+ * both actors are done.
+ */
+@JCStressTest
+@Outcome(expect = Expect.FORBIDDEN)
+@Outcome(id = "0, 0", expect = Expect.ACCEPTABLE, desc = "bit 0 flipped off last, bit 1 cleared last.")
+@Outcome(id = "1, 1", expect = Expect.ACCEPTABLE, desc = "exactly one of bits 0 and 1 ON.")
+@Outcome(id = "2, 2", expect = Expect.ACCEPTABLE, desc = "bit 0 set last, bit 1 set last.")
+@State
+public class ConcurrentBitSetCounterTest {
+    public final ConcurrentBitSet.LargeConcurrentBitset bitSet = new ConcurrentBitSet.LargeConcurrentBitset(128, new long[] { 1L << 1 }, true);
+
+    @Actor
+    public void actor1() {
+        bitSet.setOn(0);
+        bitSet.setOff(1);
+    }
+
+    @Actor
+    public void actor2() {
+        bitSet.flip(0);
+        bitSet.getAndOrWord(0, 1L << 1);
+    }
+
+    @Arbiter
+    public void arbiter(II_Result r) {
+        r.r1 = bitSet.getOnBitsApproximate();
+        r.r2 = bitSet.getOnBits();
+    }
+}
@@ -0,0 +1,46 @@
+package io.denery.concurrentutil.set;
+
+import ca.spottedleaf.concurrentutil.set.ConcurrentBitSet;
+import org.openjdk.jcstress.annotations.*;
+import org.openjdk.jcstress.infra.results.II_Result;
+
+import java.util.Arrays;
+
+/**
+ * The bitset has 128 words, so its summaries have two levels. Every word starts full except the last, which only has
+ * bit 8128 OFF. One actor fills the last word while the other empties a bit of it, so the full summary bit of the last
+ * word, and the one of its first level summary word, are set and cleared concurrently. Whatever the order, bit 8129
+ * ends up as the only OFF bit, which a stale summary at either level would hide from the search.
+ */
+@JCStressTest
+@Outcome(expect = Expect.FORBIDDEN)
+@Outcome(id = "8129, 8191", expect = Expect.ACCEPTABLE, desc = "summaries match the bitset.")
+@State
+public class HierarchicalConcurrentBitSetSummaryTest {
+    private static final int BITS = 2 * Long.SIZE * Long.SIZE;
+
+    public final ConcurrentBitSet.HierarchicalConcurrentBitSet bitSet = new ConcurrentBitSet.HierarchicalConcurrentBitSet(BITS, initialWords());
+
+    private static long[] initialWords() {
+        final long[] words = new long[BITS / Long.SIZE];
+        Arrays.fill(words, -1L);
+        words[words.length - 1] = ~1L;
+        return words;
+    }
+
+    @Actor
+    public void fill() {
+        bitSet.setOn(BITS - Long.SIZE);
+    }
+
+    @Actor
+    public void free() {
+        bitSet.setOff(BITS - Long.SIZE + 1);
+    }
+
+    @Arbiter
+    public void arbiter(II_Result r) {
+        r.r1 = bitSet.nextClearBit(0);
+        r.r2 = bitSet.getOnBits();
+    }
+}
@@ -0,0 +1,97 @@
+package io.denery.concurrentutil.lock;
+
+import ca.spottedleaf.concurrentutil.lock.SeqLockArray;
+import ca.spottedleaf.concurrentutil.lock.VolatileSeqLock;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures per-slot writes to records guarded by a {@link SeqLockArray}, padded and unpadded, against a
+ * {@link VolatileSeqLock} object per record. Every thread writes to its own record, so any slowdown as the thread
+ * count grows is caused by false sharing of neighbouring locks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+public class SeqLockArrayBenchmark {
+
+    private static final int RECORDS = 64;
+
+    @Param({"SeqLockArray", "PaddedSeqLockArray", "VolatileSeqLock"})
+    public String impl;
+
+    SeqLockArray array;
+    VolatileSeqLock[] locks;
+    final long[] values = new long[RECORDS * 8];
+
+    final AtomicInteger nextIndex = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        switch (this.impl) {
+            case "SeqLockArray" -> this.array = new SeqLockArray(RECORDS, false);
+            case "PaddedSeqLockArray" -> this.array = new SeqLockArray(RECORDS, true);
+            case "VolatileSeqLock" -> {
+                this.locks = new VolatileSeqLock[RECORDS];
+                for (int i = 0; i < RECORDS; ++i) {
+                    this.locks[i] = new VolatileSeqLock();
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown implementation: " + this.impl);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadIndex {
+        int index;
+
+        @Setup(Level.Trial)
+        public void setup(final SeqLockArrayBenchmark benchmark) {
+            this.index = benchmark.nextIndex.getAndIncrement() % RECORDS;
+        }
+    }
+
+    @Benchmark
+    public void write(final ThreadIndex thread) {
+        final int index = thread.index;
+        /* values are spaced a cache line apart, so only the locks can be falsely shared */
+        final int valueIndex = index * 8;
+        if (this.array != null) {
+            this.array.acquireWrite(index);
+            ++this.values[valueIndex];
+            this.array.releaseWrite(index);
+        } else {
+            final VolatileSeqLock lock = this.locks[index];
+            lock.acquireWrite();
+            ++this.values[valueIndex];
+            lock.releaseWrite();
+        }
+    }
+
+    @Benchmark
+    public long read(final ThreadIndex thread) {
+        final int index = thread.index;
+        final int valueIndex = index * 8;
+        long value;
+        if (this.array != null) {
+            int lock;
+            do {
+                lock = this.array.acquireRead(index);
+                value = this.values[valueIndex];
+            } while (!this.array.tryReleaseRead(index, lock));
+        } else {
+            final VolatileSeqLock seqLock = this.locks[index];
+            int lock;
+            do {
+                lock = seqLock.acquireRead();
+                value = this.values[valueIndex];
+            } while (!seqLock.tryReleaseRead(lock));
+        }
+        return value;
+    }
+}
@@ -0,0 +1,196 @@
+package io.denery.concurrentutil.lock;
+
+import ca.spottedleaf.concurrentutil.lock.ReadWriteSeqLock;
+import ca.spottedleaf.concurrentutil.lock.ReaderBiasedSeqLock;
+import ca.spottedleaf.concurrentutil.lock.SeqLock;
+import ca.spottedleaf.concurrentutil.lock.SeqLockWaitStrategy;
+import ca.spottedleaf.concurrentutil.lock.VolatileSeqLock;
+import ca.spottedleaf.concurrentutil.lock.WeakSeqLock;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Compares the {@link SeqLock} implementations against optimistic reads of a {@link StampedLock}, with one writer
+ * and a varying amount of readers.
+ * <p>
+ * {@link WeakSeqLock} only supports a single writer, so every group has exactly one writer. The read/write ratio is
+ * controlled by {@link #writeBackoff}, thread counts are swept by the {@code readersN} groups (or {@code -tg 1,N}).
+ * <p>
+ * {@link #waitStrategy} selects the {@link SeqLockWaitStrategy} of the SeqLock implementations, it has no effect on
+ * {@link StampedLock}. Run with more threads than cores to see the effect of parking.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SeqLockBenchmark {
+
+    @Param({"VolatileSeqLock", "WeakSeqLock", "ReadWriteSeqLock", "ReaderBiasedSeqLock", "StampedLock"})
+    public String impl;
+
+    @Param({"0", "64", "1024"})
+    public int writeBackoff;
+
+    @Param({"spinThenYield", "spin", "spinThenPark", "adaptive"})
+    public String waitStrategy;
+
+    Guard guard;
+
+    /* the protected data, spread over more than one field so torn reads are possible */
+    long a, b, c, d;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final SeqLockWaitStrategy strategy = switch (this.waitStrategy) {
+            case "spinThenYield" -> SeqLockWaitStrategy.defaultStrategy();
+            case "spin" -> SeqLockWaitStrategy.spin();
+            case "spinThenPark" -> SeqLockWaitStrategy.spinThenPark(100);
+            case "adaptive" -> SeqLockWaitStrategy.adaptive();
+            default -> throw new IllegalArgumentException("Unknown wait strategy: " + this.waitStrategy);
+        };
+        this.guard = switch (this.impl) {
+            case "VolatileSeqLock" -> new SeqLockGuard(new VolatileSeqLock(strategy));
+            case "WeakSeqLock" -> new SeqLockGuard(new WeakSeqLock(strategy));
+            case "ReadWriteSeqLock" -> new SeqLockGuard(new ReadWriteSeqLock(strategy));
+            case "ReaderBiasedSeqLock" -> new SeqLockGuard(new ReaderBiasedSeqLock(Runtime.getRuntime().availableProcessors(), strategy));
+            case "StampedLock" -> new StampedLockGuard();
+            default -> throw new IllegalArgumentException("Unknown implementation: " + this.impl);
+        };
+    }
+
+    private void doWrite() {
+        final long stamp = this.guard.acquireWrite();
+        try {
+            final long value = this.a + 1L;
+            this.a = value;
+            this.b = value;
+            this.c = value;
+            this.d = value;
+        } finally {
+            this.guard.releaseWrite(stamp);
+        }
+        if (this.writeBackoff != 0) {
+            Blackhole.consumeCPU(this.writeBackoff);
+        }
+    }
+
+    private long doRead() {
+        long stamp;
+        long sum;
+        do {
+            stamp = this.guard.acquireRead();
+            sum = this.a + this.b + this.c + this.d;
+        } while (!this.guard.tryReleaseRead(stamp));
+        return sum;
+    }
+
+    @Benchmark
+    @Group("readers1")
+    @GroupThreads(1)
+    public void readers1Write() {
+        this.doWrite();
+    }
+
+    @Benchmark
+    @Group("readers1")
+    @GroupThreads(1)
+    public long readers1Read() {
+        return this.doRead();
+    }
+
+    @Benchmark
+    @Group("readers3")
+    @GroupThreads(1)
+    public void readers3Write() {
+        this.doWrite();
+    }
+
+    @Benchmark
+    @Group("readers3")
+    @GroupThreads(3)
+    public long readers3Read() {
+        return this.doRead();
+    }
+
+    @Benchmark
+    @Group("readers7")
+    @GroupThreads(1)
+    public void readers7Write() {
+        this.doWrite();
+    }
+
+    @Benchmark
+    @Group("readers7")
+    @GroupThreads(7)
+    public long readers7Read() {
+        return this.doRead();
+    }
+
+    interface Guard {
+        long acquireWrite();
+        void releaseWrite(final long stamp);
+        long acquireRead();
+        boolean tryReleaseRead(final long stamp);
+    }
+
+    static final class SeqLockGuard implements Guard {
+        private final SeqLock lock;
+
+        SeqLockGuard(final SeqLock lock) {
+            this.lock = lock;
+        }
+
+        @Override
+        public long acquireWrite() {
+            this.lock.acquireWrite();
+            return 0L;
+        }
+
+        @Override
+        public void releaseWrite(final long stamp) {
+            this.lock.releaseWrite();
+        }
+
+        @Override
+        public long acquireRead() {
+            return this.lock.acquireRead();
+        }
+
+        @Override
+        public boolean tryReleaseRead(final long stamp) {
+            return this.lock.tryReleaseRead((int)stamp);
+        }
+    }
+
+    static final class StampedLockGuard implements Guard {
+        private final StampedLock lock = new StampedLock();
+
+        @Override
+        public long acquireWrite() {
+            return this.lock.writeLock();
+        }
+
+        @Override
+        public void releaseWrite(final long stamp) {
+            this.lock.unlockWrite(stamp);
+        }
+
+        @Override
+        public long acquireRead() {
+            long stamp;
+            while ((stamp = this.lock.tryOptimisticRead()) == 0L) {
+                Thread.onSpinWait();
+            }
+            return stamp;
+        }
+
+        @Override
+        public boolean tryReleaseRead(final long stamp) {
+            return this.lock.validate(stamp);
+        }
+    }
+}
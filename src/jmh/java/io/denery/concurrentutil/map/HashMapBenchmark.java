@@ -0,0 +1,134 @@
+package io.denery.concurrentutil.map;
+
+import ca.spottedleaf.concurrentutil.map.CopyOnWriteHashMap;
+import ca.spottedleaf.concurrentutil.map.SingleWriterMultiReaderHashMap;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the single writer maps against {@link ConcurrentHashMap} with one writer and a varying amount of readers.
+ * <p>
+ * The read/write ratio is controlled by {@link #writeBackoff}, which is the amount of tokens consumed by the writer
+ * between writes. Thread counts are swept by the {@code readersN} groups, any other amount of readers can be measured
+ * by passing {@code -tg 1,N} to JMH.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class HashMapBenchmark {
+
+    @Param({"SingleWriterMultiReaderHashMap", "CopyOnWriteHashMap", "ConcurrentHashMap"})
+    public String impl;
+
+    @Param({"1024", "65536"})
+    public int keys;
+
+    @Param({"0", "64", "1024"})
+    public int writeBackoff;
+
+    Map<Integer, Integer> map;
+    Integer[] keyPool;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.map = switch (this.impl) {
+            case "SingleWriterMultiReaderHashMap" -> new SingleWriterMultiReaderHashMap<>();
+            case "CopyOnWriteHashMap" -> new CopyOnWriteHashMap<>();
+            case "ConcurrentHashMap" -> new ConcurrentHashMap<>();
+            default -> throw new IllegalArgumentException("Unknown implementation: " + this.impl);
+        };
+
+        // boxed keys are allocated once so the benchmark measures the map, not Integer.valueOf
+        this.keyPool = new Integer[this.keys];
+        for (int i = 0; i < this.keys; ++i) {
+            this.keyPool[i] = Integer.valueOf(i);
+        }
+
+        // half of the keys are present, so both hits and misses are measured
+        for (int i = 0; i < this.keys; i += 2) {
+            this.map.put(this.keyPool[i], this.keyPool[i]);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadKeys {
+        SplittableRandom random;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            this.random = new SplittableRandom(Thread.currentThread().getId());
+        }
+
+        int next(final int bound) {
+            return this.random.nextInt(bound);
+        }
+    }
+
+    private void doWrite(final ThreadKeys keys, final Blackhole blackhole) {
+        final Integer key = this.keyPool[keys.next(this.keys)];
+        if ((key.intValue() & 1) == 0) {
+            blackhole.consume(this.map.put(key, key));
+        } else {
+            // odd keys are toggled so that the map size stays roughly constant
+            if (this.map.remove(key) == null) {
+                this.map.put(key, key);
+            }
+        }
+        if (this.writeBackoff != 0) {
+            Blackhole.consumeCPU(this.writeBackoff);
+        }
+    }
+
+    private Integer doRead(final ThreadKeys keys) {
+        return this.map.get(this.keyPool[keys.next(this.keys)]);
+    }
+
+    @Benchmark
+    @Group("readers1")
+    @GroupThreads(1)
+    public void readers1Write(final ThreadKeys keys, final Blackhole blackhole) {
+        this.doWrite(keys, blackhole);
+    }
+
+    @Benchmark
+    @Group("readers1")
+    @GroupThreads(1)
+    public Integer readers1Read(final ThreadKeys keys) {
+        return this.doRead(keys);
+    }
+
+    @Benchmark
+    @Group("readers3")
+    @GroupThreads(1)
+    public void readers3Write(final ThreadKeys keys, final Blackhole blackhole) {
+        this.doWrite(keys, blackhole);
+    }
+
+    @Benchmark
+    @Group("readers3")
+    @GroupThreads(3)
+    public Integer readers3Read(final ThreadKeys keys) {
+        return this.doRead(keys);
+    }
+
+    @Benchmark
+    @Group("readers7")
+    @GroupThreads(1)
+    public void readers7Write(final ThreadKeys keys, final Blackhole blackhole) {
+        this.doWrite(keys, blackhole);
+    }
+
+    @Benchmark
+    @Group("readers7")
+    @GroupThreads(7)
+    public Integer readers7Read(final ThreadKeys keys) {
+        return this.doRead(keys);
+    }
+}
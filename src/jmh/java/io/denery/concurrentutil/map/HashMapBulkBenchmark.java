@@ -0,0 +1,118 @@
+package io.denery.concurrentutil.map;
+
+import ca.spottedleaf.concurrentutil.map.SingleWriterMultiReaderHashMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compares the parallel bulk operations of {@link SingleWriterMultiReaderHashMap} against those of
+ * {@link ConcurrentHashMap} on a full scan of the map.
+ * <p>
+ * {@link #parallelismThreshold} of {@link Long#MAX_VALUE} measures the sequential scan, {@code 1} always splits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class HashMapBulkBenchmark {
+
+    @Param({"SingleWriterMultiReaderHashMap", "ConcurrentHashMap"})
+    public String impl;
+
+    @Param({"100000", "1000000"})
+    public int entries;
+
+    @Param({"1", "10000", "9223372036854775807"})
+    public long parallelismThreshold;
+
+    BulkMap map;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.map = switch (this.impl) {
+            case "SingleWriterMultiReaderHashMap" -> new SingleWriterBulkMap();
+            case "ConcurrentHashMap" -> new ConcurrentBulkMap();
+            default -> throw new IllegalArgumentException("Unknown implementation: " + this.impl);
+        };
+
+        for (int i = 0; i < this.entries; ++i) {
+            this.map.put(Integer.valueOf(i), Long.valueOf(i));
+        }
+    }
+
+    @Benchmark
+    public long forEach() {
+        final LongAdder sum = new LongAdder();
+        this.map.forEach(this.parallelismThreshold, sum);
+        return sum.sum();
+    }
+
+    @Benchmark
+    public Long reduceValues() {
+        return this.map.reduceValues(this.parallelismThreshold);
+    }
+
+    @Benchmark
+    public Integer searchMissing() {
+        return this.map.search(this.parallelismThreshold);
+    }
+
+    interface BulkMap {
+        void put(final Integer key, final Long value);
+        void forEach(final long parallelismThreshold, final LongAdder sum);
+        Long reduceValues(final long parallelismThreshold);
+        Integer search(final long parallelismThreshold);
+    }
+
+    static final class SingleWriterBulkMap implements BulkMap {
+        private final SingleWriterMultiReaderHashMap<Integer, Long> map = new SingleWriterMultiReaderHashMap<>();
+
+        @Override
+        public void put(final Integer key, final Long value) {
+            this.map.put(key, value);
+        }
+
+        @Override
+        public void forEach(final long parallelismThreshold, final LongAdder sum) {
+            this.map.forEachValue(parallelismThreshold, sum::add);
+        }
+
+        @Override
+        public Long reduceValues(final long parallelismThreshold) {
+            return this.map.reduceValues(parallelismThreshold, Long::sum);
+        }
+
+        @Override
+        public Integer search(final long parallelismThreshold) {
+            return this.map.searchKeys(parallelismThreshold, (final Integer key) -> key.intValue() < 0 ? key : null);
+        }
+    }
+
+    static final class ConcurrentBulkMap implements BulkMap {
+        private final ConcurrentHashMap<Integer, Long> map = new ConcurrentHashMap<>();
+
+        @Override
+        public void put(final Integer key, final Long value) {
+            this.map.put(key, value);
+        }
+
+        @Override
+        public void forEach(final long parallelismThreshold, final LongAdder sum) {
+            this.map.forEachValue(parallelismThreshold, sum::add);
+        }
+
+        @Override
+        public Long reduceValues(final long parallelismThreshold) {
+            return this.map.reduceValues(parallelismThreshold, Long::sum);
+        }
+
+        @Override
+        public Integer search(final long parallelismThreshold) {
+            return this.map.searchKeys(parallelismThreshold, (final Integer key) -> key.intValue() < 0 ? key : null);
+        }
+    }
+}
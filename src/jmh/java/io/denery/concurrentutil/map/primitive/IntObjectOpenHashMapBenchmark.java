@@ -0,0 +1,195 @@
+package io.denery.concurrentutil.map.primitive;
+
+import ca.spottedleaf.concurrentutil.map.primitive.ConcurrentIntObjectOpenHashMap;
+import ca.spottedleaf.concurrentutil.map.primitive.SingleWriterMultiReaderIntObjectOpenHashMap;
+import ca.spottedleaf.concurrentutil.map.primitive.SingleWriterMultiReaderIntObjectOpenHashMapSeqLock;
+import ca.spottedleaf.concurrentutil.map.primitive.SingleWriterMultiWriterIntObjectOpenHashMapFullSearch;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares both {@link SingleWriterMultiReaderIntObjectOpenHashMap} read strategies and
+ * {@link ConcurrentIntObjectOpenHashMap} against a boxed {@link ConcurrentHashMap} with one writer and a varying amount
+ * of readers.
+ * <p>
+ * The read/write ratio is controlled by {@link #writeBackoff}, thread counts are swept by the {@code readersN} groups
+ * (or {@code -tg 1,N}).
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class IntObjectOpenHashMapBenchmark {
+
+    @Param({"SeqLock", "FullSearch", "Concurrent", "ConcurrentHashMap"})
+    public String impl;
+
+    @Param({"1024", "65536"})
+    public int keys;
+
+    @Param({"0", "64", "1024"})
+    public int writeBackoff;
+
+    IntMap map;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.map = switch (this.impl) {
+            case "SeqLock" -> new OpenHashIntMap(new SingleWriterMultiReaderIntObjectOpenHashMapSeqLock<>());
+            case "FullSearch" -> new OpenHashIntMap(new SingleWriterMultiWriterIntObjectOpenHashMapFullSearch<>());
+            case "Concurrent" -> new ConcurrentIntMap();
+            case "ConcurrentHashMap" -> new BoxedIntMap();
+            default -> throw new IllegalArgumentException("Unknown implementation: " + this.impl);
+        };
+
+        for (int i = 0; i < this.keys; i += 2) {
+            this.map.put(i, Boolean.TRUE);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadKeys {
+        SplittableRandom random;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            this.random = new SplittableRandom(Thread.currentThread().getId());
+        }
+
+        int next(final int bound) {
+            return this.random.nextInt(bound);
+        }
+    }
+
+    private void doWrite(final ThreadKeys keys, final Blackhole blackhole) {
+        final int key = keys.next(this.keys);
+        if ((key & 1) == 0) {
+            blackhole.consume(this.map.put(key, Boolean.TRUE));
+        } else {
+            if (this.map.remove(key) == null) {
+                this.map.put(key, Boolean.TRUE);
+            }
+        }
+        if (this.writeBackoff != 0) {
+            Blackhole.consumeCPU(this.writeBackoff);
+        }
+    }
+
+    private Object doRead(final ThreadKeys keys) {
+        return this.map.get(keys.next(this.keys));
+    }
+
+    @Benchmark
+    @Group("readers1")
+    @GroupThreads(1)
+    public void readers1Write(final ThreadKeys keys, final Blackhole blackhole) {
+        this.doWrite(keys, blackhole);
+    }
+
+    @Benchmark
+    @Group("readers1")
+    @GroupThreads(1)
+    public Object readers1Read(final ThreadKeys keys) {
+        return this.doRead(keys);
+    }
+
+    @Benchmark
+    @Group("readers3")
+    @GroupThreads(1)
+    public void readers3Write(final ThreadKeys keys, final Blackhole blackhole) {
+        this.doWrite(keys, blackhole);
+    }
+
+    @Benchmark
+    @Group("readers3")
+    @GroupThreads(3)
+    public Object readers3Read(final ThreadKeys keys) {
+        return this.doRead(keys);
+    }
+
+    @Benchmark
+    @Group("readers7")
+    @GroupThreads(1)
+    public void readers7Write(final ThreadKeys keys, final Blackhole blackhole) {
+        this.doWrite(keys, blackhole);
+    }
+
+    @Benchmark
+    @Group("readers7")
+    @GroupThreads(7)
+    public Object readers7Read(final ThreadKeys keys) {
+        return this.doRead(keys);
+    }
+
+    interface IntMap {
+        Object get(final int key);
+        Object put(final int key, final Object value);
+        Object remove(final int key);
+    }
+
+    static final class OpenHashIntMap implements IntMap {
+        private final SingleWriterMultiReaderIntObjectOpenHashMap<Object> map;
+
+        OpenHashIntMap(final SingleWriterMultiReaderIntObjectOpenHashMap<Object> map) {
+            this.map = map;
+        }
+
+        @Override
+        public Object get(final int key) {
+            return this.map.get(key);
+        }
+
+        @Override
+        public Object put(final int key, final Object value) {
+            return this.map.put(key, value);
+        }
+
+        @Override
+        public Object remove(final int key) {
+            return this.map.remove(key);
+        }
+    }
+
+    static final class ConcurrentIntMap implements IntMap {
+        private final ConcurrentIntObjectOpenHashMap<Object> map = new ConcurrentIntObjectOpenHashMap<>();
+
+        @Override
+        public Object get(final int key) {
+            return this.map.get(key);
+        }
+
+        @Override
+        public Object put(final int key, final Object value) {
+            return this.map.put(key, value);
+        }
+
+        @Override
+        public Object remove(final int key) {
+            return this.map.remove(key);
+        }
+    }
+
+    static final class BoxedIntMap implements IntMap {
+        private final ConcurrentHashMap<Integer, Object> map = new ConcurrentHashMap<>();
+
+        @Override
+        public Object get(final int key) {
+            return this.map.get(key);
+        }
+
+        @Override
+        public Object put(final int key, final Object value) {
+            return this.map.put(key, value);
+        }
+
+        @Override
+        public Object remove(final int key) {
+            return this.map.remove(key);
+        }
+    }
+}
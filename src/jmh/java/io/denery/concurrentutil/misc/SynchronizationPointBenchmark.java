@@ -0,0 +1,98 @@
+package io.denery.concurrentutil.misc;
+
+import ca.spottedleaf.concurrentutil.misc.SpinParkStrategy;
+import ca.spottedleaf.concurrentutil.misc.SynchronizationPoint;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares {@link SynchronizationPoint#enter(int)} against {@link Phaser#arriveAndAwaitAdvance()} and
+ * {@link CyclicBarrier#await()}, where every operation is one barrier crossing by every thread.
+ * <p>
+ * Every thread must cross the same number of barriers or the benchmark hangs, so the iterations run a fixed batch
+ * of {@link #BATCH_SIZE} operations rather than a fixed time. Thread counts are set by {@code -t}.
+ * <p>
+ * {@link #waitStrategy} selects the {@link SpinParkStrategy} of the synchronization point, it has no effect on the
+ * other barriers. Spinning only helps with fewer threads than cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, batchSize = SynchronizationPointBenchmark.BATCH_SIZE)
+@Measurement(iterations = 10, batchSize = SynchronizationPointBenchmark.BATCH_SIZE)
+@Threads(4)
+public class SynchronizationPointBenchmark {
+
+    public static final int BATCH_SIZE = 10_000;
+
+    @Param({"SynchronizationPoint", "Phaser", "CyclicBarrier"})
+    public String impl;
+
+    @Param({"park", "spinThenPark"})
+    public String waitStrategy;
+
+    SynchronizationPoint point;
+    Phaser phaser;
+    CyclicBarrier barrier;
+
+    /* the synchronization point needs every thread up front, so it is created once all threads have set up */
+    Thread[] threads;
+    final AtomicInteger nextId = new AtomicInteger();
+    CyclicBarrier setupBarrier;
+
+    @Setup(Level.Trial)
+    public void setup(final BenchmarkParams params) {
+        final int threads = params.getThreads();
+        final SpinParkStrategy strategy = switch (this.waitStrategy) {
+            case "park" -> SpinParkStrategy.defaultStrategy();
+            case "spinThenPark" -> SpinParkStrategy.spinThenPark(50L * 1000L);
+            default -> throw new IllegalArgumentException("Unknown wait strategy: " + this.waitStrategy);
+        };
+
+        this.threads = new Thread[threads];
+        this.nextId.set(0);
+        this.setupBarrier = new CyclicBarrier(threads, () -> {
+            this.point = new SynchronizationPoint(this.threads, SynchronizationPoint.DEFAULT_FAN_IN, threads, strategy);
+        });
+        this.phaser = new Phaser(threads);
+        this.barrier = new CyclicBarrier(threads);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+
+        int id;
+
+        @Setup(Level.Trial)
+        public void setup(final SynchronizationPointBenchmark benchmark) throws Exception {
+            this.id = benchmark.nextId.getAndIncrement();
+            benchmark.threads[this.id] = Thread.currentThread();
+            benchmark.setupBarrier.await();
+            if (benchmark.impl.equals("SynchronizationPoint")) {
+                benchmark.point.start(this.id);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown(final SynchronizationPointBenchmark benchmark) {
+            if (benchmark.impl.equals("SynchronizationPoint")) {
+                benchmark.point.end(this.id);
+            }
+        }
+    }
+
+    @Benchmark
+    public void await(final ThreadState state) throws Exception {
+        switch (this.impl) {
+            case "SynchronizationPoint" -> this.point.enter(state.id);
+            case "Phaser" -> this.phaser.arriveAndAwaitAdvance();
+            case "CyclicBarrier" -> this.barrier.await();
+            default -> throw new IllegalArgumentException("Unknown implementation: " + this.impl);
+        }
+    }
+}
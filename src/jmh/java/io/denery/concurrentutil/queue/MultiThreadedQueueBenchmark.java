@@ -0,0 +1,133 @@
+package io.denery.concurrentutil.queue;
+
+import ca.spottedleaf.concurrentutil.queue.MultiThreadedArrayQueue;
+import ca.spottedleaf.concurrentutil.queue.MultiThreadedQueue;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link MultiThreadedQueue} and the bounded {@link MultiThreadedArrayQueue} against {@link ConcurrentLinkedQueue}
+ * under varying producer/consumer counts.
+ * <p>
+ * Group names are {@code pXcY}, X producers and Y consumers; {@code -tg X,Y} measures any other combination.
+ * Consumers that find the queue empty are counted as {@code emptyPolls} so that an unbalanced configuration does not
+ * report inflated consumer throughput.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MultiThreadedQueueBenchmark {
+
+    private static final Object ELEMENT = new Object();
+
+    /* producers stop adding once the queue reaches this size, otherwise a slow consumer will exhaust the heap */
+    private static final int MAX_BACKLOG = 1 << 16;
+
+    @Param({"MultiThreadedQueue", "MultiThreadedArrayQueue", "ConcurrentLinkedQueue"})
+    public String impl;
+
+    Queue<Object> queue;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        this.queue = switch (this.impl) {
+            case "MultiThreadedQueue" -> new MultiThreadedQueue<>();
+            case "MultiThreadedArrayQueue" -> new MultiThreadedArrayQueue<>(MAX_BACKLOG);
+            case "ConcurrentLinkedQueue" -> new ConcurrentLinkedQueue<>();
+            default -> throw new IllegalArgumentException("Unknown implementation: " + this.impl);
+        };
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class PollCounters {
+        public long emptyPolls;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.emptyPolls = 0L;
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class OfferCounters {
+        public long fullOffers;
+        int offers;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.fullOffers = 0L;
+            this.offers = 0;
+        }
+    }
+
+    private void doOffer(final OfferCounters counters) {
+        // size() is O(n) on the linked implementations, so the backlog is only sampled
+        if ((++counters.offers & 1023) == 0 && this.queue.size() >= MAX_BACKLOG) {
+            ++counters.fullOffers;
+            Blackhole.consumeCPU(1024L);
+            return;
+        }
+        if (!this.queue.offer(ELEMENT)) {
+            // the array queue is bounded by MAX_BACKLOG
+            ++counters.fullOffers;
+        }
+    }
+
+    private Object doPoll(final PollCounters counters) {
+        final Object ret = this.queue.poll();
+        if (ret == null) {
+            ++counters.emptyPolls;
+        }
+        return ret;
+    }
+
+    @Benchmark
+    @Group("p1c1")
+    @GroupThreads(1)
+    public void p1c1Offer(final OfferCounters counters) {
+        this.doOffer(counters);
+    }
+
+    @Benchmark
+    @Group("p1c1")
+    @GroupThreads(1)
+    public Object p1c1Poll(final PollCounters counters) {
+        return this.doPoll(counters);
+    }
+
+    @Benchmark
+    @Group("p3c1")
+    @GroupThreads(3)
+    public void p3c1Offer(final OfferCounters counters) {
+        this.doOffer(counters);
+    }
+
+    @Benchmark
+    @Group("p3c1")
+    @GroupThreads(1)
+    public Object p3c1Poll(final PollCounters counters) {
+        return this.doPoll(counters);
+    }
+
+    @Benchmark
+    @Group("p4c4")
+    @GroupThreads(4)
+    public void p4c4Offer(final OfferCounters counters) {
+        this.doOffer(counters);
+    }
+
+    @Benchmark
+    @Group("p4c4")
+    @GroupThreads(4)
+    public Object p4c4Poll(final PollCounters counters) {
+        return this.doPoll(counters);
+    }
+}
@@ -0,0 +1,145 @@
+package io.denery.concurrentutil.set;
+
+import ca.spottedleaf.concurrentutil.set.ConcurrentBitSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Compares the {@link ConcurrentBitSet} implementations against a bitset built on {@link AtomicLongArray}.
+ * <p>
+ * Every operation is a read with probability {@link #readPercent}, otherwise a flip. The {@code threadsN} benchmarks
+ * sweep thread counts, {@code -t N} measures any other amount.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ConcurrentBitSetBenchmark {
+
+    @Param({"SmallConcurrentBitSet", "LargeConcurrentBitset", "ContendedConcurrentBitSet", "FastLargeConcurrentBitset", "OffHeapConcurrentBitSet", "HierarchicalConcurrentBitSet", "AtomicLongArray"})
+    public String impl;
+
+    /* small bitsets only support up to 64 bits */
+    @Param({"64", "4096"})
+    public int bits;
+
+    @Param({"50", "90", "99"})
+    public int readPercent;
+
+    /* only affects the implementations supporting a population counter */
+    @Param({"false", "true"})
+    public boolean countOnBits;
+
+    BitSet set;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.set = switch (this.impl) {
+            case "SmallConcurrentBitSet" -> new WrappedBitSet(new ConcurrentBitSet.SmallConcurrentBitSet(Math.min(64, this.bits)));
+            case "LargeConcurrentBitset" -> new WrappedBitSet(new ConcurrentBitSet.LargeConcurrentBitset(this.bits, this.countOnBits));
+            case "ContendedConcurrentBitSet" -> new WrappedBitSet(new ConcurrentBitSet.ContendedConcurrentBitSet(this.bits, Long.SIZE, this.countOnBits));
+            case "FastLargeConcurrentBitset" -> new WrappedBitSet(new ConcurrentBitSet.FastLargeConcurrentBitset(this.bits, this.countOnBits));
+            case "OffHeapConcurrentBitSet" -> new WrappedBitSet(new ConcurrentBitSet.OffHeapConcurrentBitSet(this.bits, this.countOnBits));
+            case "HierarchicalConcurrentBitSet" -> new WrappedBitSet(new ConcurrentBitSet.HierarchicalConcurrentBitSet(this.bits));
+            case "AtomicLongArray" -> new AtomicLongArrayBitSet(this.bits);
+            default -> throw new IllegalArgumentException("Unknown implementation: " + this.impl);
+        };
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadBits {
+        SplittableRandom random;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            this.random = new SplittableRandom(Thread.currentThread().getId());
+        }
+    }
+
+    private boolean doOperation(final ThreadBits threadBits) {
+        final SplittableRandom random = threadBits.random;
+        final int bit = random.nextInt(Math.min(this.bits, this.set.totalBits()));
+        if (random.nextInt(100) < this.readPercent) {
+            return this.set.get(bit);
+        }
+        return this.set.flip(bit);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean threads1(final ThreadBits threadBits) {
+        return this.doOperation(threadBits);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean threads4(final ThreadBits threadBits) {
+        return this.doOperation(threadBits);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean threads8(final ThreadBits threadBits) {
+        return this.doOperation(threadBits);
+    }
+
+    interface BitSet {
+        int totalBits();
+        boolean get(final int bit);
+        boolean flip(final int bit);
+    }
+
+    static final class WrappedBitSet implements BitSet {
+        private final ConcurrentBitSet set;
+
+        WrappedBitSet(final ConcurrentBitSet set) {
+            this.set = set;
+        }
+
+        @Override
+        public int totalBits() {
+            return this.set.totalBits();
+        }
+
+        @Override
+        public boolean get(final int bit) {
+            return this.set.get(bit);
+        }
+
+        @Override
+        public boolean flip(final int bit) {
+            return this.set.flip(bit);
+        }
+    }
+
+    static final class AtomicLongArrayBitSet implements BitSet {
+        private final AtomicLongArray words;
+        private final int bits;
+
+        AtomicLongArrayBitSet(final int bits) {
+            this.words = new AtomicLongArray((bits + (Long.SIZE - 1)) >>> 6);
+            this.bits = bits;
+        }
+
+        @Override
+        public int totalBits() {
+            return this.bits;
+        }
+
+        @Override
+        public boolean get(final int bit) {
+            return (this.words.get(bit >>> 6) & (1L << bit)) != 0L;
+        }
+
+        @Override
+        public boolean flip(final int bit) {
+            final long mask = 1L << bit;
+            // AtomicLongArray has no xor, so this is a CAS loop unlike ConcurrentBitSet#flip
+            return (this.words.getAndAccumulate(bit >>> 6, mask, (prev, x) -> prev ^ x) & mask) != 0L;
+        }
+    }
+}
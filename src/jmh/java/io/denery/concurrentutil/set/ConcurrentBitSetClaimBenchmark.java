@@ -0,0 +1,63 @@
+package io.denery.concurrentutil.set;
+
+import ca.spottedleaf.concurrentutil.set.ConcurrentBitSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ConcurrentBitSet} as a slot allocator. Each operation claims the first free slot with
+ * {@link ConcurrentBitSet#claimNextClearBit()} and releases it again.
+ * <p>
+ * The first {@link #fillPercent} percent of the bits are ON before measuring, so the linear search of
+ * {@link ConcurrentBitSet.LargeConcurrentBitset} has to read every word in front of the free slots, while
+ * {@link ConcurrentBitSet.HierarchicalConcurrentBitSet} skips them using its summaries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ConcurrentBitSetClaimBenchmark {
+
+    @Param({"LargeConcurrentBitset", "HierarchicalConcurrentBitSet"})
+    public String impl;
+
+    @Param({"4096", "1048576", "67108864"})
+    public int bits;
+
+    @Param({"0", "50", "99"})
+    public int fillPercent;
+
+    ConcurrentBitSet set;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.set = switch (this.impl) {
+            case "LargeConcurrentBitset" -> new ConcurrentBitSet.LargeConcurrentBitset(this.bits);
+            case "HierarchicalConcurrentBitSet" -> new ConcurrentBitSet.HierarchicalConcurrentBitSet(this.bits);
+            default -> throw new IllegalArgumentException("Unknown implementation: " + this.impl);
+        };
+        this.set.setRange(0, (int)((long)this.bits * this.fillPercent / 100L));
+    }
+
+    private int claimAndRelease() {
+        final int slot = this.set.claimNextClearBit();
+        if (slot >= 0) {
+            this.set.setOff(slot);
+        }
+        return slot;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int threads1() {
+        return this.claimAndRelease();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int threads4() {
+        return this.claimAndRelease();
+    }
+}
@@ -0,0 +1,404 @@
+package ca.spottedleaf.concurrentutil.lock;
+
+import ca.spottedleaf.concurrentutil.ConcurrentUtil;
+import ca.spottedleaf.concurrentutil.util.Validate;
+
+import java.lang.invoke.VarHandle;
+
+/* both readers and writers write the lock state, so it is padded away from anything else in the heap */
+abstract class ReadWriteSeqLockPad0 {
+    byte p000, p001, p002, p003, p004, p005, p006, p007, p008, p009, p010, p011, p012, p013, p014, p015;
+    byte p016, p017, p018, p019, p020, p021, p022, p023, p024, p025, p026, p027, p028, p029, p030, p031;
+    byte p032, p033, p034, p035, p036, p037, p038, p039, p040, p041, p042, p043, p044, p045, p046, p047;
+    byte p048, p049, p050, p051, p052, p053, p054, p055, p056, p057, p058, p059, p060, p061, p062, p063;
+    byte p064, p065, p066, p067, p068, p069, p070, p071, p072, p073, p074, p075, p076, p077, p078, p079;
+}
+
+abstract class ReadWriteSeqLockState extends ReadWriteSeqLockPad0 {
+    protected volatile long state;
+}
+
+abstract class ReadWriteSeqLockPad1 extends ReadWriteSeqLockState {
+    byte p100, p101, p102, p103, p104, p105, p106, p107, p108, p109, p110, p111, p112, p113, p114, p115;
+    byte p116, p117, p118, p119, p120, p121, p122, p123, p124, p125, p126, p127, p128, p129, p130, p131;
+    byte p132, p133, p134, p135, p136, p137, p138, p139, p140, p141, p142, p143, p144, p145, p146, p147;
+    byte p148, p149, p150, p151, p152, p153, p154, p155, p156, p157, p158, p159, p160, p161, p162, p163;
+    byte p164, p165, p166, p167, p168, p169, p170, p171, p172, p173, p174, p175, p176, p177, p178, p179;
+}
+
+/**
+ * SeqLock implementation which, in addition to optimistic reads, offers a pessimistic shared read mode and conversions
+ * between the read and write modes, similar to {@link java.util.concurrent.locks.StampedLock}.
+ *
+ * <p>
+ * The lock state is a single long. The low 32 bits are the sequential counter, which behaves exactly as the counter of
+ * {@link VolatileSeqLock}, and the high 32 bits are the number of shared readers. Shared readers do not modify
+ * the sequential counter, so they do not invalidate optimistic reads. Writers cannot acquire the write lock while
+ * any shared reader holds the lock, and shared readers cannot acquire the lock while a writer holds it.
+ * </p>
+ *
+ * <p>
+ * Shared reads allow readers which repeatedly fail {@link #tryReleaseRead(int)} under heavy writes to bound their
+ * retries, for example:
+ * </p>
+ * <pre>
+ *     int computeValue() {
+ *         for (int failures = 0; failures &lt; MAX_OPTIMISTIC_FAILURES; ++failures) {
+ *             final int lock = this.seqlock.acquireRead();
+ *             final int r1 = this.r1;
+ *             final int r2 = this.r2;
+ *             if (this.seqlock.tryReleaseRead(lock)) {
+ *                 return r1 * r2;
+ *             }
+ *         }
+ *
+ *         this.seqlock.acquireShared();
+ *         try {
+ *             return this.r1 * this.r2;
+ *         } finally {
+ *             this.seqlock.releaseShared();
+ *         }
+ *     }
+ * </pre>
+ *
+ * <p>
+ * All accesses to the lock state are volatile. Multiple threads can attempt to acquire the write lock concurrently.
+ * This lock does not prefer writers, so a continuous stream of overlapping shared readers can starve writers.
+ * </p>
+ *
+ * <p>
+ * Like other SeqLocks, this lock is not re-entrant.
+ * </p>
+ * @see SeqLock
+ * @see VolatileSeqLock
+ */
+public final class ReadWriteSeqLock extends ReadWriteSeqLockPad1 implements SeqLock {
+
+    protected static final long READER_UNIT = 1L << 32;
+    protected static final long COUNTER_MASK = 0xFFFFFFFFL;
+    protected static final int MAX_READERS = Integer.MAX_VALUE;
+
+    protected final SeqLockWaitStrategy waitStrategy;
+
+    protected static final VarHandle STATE_HANDLE = ConcurrentUtil.getVarHandle(ReadWriteSeqLock.class, "state", long.class);
+
+    protected final long getStatePlain() {
+        return (long)STATE_HANDLE.get(this);
+    }
+
+    protected final long getStateVolatile() {
+        return (long)STATE_HANDLE.getVolatile(this);
+    }
+
+    protected final long compareAndExchangeStateVolatile(final long expect, final long update) {
+        return (long)STATE_HANDLE.compareAndExchange(this, expect, update);
+    }
+
+    protected final long getAndAddStateVolatile(final long param) {
+        return (long)STATE_HANDLE.getAndAdd(this, param);
+    }
+
+    protected final void setStateVolatile(final long param) {
+        STATE_HANDLE.setVolatile(this, param);
+    }
+
+    protected static int getCounter(final long state) {
+        return (int)state;
+    }
+
+    protected static int getReaders(final long state) {
+        return (int)(state >>> 32);
+    }
+
+    /**
+     * Constructs a new ReadWriteSeqLock using the {@link SeqLockWaitStrategy#defaultStrategy() default} wait strategy.
+     */
+    public ReadWriteSeqLock() {
+        this(SeqLockWaitStrategy.defaultStrategy());
+    }
+
+    /**
+     * Constructs a new ReadWriteSeqLock using the specified wait strategy.
+     * @param waitStrategy The strategy used by threads waiting for the lock.
+     */
+    public ReadWriteSeqLock(final SeqLockWaitStrategy waitStrategy) {
+        Validate.notNull(waitStrategy, "Null wait strategy");
+        this.waitStrategy = waitStrategy;
+        VarHandle.storeStoreFence();
+    }
+
+    /**
+     * Returns the wait strategy used by this lock.
+     * @return The wait strategy.
+     */
+    public SeqLockWaitStrategy getWaitStrategy() {
+        return this.waitStrategy;
+    }
+
+    /**
+     * This function has undefined behaviour if the current thread owns the write lock or a shared read lock.
+     * <p>
+     * Eventually acquires the write lock, waiting for both writers and shared readers to release the lock.
+     * The write to the sequential counter is volatile.
+     * </p>
+     */
+    @Override
+    public void acquireWrite() {
+        int failures = 0;
+
+        for (long curr = this.getStateVolatile();;) {
+            if (getReaders(curr) == 0 && this.canRead(getCounter(curr))) {
+                if (curr == (curr = this.compareAndExchangeStateVolatile(curr, curr | 1L))) {
+                    this.waitStrategy.onAcquireWrite(this);
+                    return;
+                }
+            }
+
+            /* waiting on shared readers leaves the counter even, which strategies treat as contention */
+            this.waitStrategy.await(this, getCounter(curr), ++failures);
+            curr = this.getStateVolatile();
+        }
+    }
+
+    /**
+     * This function has undefined behaviour if the current thread owns the write lock or a shared read lock.
+     * <p>
+     * Attempts to acquire the write lock. Fails if a writer or any shared reader holds the lock. The write
+     * to the sequential counter, if any, is volatile.
+     * </p>
+     * @return {@inheritDoc}
+     */
+    @Override
+    public boolean tryAcquireWrite() {
+        final long curr = this.getStateVolatile();
+        if (getReaders(curr) == 0 && this.canRead(getCounter(curr)) && curr == this.compareAndExchangeStateVolatile(curr, curr | 1L)) {
+            this.waitStrategy.onAcquireWrite(this);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * This function has undefined behaviour if the current thread does not own the write lock.
+     * <p>
+     * Increments the sequential counter indicating a write has completed. The write to the sequential counter
+     * is volatile.
+     * </p>
+     */
+    @Override
+    public void releaseWrite() {
+        this.waitStrategy.onBeforeReleaseWrite(this);
+        /* no shared readers may exist while the write lock is held */
+        this.setStateVolatile((this.getStatePlain() + 1L) & COUNTER_MASK);
+        this.waitStrategy.onReleaseWrite(this);
+    }
+
+    /**
+     * This function has undefined behaviour if the current thread does not own the write lock.
+     * <p>
+     * Decrements the sequential counter indicating a write has not occurred. The write to the sequential counter
+     * is volatile.
+     * </p>
+     */
+    @Override
+    public void abortWrite() {
+        this.waitStrategy.onBeforeReleaseWrite(this);
+        this.setStateVolatile(this.getStatePlain() ^ 1L);
+        this.waitStrategy.onReleaseWrite(this);
+    }
+
+    /**
+     * This function has undefined behaviour if the current thread already owns a read lock.
+     * <p>
+     * Eventually acquires the optimistic read lock and returns an even sequential counter. Shared readers do not
+     * prevent optimistic reads. The counter is read with volatile access.
+     * </p>
+     * @return {@inheritDoc}
+     */
+    @Override
+    public int acquireRead() {
+        int failures = 0;
+        int curr;
+
+        for (curr = getCounter(this.getStateVolatile()); !this.canRead(curr); curr = getCounter(this.getStateVolatile())) {
+            this.waitStrategy.await(this, curr, ++failures);
+        }
+
+        return curr;
+    }
+
+    /**
+     * This function has undefined behaviour if the current thread does own a read lock.
+     * <p>
+     * Checks if the current sequential counter is equal to the specified counter. The counter is
+     * read with volatile access.
+     * </p>
+     * @param read {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    public boolean tryReleaseRead(final int read) {
+        return getCounter(this.getStateVolatile()) == read;
+    }
+
+    /**
+     * Returns the sequential counter accessed with volatile semantics.
+     */
+    @Override
+    public int getSequentialCounter() {
+        return getCounter(this.getStateVolatile());
+    }
+
+    /**
+     * Returns the number of threads holding a shared read lock, accessed with volatile semantics.
+     * @return The number of shared readers.
+     */
+    public int getSharedReaders() {
+        return getReaders(this.getStateVolatile());
+    }
+
+    /**
+     * This function has undefined behaviour if the current thread owns the write lock.
+     * <p>
+     * Eventually acquires a shared read lock, waiting for any writer to release the write lock. While any shared read
+     * lock is held, the shared variables cannot be modified. The lock state is accessed with volatile semantics.
+     * </p>
+     * @return The even sequential counter at the time of acquire.
+     * @throws IllegalStateException If the maximum number of shared readers would be exceeded.
+     */
+    public int acquireShared() {
+        int failures = 0;
+
+        for (long curr = this.getStateVolatile();;) {
+            final int counter = getCounter(curr);
+            if (this.canRead(counter)) {
+                if (getReaders(curr) == MAX_READERS) {
+                    throw new IllegalStateException("Shared reader count overflow");
+                }
+                if (curr == (curr = this.compareAndExchangeStateVolatile(curr, curr + READER_UNIT))) {
+                    return counter;
+                }
+                continue;
+            }
+
+            this.waitStrategy.await(this, counter, ++failures);
+            curr = this.getStateVolatile();
+        }
+    }
+
+    /**
+     * This function has undefined behaviour if the current thread owns the write lock.
+     * <p>
+     * Attempts to acquire a shared read lock. Fails only if a writer holds the lock.
+     * The lock state is accessed with volatile semantics.
+     * </p>
+     * @return {@code true} if the shared read lock was acquired, {@code false} otherwise.
+     * @throws IllegalStateException If the maximum number of shared readers would be exceeded.
+     */
+    public boolean tryAcquireShared() {
+        for (long curr = this.getStateVolatile();;) {
+            if (!this.canRead(getCounter(curr))) {
+                return false;
+            }
+            if (getReaders(curr) == MAX_READERS) {
+                throw new IllegalStateException("Shared reader count overflow");
+            }
+            if (curr == (curr = this.compareAndExchangeStateVolatile(curr, curr + READER_UNIT))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * This function has undefined behaviour if the current thread does not own a shared read lock.
+     * <p>
+     * Releases a shared read lock. The lock state is accessed with volatile semantics.
+     * </p>
+     */
+    public void releaseShared() {
+        this.getAndAddStateVolatile(-READER_UNIT);
+    }
+
+    /**
+     * This function has undefined behaviour if the current thread does not own a shared read lock.
+     * <p>
+     * Attempts to convert the current thread's shared read lock into the write lock. This succeeds only if the current
+     * thread is the only shared reader. If this function fails, the shared read lock is still held.
+     * </p>
+     * @return {@code true} if the shared read lock was converted into the write lock, {@code false} otherwise.
+     */
+    public boolean tryUpgrade() {
+        for (long curr = this.getStateVolatile(); getReaders(curr) == 1;) {
+            /* the counter must be even, as a shared read lock is held */
+            if (curr == (curr = this.compareAndExchangeStateVolatile(curr, (curr & COUNTER_MASK) | 1L))) {
+                this.waitStrategy.onAcquireWrite(this);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * This function has undefined behaviour if the current thread does not own the write lock.
+     * <p>
+     * Atomically releases the write lock, indicating a write has completed, and acquires a shared read lock.
+     * No writer may modify the shared variables between the release and the acquire.
+     * </p>
+     * @return The even sequential counter after the write was released.
+     */
+    public int downgrade() {
+        this.waitStrategy.onBeforeReleaseWrite(this);
+        final int counter = getCounter(this.getStatePlain()) + 1;
+        this.setStateVolatile(READER_UNIT | ((long)counter & COUNTER_MASK));
+        this.waitStrategy.onReleaseWrite(this);
+        return counter;
+    }
+
+    /**
+     * This function has undefined behaviour if the current thread owns the write lock or a shared read lock.
+     * <p>
+     * Attempts to convert an optimistic read lock, as returned by {@link #acquireRead()}, into the write lock. This
+     * succeeds only if no write has occurred since the read lock was acquired and no shared readers hold the lock.
+     * If this function succeeds, every read made under the optimistic read lock is valid.
+     * </p>
+     * @param read The sequential counter returned by {@link #acquireRead()}.
+     * @return {@code true} if the write lock was acquired, {@code false} otherwise.
+     */
+    public boolean tryConvertToWrite(final int read) {
+        final long expect = (long)read & COUNTER_MASK;
+        if (this.canRead(read) && expect == this.compareAndExchangeStateVolatile(expect, expect | 1L)) {
+            this.waitStrategy.onAcquireWrite(this);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * This function has undefined behaviour if the current thread owns the write lock or a shared read lock.
+     * <p>
+     * Attempts to convert an optimistic read lock, as returned by {@link #acquireRead()}, into a shared read lock.
+     * This succeeds only if no write has occurred since the read lock was acquired. If this function succeeds,
+     * every read made under the optimistic read lock is valid.
+     * </p>
+     * @param read The sequential counter returned by {@link #acquireRead()}.
+     * @return {@code true} if the shared read lock was acquired, {@code false} otherwise.
+     * @throws IllegalStateException If the maximum number of shared readers would be exceeded.
+     */
+    public boolean tryConvertToShared(final int read) {
+        for (long curr = this.getStateVolatile(); getCounter(curr) == read;) {
+            if (getReaders(curr) == MAX_READERS) {
+                throw new IllegalStateException("Shared reader count overflow");
+            }
+            if (curr == (curr = this.compareAndExchangeStateVolatile(curr, curr + READER_UNIT))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        final long state = this.getStateVolatile();
+        return "ReadWriteSeqLock{counter=" + getCounter(state) + ", sharedReaders=" + getReaders(state) + "}";
+    }
+}
@@ -0,0 +1,369 @@
+package ca.spottedleaf.concurrentutil.lock;
+
+import ca.spottedleaf.concurrentutil.ConcurrentUtil;
+import ca.spottedleaf.concurrentutil.util.ArrayUtil;
+import ca.spottedleaf.concurrentutil.util.IntegerUtil;
+import ca.spottedleaf.concurrentutil.util.Validate;
+
+import java.lang.invoke.VarHandle;
+
+/*
+ * The sequential counter and the read bias are each padded onto their own cache line, as writers update the
+ * counter twice per write while every reader reads the bias.
+ */
+abstract class ReaderBiasedSeqLockPad0 {
+    byte p000, p001, p002, p003, p004, p005, p006, p007, p008, p009, p010, p011, p012, p013, p014, p015;
+    byte p016, p017, p018, p019, p020, p021, p022, p023, p024, p025, p026, p027, p028, p029, p030, p031;
+    byte p032, p033, p034, p035, p036, p037, p038, p039, p040, p041, p042, p043, p044, p045, p046, p047;
+    byte p048, p049, p050, p051, p052, p053, p054, p055, p056, p057, p058, p059, p060, p061, p062, p063;
+    byte p064, p065, p066, p067, p068, p069, p070, p071, p072, p073, p074, p075, p076, p077, p078, p079;
+}
+
+abstract class ReaderBiasedSeqLockLock extends ReaderBiasedSeqLockPad0 {
+    protected volatile int lock;
+}
+
+abstract class ReaderBiasedSeqLockPad1 extends ReaderBiasedSeqLockLock {
+    byte p100, p101, p102, p103, p104, p105, p106, p107, p108, p109, p110, p111, p112, p113, p114, p115;
+    byte p116, p117, p118, p119, p120, p121, p122, p123, p124, p125, p126, p127, p128, p129, p130, p131;
+    byte p132, p133, p134, p135, p136, p137, p138, p139, p140, p141, p142, p143, p144, p145, p146, p147;
+    byte p148, p149, p150, p151, p152, p153, p154, p155, p156, p157, p158, p159, p160, p161, p162, p163;
+    byte p164, p165, p166, p167, p168, p169, p170, p171, p172, p173, p174, p175, p176, p177, p178, p179;
+}
+
+abstract class ReaderBiasedSeqLockBias extends ReaderBiasedSeqLockPad1 {
+    protected volatile boolean readBias;
+    /* only accessed while holding the write lock */
+    protected long inhibitUntil;
+}
+
+abstract class ReaderBiasedSeqLockPad2 extends ReaderBiasedSeqLockBias {
+    byte p200, p201, p202, p203, p204, p205, p206, p207, p208, p209, p210, p211, p212, p213, p214, p215;
+    byte p216, p217, p218, p219, p220, p221, p222, p223, p224, p225, p226, p227, p228, p229, p230, p231;
+    byte p232, p233, p234, p235, p236, p237, p238, p239, p240, p241, p242, p243, p244, p245, p246, p247;
+    byte p248, p249, p250, p251, p252, p253, p254, p255, p256, p257, p258, p259, p260, p261, p262, p263;
+    byte p264, p265, p266, p267, p268, p269, p270, p271, p272, p273, p274, p275, p276, p277, p278, p279;
+}
+
+/**
+ * SeqLock implementation biased towards readers, for read-mostly data such as configuration tables.
+ *
+ * <p>
+ * While the lock is read-biased, readers do not touch the sequential counter. Instead, a reader increments one of
+ * several striped reader indicators, each on its own {@link ConcurrentUtil#CACHE_LINE_SIZE cache line}, selected
+ * by a hash of the reading thread. The reader then checks that the lock is still read-biased and reads the shared
+ * variables. Since a writer waits for all reader indicators to drain before writing, such reads are always valid,
+ * and {@link #tryReleaseRead(int)} only decrements the indicator. Readers on different cores therefore share no
+ * written cache lines, and read throughput scales with the number of cores.
+ * </p>
+ *
+ * <p>
+ * A writer acquires the sequential counter as {@link VolatileSeqLock} does, then revokes the read bias by clearing
+ * the bias flag and waiting for every reader indicator to become zero. While the bias is revoked, readers use
+ * the sequential counter as {@link VolatileSeqLock} readers do. Revocation is expensive, so the bias is only
+ * restored by a releasing writer once {@link #INHIBIT_MULTIPLIER} times the duration of the last revocation has passed.
+ * Frequent writers therefore keep the lock in the unbiased mode.
+ * </p>
+ *
+ * <p>
+ * A revoking writer waits for the reader indicators with the wait strategy of this lock, as if it had lost a race for
+ * the write lock. Readers do not wake the writer when they release, so strategies which park, such as
+ * {@link SeqLockWaitStrategy#spinThenPark(int)}, yield instead of parking while the bias is revoked.
+ * </p>
+ *
+ * <p>
+ * Read-biased reads return a negative even value from {@link #acquireRead()}, which is only meaningful to
+ * {@link #tryReleaseRead(int)}. The value returned by {@link #getSequentialCounter()} is never negative. Unlike other
+ * SeqLocks, every call to {@link #acquireRead()} <b>must</b> be matched by a call to {@link #tryReleaseRead(int)},
+ * otherwise writers cannot acquire the lock. A reader which throws while reading must still release the read.
+ * </p>
+ *
+ * <p>
+ * Multiple threads can attempt to acquire the write lock concurrently. All accesses to the lock state are volatile.
+ * </p>
+ * @see SeqLock
+ * @see VolatileSeqLock
+ */
+public final class ReaderBiasedSeqLock extends ReaderBiasedSeqLockPad2 implements SeqLock {
+
+    /**
+     * The multiple of the last revocation duration to wait before the read bias is restored.
+     */
+    public static final int INHIBIT_MULTIPLIER = 9;
+
+    protected static final int MAXIMUM_STRIPES = 1 << 16;
+    protected static final int STRIDE = ConcurrentUtil.CACHE_LINE_SIZE / Integer.BYTES;
+    protected static final int BIASED_READ = IntegerUtil.HIGH_BIT_U32;
+
+    /* padded reader indicators, stripe i is at (i + 1) * STRIDE */
+    protected final int[] readers;
+    protected final int stripeMask;
+
+    protected final SeqLockWaitStrategy waitStrategy;
+
+    protected static final VarHandle LOCK_HANDLE = ConcurrentUtil.getVarHandle(ReaderBiasedSeqLock.class, "lock", int.class);
+    protected static final VarHandle READ_BIAS_HANDLE = ConcurrentUtil.getVarHandle(ReaderBiasedSeqLock.class, "readBias", boolean.class);
+
+    protected final int getLockPlain() {
+        return (int)LOCK_HANDLE.get(this);
+    }
+
+    protected final int getLockVolatile() {
+        return (int)LOCK_HANDLE.getVolatile(this);
+    }
+
+    protected final int compareAndExchangeLockVolatile(final int expect, final int update) {
+        return (int)LOCK_HANDLE.compareAndExchange(this, expect, update);
+    }
+
+    protected final void setLockVolatile(final int param) {
+        LOCK_HANDLE.setVolatile(this, param);
+    }
+
+    protected final boolean getReadBiasPlain() {
+        return (boolean)READ_BIAS_HANDLE.get(this);
+    }
+
+    protected final boolean getReadBiasVolatile() {
+        return (boolean)READ_BIAS_HANDLE.getVolatile(this);
+    }
+
+    protected final void setReadBiasVolatile(final boolean param) {
+        READ_BIAS_HANDLE.setVolatile(this, param);
+    }
+
+    /**
+     * Constructs a new ReaderBiasedSeqLock with one reader stripe per available processor, rounded up to a power of two,
+     * using the {@link SeqLockWaitStrategy#defaultStrategy() default} wait strategy.
+     */
+    public ReaderBiasedSeqLock() {
+        this(Runtime.getRuntime().availableProcessors(), SeqLockWaitStrategy.defaultStrategy());
+    }
+
+    /**
+     * Constructs a new ReaderBiasedSeqLock.
+     * @param stripes The number of reader stripes, which is rounded up to a power of two.
+     * @param waitStrategy The strategy used by threads waiting for the write lock to be released, and by writers waiting
+     *                     for read-biased readers to release.
+     * @throws IllegalArgumentException If {@code stripes} is not positive.
+     */
+    public ReaderBiasedSeqLock(final int stripes, final SeqLockWaitStrategy waitStrategy) {
+        Validate.notNull(waitStrategy, "Null wait strategy");
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("Stripes is invalid (<= 0): " + stripes);
+        }
+
+        final int stripeCount = IntegerUtil.roundCeilLog2(Math.min(stripes, MAXIMUM_STRIPES));
+        this.stripeMask = stripeCount - 1;
+        /* leading and trailing padding, to separate the first and last stripes from the array header and whatever follows */
+        this.readers = new int[(stripeCount + 2) * STRIDE];
+        this.waitStrategy = waitStrategy;
+        this.readBias = true;
+        VarHandle.storeStoreFence();
+    }
+
+    /**
+     * Returns the wait strategy used by this lock.
+     * @return The wait strategy.
+     */
+    public SeqLockWaitStrategy getWaitStrategy() {
+        return this.waitStrategy;
+    }
+
+    /**
+     * Returns whether readers currently bypass the sequential counter. The bias is read with volatile access.
+     * @return {@code true} if the lock is read-biased.
+     */
+    public boolean isReadBiased() {
+        return this.getReadBiasVolatile();
+    }
+
+    protected static int getStripeIndex(final int stripe) {
+        return (stripe + 1) * STRIDE;
+    }
+
+    protected final int getCurrentStripe() {
+        return IntegerUtil.hash1((int)Thread.currentThread().getId()) & this.stripeMask;
+    }
+
+    /* must hold the write lock */
+    protected final void revokeBias() {
+        if (!this.getReadBiasPlain()) {
+            return;
+        }
+
+        final long start = System.nanoTime();
+
+        /*
+         * The bias write and the indicator reads below are volatile, as are the indicator increment and the bias read
+         * made by readers. So either a reader observes the revocation, or we observe its indicator.
+         */
+        this.setReadBiasVolatile(false);
+
+        /*
+         * Readers do not wake the writer as they drain, so the strategy is passed an even counter. This tells it the
+         * write lock is not held by another thread, so parking strategies yield rather than park.
+         */
+        final int observed = this.getLockPlain() & ~1;
+        final int[] readers = this.readers;
+        for (int stripe = 0; stripe <= this.stripeMask; ++stripe) {
+            final int index = getStripeIndex(stripe);
+            for (int failures = 0; ArrayUtil.getVolatile(readers, index) != 0;) {
+                this.waitStrategy.await(this, observed, ++failures);
+            }
+        }
+
+        final long end = System.nanoTime();
+        this.inhibitUntil = end + (end - start) * INHIBIT_MULTIPLIER;
+    }
+
+    /* must hold the write lock, and the writes to the shared variables must be complete */
+    protected final void tryRestoreBias() {
+        if (!this.getReadBiasPlain() && System.nanoTime() - this.inhibitUntil >= 0L) {
+            this.setReadBiasVolatile(true);
+        }
+    }
+
+    /**
+     * This function has undefined behaviour if the current thread owns the write lock or a read lock.
+     * <p>
+     * Eventually acquires the write lock, then revokes the read bias if needed and waits for all read-biased readers
+     * to release. The write to the sequential counter is volatile.
+     * </p>
+     */
+    @Override
+    public void acquireWrite() {
+        int failures = 0;
+
+        for (int curr = this.getLockVolatile();;) {
+            if (this.canRead(curr)) {
+                if (curr == (curr = this.compareAndExchangeLockVolatile(curr, curr | 1))) {
+                    this.revokeBias();
+                    this.waitStrategy.onAcquireWrite(this);
+                    return;
+                }
+            }
+
+            this.waitStrategy.await(this, curr, ++failures);
+            curr = this.getLockVolatile();
+        }
+    }
+
+    /**
+     * This function has undefined behaviour if the current thread owns the write lock or a read lock.
+     * <p>
+     * Attempts to acquire the write lock. If the write lock is acquired, this function revokes the read bias if needed
+     * and waits for all read-biased readers to release. The write to the sequential counter, if any, is volatile.
+     * </p>
+     * @return {@inheritDoc}
+     */
+    @Override
+    public boolean tryAcquireWrite() {
+        final int lock = this.getLockVolatile();
+        if (this.canRead(lock) && lock == this.compareAndExchangeLockVolatile(lock, lock | 1)) {
+            this.revokeBias();
+            this.waitStrategy.onAcquireWrite(this);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * This function has undefined behaviour if the current thread does not own the write lock.
+     * <p>
+     * Restores the read bias if the inhibit period has passed, and increments the sequential counter indicating
+     * a write has completed. The write to the sequential counter is volatile.
+     * </p>
+     */
+    @Override
+    public void releaseWrite() {
+        this.waitStrategy.onBeforeReleaseWrite(this);
+        this.tryRestoreBias();
+        /* keep the counter non-negative, so that it cannot be confused with a read-biased read */
+        this.setLockVolatile((this.getLockPlain() + 1) & Integer.MAX_VALUE);
+        this.waitStrategy.onReleaseWrite(this);
+    }
+
+    /**
+     * This function has undefined behaviour if the current thread does not own the write lock.
+     * <p>
+     * Restores the read bias if the inhibit period has passed, and decrements the sequential counter indicating
+     * a write has not occurred. The write to the sequential counter is volatile.
+     * </p>
+     */
+    @Override
+    public void abortWrite() {
+        this.waitStrategy.onBeforeReleaseWrite(this);
+        this.tryRestoreBias();
+        this.setLockVolatile(this.getLockPlain() ^ 1);
+        this.waitStrategy.onReleaseWrite(this);
+    }
+
+    /**
+     * This function has undefined behaviour if the current thread already owns a read lock.
+     * <p>
+     * If the lock is read-biased, registers the current thread on its reader stripe and returns a negative even value.
+     * Otherwise, eventually acquires the read lock and returns an even, non-negative sequential counter.
+     * The counter and bias are read with volatile access.
+     * </p>
+     * <p>
+     * Every call to this function must be followed by a call to {@link #tryReleaseRead(int)}.
+     * </p>
+     * @return An even value to pass to {@link #tryReleaseRead(int)}.
+     */
+    @Override
+    public int acquireRead() {
+        if (this.getReadBiasVolatile()) {
+            final int stripe = this.getCurrentStripe();
+            final int index = getStripeIndex(stripe);
+            ArrayUtil.getAndAddVolatile(this.readers, index, 1);
+            if (this.getReadBiasVolatile()) {
+                return BIASED_READ | (stripe << 1);
+            }
+            /* a writer is revoking the bias, back off to the sequential counter */
+            ArrayUtil.getAndAddVolatile(this.readers, index, -1);
+        }
+
+        int failures = 0;
+        int curr;
+
+        for (curr = this.getLockVolatile(); !this.canRead(curr); curr = this.getLockVolatile()) {
+            this.waitStrategy.await(this, curr, ++failures);
+        }
+
+        return curr;
+    }
+
+    /**
+     * This function has undefined behaviour if the current thread does own a read lock.
+     * <p>
+     * If the read was read-biased, deregisters the current thread from its reader stripe and returns {@code true}.
+     * Otherwise, checks if the current sequential counter is equal to the specified counter. The counter is
+     * read with volatile access.
+     * </p>
+     * @param read {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    public boolean tryReleaseRead(final int read) {
+        if (read < 0) {
+            ArrayUtil.getAndAddVolatile(this.readers, getStripeIndex((read & ~BIASED_READ) >>> 1), -1);
+            return true;
+        }
+        return this.getLockVolatile() == read;
+    }
+
+    /**
+     * Returns the sequential counter accessed with volatile semantics. The counter is never negative.
+     */
+    @Override
+    public int getSequentialCounter() {
+        return this.getLockVolatile();
+    }
+
+    @Override
+    public String toString() {
+        return "ReaderBiasedSeqLock{counter=" + this.getLockVolatile() + ", readBiased=" + this.getReadBiasVolatile()
+                + ", stripes=" + (this.stripeMask + 1) + "}";
+    }
+}
@@ -0,0 +1,335 @@
+package ca.spottedleaf.concurrentutil.lock;
+
+import ca.spottedleaf.concurrentutil.ConcurrentUtil;
+import ca.spottedleaf.concurrentutil.util.ArrayUtil;
+import ca.spottedleaf.concurrentutil.util.Validate;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * A fixed-size array of SeqLocks, with each lock following the same contract and memory semantics as
+ * {@link VolatileSeqLock}. Intended for guarding many small records, where a lock object per record would waste memory.
+ *
+ * <p>
+ * The sequential counters are packed into a single {@code int[]}. If the array is created with padding, every
+ * counter is placed on its own {@link ConcurrentUtil#CACHE_LINE_SIZE cache line}, which prevents writers to one index
+ * from invalidating the counters of neighbouring indices at the cost of {@code CACHE_LINE_SIZE} bytes per lock.
+ * Without padding, each lock uses 4 bytes.
+ * </p>
+ *
+ * <p>
+ * Every method taking an index behaves as the {@link SeqLock} method of the same name for the lock at that index.
+ * Threads waiting for the write lock to be released wait according to the {@link SeqLockWaitStrategy} specified
+ * at construction, which receives the {@link #getLock(int) view} of the lock being waited on. The strategy is shared
+ * by every lock in the array, so stateful strategies see all indices: threads parked by
+ * {@link SeqLockWaitStrategy#spinThenPark(int)} are woken by a release of any index, and
+ * {@link SeqLockWaitStrategy#adaptive()} measures the hold time over all indices.
+ * </p>
+ *
+ * <pre>
+ *     // per-slot optimistic read of records stored in parallel arrays
+ *     long readRecord(final int index) {
+ *         int lock;
+ *         long x, y;
+ *         do {
+ *             lock = this.locks.acquireRead(index);
+ *             x = this.xs[index];
+ *             y = this.ys[index];
+ *         } while (!this.locks.tryReleaseRead(index, lock));
+ *         return x * y;
+ *     }
+ * </pre>
+ * @see SeqLock
+ * @see VolatileSeqLock
+ * @see SeqLockWaitStrategy
+ */
+public final class SeqLockArray {
+
+    protected static final int PADDED_STRIDE = ConcurrentUtil.CACHE_LINE_SIZE / Integer.BYTES;
+
+    protected final int[] counters;
+    protected final int length;
+    protected final int strideShift;
+    protected final int offset;
+    protected final SeqLockWaitStrategy waitStrategy;
+    /* the stateless strategies ignore the write lock hooks, so the lock view they would receive need not be allocated */
+    protected final boolean notifyWrites;
+
+    /**
+     * Constructs a new array of unpadded SeqLocks using the {@link SeqLockWaitStrategy#defaultStrategy() default}
+     * wait strategy.
+     * @param length The amount of locks.
+     * @throws IllegalArgumentException If {@code length < 0}
+     */
+    public SeqLockArray(final int length) {
+        this(length, false);
+    }
+
+    /**
+     * Constructs a new array of SeqLocks using the {@link SeqLockWaitStrategy#defaultStrategy() default} wait strategy.
+     * @param length The amount of locks.
+     * @param padded Whether every lock is placed on its own cache line.
+     * @throws IllegalArgumentException If {@code length < 0}, or if {@code padded} is {@code true} and the padded
+     *                                  array size would overflow.
+     */
+    public SeqLockArray(final int length, final boolean padded) {
+        this(length, padded, SeqLockWaitStrategy.defaultStrategy());
+    }
+
+    /**
+     * Constructs a new array of SeqLocks using the specified wait strategy.
+     * @param length The amount of locks.
+     * @param padded Whether every lock is placed on its own cache line.
+     * @param waitStrategy The strategy used by threads waiting for the write lock to be released.
+     * @throws IllegalArgumentException If {@code length < 0}, or if {@code padded} is {@code true} and the padded
+     *                                  array size would overflow.
+     */
+    public SeqLockArray(final int length, final boolean padded, final SeqLockWaitStrategy waitStrategy) {
+        Validate.notNull(waitStrategy, "Null wait strategy");
+        if (length < 0) {
+            throw new IllegalArgumentException("Length may not be negative: " + length);
+        }
+        if (padded && length > (Integer.MAX_VALUE / PADDED_STRIDE) - 2) {
+            throw new IllegalArgumentException("Length is too large to pad: " + length);
+        }
+
+        this.length = length;
+        if (padded) {
+            this.strideShift = Integer.numberOfTrailingZeros(PADDED_STRIDE);
+            /* leading and trailing padding, to separate the first and last counters from the array header and whatever follows */
+            this.offset = PADDED_STRIDE;
+            this.counters = new int[(length + 2) * PADDED_STRIDE];
+        } else {
+            this.strideShift = 0;
+            this.offset = 0;
+            this.counters = new int[length];
+        }
+        this.waitStrategy = waitStrategy;
+        this.notifyWrites = !(waitStrategy instanceof SeqLockWaitStrategy.SpinWaitStrategy)
+                && !(waitStrategy instanceof SeqLockWaitStrategy.YieldWaitStrategy);
+        VarHandle.storeStoreFence();
+    }
+
+    /**
+     * Returns the number of locks in this array.
+     * @return The number of locks.
+     */
+    public int length() {
+        return this.length;
+    }
+
+    /**
+     * Returns whether every lock in this array is placed on its own cache line.
+     * @return {@code true} if this array is padded.
+     */
+    public boolean isPadded() {
+        return this.strideShift != 0;
+    }
+
+    /**
+     * Returns the wait strategy used by every lock in this array.
+     * @return The wait strategy.
+     */
+    public SeqLockWaitStrategy getWaitStrategy() {
+        return this.waitStrategy;
+    }
+
+    protected final int counterIndex(final int index) {
+        if (index < 0 || index >= this.length) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + this.length);
+        }
+        return (index << this.strideShift) + this.offset;
+    }
+
+    protected static boolean canRead(final int read) {
+        return (read & 1) == 0;
+    }
+
+    protected final void onAcquireWrite(final int index) {
+        if (this.notifyWrites) {
+            this.waitStrategy.onAcquireWrite(new IndexedSeqLock(this, index));
+        }
+    }
+
+    /**
+     * Eventually acquires the write lock at the specified index.
+     * @param index The index of the lock.
+     * @see VolatileSeqLock#acquireWrite()
+     */
+    public void acquireWrite(final int index) {
+        final int[] counters = this.counters;
+        final int counterIndex = this.counterIndex(index);
+
+        SeqLock lock = null;
+        int failures = 0;
+        for (int curr = ArrayUtil.getVolatile(counters, counterIndex);;) {
+            if (canRead(curr) && curr == (curr = ArrayUtil.compareAndExchangeVolatile(counters, counterIndex, curr, curr | 1))) {
+                this.onAcquireWrite(index);
+                return;
+            }
+
+            if (lock == null) {
+                lock = new IndexedSeqLock(this, index);
+            }
+            this.waitStrategy.await(lock, curr, ++failures);
+            curr = ArrayUtil.getVolatile(counters, counterIndex);
+        }
+    }
+
+    /**
+     * Attempts to acquire the write lock at the specified index.
+     * @param index The index of the lock.
+     * @return {@code true} if the write lock was acquired, {@code false} otherwise.
+     * @see VolatileSeqLock#tryAcquireWrite()
+     */
+    public boolean tryAcquireWrite(final int index) {
+        final int[] counters = this.counters;
+        final int counterIndex = this.counterIndex(index);
+
+        final int lock = ArrayUtil.getVolatile(counters, counterIndex);
+        if (canRead(lock) && lock == ArrayUtil.compareAndExchangeVolatile(counters, counterIndex, lock, lock | 1)) {
+            this.onAcquireWrite(index);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Releases the write lock at the specified index, indicating a write has completed.
+     * @param index The index of the lock.
+     * @see VolatileSeqLock#releaseWrite()
+     */
+    public void releaseWrite(final int index) {
+        final int counterIndex = this.counterIndex(index);
+        if (!this.notifyWrites) {
+            ArrayUtil.setVolatile(this.counters, counterIndex, ArrayUtil.getPlain(this.counters, counterIndex) + 1);
+            return;
+        }
+        final SeqLock lock = new IndexedSeqLock(this, index);
+        this.waitStrategy.onBeforeReleaseWrite(lock);
+        ArrayUtil.setVolatile(this.counters, counterIndex, ArrayUtil.getPlain(this.counters, counterIndex) + 1);
+        this.waitStrategy.onReleaseWrite(lock);
+    }
+
+    /**
+     * Releases the write lock at the specified index, indicating a write has not occurred.
+     * @param index The index of the lock.
+     * @see VolatileSeqLock#abortWrite()
+     */
+    public void abortWrite(final int index) {
+        final int counterIndex = this.counterIndex(index);
+        if (!this.notifyWrites) {
+            ArrayUtil.setVolatile(this.counters, counterIndex, ArrayUtil.getPlain(this.counters, counterIndex) ^ 1);
+            return;
+        }
+        final SeqLock lock = new IndexedSeqLock(this, index);
+        this.waitStrategy.onBeforeReleaseWrite(lock);
+        ArrayUtil.setVolatile(this.counters, counterIndex, ArrayUtil.getPlain(this.counters, counterIndex) ^ 1);
+        this.waitStrategy.onReleaseWrite(lock);
+    }
+
+    /**
+     * Eventually acquires the read lock at the specified index and returns an even sequential counter.
+     * @param index The index of the lock.
+     * @return An even sequential counter.
+     * @see VolatileSeqLock#acquireRead()
+     */
+    public int acquireRead(final int index) {
+        final int[] counters = this.counters;
+        final int counterIndex = this.counterIndex(index);
+
+        SeqLock lock = null;
+        int failures = 0;
+        int curr;
+        for (curr = ArrayUtil.getVolatile(counters, counterIndex); !canRead(curr); curr = ArrayUtil.getVolatile(counters, counterIndex)) {
+            if (lock == null) {
+                lock = new IndexedSeqLock(this, index);
+            }
+            this.waitStrategy.await(lock, curr, ++failures);
+        }
+
+        return curr;
+    }
+
+    /**
+     * Checks if the sequential counter at the specified index is equal to the specified counter.
+     * @param index The index of the lock.
+     * @param read The counter returned by {@link #acquireRead(int)}.
+     * @return {@code true} if the read is valid, {@code false} otherwise.
+     * @see VolatileSeqLock#tryReleaseRead(int)
+     */
+    public boolean tryReleaseRead(final int index, final int read) {
+        return ArrayUtil.getVolatile(this.counters, this.counterIndex(index)) == read;
+    }
+
+    /**
+     * Returns the sequential counter at the specified index, accessed with volatile semantics.
+     * @param index The index of the lock.
+     * @return The current sequential counter.
+     */
+    public int getSequentialCounter(final int index) {
+        return ArrayUtil.getVolatile(this.counters, this.counterIndex(index));
+    }
+
+    /**
+     * Returns a {@link SeqLock} view of the lock at the specified index. The view may be passed to code expecting a
+     * {@link SeqLock}, and holding the view's lock is the same as holding the lock at that index in this array.
+     * @param index The index of the lock.
+     * @return A view of the lock at the specified index.
+     */
+    public SeqLock getLock(final int index) {
+        this.counterIndex(index);
+        return new IndexedSeqLock(this, index);
+    }
+
+    @Override
+    public String toString() {
+        return "SeqLockArray{length=" + this.length + ", padded=" + this.isPadded() + ", waitStrategy=" + this.waitStrategy + "}";
+    }
+
+    protected static final class IndexedSeqLock implements SeqLock {
+
+        protected final SeqLockArray array;
+        protected final int index;
+
+        protected IndexedSeqLock(final SeqLockArray array, final int index) {
+            this.array = array;
+            this.index = index;
+        }
+
+        @Override
+        public void acquireWrite() {
+            this.array.acquireWrite(this.index);
+        }
+
+        @Override
+        public boolean tryAcquireWrite() {
+            return this.array.tryAcquireWrite(this.index);
+        }
+
+        @Override
+        public void releaseWrite() {
+            this.array.releaseWrite(this.index);
+        }
+
+        @Override
+        public void abortWrite() {
+            this.array.abortWrite(this.index);
+        }
+
+        @Override
+        public int acquireRead() {
+            return this.array.acquireRead(this.index);
+        }
+
+        @Override
+        public boolean tryReleaseRead(final int read) {
+            return this.array.tryReleaseRead(this.index, read);
+        }
+
+        @Override
+        public int getSequentialCounter() {
+            return this.array.getSequentialCounter(this.index);
+        }
+    }
+}
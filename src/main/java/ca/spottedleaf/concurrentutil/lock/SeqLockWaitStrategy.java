@@ -0,0 +1,328 @@
+package ca.spottedleaf.concurrentutil.lock;
+
+import ca.spottedleaf.concurrentutil.ConcurrentUtil;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Controls how a {@link SeqLock} waits for the write lock to be released, for both readers in
+ * {@link SeqLock#acquireRead()} and writers in {@link SeqLock#acquireWrite()}.
+ *
+ * <p>
+ * Strategies are selected per lock instance, see {@link VolatileSeqLock#VolatileSeqLock(SeqLockWaitStrategy)} and
+ * {@link WeakSeqLock#WeakSeqLock(SeqLockWaitStrategy)}, or per array of locks, see
+ * {@link SeqLockArray#SeqLockArray(int, boolean, SeqLockWaitStrategy)}. The strategies returned by {@link #spin()} and
+ * {@link #spinThenYield(int)} are stateless and may be shared between any number of locks. The strategies returned by
+ * {@link #spinThenPark(int)} and {@link #adaptive()} keep per-lock state (a waiter queue and hold time statistics),
+ * and a new instance should be created for every lock. Sharing them is still safe, but results in spurious wakeups.
+ * </p>
+ *
+ * <p>
+ * Lock implementations are required to invoke {@link #onAcquireWrite(SeqLock)} after the write lock is acquired,
+ * {@link #onBeforeReleaseWrite(SeqLock)} before the sequential counter is written by a release or abort of the write
+ * lock, and {@link #onReleaseWrite(SeqLock)} after it is written.
+ * </p>
+ */
+public abstract class SeqLockWaitStrategy {
+
+    /**
+     * The amount of failures before {@link #defaultStrategy()} starts yielding.
+     */
+    public static final int DEFAULT_SPIN_FAILURES = 5_000;
+
+    protected static final SeqLockWaitStrategy SPIN = new SpinWaitStrategy();
+    protected static final SeqLockWaitStrategy DEFAULT = new YieldWaitStrategy(DEFAULT_SPIN_FAILURES);
+
+    /**
+     * Returns the strategy used by locks when no strategy is specified, which is {@link #spinThenYield(int)} with
+     * {@link #DEFAULT_SPIN_FAILURES} failures.
+     * @return The default strategy.
+     */
+    public static SeqLockWaitStrategy defaultStrategy() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns a strategy that only ever busy-waits, with a backoff increasing linearly with each failure. This is only
+     * suitable if the lock holders are never descheduled, i.e there are fewer threads than cores.
+     * @return The spin strategy.
+     */
+    public static SeqLockWaitStrategy spin() {
+        return SPIN;
+    }
+
+    /**
+     * Returns a strategy that busy-waits with a linearly increasing backoff until the specified amount of failures,
+     * after which it yields on every failure.
+     * @param spinFailures The amount of failures before yielding.
+     * @return The spin-then-yield strategy.
+     * @throws IllegalArgumentException If {@code spinFailures < 0}
+     */
+    public static SeqLockWaitStrategy spinThenYield(final int spinFailures) {
+        if (spinFailures < 0) {
+            throw new IllegalArgumentException("Spin failures may not be negative: " + spinFailures);
+        }
+        return spinFailures == DEFAULT_SPIN_FAILURES ? DEFAULT : new YieldWaitStrategy(spinFailures);
+    }
+
+    /**
+     * Returns a new strategy that busy-waits with a linearly increasing backoff until the specified amount of failures,
+     * after which it parks the waiting thread until the write lock is released.
+     * @param spinFailures The amount of failures before parking.
+     * @return The spin-then-park strategy.
+     * @throws IllegalArgumentException If {@code spinFailures < 0}
+     */
+    public static SeqLockWaitStrategy spinThenPark(final int spinFailures) {
+        if (spinFailures < 0) {
+            throw new IllegalArgumentException("Spin failures may not be negative: " + spinFailures);
+        }
+        return new ParkWaitStrategy(spinFailures);
+    }
+
+    /**
+     * Returns a new strategy that measures how long the write lock is held, and uses that to decide whether waiting
+     * threads spin or park. If writes are short, waiters behave as {@link #spinThenYield(int)}. Otherwise,
+     * waiters behave as {@link #spinThenPark(int)}.
+     * @return The adaptive strategy.
+     */
+    public static SeqLockWaitStrategy adaptive() {
+        return new AdaptiveWaitStrategy();
+    }
+
+    /**
+     * Waits for the write lock to be released. Implementations may return before the write lock is released,
+     * the caller is expected to re-read the sequential counter and invoke this function again on failure.
+     * @param lock The lock being waited on.
+     * @param observed The last sequential counter observed by the caller. If the counter is even, then the caller
+     *                 failed to acquire the write lock due to contention.
+     * @param failures The amount of times the caller has failed, starting at 1.
+     */
+    public abstract void await(final SeqLock lock, final int observed, final int failures);
+
+    /**
+     * Invoked by the lock once the write lock is acquired.
+     * @param lock The lock.
+     */
+    public void onAcquireWrite(final SeqLock lock) {}
+
+    /**
+     * Invoked by the lock before the write lock is released or aborted, while the current thread still holds it.
+     * @param lock The lock.
+     */
+    public void onBeforeReleaseWrite(final SeqLock lock) {}
+
+    /**
+     * Invoked by the lock after the write lock is released or aborted. The write to the sequential counter
+     * must be completed before this function is invoked.
+     * @param lock The lock.
+     */
+    public void onReleaseWrite(final SeqLock lock) {}
+
+    protected static void spinWait(final int failures) {
+        for (int i = 0; i < failures; ++i) {
+            ConcurrentUtil.pause();
+        }
+    }
+
+    protected static final class SpinWaitStrategy extends SeqLockWaitStrategy {
+
+        @Override
+        public void await(final SeqLock lock, final int observed, final int failures) {
+            spinWait(failures);
+        }
+
+        @Override
+        public String toString() {
+            return "SpinWaitStrategy";
+        }
+    }
+
+    protected static final class YieldWaitStrategy extends SeqLockWaitStrategy {
+
+        protected final int spinFailures;
+
+        protected YieldWaitStrategy(final int spinFailures) {
+            this.spinFailures = spinFailures;
+        }
+
+        @Override
+        public void await(final SeqLock lock, final int observed, final int failures) {
+            if (failures <= this.spinFailures) {
+                spinWait(failures);
+            } else {
+                Thread.yield();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "YieldWaitStrategy{spinFailures=" + this.spinFailures + "}";
+        }
+    }
+
+    protected static class ParkWaitStrategy extends SeqLockWaitStrategy {
+
+        protected final int spinFailures;
+
+        /* Treiber stack of parked threads, the releasing thread wakes all of them as readers may all proceed */
+        protected volatile Waiter waiters;
+
+        protected static final VarHandle WAITERS_HANDLE = ConcurrentUtil.getVarHandle(ParkWaitStrategy.class, "waiters", Waiter.class);
+
+        protected final Waiter getWaitersVolatile() {
+            return (Waiter)WAITERS_HANDLE.getVolatile(this);
+        }
+
+        protected final Waiter compareAndExchangeWaitersVolatile(final Waiter expect, final Waiter update) {
+            return (Waiter)WAITERS_HANDLE.compareAndExchange(this, expect, update);
+        }
+
+        protected final Waiter getAndSetWaitersVolatile(final Waiter update) {
+            return (Waiter)WAITERS_HANDLE.getAndSet(this, update);
+        }
+
+        protected ParkWaitStrategy(final int spinFailures) {
+            this.spinFailures = spinFailures;
+        }
+
+        @Override
+        public void await(final SeqLock lock, final int observed, final int failures) {
+            if (failures <= this.spinFailures) {
+                spinWait(failures);
+            } else {
+                this.park(lock, observed);
+            }
+        }
+
+        protected final void park(final SeqLock lock, final int observed) {
+            if (lock.canRead(observed)) {
+                /* lost a CAS race to another writer, so the lock may not be held anymore */
+                Thread.yield();
+                return;
+            }
+
+            final Waiter waiter = new Waiter(Thread.currentThread());
+
+            for (Waiter head = this.getWaitersVolatile();;) {
+                waiter.next = head;
+                if (head == (head = this.compareAndExchangeWaitersVolatile(head, waiter))) {
+                    break;
+                }
+            }
+
+            /*
+             * The CAS above is a full fence, and releasing threads issue a full fence between writing the counter
+             * and reading the waiters. So either we observe the release here, or the releasing thread observes
+             * our waiter.
+             */
+            while (lock.getSequentialCounter() == observed && !waiter.isReleased()) {
+                LockSupport.park(this);
+            }
+        }
+
+        @Override
+        public void onReleaseWrite(final SeqLock lock) {
+            VarHandle.fullFence();
+            if (this.getWaitersVolatile() == null) {
+                return;
+            }
+
+            for (Waiter waiter = this.getAndSetWaitersVolatile(null); waiter != null; waiter = waiter.next) {
+                waiter.release();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "ParkWaitStrategy{spinFailures=" + this.spinFailures + "}";
+        }
+
+        protected static final class Waiter {
+
+            protected final Thread thread;
+            protected Waiter next;
+
+            protected volatile boolean released;
+
+            protected static final VarHandle RELEASED_HANDLE = ConcurrentUtil.getVarHandle(Waiter.class, "released", boolean.class);
+
+            protected Waiter(final Thread thread) {
+                this.thread = thread;
+            }
+
+            protected final boolean isReleased() {
+                return (boolean)RELEASED_HANDLE.getVolatile(this);
+            }
+
+            protected final void release() {
+                RELEASED_HANDLE.setVolatile(this, true);
+                LockSupport.unpark(this.thread);
+            }
+        }
+    }
+
+    protected static final class AdaptiveWaitStrategy extends ParkWaitStrategy {
+
+        /*
+         * Writes held for less than this are cheaper to wait out by spinning than by a park/unpark round trip,
+         * which costs several microseconds on most systems.
+         */
+        protected static final long PARK_THRESHOLD_NANOS = 20_000L;
+
+        protected static final int SPIN_FAILURES = 100;
+
+        /* only accessed by the write lock holder, as both hooks using it run while the write lock is held */
+        protected long acquireTime;
+        /* only written by the write lock holder, read by waiters */
+        protected volatile long averageHoldTime;
+
+        protected static final VarHandle AVERAGE_HOLD_TIME_HANDLE = ConcurrentUtil.getVarHandle(AdaptiveWaitStrategy.class, "averageHoldTime", long.class);
+
+        protected final long getAverageHoldTimeOpaque() {
+            return (long)AVERAGE_HOLD_TIME_HANDLE.getOpaque(this);
+        }
+
+        protected final void setAverageHoldTimeOpaque(final long value) {
+            AVERAGE_HOLD_TIME_HANDLE.setOpaque(this, value);
+        }
+
+        protected AdaptiveWaitStrategy() {
+            super(SPIN_FAILURES);
+        }
+
+        @Override
+        public void await(final SeqLock lock, final int observed, final int failures) {
+            if (failures <= SPIN_FAILURES) {
+                spinWait(failures);
+            } else if (this.getAverageHoldTimeOpaque() < PARK_THRESHOLD_NANOS) {
+                if (failures <= DEFAULT_SPIN_FAILURES) {
+                    spinWait(SPIN_FAILURES);
+                } else {
+                    Thread.yield();
+                }
+            } else {
+                this.park(lock, observed);
+            }
+        }
+
+        @Override
+        public void onAcquireWrite(final SeqLock lock) {
+            this.acquireTime = System.nanoTime();
+        }
+
+        @Override
+        public void onBeforeReleaseWrite(final SeqLock lock) {
+            /* once the counter is released, the next writer may already overwrite acquireTime */
+            final long held = System.nanoTime() - this.acquireTime;
+            final long average = this.getAverageHoldTimeOpaque();
+            /* exponential moving average with weight 1/8 */
+            this.setAverageHoldTimeOpaque(average + ((held - average) >> 3));
+        }
+
+        @Override
+        public String toString() {
+            return "AdaptiveWaitStrategy{averageHoldTime=" + this.getAverageHoldTimeOpaque() + "ns}";
+        }
+    }
+}
@@ -0,0 +1,520 @@
+package ca.spottedleaf.concurrentutil.lock;
+
+import ca.spottedleaf.concurrentutil.util.Validate;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Container for a mutable record guarded by a {@link SeqLock}, which implements the optimistic read retry loop
+ * described in {@link SeqLock} so that callers only need to describe how to copy the record's fields.
+ *
+ * <p>
+ * Reads made through this container are attempted optimistically at most {@link #getMaxOptimisticReads()} times.
+ * After that, the read falls back to a pessimistic read, which depends on the lock:
+ * </p>
+ * <ul>
+ *     <li>{@link ReadWriteSeqLock}: a shared read lock is acquired.</li>
+ *     <li>{@link WeakSeqLock}: WeakSeqLock only allows a single writer, so readers cannot take the write lock and
+ *     retry optimistically until the read succeeds.</li>
+ *     <li>Any other lock: the write lock is acquired, and then aborted so that optimistic readers are not invalidated.</li>
+ * </ul>
+ *
+ * <p>
+ * Optimistic reads may observe the record in an inconsistent state. Copiers and read functions must therefore
+ * only read the record, and must not make decisions which are unsafe on inconsistent data, such as indexing an
+ * array with a value read from the record. If a copier throws during an optimistic read which turns out to be
+ * invalid, the exception is discarded and the read is retried. Exceptions thrown during valid reads are propagated.
+ * </p>
+ *
+ * <p>
+ * Writers must only modify the record through {@link #write(Consumer)} or {@link #copyIn(Copier, Object)}.
+ * </p>
+ *
+ * <p>
+ * For records made only of longs or ints, {@link OfLongs} and {@link OfInts} copy the payload in and out
+ * without allocating.
+ * </p>
+ * @param <T> The type of the record.
+ * @see SeqLock
+ */
+public class SeqLocked<T> {
+
+    /**
+     * The default amount of optimistic read attempts before falling back to a pessimistic read.
+     */
+    public static final int DEFAULT_MAX_OPTIMISTIC_READS = 64;
+
+    protected static final int FALLBACK_NONE = 0;
+    protected static final int FALLBACK_SHARED = 1;
+    protected static final int FALLBACK_EXCLUSIVE = 2;
+
+    protected final T value;
+    protected final SeqLock lock;
+    protected final int maxOptimisticReads;
+    protected final int fallback;
+
+    /**
+     * Constructs a new container guarding the specified record with a {@link VolatileSeqLock}.
+     * @param value The record.
+     */
+    public SeqLocked(final T value) {
+        this(value, new VolatileSeqLock(), DEFAULT_MAX_OPTIMISTIC_READS);
+    }
+
+    /**
+     * Constructs a new container guarding the specified record with the specified lock.
+     * @param value The record.
+     * @param lock The lock. The lock must not be used to guard any other data.
+     * @param maxOptimisticReads The amount of optimistic read attempts before falling back to a pessimistic read.
+     * @throws IllegalArgumentException If {@code maxOptimisticReads} is not positive.
+     */
+    public SeqLocked(final T value, final SeqLock lock, final int maxOptimisticReads) {
+        Validate.notNull(value, "Null value");
+        Validate.notNull(lock, "Null lock");
+        if (maxOptimisticReads <= 0) {
+            throw new IllegalArgumentException("Max optimistic reads is invalid (<= 0): " + maxOptimisticReads);
+        }
+
+        this.value = value;
+        this.lock = lock;
+        this.maxOptimisticReads = maxOptimisticReads;
+        if (lock instanceof ReadWriteSeqLock) {
+            this.fallback = FALLBACK_SHARED;
+        } else if (lock instanceof WeakSeqLock) {
+            this.fallback = FALLBACK_NONE;
+        } else {
+            this.fallback = FALLBACK_EXCLUSIVE;
+        }
+    }
+
+    /**
+     * Returns the lock guarding the record.
+     * @return The lock.
+     */
+    public SeqLock getLock() {
+        return this.lock;
+    }
+
+    /**
+     * Returns the amount of optimistic read attempts before falling back to a pessimistic read.
+     * @return The maximum amount of optimistic reads.
+     */
+    public int getMaxOptimisticReads() {
+        return this.maxOptimisticReads;
+    }
+
+    /**
+     * Consistently copies the record's fields into the specified destination, see {@link SeqLocked}.
+     * @param copier The function copying the fields of the record into the destination.
+     * @param dst The destination.
+     * @param <D> The type of the destination.
+     * @return The destination.
+     */
+    public <D> D copyOut(final Copier<? super T, ? super D> copier, final D dst) {
+        if (this.tryCopyOut(copier, dst, this.maxOptimisticReads)) {
+            return dst;
+        }
+
+        switch (this.fallback) {
+            case FALLBACK_SHARED: {
+                final ReadWriteSeqLock lock = (ReadWriteSeqLock)this.lock;
+                lock.acquireShared();
+                try {
+                    copier.copy(this.value, dst);
+                } finally {
+                    lock.releaseShared();
+                }
+                return dst;
+            }
+            case FALLBACK_EXCLUSIVE: {
+                this.lock.acquireWrite();
+                try {
+                    copier.copy(this.value, dst);
+                } finally {
+                    this.lock.abortWrite();
+                }
+                return dst;
+            }
+            case FALLBACK_NONE: {
+                while (!this.tryCopyOut(copier, dst, Integer.MAX_VALUE));
+                return dst;
+            }
+            default: {
+                throw new IllegalStateException("Unknown fallback: " + this.fallback);
+            }
+        }
+    }
+
+    /**
+     * Attempts to consistently copy the record's fields into the specified destination, using at most
+     * {@code maxAttempts} optimistic reads. No pessimistic read is made.
+     * @param copier The function copying the fields of the record into the destination.
+     * @param dst The destination.
+     * @param maxAttempts The maximum amount of optimistic reads.
+     * @param <D> The type of the destination.
+     * @return {@code true} if the destination holds a consistent copy, {@code false} if every attempt failed, in which
+     *         case the destination may hold an inconsistent copy.
+     */
+    public <D> boolean tryCopyOut(final Copier<? super T, ? super D> copier, final D dst, final int maxAttempts) {
+        final SeqLock lock = this.lock;
+        final T value = this.value;
+
+        for (int attempt = 0; attempt < maxAttempts; ++attempt) {
+            final int read = lock.acquireRead();
+            try {
+                copier.copy(value, dst);
+            } catch (final Throwable throwable) {
+                if (lock.tryReleaseRead(read)) {
+                    throw throwable;
+                }
+                /* the copier observed an inconsistent record */
+                continue;
+            }
+            if (lock.tryReleaseRead(read)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Consistently reads the record by applying the specified function, see {@link SeqLocked}. The function may be
+     * invoked multiple times, and only the result of the last invocation is returned.
+     * @param reader The function computing a result from the record.
+     * @param <R> The type of the result.
+     * @return The result computed from a consistent view of the record.
+     */
+    public <R> R read(final Function<? super T, ? extends R> reader) {
+        final SeqLock lock = this.lock;
+        final T value = this.value;
+
+        for (int attempt = 0; attempt < this.maxOptimisticReads || this.fallback == FALLBACK_NONE; ++attempt) {
+            final int read = lock.acquireRead();
+            final R ret;
+            try {
+                ret = reader.apply(value);
+            } catch (final Throwable throwable) {
+                if (lock.tryReleaseRead(read)) {
+                    throw throwable;
+                }
+                continue;
+            }
+            if (lock.tryReleaseRead(read)) {
+                return ret;
+            }
+        }
+
+        if (this.fallback == FALLBACK_SHARED) {
+            final ReadWriteSeqLock rwLock = (ReadWriteSeqLock)lock;
+            rwLock.acquireShared();
+            try {
+                return reader.apply(value);
+            } finally {
+                rwLock.releaseShared();
+            }
+        } else {
+            lock.acquireWrite();
+            try {
+                return reader.apply(value);
+            } finally {
+                lock.abortWrite();
+            }
+        }
+    }
+
+    /**
+     * Modifies the record under the write lock.
+     * @param writer The function modifying the record.
+     */
+    public void write(final Consumer<? super T> writer) {
+        this.lock.acquireWrite();
+        try {
+            writer.accept(this.value);
+        } finally {
+            this.lock.releaseWrite();
+        }
+    }
+
+    /**
+     * Copies the specified source into the record's fields under the write lock.
+     * @param copier The function copying the source into the fields of the record.
+     * @param src The source.
+     * @param <S> The type of the source.
+     */
+    public <S> void copyIn(final Copier<? super S, ? super T> copier, final S src) {
+        this.lock.acquireWrite();
+        try {
+            copier.copy(src, this.value);
+        } finally {
+            this.lock.releaseWrite();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SeqLocked{lock=" + this.lock + ", maxOptimisticReads=" + this.maxOptimisticReads + "}";
+    }
+
+    /**
+     * Copies fields from one object to another.
+     * @param <S> The type of the source.
+     * @param <D> The type of the destination.
+     */
+    @FunctionalInterface
+    public static interface Copier<S, D> {
+
+        /**
+         * Copies fields from the source to the destination.
+         * @param src The source.
+         * @param dst The destination.
+         */
+        public void copy(final S src, final D dst);
+    }
+
+    /**
+     * SeqLocked container whose record is a fixed-length long array. Copies are made without allocating.
+     */
+    public static final class OfLongs extends SeqLocked<long[]> {
+
+        protected static final Copier<long[], long[]> COPY_OUT = (final long[] src, final long[] dst) -> {
+            System.arraycopy(src, 0, dst, 0, src.length);
+        };
+
+        /**
+         * Constructs a new container holding a zeroed payload of the specified length, guarded by a {@link VolatileSeqLock}.
+         * @param length The length of the payload.
+         */
+        public OfLongs(final int length) {
+            this(length, new VolatileSeqLock(), DEFAULT_MAX_OPTIMISTIC_READS);
+        }
+
+        /**
+         * Constructs a new container holding a zeroed payload of the specified length.
+         * @param length The length of the payload.
+         * @param lock The lock. The lock must not be used to guard any other data.
+         * @param maxOptimisticReads The amount of optimistic read attempts before falling back to a pessimistic read.
+         */
+        public OfLongs(final int length, final SeqLock lock, final int maxOptimisticReads) {
+            super(new long[length], lock, maxOptimisticReads);
+        }
+
+        /**
+         * Returns the length of the payload.
+         * @return The length of the payload.
+         */
+        public int length() {
+            return this.value.length;
+        }
+
+        /**
+         * Consistently copies the payload into the specified array.
+         * @param dst The destination, which must be at least as long as the payload.
+         * @return The destination.
+         * @throws IllegalArgumentException If the destination is shorter than the payload.
+         */
+        public long[] get(final long[] dst) {
+            if (dst.length < this.value.length) {
+                throw new IllegalArgumentException("Destination is too small: " + dst.length + " < " + this.value.length);
+            }
+            return this.copyOut(COPY_OUT, dst);
+        }
+
+        /**
+         * Consistently reads the element at the specified index, falling back to a pessimistic read like
+         * {@link #copyOut(Copier, Object)}.
+         * @param index The index.
+         * @return The element at the index.
+         */
+        public long get(final int index) {
+            final long[] payload = this.value;
+            if (index < 0 || index >= payload.length) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + payload.length);
+            }
+            /* long reads are not guaranteed to be atomic, so the read is still made under the lock */
+            final SeqLock lock = this.lock;
+            for (int attempt = 0; attempt < this.maxOptimisticReads || this.fallback == FALLBACK_NONE; ++attempt) {
+                final int read = lock.acquireRead();
+                final long ret = payload[index];
+                if (lock.tryReleaseRead(read)) {
+                    return ret;
+                }
+            }
+
+            if (this.fallback == FALLBACK_SHARED) {
+                final ReadWriteSeqLock rwLock = (ReadWriteSeqLock)lock;
+                rwLock.acquireShared();
+                try {
+                    return payload[index];
+                } finally {
+                    rwLock.releaseShared();
+                }
+            } else {
+                lock.acquireWrite();
+                try {
+                    return payload[index];
+                } finally {
+                    lock.abortWrite();
+                }
+            }
+        }
+
+        /**
+         * Replaces the payload with the elements of the specified array.
+         * @param src The source, which must be at least as long as the payload.
+         * @throws IllegalArgumentException If the source is shorter than the payload.
+         */
+        public void set(final long[] src) {
+            if (src.length < this.value.length) {
+                throw new IllegalArgumentException("Source is too small: " + src.length + " < " + this.value.length);
+            }
+            this.lock.acquireWrite();
+            try {
+                System.arraycopy(src, 0, this.value, 0, this.value.length);
+            } finally {
+                this.lock.releaseWrite();
+            }
+        }
+
+        /**
+         * Sets the element at the specified index.
+         * @param index The index.
+         * @param value The new value.
+         */
+        public void set(final int index, final long value) {
+            final long[] payload = this.value;
+            if (index < 0 || index >= payload.length) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + payload.length);
+            }
+            this.lock.acquireWrite();
+            try {
+                payload[index] = value;
+            } finally {
+                this.lock.releaseWrite();
+            }
+        }
+    }
+
+    /**
+     * SeqLocked container whose record is a fixed-length int array. Copies are made without allocating.
+     */
+    public static final class OfInts extends SeqLocked<int[]> {
+
+        protected static final Copier<int[], int[]> COPY_OUT = (final int[] src, final int[] dst) -> {
+            System.arraycopy(src, 0, dst, 0, src.length);
+        };
+
+        /**
+         * Constructs a new container holding a zeroed payload of the specified length, guarded by a {@link VolatileSeqLock}.
+         * @param length The length of the payload.
+         */
+        public OfInts(final int length) {
+            this(length, new VolatileSeqLock(), DEFAULT_MAX_OPTIMISTIC_READS);
+        }
+
+        /**
+         * Constructs a new container holding a zeroed payload of the specified length.
+         * @param length The length of the payload.
+         * @param lock The lock. The lock must not be used to guard any other data.
+         * @param maxOptimisticReads The amount of optimistic read attempts before falling back to a pessimistic read.
+         */
+        public OfInts(final int length, final SeqLock lock, final int maxOptimisticReads) {
+            super(new int[length], lock, maxOptimisticReads);
+        }
+
+        /**
+         * Returns the length of the payload.
+         * @return The length of the payload.
+         */
+        public int length() {
+            return this.value.length;
+        }
+
+        /**
+         * Consistently copies the payload into the specified array.
+         * @param dst The destination, which must be at least as long as the payload.
+         * @return The destination.
+         * @throws IllegalArgumentException If the destination is shorter than the payload.
+         */
+        public int[] get(final int[] dst) {
+            if (dst.length < this.value.length) {
+                throw new IllegalArgumentException("Destination is too small: " + dst.length + " < " + this.value.length);
+            }
+            return this.copyOut(COPY_OUT, dst);
+        }
+
+        /**
+         * Consistently reads the element at the specified index, falling back to a pessimistic read like
+         * {@link #copyOut(Copier, Object)}.
+         * @param index The index.
+         * @return The element at the index.
+         */
+        public int get(final int index) {
+            final int[] payload = this.value;
+            if (index < 0 || index >= payload.length) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + payload.length);
+            }
+            final SeqLock lock = this.lock;
+            for (int attempt = 0; attempt < this.maxOptimisticReads || this.fallback == FALLBACK_NONE; ++attempt) {
+                final int read = lock.acquireRead();
+                final int ret = payload[index];
+                if (lock.tryReleaseRead(read)) {
+                    return ret;
+                }
+            }
+
+            if (this.fallback == FALLBACK_SHARED) {
+                final ReadWriteSeqLock rwLock = (ReadWriteSeqLock)lock;
+                rwLock.acquireShared();
+                try {
+                    return payload[index];
+                } finally {
+                    rwLock.releaseShared();
+                }
+            } else {
+                lock.acquireWrite();
+                try {
+                    return payload[index];
+                } finally {
+                    lock.abortWrite();
+                }
+            }
+        }
+
+        /**
+         * Replaces the payload with the elements of the specified array.
+         * @param src The source, which must be at least as long as the payload.
+         * @throws IllegalArgumentException If the source is shorter than the payload.
+         */
+        public void set(final int[] src) {
+            if (src.length < this.value.length) {
+                throw new IllegalArgumentException("Source is too small: " + src.length + " < " + this.value.length);
+            }
+            this.lock.acquireWrite();
+            try {
+                System.arraycopy(src, 0, this.value, 0, this.value.length);
+            } finally {
+                this.lock.releaseWrite();
+            }
+        }
+
+        /**
+         * Sets the element at the specified index.
+         * @param index The index.
+         * @param value The new value.
+         */
+        public void set(final int index, final int value) {
+            final int[] payload = this.value;
+            if (index < 0 || index >= payload.length) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + payload.length);
+            }
+            this.lock.acquireWrite();
+            try {
+                payload[index] = value;
+            } finally {
+                this.lock.releaseWrite();
+            }
+        }
+    }
+}
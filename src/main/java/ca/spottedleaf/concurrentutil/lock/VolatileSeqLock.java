@@ -1,17 +1,44 @@
 package ca.spottedleaf.concurrentutil.lock;
 
 import ca.spottedleaf.concurrentutil.ConcurrentUtil;
+import ca.spottedleaf.concurrentutil.util.Validate;
 
 import java.lang.invoke.VarHandle;
 
+/* the lock counter is padded by the superclasses, so writes to it do not invalidate neighbouring objects */
+abstract class VolatileSeqLockPad0 {
+    byte p000, p001, p002, p003, p004, p005, p006, p007, p008, p009, p010, p011, p012, p013, p014, p015;
+    byte p016, p017, p018, p019, p020, p021, p022, p023, p024, p025, p026, p027, p028, p029, p030, p031;
+    byte p032, p033, p034, p035, p036, p037, p038, p039, p040, p041, p042, p043, p044, p045, p046, p047;
+    byte p048, p049, p050, p051, p052, p053, p054, p055, p056, p057, p058, p059, p060, p061, p062, p063;
+    byte p064, p065, p066, p067, p068, p069, p070, p071, p072, p073, p074, p075, p076, p077, p078, p079;
+}
+
+abstract class VolatileSeqLockLock extends VolatileSeqLockPad0 {
+    protected volatile int lock;
+}
+
+abstract class VolatileSeqLockPad1 extends VolatileSeqLockLock {
+    byte p100, p101, p102, p103, p104, p105, p106, p107, p108, p109, p110, p111, p112, p113, p114, p115;
+    byte p116, p117, p118, p119, p120, p121, p122, p123, p124, p125, p126, p127, p128, p129, p130, p131;
+    byte p132, p133, p134, p135, p136, p137, p138, p139, p140, p141, p142, p143, p144, p145, p146, p147;
+    byte p148, p149, p150, p151, p152, p153, p154, p155, p156, p157, p158, p159, p160, p161, p162, p163;
+    byte p164, p165, p166, p167, p168, p169, p170, p171, p172, p173, p174, p175, p176, p177, p178, p179;
+}
+
 /**
  * SeqLock implementation which guarantees volatile access to the lock counter. This implementation also allows for
  * multiple writer threads to attempt to acquire the lock.
+ * <p>
+ * Threads waiting for the write lock to be released wait according to the {@link SeqLockWaitStrategy} specified
+ * at construction.
+ * </p>
  * @see SeqLock
+ * @see SeqLockWaitStrategy
  */
-public final class VolatileSeqLock implements SeqLock {
+public final class VolatileSeqLock extends VolatileSeqLockPad1 implements SeqLock {
 
-    protected volatile int lock;
+    protected final SeqLockWaitStrategy waitStrategy;
 
     protected static final VarHandle LOCK_HANDLE = ConcurrentUtil.getVarHandle(VolatileSeqLock.class, "lock", int.class);
 
@@ -31,10 +58,31 @@ public final class VolatileSeqLock implements SeqLock {
         LOCK_HANDLE.setVolatile(this, param);
     }
 
+    /**
+     * Constructs a new VolatileSeqLock using the {@link SeqLockWaitStrategy#defaultStrategy() default} wait strategy.
+     */
     public VolatileSeqLock() {
+        this(SeqLockWaitStrategy.defaultStrategy());
+    }
+
+    /**
+     * Constructs a new VolatileSeqLock using the specified wait strategy.
+     * @param waitStrategy The strategy used by threads waiting for the write lock to be released.
+     */
+    public VolatileSeqLock(final SeqLockWaitStrategy waitStrategy) {
+        Validate.notNull(waitStrategy, "Null wait strategy");
+        this.waitStrategy = waitStrategy;
         VarHandle.storeStoreFence();
     }
 
+    /**
+     * Returns the wait strategy used by this lock.
+     * @return The wait strategy.
+     */
+    public SeqLockWaitStrategy getWaitStrategy() {
+        return this.waitStrategy;
+    }
+
     /**
      * This function has undefined behaviour if the current thread owns the write lock.
      * <p>
@@ -50,25 +98,16 @@ public final class VolatileSeqLock implements SeqLock {
         int failures = 0;
 
         for (int curr = this.getLockVolatile();;) {
-            for (int i = 0; i < failures; ++i) {
-                Thread.onSpinWait();
-            }
-
-            if (!this.canRead(curr)) {
-                if (++failures > 5_000) { /* TODO determine a threshold */
-                    Thread.yield();
+            if (this.canRead(curr)) {
+                if (curr == (curr = this.compareAndExchangeLockVolatile(curr, curr | 1))) {
+                    this.waitStrategy.onAcquireWrite(this);
+                    return;
                 }
-                curr = this.getLockVolatile();
-                continue;
+                /* curr is now the witness value, which the wait strategy can use to decide how to wait */
             }
 
-            if ((curr == (curr = this.compareAndExchangeLockVolatile(curr, curr | 1)))) {
-                return;
-            }
-
-            if (++failures > 5_000) { /* TODO determine a threshold */
-                Thread.yield();
-            }
+            this.waitStrategy.await(this, curr, ++failures);
+            curr = this.getLockVolatile();
         }
     }
 
@@ -86,7 +125,11 @@ public final class VolatileSeqLock implements SeqLock {
     @Override
     public boolean tryAcquireWrite() {
         final int lock = this.getLockVolatile();
-        return this.canRead(lock) && lock == this.compareAndExchangeLockVolatile(lock, lock + 1);
+        if (this.canRead(lock) && lock == this.compareAndExchangeLockVolatile(lock, lock + 1)) {
+            this.waitStrategy.onAcquireWrite(this);
+            return true;
+        }
+        return false;
     }
 
     /**
@@ -98,7 +141,9 @@ public final class VolatileSeqLock implements SeqLock {
      */
     @Override
     public void releaseWrite() {
+        this.waitStrategy.onBeforeReleaseWrite(this);
         this.setLockVolatile(this.getLockPlain() + 1);
+        this.waitStrategy.onReleaseWrite(this);
     }
 
     /**
@@ -110,14 +155,17 @@ public final class VolatileSeqLock implements SeqLock {
      */
     @Override
     public void abortWrite() {
+        this.waitStrategy.onBeforeReleaseWrite(this);
         this.setLockVolatile(this.getLockPlain() ^ 1);
+        this.waitStrategy.onReleaseWrite(this);
     }
 
     /**
      * This function has undefined behaviour if the current thread already owns a read lock.
      * <p>
      * Eventually acquires the read lock and returns an even sequential counter. This function will spinwait until an
-     * even sequential counter is read. The counter is read with volatile access.
+     * even sequential counter is read, waiting according to this lock's wait strategy. The counter is read with
+     * volatile access.
      * </p>
      * @return {@inheritDoc}
      */
@@ -127,14 +175,7 @@ public final class VolatileSeqLock implements SeqLock {
         int curr;
 
         for (curr = this.getLockVolatile(); !this.canRead(curr); curr = this.getLockVolatile()) {
-            for (int i = 0; i < failures; ++i) {
-                Thread.onSpinWait();
-            }
-
-            if (++failures > 5_000) { /* TODO determine a threshold */
-                Thread.yield();
-            }
-            /* Better waiting is beyond the scope of this lock; if it is needed the lock is being misused */
+            this.waitStrategy.await(this, curr, ++failures);
         }
 
         return curr;
@@ -1,18 +1,45 @@
 package ca.spottedleaf.concurrentutil.lock;
 
 import ca.spottedleaf.concurrentutil.ConcurrentUtil;
+import ca.spottedleaf.concurrentutil.util.Validate;
 
 import java.lang.invoke.VarHandle;
 
+/* keeps the lock counter on its own cache line, declared fields are laid out from the top of the hierarchy down */
+abstract class WeakSeqLockPad0 {
+    byte p000, p001, p002, p003, p004, p005, p006, p007, p008, p009, p010, p011, p012, p013, p014, p015;
+    byte p016, p017, p018, p019, p020, p021, p022, p023, p024, p025, p026, p027, p028, p029, p030, p031;
+    byte p032, p033, p034, p035, p036, p037, p038, p039, p040, p041, p042, p043, p044, p045, p046, p047;
+    byte p048, p049, p050, p051, p052, p053, p054, p055, p056, p057, p058, p059, p060, p061, p062, p063;
+    byte p064, p065, p066, p067, p068, p069, p070, p071, p072, p073, p074, p075, p076, p077, p078, p079;
+}
+
+abstract class WeakSeqLockLock extends WeakSeqLockPad0 {
+    protected int lock;
+}
+
+abstract class WeakSeqLockPad1 extends WeakSeqLockLock {
+    byte p100, p101, p102, p103, p104, p105, p106, p107, p108, p109, p110, p111, p112, p113, p114, p115;
+    byte p116, p117, p118, p119, p120, p121, p122, p123, p124, p125, p126, p127, p128, p129, p130, p131;
+    byte p132, p133, p134, p135, p136, p137, p138, p139, p140, p141, p142, p143, p144, p145, p146, p147;
+    byte p148, p149, p150, p151, p152, p153, p154, p155, p156, p157, p158, p159, p160, p161, p162, p163;
+    byte p164, p165, p166, p167, p168, p169, p170, p171, p172, p173, p174, p175, p176, p177, p178, p179;
+}
+
 /**
  * SeqLock implementation offering the bare minimum required by the {@link SeqLock} specification.
  * WeakSeqLocks cannot be used concurrently with multiple writer threads. As such, {@link #acquireWrite()} has
  * the same effect as calling {@link #tryAcquireWrite()}. Writes are not guaranteed to be published immediately, and
  * loads can be re-ordered across write lock handling.
+ * <p>
+ * Readers waiting for the write lock to be released wait according to the {@link SeqLockWaitStrategy} specified
+ * at construction.
+ * </p>
+ * @see SeqLockWaitStrategy
  */
-public final class WeakSeqLock implements SeqLock {
+public final class WeakSeqLock extends WeakSeqLockPad1 implements SeqLock {
 
-    protected int lock;
+    protected final SeqLockWaitStrategy waitStrategy;
 
     protected static final VarHandle LOCK_HANDLE = ConcurrentUtil.getVarHandle(WeakSeqLock.class, "lock", int.class);
 
@@ -28,10 +55,31 @@ public final class WeakSeqLock implements SeqLock {
         LOCK_HANDLE.setOpaque(this, value);
     }
 
+    /**
+     * Constructs a new WeakSeqLock using the {@link SeqLockWaitStrategy#defaultStrategy() default} wait strategy.
+     */
     public WeakSeqLock() {
+        this(SeqLockWaitStrategy.defaultStrategy());
+    }
+
+    /**
+     * Constructs a new WeakSeqLock using the specified wait strategy.
+     * @param waitStrategy The strategy used by readers waiting for the write lock to be released.
+     */
+    public WeakSeqLock(final SeqLockWaitStrategy waitStrategy) {
+        Validate.notNull(waitStrategy, "Null wait strategy");
+        this.waitStrategy = waitStrategy;
         VarHandle.storeStoreFence();
     }
 
+    /**
+     * Returns the wait strategy used by this lock.
+     * @return The wait strategy.
+     */
+    public SeqLockWaitStrategy getWaitStrategy() {
+        return this.waitStrategy;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -40,6 +88,7 @@ public final class WeakSeqLock implements SeqLock {
         final int lock = this.getLockPlain();
         this.setLockOpaque(lock + 1);
         VarHandle.storeStoreFence();
+        this.waitStrategy.onAcquireWrite(this);
     }
 
     /**
@@ -56,9 +105,11 @@ public final class WeakSeqLock implements SeqLock {
      */
     @Override
     public void releaseWrite() {
+        this.waitStrategy.onBeforeReleaseWrite(this);
         final int lock = this.getLockPlain();
         VarHandle.storeStoreFence();
         this.setLockOpaque(lock + 1);
+        this.waitStrategy.onReleaseWrite(this);
     }
 
     /**
@@ -66,9 +117,11 @@ public final class WeakSeqLock implements SeqLock {
      */
     @Override
     public void abortWrite() {
+        this.waitStrategy.onBeforeReleaseWrite(this);
         final int lock = this.getLockPlain();
         VarHandle.storeStoreFence();
         this.setLockOpaque(lock ^ 1);
+        this.waitStrategy.onReleaseWrite(this);
     }
 
     /**
@@ -80,14 +133,7 @@ public final class WeakSeqLock implements SeqLock {
         int curr;
 
         for (curr = this.getLockOpaque(); !this.canRead(curr); curr = this.getLockOpaque()) {
-            for (int i = 0; i < failures; ++i) {
-                Thread.onSpinWait();
-            }
-
-            if (++failures > 5_000) { /* TODO determine a threshold */
-                Thread.yield();
-            }
-            /* Better waiting is beyond the scope of this lock; if it is needed the lock is being misused */
+            this.waitStrategy.await(this, curr, ++failures);
         }
 
         VarHandle.loadLoadFence();
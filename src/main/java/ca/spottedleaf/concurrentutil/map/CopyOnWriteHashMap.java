@@ -28,7 +28,7 @@ public class CopyOnWriteHashMap<K, V> implements ConcurrentMap<K, V> {
     }
 
     protected final void setMapPlain(final HashMap<K, V> map) {
-        MAP_HANDLE.set(map);
+        MAP_HANDLE.set(this, map);
     }
 
     /**
@@ -8,6 +8,9 @@ import ca.spottedleaf.concurrentutil.util.Validate;
 
 import java.lang.invoke.VarHandle;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.*;
 
 /**
@@ -294,6 +297,18 @@ public class SingleWriterMultiReaderHashMap<K, V> implements Map<K, V>, Iterable
         return new EntryIterator<>(this.getTableAcquire(), this);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The returned spliterator splits over ranges of the table it was created with, and is safe to use
+     * concurrently with the writer in the same way as the iterators of this map.
+     * </p>
+     */
+    @Override
+    public Spliterator<Entry<K, V>> spliterator() {
+        return new EntrySpliterator<>(this.getTableAcquire(), this);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -374,6 +389,228 @@ public class SingleWriterMultiReaderHashMap<K, V> implements Map<K, V>, Iterable
         }
     }
 
+    /* Parallel bulk operations */
+
+    /*
+     * These operate on the table acquired at the start of the call, exactly like the iterators and forEach functions.
+     * The writer never modifies a table in a way that could make a reader loop or miss a bin, it only publishes
+     * a new table on resize, so splitting the acquired table across threads needs no additional synchronization.
+     */
+
+    /* returns the number of times to split the table, 0 if the operation should run on the calling thread */
+    protected final int getBulkBatch(final long parallelismThreshold) {
+        long size;
+        if (parallelismThreshold == Long.MAX_VALUE || (size = (long)this.getSizeOpaque()) <= 1L || size < parallelismThreshold) {
+            return 0;
+        }
+        final int maxBatch = ForkJoinPool.getCommonPoolParallelism() << 2;
+        return (parallelismThreshold <= 0L || (size /= parallelismThreshold) >= maxBatch) ? maxBatch : (int)size;
+    }
+
+    protected final <R> R invokeBulk(final long parallelismThreshold, final BinRangeFunction<K, V, R> function,
+                                     final BinaryOperator<R> combiner) {
+        final TableEntry<K, V>[] table = this.getTableAcquire();
+        final int batch = this.getBulkBatch(parallelismThreshold);
+
+        if (batch == 0) {
+            return function.apply(table, 0, table.length);
+        }
+
+        return ForkJoinPool.commonPool().invoke(new BulkTask<>(table, 0, table.length, batch, function, combiner));
+    }
+
+    /**
+     * Provides the specified consumer with all key-value pairs contained in this map, possibly in parallel using
+     * the {@link ForkJoinPool#commonPool() common pool}.
+     * <p>
+     * This function may be invoked by any reading thread. The action may be invoked concurrently, and in no particular order.
+     * </p>
+     * @param parallelismThreshold The (estimated) number of entries required for this operation to be executed in
+     *                             parallel. {@link Long#MAX_VALUE} will never split the operation.
+     * @param action The specified consumer.
+     */
+    public void forEach(final long parallelismThreshold, final BiConsumer<? super K, ? super V> action) {
+        Validate.notNull(action, "Null action");
+
+        this.invokeBulk(parallelismThreshold, (final TableEntry<K, V>[] table, final int lo, final int hi) -> {
+            for (int i = lo; i < hi; ++i) {
+                for (TableEntry<K, V> curr = ArrayUtil.getOpaque(table, i); curr != null; curr = curr.getNextOpaque()) {
+                    final V value = curr.getValueAcquire();
+                    if (value == null) {
+                        continue;
+                    }
+
+                    action.accept(curr.key, value);
+                }
+            }
+            return null;
+        }, (final Object left, final Object right) -> null);
+    }
+
+    /**
+     * Provides the specified consumer with all keys contained in this map, possibly in parallel.
+     * @param parallelismThreshold The (estimated) number of entries required for this operation to be executed in
+     *                             parallel. {@link Long#MAX_VALUE} will never split the operation.
+     * @param action The specified consumer.
+     * @see #forEach(long, BiConsumer)
+     */
+    public void forEachKey(final long parallelismThreshold, final Consumer<? super K> action) {
+        Validate.notNull(action, "Null action");
+
+        /* skips entries which have been removed, like forEach(long, BiConsumer) */
+        this.forEach(parallelismThreshold, (final K key, final V value) -> {
+            action.accept(key);
+        });
+    }
+
+    /**
+     * Provides the specified consumer with all values contained in this map, possibly in parallel.
+     * @param parallelismThreshold The (estimated) number of entries required for this operation to be executed in
+     *                             parallel. {@link Long#MAX_VALUE} will never split the operation.
+     * @param action The specified consumer.
+     * @see #forEach(long, BiConsumer)
+     */
+    public void forEachValue(final long parallelismThreshold, final Consumer<? super V> action) {
+        Validate.notNull(action, "Null action");
+
+        this.forEach(parallelismThreshold, (final K key, final V value) -> {
+            action.accept(value);
+        });
+    }
+
+    /**
+     * Returns a non-null result from applying the specified search function on each key-value pair in this map, or
+     * {@code null} if there is none. The search function is applied possibly in parallel, and once a result is found
+     * further invocations are suppressed on a best-effort basis.
+     * @param parallelismThreshold The (estimated) number of entries required for this operation to be executed in
+     *                             parallel. {@link Long#MAX_VALUE} will never split the operation.
+     * @param searchFunction The search function, returning a non-null result on success.
+     * @param <U> The type of result.
+     * @return A non-null result from the search function, or {@code null} if there is none.
+     * @see #forEach(long, BiConsumer)
+     */
+    public <U> U search(final long parallelismThreshold, final BiFunction<? super K, ? super V, ? extends U> searchFunction) {
+        Validate.notNull(searchFunction, "Null search function");
+
+        final AtomicReference<U> result = new AtomicReference<>();
+
+        return this.invokeBulk(parallelismThreshold, (final TableEntry<K, V>[] table, final int lo, final int hi) -> {
+            /* opaque, as a plain read of the flag may be hoisted out of the loop and never observe another worker's result */
+            for (int i = lo; i < hi && result.getOpaque() == null; ++i) {
+                for (TableEntry<K, V> curr = ArrayUtil.getOpaque(table, i); curr != null; curr = curr.getNextOpaque()) {
+                    final V value = curr.getValueAcquire();
+                    if (value == null) {
+                        continue;
+                    }
+
+                    final U found = searchFunction.apply(curr.key, value);
+                    if (found != null) {
+                        return result.compareAndSet(null, found) ? found : result.get();
+                    }
+                }
+            }
+            return result.get();
+        }, (final U left, final U right) -> left != null ? left : right);
+    }
+
+    /**
+     * Returns a non-null result from applying the specified search function on each key in this map, or {@code null}
+     * if there is none.
+     * @param parallelismThreshold The (estimated) number of entries required for this operation to be executed in
+     *                             parallel. {@link Long#MAX_VALUE} will never split the operation.
+     * @param searchFunction The search function, returning a non-null result on success.
+     * @param <U> The type of result.
+     * @return A non-null result from the search function, or {@code null} if there is none.
+     * @see #search(long, BiFunction)
+     */
+    public <U> U searchKeys(final long parallelismThreshold, final Function<? super K, ? extends U> searchFunction) {
+        Validate.notNull(searchFunction, "Null search function");
+
+        return this.search(parallelismThreshold, (final K key, final V value) -> {
+            return searchFunction.apply(key);
+        });
+    }
+
+    /**
+     * Returns a non-null result from applying the specified search function on each value in this map, or {@code null}
+     * if there is none.
+     * @param parallelismThreshold The (estimated) number of entries required for this operation to be executed in
+     *                             parallel. {@link Long#MAX_VALUE} will never split the operation.
+     * @param searchFunction The search function, returning a non-null result on success.
+     * @param <U> The type of result.
+     * @return A non-null result from the search function, or {@code null} if there is none.
+     * @see #search(long, BiFunction)
+     */
+    public <U> U searchValues(final long parallelismThreshold, final Function<? super V, ? extends U> searchFunction) {
+        Validate.notNull(searchFunction, "Null search function");
+
+        return this.search(parallelismThreshold, (final K key, final V value) -> {
+            return searchFunction.apply(value);
+        });
+    }
+
+    /**
+     * Returns the result of accumulating the given transformation of all key-value pairs in this map using the
+     * specified reducer, or {@code null} if there is none. Pairs which the transformer maps to {@code null} are skipped.
+     * <p>
+     * The reducer must be associative, as the order pairs are combined in is not defined.
+     * </p>
+     * @param parallelismThreshold The (estimated) number of entries required for this operation to be executed in
+     *                             parallel. {@link Long#MAX_VALUE} will never split the operation.
+     * @param transformer The function transforming a key-value pair into the element to reduce.
+     * @param reducer The function combining two transformed elements.
+     * @param <U> The type of result.
+     * @return The result of accumulating all transformed elements, or {@code null} if there is none.
+     * @see #forEach(long, BiConsumer)
+     */
+    public <U> U reduce(final long parallelismThreshold, final BiFunction<? super K, ? super V, ? extends U> transformer,
+                        final BiFunction<? super U, ? super U, ? extends U> reducer) {
+        Validate.notNull(transformer, "Null transformer");
+        Validate.notNull(reducer, "Null reducer");
+
+        return this.invokeBulk(parallelismThreshold, (final TableEntry<K, V>[] table, final int lo, final int hi) -> {
+            U ret = null;
+            for (int i = lo; i < hi; ++i) {
+                for (TableEntry<K, V> curr = ArrayUtil.getOpaque(table, i); curr != null; curr = curr.getNextOpaque()) {
+                    final V value = curr.getValueAcquire();
+                    if (value == null) {
+                        continue;
+                    }
+
+                    final U transformed = transformer.apply(curr.key, value);
+                    if (transformed != null) {
+                        ret = ret == null ? transformed : reducer.apply(ret, transformed);
+                    }
+                }
+            }
+            return ret;
+        }, (final U left, final U right) -> left == null ? right : (right == null ? left : reducer.apply(left, right)));
+    }
+
+    /**
+     * Returns the result of accumulating all keys in this map using the specified reducer, or {@code null} if there is none.
+     * @param parallelismThreshold The (estimated) number of entries required for this operation to be executed in
+     *                             parallel. {@link Long#MAX_VALUE} will never split the operation.
+     * @param reducer The function combining two keys.
+     * @return The result of accumulating all keys, or {@code null} if there is none.
+     * @see #reduce(long, BiFunction, BiFunction)
+     */
+    public K reduceKeys(final long parallelismThreshold, final BiFunction<? super K, ? super K, ? extends K> reducer) {
+        return this.reduce(parallelismThreshold, (final K key, final V value) -> key, reducer);
+    }
+
+    /**
+     * Returns the result of accumulating all values in this map using the specified reducer, or {@code null} if there is none.
+     * @param parallelismThreshold The (estimated) number of entries required for this operation to be executed in
+     *                             parallel. {@link Long#MAX_VALUE} will never split the operation.
+     * @param reducer The function combining two values.
+     * @return The result of accumulating all values, or {@code null} if there is none.
+     * @see #reduce(long, BiFunction, BiFunction)
+     */
+    public V reduceValues(final long parallelismThreshold, final BiFunction<? super V, ? super V, ? extends V> reducer) {
+        return this.reduce(parallelismThreshold, (final K key, final V value) -> value, reducer);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -494,7 +731,8 @@ public class SingleWriterMultiReaderHashMap<K, V> implements Map<K, V>, Iterable
         }
 
         final TableEntry<K, V>[] table = this.table;
-        int newCapacity = IntegerUtil.ceilLog2(minCapacity);
+        /* the new table must be large enough that minCapacity does not exceed its threshold */
+        int newCapacity = IntegerUtil.roundCeilLog2((int)Math.min((double)Integer.MAX_VALUE, Math.ceil((double)minCapacity / (double)this.loadFactor)));
         if (newCapacity < 0) {
             newCapacity = Integer.MIN_VALUE >>> 1;
         }
@@ -559,8 +797,8 @@ public class SingleWriterMultiReaderHashMap<K, V> implements Map<K, V>, Iterable
         final TableEntry<K, V> head = table[index];
         if (head == null) {
             final TableEntry<K, V> insert = new TableEntry<>(hash, key, value);
-            this.addToSzie(1);
             ArrayUtil.setRelease(table, index, insert);
+            this.addToSzie(1); /* may resize, so the entry must be linked first */
             return null;
         }
 
@@ -583,8 +821,8 @@ public class SingleWriterMultiReaderHashMap<K, V> implements Map<K, V>, Iterable
 
             final TableEntry<K, V> insert = new TableEntry<>(hash, key, value);
 
-            this.addToSzie(1);
             curr.setNextRelease(insert);
+            this.addToSzie(1); /* may resize, so the entry must be linked first */
             return null;
         }
     }
@@ -745,7 +983,7 @@ public class SingleWriterMultiReaderHashMap<K, V> implements Map<K, V>, Iterable
             return true;
         }
 
-        for (TableEntry<K, V> curr = head.getNextPlain(), prev = curr; curr != null; prev = curr, curr = curr.getNextPlain()) {
+        for (TableEntry<K, V> curr = head.getNextPlain(), prev = head; curr != null; prev = curr, curr = curr.getNextPlain()) {
             if (curr.hash == hash && (curr.key == key || curr.key.equals(key))) {
                 final V currVal = curr.getValuePlain();
 
@@ -779,7 +1017,7 @@ public class SingleWriterMultiReaderHashMap<K, V> implements Map<K, V>, Iterable
             return head.getValuePlain();
         }
 
-        for (TableEntry<K, V> curr = head.getNextPlain(), prev = curr; curr != null; prev = curr, curr = curr.getNextPlain()) {
+        for (TableEntry<K, V> curr = head.getNextPlain(), prev = head; curr != null; prev = curr, curr = curr.getNextPlain()) {
             if (curr.hash == hash && (key == curr.key || curr.key.equals(key))) {
                 this.removeFromSize(1);
                 prev.setNextRelease(curr.getNextPlain());
@@ -914,8 +1152,6 @@ public class SingleWriterMultiReaderHashMap<K, V> implements Map<K, V>, Iterable
                     return null;
                 }
 
-                this.addToSzie(1);
-
                 final TableEntry<K, V> insert = new TableEntry<>(hash, key, newVal);
                 if (prev == null) {
                     ArrayUtil.setRelease(table, index, insert);
@@ -923,10 +1159,12 @@ public class SingleWriterMultiReaderHashMap<K, V> implements Map<K, V>, Iterable
                     prev.setNextRelease(insert);
                 }
 
+                this.addToSzie(1); /* may resize, so the entry must be linked first */
+
                 return newVal;
             }
 
-            if (curr.hash != hash && (curr.key == key || curr.key.equals(key))) {
+            if (curr.hash == hash && (curr.key == key || curr.key.equals(key))) {
                 final V newVal = remappingFunction.apply(key, curr.getValuePlain());
 
                 if (newVal != null) {
@@ -1010,8 +1248,6 @@ public class SingleWriterMultiReaderHashMap<K, V> implements Map<K, V>, Iterable
                 return null;
             }
 
-            this.addToSzie(1);
-
             final TableEntry<K, V> insert = new TableEntry<>(hash, key, newVal);
             if (prev == null) {
                 ArrayUtil.setRelease(table, index, insert);
@@ -1019,6 +1255,8 @@ public class SingleWriterMultiReaderHashMap<K, V> implements Map<K, V>, Iterable
                 prev.setNextRelease(insert);
             }
 
+            this.addToSzie(1); /* may resize, so the entry must be linked first */
+
             return newVal;
         }
 
@@ -1039,8 +1277,6 @@ public class SingleWriterMultiReaderHashMap<K, V> implements Map<K, V>, Iterable
 
         for (TableEntry<K, V> curr = table[index], prev = null;;prev = curr, curr = curr.getNextPlain()) {
             if (curr == null) {
-                this.addToSzie(1);
-
                 final TableEntry<K, V> insert = new TableEntry<>(hash, key, value);
                 if (prev == null) {
                     ArrayUtil.setRelease(table, index, insert);
@@ -1048,10 +1284,12 @@ public class SingleWriterMultiReaderHashMap<K, V> implements Map<K, V>, Iterable
                     prev.setNextRelease(insert);
                 }
 
+                this.addToSzie(1); /* may resize, so the entry must be linked first */
+
                 return value;
             }
 
-            if (curr.hash != hash && (curr.key == key || curr.key.equals(key))) {
+            if (curr.hash == hash && (curr.key == key || curr.key.equals(key))) {
                 final V newVal = remappingFunction.apply(curr.getValuePlain(), value);
 
                 if (newVal != null) {
@@ -1192,6 +1430,55 @@ public class SingleWriterMultiReaderHashMap<K, V> implements Map<K, V>, Iterable
     }
 
 
+    @FunctionalInterface
+    protected static interface BinRangeFunction<K, V, R> {
+
+        /* processes the bins in [lo, hi) */
+        public R apply(final TableEntry<K, V>[] table, final int lo, final int hi);
+    }
+
+    protected static final class BulkTask<K, V, R> extends RecursiveTask<R> {
+
+        private static final long serialVersionUID = 1L;
+
+        protected final TableEntry<K, V>[] table;
+        protected final int lo;
+        protected final int hi;
+        protected final int batch;
+        protected final BinRangeFunction<K, V, R> function;
+        protected final BinaryOperator<R> combiner;
+
+        protected BulkTask(final TableEntry<K, V>[] table, final int lo, final int hi, final int batch,
+                           final BinRangeFunction<K, V, R> function, final BinaryOperator<R> combiner) {
+            this.table = table;
+            this.lo = lo;
+            this.hi = hi;
+            this.batch = batch;
+            this.function = function;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected R compute() {
+            final int lo = this.lo;
+            final int hi = this.hi;
+            final int batch = this.batch;
+
+            if (batch <= 0 || (hi - lo) <= 1) {
+                return this.function.apply(this.table, lo, hi);
+            }
+
+            final int mid = (lo + hi) >>> 1;
+
+            final BulkTask<K, V, R> right = new BulkTask<>(this.table, mid, hi, batch >>> 1, this.function, this.combiner);
+            right.fork();
+
+            final R left = new BulkTask<>(this.table, lo, mid, batch >>> 1, this.function, this.combiner).compute();
+
+            return this.combiner.apply(left, right.join());
+        }
+    }
+
     protected static abstract class TableEntryIterator<K, V, T> implements Iterator<T> {
 
         protected final TableEntry<K, V>[] table;
@@ -1207,7 +1494,7 @@ public class SingleWriterMultiReaderHashMap<K, V> implements Map<K, V>, Iterable
             this.table = table;
             this.map = map;
             for (; this.tableIndex < this.table.length; ++this.tableIndex) {
-                if ((this.nextEntry = table[this.tableIndex]) != null) {
+                if ((this.nextEntry = ArrayUtil.getOpaque(table, this.tableIndex)) != null) {
                     break;
                 }
             }
@@ -1228,7 +1515,8 @@ public class SingleWriterMultiReaderHashMap<K, V> implements Map<K, V>, Iterable
         }
 
         protected final void advanceEntry() {
-            if (this.tableIndex >= this.table.length || this.nextEntry == null) {
+            if (this.nextEntry == null) {
+                this.currEntry = null;
                 return;
             }
 
@@ -1238,13 +1526,14 @@ public class SingleWriterMultiReaderHashMap<K, V> implements Map<K, V>, Iterable
                 return;
             }
 
-            for (; this.tableIndex < this.table.length; ++this.tableIndex) {
-                if ((this.nextEntry = table[this.tableIndex]) != null) {
+            /* tableIndex is the bin of the entry we just advanced past, so start at the one after */
+            for (++this.tableIndex; this.tableIndex < this.table.length; ++this.tableIndex) {
+                if ((this.nextEntry = ArrayUtil.getOpaque(this.table, this.tableIndex)) != null) {
                     return;
                 }
             }
 
-            this.currEntry = null;
+            /* keep currEntry for remove() */
             this.nextEntry = null;
         }
 
@@ -1293,6 +1582,7 @@ public class SingleWriterMultiReaderHashMap<K, V> implements Map<K, V>, Iterable
             }
             final V ret = this.nextValue;
             this.nextValue = null;
+            this.advanceEntry(); /* move past the entry the value was read from, and set it up for remove() */
             return ret;
         }
     }
@@ -1329,6 +1619,165 @@ public class SingleWriterMultiReaderHashMap<K, V> implements Map<K, V>, Iterable
         }
     }
 
+    protected static abstract class TableEntrySpliterator<K, V, T> implements Spliterator<T> {
+
+        protected final TableEntry<K, V>[] table;
+
+        protected int tableIndex; /* next bin to read */
+        protected int tableFence; /* exclusive */
+        protected TableEntry<K, V> nextEntry; /* next entry in the bin last read, null if we need to read the next bin */
+        protected long estimatedSize;
+
+        protected TableEntrySpliterator(final TableEntry<K, V>[] table, final int tableIndex, final int tableFence,
+                                        final long estimatedSize) {
+            this.table = table;
+            this.tableIndex = tableIndex;
+            this.tableFence = tableFence;
+            this.estimatedSize = estimatedSize;
+        }
+
+        /* returns null if the entry should be skipped */
+        protected abstract T getElement(final TableEntry<K, V> entry);
+
+        protected abstract TableEntrySpliterator<K, V, T> split(final int tableIndex, final int tableFence, final long estimatedSize);
+
+        protected final TableEntry<K, V> advanceEntry() {
+            TableEntry<K, V> entry = this.nextEntry;
+
+            while (entry == null) {
+                if (this.tableIndex >= this.tableFence) {
+                    return null;
+                }
+                entry = ArrayUtil.getOpaque(this.table, this.tableIndex++);
+            }
+
+            this.nextEntry = entry.getNextOpaque();
+            return entry;
+        }
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super T> action) {
+            Validate.notNull(action, "Null action");
+
+            for (TableEntry<K, V> entry; (entry = this.advanceEntry()) != null;) {
+                final T element = this.getElement(entry);
+                if (element != null) {
+                    action.accept(element);
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(final Consumer<? super T> action) {
+            Validate.notNull(action, "Null action");
+
+            for (TableEntry<K, V> entry; (entry = this.advanceEntry()) != null;) {
+                final T element = this.getElement(entry);
+                if (element != null) {
+                    action.accept(element);
+                }
+            }
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            final int lo = this.tableIndex;
+            final int mid = (lo + this.tableFence) >>> 1;
+
+            if (lo >= mid) {
+                return null;
+            }
+
+            /* the bins in [mid, fence) have not been read yet, so they can be handed off regardless of nextEntry */
+            final TableEntrySpliterator<K, V, T> ret = this.split(mid, this.tableFence, this.estimatedSize >>>= 1);
+            this.tableFence = mid;
+
+            return ret;
+        }
+
+        @Override
+        public long estimateSize() {
+            return this.estimatedSize;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.CONCURRENT | Spliterator.NONNULL | Spliterator.DISTINCT;
+        }
+    }
+
+    protected static final class KeySpliterator<K, V> extends TableEntrySpliterator<K, V, K> {
+
+        protected KeySpliterator(final TableEntry<K, V>[] table, final SingleWriterMultiReaderHashMap<K, V> map) {
+            super(table, 0, table.length, (long)map.size());
+        }
+
+        protected KeySpliterator(final TableEntry<K, V>[] table, final int tableIndex, final int tableFence, final long estimatedSize) {
+            super(table, tableIndex, tableFence, estimatedSize);
+        }
+
+        @Override
+        protected K getElement(final TableEntry<K, V> entry) {
+            return entry.key;
+        }
+
+        @Override
+        protected TableEntrySpliterator<K, V, K> split(final int tableIndex, final int tableFence, final long estimatedSize) {
+            return new KeySpliterator<>(this.table, tableIndex, tableFence, estimatedSize);
+        }
+    }
+
+    protected static final class ValueSpliterator<K, V> extends TableEntrySpliterator<K, V, V> {
+
+        protected ValueSpliterator(final TableEntry<K, V>[] table, final SingleWriterMultiReaderHashMap<K, V> map) {
+            super(table, 0, table.length, (long)map.size());
+        }
+
+        protected ValueSpliterator(final TableEntry<K, V>[] table, final int tableIndex, final int tableFence, final long estimatedSize) {
+            super(table, tableIndex, tableFence, estimatedSize);
+        }
+
+        @Override
+        protected V getElement(final TableEntry<K, V> entry) {
+            /* null if concurrently removed */
+            return entry.getValueAcquire();
+        }
+
+        @Override
+        protected TableEntrySpliterator<K, V, V> split(final int tableIndex, final int tableFence, final long estimatedSize) {
+            return new ValueSpliterator<>(this.table, tableIndex, tableFence, estimatedSize);
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.CONCURRENT | Spliterator.NONNULL;
+        }
+    }
+
+    protected static final class EntrySpliterator<K, V> extends TableEntrySpliterator<K, V, Map.Entry<K, V>> {
+
+        protected EntrySpliterator(final TableEntry<K, V>[] table, final SingleWriterMultiReaderHashMap<K, V> map) {
+            super(table, 0, table.length, (long)map.size());
+        }
+
+        protected EntrySpliterator(final TableEntry<K, V>[] table, final int tableIndex, final int tableFence, final long estimatedSize) {
+            super(table, tableIndex, tableFence, estimatedSize);
+        }
+
+        @Override
+        protected Map.Entry<K, V> getElement(final TableEntry<K, V> entry) {
+            return entry;
+        }
+
+        @Override
+        protected TableEntrySpliterator<K, V, Map.Entry<K, V>> split(final int tableIndex, final int tableFence, final long estimatedSize) {
+            return new EntrySpliterator<>(this.table, tableIndex, tableFence, estimatedSize);
+        }
+    }
+
     protected static abstract class ViewCollection<K, V, T> implements Collection<T> {
 
         protected final SingleWriterMultiReaderHashMap<K, V> map;
@@ -1422,9 +1871,7 @@ public class SingleWriterMultiReaderHashMap<K, V> implements Map<K, V>, Iterable
         }
 
         @Override
-        public Spliterator<T> spliterator() { // TODO implement
-            return Spliterators.spliterator(this, Spliterator.NONNULL);
-        }
+        public abstract Spliterator<T> spliterator();
     }
 
     protected static abstract class ViewSet<K, V, T> extends ViewCollection<K, V, T> implements Set<T> {
@@ -1492,6 +1939,11 @@ public class SingleWriterMultiReaderHashMap<K, V> implements Map<K, V>, Iterable
             return new EntryIterator<>(this.map.getTableAcquire(), this.map);
         }
 
+        @Override
+        public Spliterator<Entry<K, V>> spliterator() {
+            return new EntrySpliterator<>(this.map.getTableAcquire(), this.map);
+        }
+
         @Override
         public void forEach(final Consumer<? super Entry<K, V>> action) {
             this.map.forEachEntry(action);
@@ -1534,6 +1986,11 @@ public class SingleWriterMultiReaderHashMap<K, V> implements Map<K, V>, Iterable
             return new ValueIterator<>(this.map.getTableAcquire(), this.map);
         }
 
+        @Override
+        public Spliterator<V> spliterator() {
+            return new ValueSpliterator<>(this.map.getTableAcquire(), this.map);
+        }
+
         @Override
         public void forEach(final Consumer<? super V> action) {
             Validate.notNull(action, "Null action");
@@ -1598,6 +2055,11 @@ public class SingleWriterMultiReaderHashMap<K, V> implements Map<K, V>, Iterable
             return new KeyIterator<>(this.map.getTableAcquire(), this.map);
         }
 
+        @Override
+        public Spliterator<K> spliterator() {
+            return new KeySpliterator<>(this.map.getTableAcquire(), this.map);
+        }
+
         @Override
         public void forEach(final Consumer<? super K> action) {
             Validate.notNull(action, "Null action");
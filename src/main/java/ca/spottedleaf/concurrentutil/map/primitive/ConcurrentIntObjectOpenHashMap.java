@@ -0,0 +1,733 @@
+package ca.spottedleaf.concurrentutil.map.primitive;
+
+import ca.spottedleaf.concurrentutil.ConcurrentUtil;
+import ca.spottedleaf.concurrentutil.util.ArrayUtil;
+import ca.spottedleaf.concurrentutil.util.IntegerUtil;
+import ca.spottedleaf.concurrentutil.util.Validate;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * Lock-free open addressing {@code int -> Object} map supporting any number of concurrent readers and writers.
+ * <p>
+ * Keys are claimed with a single CAS and never change afterwards, values are then CAS'd in place. Removal leaves a
+ * tombstone: it only writes a marker into the value of the entry, the key stays claimed and is reused if the same key
+ * is added again. Entries cannot be shifted back over a removed entry as in the single writer maps, since that would
+ * change the key of a claimed slot under concurrent writers. Tombstones are dropped when the table is next rebuilt.
+ * </p>
+ * <p>
+ * Claimed keys, live or not, count towards the resize threshold. Removing and adding distinct keys therefore fills the
+ * table with tombstones, and a table made up mostly of tombstones is rebuilt at the same capacity. Such a rebuild
+ * happens at most once every {@code threshold / 2} claims, so its cost stays amortized over those claims. Any other
+ * rebuild doubles the capacity, so a cluster of live keys longer than the reprobe limit cannot rebuild the same table
+ * forever. At the maximum capacity, every slot is probed instead.
+ * </p>
+ * <p>
+ * Resizing is cooperative. The thread that triggers it allocates the next table, after which every thread touching
+ * the old table copies a chunk of it. An entry is copied by first freezing its value in the old table, then
+ * installing the frozen value into the new table only if that table holds no value for the key yet, so a copy can
+ * never overwrite a newer write. Any thread can complete the copy of a frozen entry, so no thread waits on another.
+ * </p>
+ * <p>
+ * The relaxed methods skip all atomic operations and are only valid while no other thread accesses the map.
+ * </p>
+ */
+public class ConcurrentIntObjectOpenHashMap<V> {
+
+    protected static final int DEFAULT_CAPACITY = 32;
+    protected static final int MAXIMUM_CAPACITY = Integer.MIN_VALUE >>> 1;
+    protected static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    /* number of entries copied at once by a thread helping a resize */
+    protected static final int COPY_CHUNK_SIZE = 128;
+
+    /* tombstone value of a removed entry, the key stays claimed */
+    protected static final Object REMOVED = new Object();
+    /* value of an entry which has been copied to the next table */
+    protected static final Object MOVED = new Object();
+
+    /* match values for putIfMatch */
+    protected static final Object MATCH_ANY = new Object();
+    protected static final Object MATCH_ABSENT = new Object();
+    protected static final Object MATCH_PRESENT = new Object();
+
+    protected Table table;
+
+    protected V zeroKeyValue;
+
+    /** size excluding zero key value */
+    protected int size;
+
+    protected final float loadFactor;
+
+    protected static int hash(final int x) {
+        return IntegerUtil.hash0(x);
+    }
+
+    public ConcurrentIntObjectOpenHashMap() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    public ConcurrentIntObjectOpenHashMap(final int capacity) {
+        this(capacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    public ConcurrentIntObjectOpenHashMap(final int capacity, final float loadFactor) {
+        if (capacity <= 1) {
+            throw new IllegalArgumentException("Capacity is invalid (must be greater-than 1): " + capacity);
+        }
+        if (loadFactor <= 0.0f || loadFactor > 1.0f || !Float.isFinite(loadFactor)) {
+            throw new IllegalArgumentException("Invalid load factor (must be in (0.0, 1.0] : " + loadFactor);
+        }
+
+        final int realCapacity = capacity >= MAXIMUM_CAPACITY ? MAXIMUM_CAPACITY : IntegerUtil.roundCeilLog2(capacity);
+
+        this.loadFactor = loadFactor;
+        this.setTableRelease(new Table(realCapacity, loadFactor));
+    }
+
+    public final float getLoadFactor() {
+        return this.loadFactor;
+    }
+
+    public final int size() {
+        final int size = this.getSizeVolatile();
+        return this.getZeroKeyValueVolatile() != null ? size + 1 : size;
+    }
+
+    public final boolean isEmpty() {
+        return this.getSizeVolatile() == 0 && this.getZeroKeyValueVolatile() == null;
+    }
+
+    public final V get(final int key) {
+        if (key == 0) {
+            return this.getZeroKeyValueVolatile();
+        }
+
+        final int hash = ConcurrentIntObjectOpenHashMap.hash(key);
+
+        for (Table table = this.getTableAcquire();;) {
+            final int[] keys = table.keys;
+            final Object[] values = table.values;
+            final int capacityMask = keys.length - 1;
+
+            for (int currIndex = hash & capacityMask, probes = 0; probes <= capacityMask; currIndex = (currIndex + 1) & capacityMask, ++probes) {
+                final int currKey = ArrayUtil.getVolatile(keys, currIndex);
+                if (currKey == 0) {
+                    break;
+                }
+                if (currKey != key) {
+                    continue;
+                }
+
+                final Object value = ArrayUtil.getVolatile(values, currIndex);
+
+                if (value instanceof Frozen) {
+                    // the newest value may already be in the next table, so the copy must complete first
+                    this.copyEntry(table, currIndex);
+                    break;
+                }
+                if (value != MOVED && value != REMOVED && value != null) {
+                    //noinspection unchecked
+                    return (V)value;
+                }
+                break;
+            }
+
+            // writers which find no entry in a table being copied go straight to the next table
+            final Table next = table.getNextVolatile();
+            if (next == null) {
+                return null;
+            }
+            table = next;
+        }
+    }
+
+    public final V getOrDefault(final int key, final V dfl) {
+        final V value = this.get(key);
+        return value == null ? dfl : value;
+    }
+
+    public final boolean containsKey(final int key) {
+        return this.get(key) != null;
+    }
+
+    public final V put(final int key, final V value) {
+        Validate.notNull(value, "Value may not be null");
+        return this.putIfMatch(key, value, MATCH_ANY);
+    }
+
+    public final V putIfAbsent(final int key, final V value) {
+        Validate.notNull(value, "Value may not be null");
+        return this.putIfMatch(key, value, MATCH_ABSENT);
+    }
+
+    public final V replace(final int key, final V value) {
+        Validate.notNull(value, "Value may not be null");
+        return this.putIfMatch(key, value, MATCH_PRESENT);
+    }
+
+    public final boolean replace(final int key, final V oldValue, final V newValue) {
+        Validate.notNull(oldValue, "Old value may not be null");
+        Validate.notNull(newValue, "New value may not be null");
+        final V prev = this.putIfMatch(key, newValue, oldValue);
+        return prev != null && (prev == oldValue || prev.equals(oldValue));
+    }
+
+    public final V remove(final int key) {
+        return this.putIfMatch(key, REMOVED, MATCH_ANY);
+    }
+
+    public final boolean remove(final int key, final V value) {
+        Validate.notNull(value, "Value may not be null");
+        final V prev = this.putIfMatch(key, REMOVED, value);
+        return prev != null && (prev == value || prev.equals(value));
+    }
+
+    protected static boolean matches(final Object prev, final Object match) {
+        if (match == MATCH_ANY) {
+            return true;
+        }
+        if (match == MATCH_ABSENT) {
+            return prev == null;
+        }
+        if (match == MATCH_PRESENT) {
+            return prev != null;
+        }
+        return prev != null && (prev == match || prev.equals(match));
+    }
+
+    /* newValue is REMOVED for removals, returns the previous value (null if absent) */
+    protected final V putIfMatch(final int key, final Object newValue, final Object match) {
+        if (key == 0) {
+            return this.putZeroKeyIfMatch(newValue, match);
+        }
+
+        final int hash = ConcurrentIntObjectOpenHashMap.hash(key);
+
+        Table table = this.getTableAcquire();
+
+table_loop:
+        for (;;) {
+            final int[] keys = table.keys;
+            final Object[] values = table.values;
+            final int capacityMask = keys.length - 1;
+
+            Table next = null;
+            int index = -1;
+            boolean overflowed = false;
+
+            for (int currIndex = hash & capacityMask, probes = 0;; currIndex = (currIndex + 1) & capacityMask) {
+                int currKey = ArrayUtil.getVolatile(keys, currIndex);
+
+                if (currKey == 0) {
+                    // must be read after the key, so that a write made to the next table is never missed
+                    if ((next = table.getNextVolatile()) != null) {
+                        // new keys go to the next table. Copying the empty entry prevents a writer which has not
+                        // seen the resize from claiming it and writing a value which would then be older than ours
+                        this.copyEntry(table, currIndex);
+                        break;
+                    }
+                    if (newValue == REMOVED) {
+                        break;
+                    }
+                    if ((currKey = ArrayUtil.compareAndExchangeVolatile(keys, currIndex, 0, key)) == 0) {
+                        index = currIndex;
+                        if (table.incrementClaimed() >= table.threshold) {
+                            this.startResize(table);
+                        }
+                        break;
+                    }
+                }
+
+                if (currKey == key) {
+                    index = currIndex;
+                    break;
+                }
+
+                if (++probes > table.reprobeLimit) {
+                    overflowed = true;
+                    break;
+                }
+            }
+
+            if (index == -1) {
+                if (overflowed) {
+                    if (newValue != REMOVED) {
+                        table = this.startResize(table);
+                        continue;
+                    }
+                    // keys are only claimed within the reprobe limit, so the key is not in this table. It can only
+                    // be in the next table, and a removal must not resize a table it would not add to
+                    next = table.getNextVolatile();
+                }
+                if (next == null) {
+                    return null; // removal of an absent key
+                }
+                this.helpCopy(table, false);
+                table = next;
+                continue;
+            }
+
+            for (Object curr = ArrayUtil.getVolatile(values, index);;) {
+                if (curr == MOVED || curr instanceof Frozen) {
+                    this.copyEntry(table, index);
+                    this.helpCopy(table, false);
+                    table = table.getNextVolatile();
+                    continue table_loop;
+                }
+
+                final Object prev = curr == REMOVED ? null : curr;
+
+                if (!matches(prev, match) || (prev == null && newValue == REMOVED)) {
+                    //noinspection unchecked
+                    return (V)prev;
+                }
+
+                if (curr == (curr = ArrayUtil.compareAndExchangeVolatile(values, index, curr, newValue))) {
+                    if (prev == null) {
+                        this.addToSize(1);
+                    } else if (newValue == REMOVED) {
+                        this.addToSize(-1);
+                    }
+                    //noinspection unchecked
+                    return (V)prev;
+                }
+            }
+        }
+    }
+
+    protected final V putZeroKeyIfMatch(final Object newValue, final Object match) {
+        final Object update = newValue == REMOVED ? null : newValue;
+        for (V curr = this.getZeroKeyValueVolatile();;) {
+            if (!matches(curr, match) || (curr == null && update == null)) {
+                return curr;
+            }
+            if (curr == (curr = this.compareAndExchangeZeroKeyValueVolatile(curr, update))) {
+                return curr;
+            }
+        }
+    }
+
+    /* returns the next table, creating it if needed */
+    protected final Table startResize(final Table table) {
+        final Table next = table.getNextVolatile();
+        if (next != null) {
+            return next;
+        }
+
+        final int capacity = table.keys.length;
+        // tables filled mostly by tombstones are rebuilt at the same size to drop them. Otherwise the rebuild must grow,
+        // as a cluster overflowing the reprobe limit would overflow it again in a table of the same size
+        final boolean tombstones = table.getClaimedVolatile() - this.getSizeVolatile() >= (table.threshold >>> 1);
+        int nextCapacity = tombstones ? capacity : capacity << 1;
+        if (nextCapacity < 0 || nextCapacity > MAXIMUM_CAPACITY) {
+            nextCapacity = MAXIMUM_CAPACITY;
+        }
+
+        final Table created = new Table(nextCapacity, this.loadFactor);
+        final Table witness = table.compareAndExchangeNextVolatile(null, created);
+
+        if (witness != null) {
+            return witness;
+        }
+
+        // the thread creating the table copies until all chunks are claimed
+        this.helpCopy(table, true);
+        return created;
+    }
+
+    protected final void helpCopy(final Table table, final boolean finish) {
+        final int capacity = table.keys.length;
+
+        do {
+            final int start = table.getAndAddCopyIndex(COPY_CHUNK_SIZE);
+            if (start >= capacity) {
+                return;
+            }
+
+            final int end = Math.min(capacity, start + COPY_CHUNK_SIZE);
+            for (int i = start; i < end; ++i) {
+                this.copyEntry(table, i);
+            }
+
+            if (table.addAndGetCopied(end - start) == capacity) {
+                this.promoteTables();
+                return;
+            }
+        } while (finish);
+    }
+
+    /* makes fully copied tables unreachable from the map */
+    protected final void promoteTables() {
+        for (Table curr = this.getTableAcquire();;) {
+            final Table next = curr.getNextVolatile();
+            if (next == null || curr.getCopiedVolatile() != curr.keys.length) {
+                return;
+            }
+
+            final Table witness = this.compareAndExchangeTableVolatile(curr, next);
+            curr = witness == curr ? next : witness;
+        }
+    }
+
+    /* copies the entry at the specified index to the next table, it is safe for any number of threads to invoke this */
+    protected final void copyEntry(final Table table, final int index) {
+        final Object[] values = table.values;
+
+        Frozen frozen;
+        for (Object curr = ArrayUtil.getVolatile(values, index);;) {
+            if (curr == MOVED) {
+                return;
+            }
+            if (curr instanceof Frozen) {
+                frozen = (Frozen)curr;
+                break;
+            }
+            if (curr == null || curr == REMOVED) {
+                // nothing to copy
+                if (curr == (curr = ArrayUtil.compareAndExchangeVolatile(values, index, curr, MOVED))) {
+                    return;
+                }
+                continue;
+            }
+
+            final Frozen update = new Frozen(curr);
+            if (curr == (curr = ArrayUtil.compareAndExchangeVolatile(values, index, curr, update))) {
+                frozen = update;
+                break;
+            }
+        }
+
+        // a non-null value is only ever written after the key is claimed, so the key is visible
+        this.insertCopy(table.getNextVolatile(), ArrayUtil.getVolatile(table.keys, index), frozen.value);
+
+        ArrayUtil.compareAndExchangeVolatile(values, index, frozen, MOVED);
+    }
+
+    /* only installs the value if the target table holds no value for the key, as such a value is always newer */
+    protected final void insertCopy(Table table, final int key, final Object value) {
+        final int hash = ConcurrentIntObjectOpenHashMap.hash(key);
+
+table_loop:
+        for (;;) {
+            final int[] keys = table.keys;
+            final Object[] values = table.values;
+            final int capacityMask = keys.length - 1;
+
+            int index = -1;
+            for (int currIndex = hash & capacityMask, probes = 0;; currIndex = (currIndex + 1) & capacityMask) {
+                int currKey = ArrayUtil.getVolatile(keys, currIndex);
+
+                if (currKey == 0) {
+                    if ((currKey = ArrayUtil.compareAndExchangeVolatile(keys, currIndex, 0, key)) == 0) {
+                        index = currIndex;
+                        if (table.incrementClaimed() >= table.threshold) {
+                            this.startResize(table);
+                        }
+                        break;
+                    }
+                }
+
+                if (currKey == key) {
+                    index = currIndex;
+                    break;
+                }
+
+                if (++probes > table.reprobeLimit) {
+                    break;
+                }
+            }
+
+            if (index == -1) {
+                table = this.startResize(table);
+                continue;
+            }
+
+            for (Object curr = ArrayUtil.getVolatile(values, index);;) {
+                if (curr == null) {
+                    if (null == (curr = ArrayUtil.compareAndExchangeVolatile(values, index, null, value))) {
+                        return;
+                    }
+                    continue;
+                }
+                if (curr == MOVED) {
+                    // the entry was copied onwards before our value was installed, it may have been empty
+                    table = table.getNextVolatile();
+                    continue table_loop;
+                }
+                // a newer value (or removal) exists
+                return;
+            }
+        }
+    }
+
+    /**
+     * Invokes the specified action on each entry in this map. Entries added or removed during iteration may or may
+     * not be observed, but no entry is observed twice.
+     */
+    public final void forEachEntry(final SingleWriterMultiReaderIntObjectOpenHashMap.IntObjectConsumer<V> action) {
+        Validate.notNull(action, "Action may not be null");
+
+        final Table table = this.getTableAcquire();
+        final int[] keys = table.keys;
+        final Object[] values = table.values;
+
+        for (int i = 0, len = keys.length; i < len; ++i) {
+            final int key = ArrayUtil.getVolatile(keys, i);
+            if (key == 0) {
+                continue;
+            }
+
+            final Object value = ArrayUtil.getVolatile(values, i);
+            final V current;
+            if (value == MOVED || value instanceof Frozen) {
+                current = this.get(key);
+            } else if (value == REMOVED) {
+                current = null;
+            } else {
+                //noinspection unchecked
+                current = (V)value;
+            }
+
+            if (current != null) {
+                action.accept(key, current);
+            }
+        }
+
+        final V zeroKeyValue = this.getZeroKeyValueVolatile();
+        if (zeroKeyValue != null) {
+            action.accept(0, zeroKeyValue);
+        }
+    }
+
+    /* relaxed operations, only valid while no other thread accesses this map */
+
+    public final V getRelaxed(final int key) {
+        if (key == 0) {
+            return this.getZeroKeyValuePlain();
+        }
+
+        final Table table = this.getTablePlain();
+        final int[] keys = table.keys;
+        final Object[] values = table.values;
+        final int capacityMask = keys.length - 1;
+
+        for (int currIndex = hash(key) & capacityMask, probes = 0; probes <= capacityMask; currIndex = (currIndex + 1) & capacityMask, ++probes) {
+            final int currKey = ArrayUtil.getPlain(keys, currIndex);
+            if (currKey == 0) {
+                return null;
+            }
+            if (currKey == key) {
+                final Object value = ArrayUtil.getPlain(values, currIndex);
+                //noinspection unchecked
+                return value == REMOVED ? null : (V)value;
+            }
+        }
+
+        return null;
+    }
+
+    public final V putRelaxed(final int key, final V value) {
+        Validate.notNull(value, "Value may not be null");
+
+        if (key == 0) {
+            final V prev = this.getZeroKeyValuePlain();
+            this.setZeroKeyValuePlain(value);
+            return prev;
+        }
+
+        for (;;) {
+            final Table table = this.getTablePlain();
+            final int[] keys = table.keys;
+            final Object[] values = table.values;
+            final int capacityMask = keys.length - 1;
+
+            for (int currIndex = hash(key) & capacityMask, probes = 0; probes <= table.reprobeLimit; currIndex = (currIndex + 1) & capacityMask, ++probes) {
+                final int currKey = ArrayUtil.getPlain(keys, currIndex);
+
+                if (currKey == 0) {
+                    ArrayUtil.setPlain(keys, currIndex, key);
+                    ArrayUtil.setPlain(values, currIndex, value);
+                    this.setSizePlain(this.getSizePlain() + 1);
+                    if (++table.claimed >= table.threshold) {
+                        this.startResize(table);
+                    }
+                    return null;
+                }
+
+                if (currKey == key) {
+                    final Object prev = ArrayUtil.getPlain(values, currIndex);
+                    ArrayUtil.setPlain(values, currIndex, value);
+                    if (prev == REMOVED || prev == null) {
+                        this.setSizePlain(this.getSizePlain() + 1);
+                        return null;
+                    }
+                    //noinspection unchecked
+                    return (V)prev;
+                }
+            }
+
+            this.startResize(table);
+        }
+    }
+
+    public final V removeRelaxed(final int key) {
+        if (key == 0) {
+            final V prev = this.getZeroKeyValuePlain();
+            this.setZeroKeyValuePlain(null);
+            return prev;
+        }
+
+        final Table table = this.getTablePlain();
+        final int[] keys = table.keys;
+        final Object[] values = table.values;
+        final int capacityMask = keys.length - 1;
+
+        for (int currIndex = hash(key) & capacityMask, probes = 0; probes <= capacityMask; currIndex = (currIndex + 1) & capacityMask, ++probes) {
+            final int currKey = ArrayUtil.getPlain(keys, currIndex);
+            if (currKey == 0) {
+                return null;
+            }
+            if (currKey == key) {
+                final Object prev = ArrayUtil.getPlain(values, currIndex);
+                if (prev == REMOVED || prev == null) {
+                    return null;
+                }
+                ArrayUtil.setPlain(values, currIndex, REMOVED);
+                this.setSizePlain(this.getSizePlain() - 1);
+                //noinspection unchecked
+                return (V)prev;
+            }
+        }
+
+        return null;
+    }
+
+    protected final void addToSize(final int num) {
+        SIZE_HANDLE.getAndAdd(this, num);
+    }
+
+    protected static final class Frozen {
+
+        protected final Object value;
+
+        protected Frozen(final Object value) {
+            this.value = value;
+        }
+    }
+
+    protected static final class Table {
+
+        protected final int[] keys;
+        protected final Object[] values;
+        protected final int threshold;
+        protected final int reprobeLimit;
+
+        protected int claimed;
+
+        protected int copyIndex;
+        protected int copied;
+
+        protected Table next;
+
+        protected static final VarHandle CLAIMED_HANDLE = ConcurrentUtil.getVarHandle(Table.class, "claimed", int.class);
+        protected static final VarHandle COPY_INDEX_HANDLE = ConcurrentUtil.getVarHandle(Table.class, "copyIndex", int.class);
+        protected static final VarHandle COPIED_HANDLE = ConcurrentUtil.getVarHandle(Table.class, "copied", int.class);
+        protected static final VarHandle NEXT_HANDLE = ConcurrentUtil.getVarHandle(Table.class, "next", Table.class);
+
+        protected Table(final int capacity, final float loadFactor) {
+            this.keys = new int[capacity];
+            this.values = new Object[capacity];
+            this.threshold = capacity == MAXIMUM_CAPACITY ? capacity - 2 : Math.min(capacity - 2, (int)(capacity * (double)loadFactor));
+            // long probe sequences mean heavy clustering, which a rebuild fixes. A table of the maximum capacity cannot
+            // grow, so every slot is probed before it rebuilds
+            this.reprobeLimit = capacity == MAXIMUM_CAPACITY ? capacity - 1 : Math.min(capacity - 1, 10 + (capacity >>> 2));
+        }
+
+        protected final int incrementClaimed() {
+            return (int)CLAIMED_HANDLE.getAndAdd(this, 1) + 1;
+        }
+
+        protected final int getClaimedVolatile() {
+            return (int)CLAIMED_HANDLE.getVolatile(this);
+        }
+
+        protected final int getAndAddCopyIndex(final int num) {
+            return (int)COPY_INDEX_HANDLE.getAndAdd(this, num);
+        }
+
+        protected final int addAndGetCopied(final int num) {
+            return (int)COPIED_HANDLE.getAndAdd(this, num) + num;
+        }
+
+        protected final int getCopiedVolatile() {
+            return (int)COPIED_HANDLE.getVolatile(this);
+        }
+
+        protected final Table getNextVolatile() {
+            return (Table)NEXT_HANDLE.getVolatile(this);
+        }
+
+        protected final Table compareAndExchangeNextVolatile(final Table expect, final Table update) {
+            return (Table)NEXT_HANDLE.compareAndExchange(this, expect, update);
+        }
+    }
+
+    protected static final VarHandle TABLE_HANDLE = ConcurrentUtil.getVarHandle(ConcurrentIntObjectOpenHashMap.class, "table", Table.class);
+    protected static final VarHandle SIZE_HANDLE = ConcurrentUtil.getVarHandle(ConcurrentIntObjectOpenHashMap.class, "size", int.class);
+    protected static final VarHandle ZERO_KEY_VALUE_HANDLE = ConcurrentUtil.getVarHandle(ConcurrentIntObjectOpenHashMap.class, "zeroKeyValue", Object.class);
+
+    /* table */
+
+    protected final Table getTablePlain() {
+        return (Table)TABLE_HANDLE.get(this);
+    }
+
+    protected final Table getTableAcquire() {
+        return (Table)TABLE_HANDLE.getAcquire(this);
+    }
+
+    protected final void setTableRelease(final Table table) {
+        TABLE_HANDLE.setRelease(this, table);
+    }
+
+    protected final Table compareAndExchangeTableVolatile(final Table expect, final Table update) {
+        return (Table)TABLE_HANDLE.compareAndExchange(this, expect, update);
+    }
+
+    /* size */
+
+    protected final int getSizePlain() {
+        return (int)SIZE_HANDLE.get(this);
+    }
+
+    protected final int getSizeVolatile() {
+        return (int)SIZE_HANDLE.getVolatile(this);
+    }
+
+    protected final void setSizePlain(final int size) {
+        SIZE_HANDLE.set(this, size);
+    }
+
+    /* zero key value */
+
+    @SuppressWarnings("unchecked")
+    protected final V getZeroKeyValuePlain() {
+        return (V)ZERO_KEY_VALUE_HANDLE.get(this);
+    }
+
+    @SuppressWarnings("unchecked")
+    protected final V getZeroKeyValueVolatile() {
+        return (V)ZERO_KEY_VALUE_HANDLE.getVolatile(this);
+    }
+
+    protected final void setZeroKeyValuePlain(final V value) {
+        ZERO_KEY_VALUE_HANDLE.set(this, (Object)value);
+    }
+
+    @SuppressWarnings("unchecked")
+    protected final V compareAndExchangeZeroKeyValueVolatile(final V expect, final Object update) {
+        return (V)ZERO_KEY_VALUE_HANDLE.compareAndExchange(this, (Object)expect, update);
+    }
+}
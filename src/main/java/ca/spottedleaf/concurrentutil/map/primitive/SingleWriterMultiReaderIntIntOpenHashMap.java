@@ -0,0 +1,860 @@
+package ca.spottedleaf.concurrentutil.map.primitive;
+
+import ca.spottedleaf.concurrentutil.ConcurrentUtil;
+import ca.spottedleaf.concurrentutil.lock.WeakSeqLock;
+import ca.spottedleaf.concurrentutil.util.ArrayUtil;
+import ca.spottedleaf.concurrentutil.util.IntegerUtil;
+
+import java.lang.invoke.VarHandle;
+import java.util.function.IntConsumer;
+
+/**
+ * Open addressing {@code int -> int} map supporting a single writer and any number of concurrent readers. The design
+ * follows {@link SingleWriterMultiReaderIntObjectOpenHashMap}, except values are stored unboxed. In place of
+ * {@code null}, a configurable absent value is returned by lookups of keys that are not mapped, and it may not be
+ * stored in the map.
+ * <p>
+ * There is no spare value to mark an entry as being moved, so every removal from the table is made under a
+ * {@link WeakSeqLock} which readers validate against. Insertions and value updates do not touch the lock.
+ * </p>
+ */
+public class SingleWriterMultiReaderIntIntOpenHashMap implements Cloneable {
+
+    protected int[] keys;
+
+    protected int[] values;
+
+    /** equal to the absent value if the zero key is not mapped */
+    protected int zeroKeyValue;
+
+    /** size excluding zero key value */
+    protected int size;
+
+    protected int threshold;
+
+    protected final float loadFactor;
+
+    protected final int absentValue;
+
+    /* acquired by the writer whenever entries are moved or removed from the table */
+    protected final WeakSeqLock mapLock = new WeakSeqLock();
+
+    protected static final int DEFAULT_CAPACITY = 32;
+    protected static final int MAXIMUM_CAPACITY = Integer.MIN_VALUE >>> 1;
+    protected static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    protected static int hash(final int x) {
+        return IntegerUtil.hash0(x);
+    }
+
+    protected SingleWriterMultiReaderIntIntOpenHashMap(final SingleWriterMultiReaderIntIntOpenHashMap other) {
+        this.keys = other.getKeysPlain().clone();
+        this.values = other.getValuesPlain().clone();
+        this.zeroKeyValue = other.getZeroKeyValuePlain();
+        this.size = other.getSizePlain();
+        this.threshold = other.threshold;
+        this.loadFactor = other.loadFactor;
+        this.absentValue = other.absentValue;
+        VarHandle.releaseFence();
+    }
+
+    public SingleWriterMultiReaderIntIntOpenHashMap() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR, 0);
+    }
+
+    public SingleWriterMultiReaderIntIntOpenHashMap(final int capacity, final float loadFactor) {
+        this(capacity, loadFactor, 0);
+    }
+
+    public SingleWriterMultiReaderIntIntOpenHashMap(final int capacity, final float loadFactor, final int absentValue) {
+        if (capacity <= 1) {
+            throw new IllegalArgumentException("Capacity is invalid (must be greater-than 1): " + capacity);
+        }
+
+        final int realCapacity;
+        if (capacity >= MAXIMUM_CAPACITY) {
+            realCapacity = MAXIMUM_CAPACITY;
+        } else {
+            realCapacity = IntegerUtil.roundCeilLog2(capacity);
+        }
+
+        if (loadFactor <= 0.0f || loadFactor > 1.0f || !Float.isFinite(loadFactor)) {
+            throw new IllegalArgumentException("Invalid load factor (must be in (0.0, 1.0] : " + loadFactor);
+        }
+        this.threshold = realCapacity == MAXIMUM_CAPACITY ? -1 : Math.min(realCapacity - 2, (int)(loadFactor * realCapacity));
+
+        this.loadFactor = loadFactor;
+        this.absentValue = absentValue;
+        this.zeroKeyValue = absentValue;
+        this.setKeysPlain(new int[realCapacity]);
+        this.setValuesRelease(new int[realCapacity]);
+    }
+
+    @Override
+    public SingleWriterMultiReaderIntIntOpenHashMap clone() {
+        return new SingleWriterMultiReaderIntIntOpenHashMap(this);
+    }
+
+    protected final void checkValue(final int value) {
+        if (value == this.absentValue) {
+            throw new IllegalArgumentException("Value may not be the absent value: " + value);
+        }
+    }
+
+    protected final void removeFromSizeRelaxed(final int num) {
+        this.setSizePlain(this.getSizePlain() - num);
+    }
+
+    protected final void removeFromSize(final int num) {
+        this.setSizeOpaque(this.getSizePlain() - num); // diff from relaxed: opaque write
+    }
+
+    protected final void addToSizeRelaxed(final int num) {
+        this.addToSize(num, false);
+    }
+
+    protected final void addToSize(final int num) {
+        this.addToSize(num, true);
+    }
+
+    private void addToSize(final int num, final boolean publish) {
+        final int prevSize = this.getSizePlain();
+        final int newSize = prevSize + num;
+        if (newSize < 0 || newSize >= MAXIMUM_CAPACITY) { // overflow detection
+            throw new IllegalStateException("too many entries: curr size: " + prevSize + ", adding: " + num);
+        }
+
+        if (newSize >= (MAXIMUM_CAPACITY - 2)) {
+            throw new IllegalStateException("Maximum capacity reached: " + newSize);
+        }
+
+        if (publish) {
+            this.setSizeOpaque(newSize);
+        } else {
+            this.setSizePlain(newSize);
+        }
+
+        if (this.threshold == -1 || newSize < this.threshold) {
+            return;
+        }
+
+        // now we must rebuild the table
+
+        final int[] currKeys = this.getKeysPlain();
+
+        // threshold < capacity, so doubling is always enough to bring newSize under the next threshold
+        int nextCapacity = currKeys.length << 1;
+
+        if (nextCapacity < 0 || nextCapacity > MAXIMUM_CAPACITY) {
+            nextCapacity = MAXIMUM_CAPACITY;
+        }
+
+        final int[] currValues = this.getValuesPlain();
+
+        final int[] nextKeys = new int[nextCapacity];
+        final int[] nextValues = new int[nextCapacity];
+
+        SingleWriterMultiReaderIntIntOpenHashMap.copyTable(nextKeys, nextValues, currKeys, currValues);
+
+        if (nextCapacity == MAXIMUM_CAPACITY) {
+            this.threshold = -1; /* No more resizing */
+        } else {
+            this.threshold = Math.min(nextCapacity - 2, (int)(nextCapacity * (double)this.loadFactor));
+        }
+
+        this.setKeysPlain(nextKeys);
+        if (publish) {
+            this.setValuesRelease(nextValues);
+        } else {
+            this.setValuesPlain(nextValues);
+        }
+    }
+
+    public final float getLoadFactor() {
+        return this.loadFactor;
+    }
+
+    /**
+     * Returns the value returned by lookups of unmapped keys. This value may not be stored in this map.
+     */
+    public final int getAbsentValue() {
+        return this.absentValue;
+    }
+
+    public final boolean isEmpty() {
+        return this.getSizeOpaque() == 0 && this.getZeroKeyValueOpaque() == this.absentValue;
+    }
+
+    public final int size() {
+        if (this.getZeroKeyValueOpaque() != this.absentValue) {
+            return this.getSizeOpaque() + 1;
+        } else {
+            return this.getSizeOpaque();
+        }
+    }
+
+    /**
+     * Returns the value mapped to the specified key, or the absent value if there is none. May be invoked
+     * concurrently with the writer.
+     */
+    public final int get(final int key) {
+        if (key == 0) {
+            return this.getZeroKeyValueAcquire();
+        }
+
+        int[] keys;
+        int[] values;
+        int capacity;
+        int capacityMask;
+
+        for (;;) {
+            keys = this.getKeysPlain();
+            values = this.getValuesAcquire();
+            capacity = keys.length;
+            capacityMask = capacity - 1;
+            if (capacity == values.length) {
+                break;
+            }
+        }
+
+        final int hash = SingleWriterMultiReaderIntIntOpenHashMap.hash(key);
+        final int index = hash & capacityMask;
+
+        int readLock;
+        int currIndex;
+
+search_loop:
+        for (;;) {
+            readLock = this.mapLock.acquireRead();
+            for (currIndex = index;;currIndex = (currIndex + 1) & capacityMask) {
+                // acquire pairs with the release write of the key on insertion, so the value is visible
+                final int currKey = ArrayUtil.getAcquire(keys, currIndex);
+
+                if (currKey == 0) {
+                    if (!this.mapLock.tryReleaseRead(readLock)) {
+                        continue search_loop;
+                    }
+                    return this.absentValue;
+                }
+
+                if (key != currKey) {
+                    continue;
+                }
+
+                final int value = ArrayUtil.getOpaque(values, currIndex);
+                if (!this.mapLock.tryReleaseRead(readLock)) {
+                    continue search_loop;
+                }
+
+                return value;
+            }
+        }
+    }
+
+    public final int getOrDefault(final int key, final int dfl) {
+        final int value = this.get(key);
+        return value == this.absentValue ? dfl : value;
+    }
+
+    public final boolean containsKey(final int key) {
+        return this.get(key) != this.absentValue;
+    }
+
+    public final int getRelaxed(final int key) {
+        if (key == 0) {
+            return this.getZeroKeyValuePlain();
+        }
+
+        final int[] keys = this.getKeysPlain();
+        final int[] values = this.getValuesPlain();
+        final int capacityMask = keys.length - 1;
+
+        final int hash = SingleWriterMultiReaderIntIntOpenHashMap.hash(key);
+
+        for (int currIndex = hash & capacityMask;;currIndex = (currIndex + 1) & capacityMask) {
+            /* threshold < table length so we must eventually find 0 */
+            final int currKey = ArrayUtil.getPlain(keys, currIndex);
+
+            if (currKey == 0) {
+                return this.absentValue;
+            }
+
+            if (currKey == key) {
+                return ArrayUtil.getPlain(values, currIndex);
+            }
+        }
+    }
+
+    public final int getOrDefaultRelaxed(final int key, final int dfl) {
+        final int value = this.getRelaxed(key);
+        return value == this.absentValue ? dfl : value;
+    }
+
+    public final boolean containsKeyRelaxed(final int key) {
+        return this.getRelaxed(key) != this.absentValue;
+    }
+
+    /* returns the index of the key, or the bitwise inverse of the empty index the key would be inserted at */
+    protected final int findIndexPlain(final int[] keys, final int key) {
+        final int capacityMask = keys.length - 1;
+        final int hash = SingleWriterMultiReaderIntIntOpenHashMap.hash(key);
+
+        for (int currIndex = hash & capacityMask;;currIndex = (currIndex + 1) & capacityMask) {
+            /* threshold < table length so we must eventually find 0 */
+            final int currKey = ArrayUtil.getPlain(keys, currIndex);
+
+            if (currKey == 0) {
+                return ~currIndex;
+            }
+
+            if (currKey == key) {
+                return currIndex;
+            }
+        }
+    }
+
+    public final int put(final int key, final int value) {
+        this.checkValue(value);
+
+        if (key == 0) {
+            final int prev = this.getZeroKeyValuePlain();
+            this.setZeroKeyValueRelease(value); // diff from relaxed: release write
+            return prev;
+        }
+
+        final int[] keys = this.getKeysPlain();
+        final int[] values = this.getValuesPlain();
+        final int index = this.findIndexPlain(keys, key);
+
+        if (index < 0) {
+            ArrayUtil.setPlain(values, ~index, value);
+            ArrayUtil.setRelease(keys, ~index, key); // diff from relaxed: release write
+
+            this.addToSize(1); // diff from relaxed: non-relaxed addToSize
+            return this.absentValue;
+        }
+
+        final int prev = ArrayUtil.getPlain(values, index);
+        ArrayUtil.setRelease(values, index, value); // diff from relaxed: release write
+        return prev;
+    }
+
+    public final int putRelaxed(final int key, final int value) {
+        this.checkValue(value);
+
+        if (key == 0) {
+            final int prev = this.getZeroKeyValuePlain();
+            this.setZeroKeyValuePlain(value);
+            return prev;
+        }
+
+        final int[] keys = this.getKeysPlain();
+        final int[] values = this.getValuesPlain();
+        final int index = this.findIndexPlain(keys, key);
+
+        if (index < 0) {
+            ArrayUtil.setPlain(values, ~index, value);
+            ArrayUtil.setPlain(keys, ~index, key);
+
+            this.addToSizeRelaxed(1);
+            return this.absentValue;
+        }
+
+        final int prev = ArrayUtil.getPlain(values, index);
+        ArrayUtil.setPlain(values, index, value);
+        return prev;
+    }
+
+    public final int putIfAbsent(final int key, final int value) {
+        this.checkValue(value);
+
+        if (key == 0) {
+            final int curr = this.getZeroKeyValuePlain();
+            if (curr == this.absentValue) {
+                this.setZeroKeyValueRelease(value); // diff from relaxed: release write
+            }
+            return curr;
+        }
+
+        final int[] keys = this.getKeysPlain();
+        final int[] values = this.getValuesPlain();
+        final int index = this.findIndexPlain(keys, key);
+
+        if (index < 0) {
+            ArrayUtil.setPlain(values, ~index, value);
+            ArrayUtil.setRelease(keys, ~index, key); // diff from relaxed: release write
+
+            this.addToSize(1); // diff from relaxed: non-relaxed addToSize
+            return this.absentValue;
+        }
+
+        return ArrayUtil.getPlain(values, index);
+    }
+
+    public final int putIfAbsentRelaxed(final int key, final int value) {
+        this.checkValue(value);
+
+        if (key == 0) {
+            final int curr = this.getZeroKeyValuePlain();
+            if (curr == this.absentValue) {
+                this.setZeroKeyValuePlain(value);
+            }
+            return curr;
+        }
+
+        final int[] keys = this.getKeysPlain();
+        final int[] values = this.getValuesPlain();
+        final int index = this.findIndexPlain(keys, key);
+
+        if (index < 0) {
+            ArrayUtil.setPlain(values, ~index, value);
+            ArrayUtil.setPlain(keys, ~index, key);
+
+            this.addToSizeRelaxed(1);
+            return this.absentValue;
+        }
+
+        return ArrayUtil.getPlain(values, index);
+    }
+
+    /**
+     * Adds the specified amount to the value mapped to the key, treating an unmapped key as mapped to the absent
+     * value. If the result is the absent value, the mapping is removed.
+     * @return The new value.
+     */
+    public final int addTo(final int key, final int amount) {
+        if (key == 0) {
+            final int newValue = this.getZeroKeyValuePlain() + amount;
+            this.setZeroKeyValueRelease(newValue); // diff from relaxed: release write
+            return newValue;
+        }
+
+        final int[] keys = this.getKeysPlain();
+        final int[] values = this.getValuesPlain();
+        final int index = this.findIndexPlain(keys, key);
+
+        if (index < 0) {
+            final int newValue = this.absentValue + amount;
+            if (newValue == this.absentValue) {
+                return newValue;
+            }
+
+            ArrayUtil.setPlain(values, ~index, newValue);
+            ArrayUtil.setRelease(keys, ~index, key); // diff from relaxed: release write
+
+            this.addToSize(1); // diff from relaxed: non-relaxed addToSize
+            return newValue;
+        }
+
+        final int newValue = ArrayUtil.getPlain(values, index) + amount;
+
+        if (newValue == this.absentValue) {
+            this.removeAt(keys, values, keys.length - 1, index);
+        } else {
+            ArrayUtil.setRelease(values, index, newValue); // diff from relaxed: release write
+        }
+
+        return newValue;
+    }
+
+    public final int addToRelaxed(final int key, final int amount) {
+        if (key == 0) {
+            final int newValue = this.getZeroKeyValuePlain() + amount;
+            this.setZeroKeyValuePlain(newValue);
+            return newValue;
+        }
+
+        final int[] keys = this.getKeysPlain();
+        final int[] values = this.getValuesPlain();
+        final int index = this.findIndexPlain(keys, key);
+
+        if (index < 0) {
+            final int newValue = this.absentValue + amount;
+            if (newValue == this.absentValue) {
+                return newValue;
+            }
+
+            ArrayUtil.setPlain(values, ~index, newValue);
+            ArrayUtil.setPlain(keys, ~index, key);
+
+            this.addToSizeRelaxed(1);
+            return newValue;
+        }
+
+        final int newValue = ArrayUtil.getPlain(values, index) + amount;
+
+        if (newValue == this.absentValue) {
+            SingleWriterMultiReaderIntIntOpenHashMap.removeEntryAt(keys, values, keys.length - 1, index);
+            this.removeFromSizeRelaxed(1);
+        } else {
+            ArrayUtil.setPlain(values, index, newValue);
+        }
+
+        return newValue;
+    }
+
+    protected static void removeEntryAt(final int[] keys, final int[] values, final int capacityMask, final int index) {
+        for (int lastMigrated = index, currIndex = ((index + 1) & capacityMask);;currIndex = ((currIndex + 1) & capacityMask)) {
+            final int currKey = keys[currIndex];
+            if (currKey == 0) {
+                ArrayUtil.setPlain(keys, lastMigrated, 0);
+                return;
+            }
+
+            final int hash = SingleWriterMultiReaderIntIntOpenHashMap.hash(currKey);
+            final int expectedIndex = hash & capacityMask;
+
+            // Ensure that if we move this element to 'lastMigrated', that it is "reachable"
+            // reachable: its expected index must not lie (cyclically) in (lastMigrated, currIndex], otherwise
+            // the probe sequence for the key would hit the hole at lastMigrated before reaching the key
+            if (((currIndex - expectedIndex) & capacityMask) >= ((currIndex - lastMigrated) & capacityMask)) {
+                ArrayUtil.setPlain(values, lastMigrated, ArrayUtil.getPlain(values, currIndex));
+                ArrayUtil.setPlain(keys, lastMigrated, currKey);
+                lastMigrated = currIndex;
+            }
+        }
+    }
+
+    /* removes the entry at the specified index under the map lock and updates the size */
+    protected final void removeAt(final int[] keys, final int[] values, final int capacityMask, final int index) {
+        this.mapLock.acquireWrite();
+        SingleWriterMultiReaderIntIntOpenHashMap.removeEntryAt(keys, values, capacityMask, index);
+        this.mapLock.releaseWrite();
+
+        this.removeFromSize(1);
+    }
+
+    public final int remove(final int key) {
+        if (key == 0) {
+            final int prev = this.getZeroKeyValuePlain();
+            this.setZeroKeyValueRelease(this.absentValue);
+            return prev;
+        }
+
+        final int[] keys = this.getKeysPlain();
+        final int[] values = this.getValuesPlain();
+        final int index = this.findIndexPlain(keys, key);
+
+        if (index < 0) {
+            return this.absentValue;
+        }
+
+        final int ret = ArrayUtil.getPlain(values, index);
+        this.removeAt(keys, values, keys.length - 1, index);
+
+        return ret;
+    }
+
+    public final int removeRelaxed(final int key) {
+        if (key == 0) {
+            final int prev = this.getZeroKeyValuePlain();
+            this.setZeroKeyValuePlain(this.absentValue);
+            return prev;
+        }
+
+        final int[] keys = this.getKeysPlain();
+        final int[] values = this.getValuesPlain();
+        final int index = this.findIndexPlain(keys, key);
+
+        if (index < 0) {
+            return this.absentValue;
+        }
+
+        final int ret = ArrayUtil.getPlain(values, index);
+        SingleWriterMultiReaderIntIntOpenHashMap.removeEntryAt(keys, values, keys.length - 1, index);
+        this.removeFromSizeRelaxed(1);
+
+        return ret;
+    }
+
+    public final boolean remove(final int key, final int value) {
+        if (key == 0) {
+            if (value == this.absentValue || this.getZeroKeyValuePlain() != value) {
+                return false;
+            }
+            this.setZeroKeyValueRelease(this.absentValue);
+            return true;
+        }
+
+        final int[] keys = this.getKeysPlain();
+        final int[] values = this.getValuesPlain();
+        final int index = this.findIndexPlain(keys, key);
+
+        if (index < 0 || ArrayUtil.getPlain(values, index) != value) {
+            return false;
+        }
+
+        this.removeAt(keys, values, keys.length - 1, index);
+
+        return true;
+    }
+
+    public final boolean removeRelaxed(final int key, final int value) {
+        if (key == 0) {
+            if (value == this.absentValue || this.getZeroKeyValuePlain() != value) {
+                return false;
+            }
+            this.setZeroKeyValuePlain(this.absentValue);
+            return true;
+        }
+
+        final int[] keys = this.getKeysPlain();
+        final int[] values = this.getValuesPlain();
+        final int index = this.findIndexPlain(keys, key);
+
+        if (index < 0 || ArrayUtil.getPlain(values, index) != value) {
+            return false;
+        }
+
+        SingleWriterMultiReaderIntIntOpenHashMap.removeEntryAt(keys, values, keys.length - 1, index);
+        this.removeFromSizeRelaxed(1);
+
+        return true;
+    }
+
+    public final void clear() {
+        final int[] keys = this.getKeysPlain();
+
+        this.mapLock.acquireWrite();
+        for (int i = 0, len = keys.length; i < len; ++i) {
+            ArrayUtil.setPlain(keys, i, 0);
+        }
+        this.mapLock.releaseWrite();
+
+        this.setSizeOpaque(0);
+        this.setZeroKeyValueRelease(this.absentValue);
+    }
+
+    /*
+     * On iteration:
+     *
+     * Since removals can shift elements to previous indices, we have to iterate over the array backwards starting at
+     * the end of the first grouped entry. See SingleWriterMultiReaderIntObjectOpenHashMap. Each entry is read under
+     * the map lock, so a key and value read together always belong together.
+     */
+
+    protected final int findFirstGroupOpaque(final int[] keys) {
+        final int mask = keys.length - 1;
+
+        for (;;) {
+            if (this.getSizeOpaque() == 0) {
+                return -1;
+            }
+            for (int i = mask; i >= 0; --i) {
+                if (ArrayUtil.getOpaque(keys, i) == 0) {
+                    return i;
+                }
+            }
+        }
+    }
+
+    public final void forEachEntry(final IntIntConsumer action) {
+        int[] keys;
+        int[] values;
+        int capacity;
+        int capacityMask;
+
+        for (;;) {
+            keys = this.getKeysPlain();
+            values = this.getValuesAcquire();
+            capacity = keys.length;
+            capacityMask = capacity - 1;
+            if (capacity == values.length) {
+                break;
+            }
+        }
+
+        final int start = this.findFirstGroupOpaque(keys);
+
+        for (int i = (start - 1) & capacityMask; start != -1 && i != start; i = (i - 1) & capacityMask) {
+            int key;
+            int value;
+            int readLock;
+            do {
+                readLock = this.mapLock.acquireRead();
+                key = ArrayUtil.getAcquire(keys, i);
+                value = ArrayUtil.getOpaque(values, i);
+            } while (!this.mapLock.tryReleaseRead(readLock));
+
+            if (key != 0) {
+                action.accept(key, value);
+            }
+        }
+
+        final int zeroKeyValue = this.getZeroKeyValueAcquire();
+        if (zeroKeyValue != this.absentValue) {
+            action.accept(0, zeroKeyValue);
+        }
+    }
+
+    public final void forEachKey(final IntConsumer action) {
+        this.forEachEntry((final int key, final int value) -> {
+            action.accept(key);
+        });
+    }
+
+    public final void forEachValue(final IntConsumer action) {
+        this.forEachEntry((final int key, final int value) -> {
+            action.accept(value);
+        });
+    }
+
+    public final void forEachEntryRelaxed(final IntIntConsumer action) {
+        final int[] keys = this.getKeysPlain();
+        final int[] values = this.getValuesPlain();
+
+        for (int i = 0, len = keys.length; i < len; ++i) {
+            final int key = ArrayUtil.getPlain(keys, i);
+            if (key != 0) {
+                action.accept(key, ArrayUtil.getPlain(values, i));
+            }
+        }
+
+        final int zeroKeyValue = this.getZeroKeyValuePlain();
+        if (zeroKeyValue != this.absentValue) {
+            action.accept(0, zeroKeyValue);
+        }
+    }
+
+    public final void forEachKeyRelaxed(final IntConsumer action) {
+        final int[] keys = this.getKeysPlain();
+
+        for (int i = 0, len = keys.length; i < len; ++i) {
+            final int key = ArrayUtil.getPlain(keys, i);
+            if (key != 0) {
+                action.accept(key);
+            }
+        }
+
+        if (this.getZeroKeyValuePlain() != this.absentValue) {
+            action.accept(0);
+        }
+    }
+
+    public final void forEachValueRelaxed(final IntConsumer action) {
+        final int[] keys = this.getKeysPlain();
+        final int[] values = this.getValuesPlain();
+
+        for (int i = 0, len = keys.length; i < len; ++i) {
+            if (ArrayUtil.getPlain(keys, i) != 0) {
+                action.accept(ArrayUtil.getPlain(values, i));
+            }
+        }
+
+        final int zeroKeyValue = this.getZeroKeyValuePlain();
+        if (zeroKeyValue != this.absentValue) {
+            action.accept(zeroKeyValue);
+        }
+    }
+
+    // relaxed operation
+    protected static void copyTable(final int[] dstKeys, final int[] dstValues, final int[] srcKeys, final int[] srcValues) {
+        // presume dstKeys.length >= srcKeys.length
+        final int srcLen = srcKeys.length;
+        final int dstMask = dstKeys.length - 1;
+
+        for (int i = 0; i < srcLen; ++i) {
+            final int key = srcKeys[i];
+            if (key == 0) {
+                continue;
+            }
+
+            final int hash = SingleWriterMultiReaderIntIntOpenHashMap.hash(key);
+
+            for (int currIndex = hash & dstMask;;currIndex = (currIndex + 1) & dstMask) {
+                if (dstKeys[currIndex] == 0) {
+                    dstKeys[currIndex] = key;
+                    dstValues[currIndex] = srcValues[i];
+                    break;
+                }
+            }
+        }
+    }
+
+    protected static final VarHandle KEYS_HANDLE =
+            ConcurrentUtil.getVarHandle(SingleWriterMultiReaderIntIntOpenHashMap.class, "keys", int[].class);
+
+    protected static final VarHandle VALUES_HANDLE =
+            ConcurrentUtil.getVarHandle(SingleWriterMultiReaderIntIntOpenHashMap.class, "values", int[].class);
+
+    protected static final VarHandle SIZE_HANDLE =
+            ConcurrentUtil.getVarHandle(SingleWriterMultiReaderIntIntOpenHashMap.class, "size", int.class);
+
+    protected static final VarHandle ZERO_KEY_VALUE =
+            ConcurrentUtil.getVarHandle(SingleWriterMultiReaderIntIntOpenHashMap.class, "zeroKeyValue", int.class);
+
+    /* keys */
+
+    protected final int[] getKeysPlain() {
+        return (int[])KEYS_HANDLE.get(this);
+    }
+
+    protected final void setKeysPlain(final int[] keys) {
+        KEYS_HANDLE.set(this, keys);
+    }
+
+    /* values */
+
+    protected final int[] getValuesPlain() {
+        return (int[])VALUES_HANDLE.get(this);
+    }
+
+    protected final int[] getValuesAcquire() {
+        return (int[])VALUES_HANDLE.getAcquire(this);
+    }
+
+    protected final void setValuesPlain(final int[] values) {
+        VALUES_HANDLE.set(this, values);
+    }
+
+    protected final void setValuesRelease(final int[] values) {
+        VALUES_HANDLE.setRelease(this, values);
+    }
+
+    /* size */
+
+    protected final int getSizePlain() {
+        return (int)SIZE_HANDLE.get(this);
+    }
+
+    protected final int getSizeOpaque() {
+        return (int)SIZE_HANDLE.getOpaque(this);
+    }
+
+    protected final void setSizePlain(final int size) {
+        SIZE_HANDLE.set(this, size);
+    }
+
+    protected final void setSizeOpaque(final int size) {
+        SIZE_HANDLE.setOpaque(this, size);
+    }
+
+    /* zero key value */
+
+    protected final int getZeroKeyValuePlain() {
+        return (int)ZERO_KEY_VALUE.get(this);
+    }
+
+    protected final int getZeroKeyValueOpaque() {
+        return (int)ZERO_KEY_VALUE.getOpaque(this);
+    }
+
+    protected final int getZeroKeyValueAcquire() {
+        return (int)ZERO_KEY_VALUE.getAcquire(this);
+    }
+
+    protected final void setZeroKeyValuePlain(final int value) {
+        ZERO_KEY_VALUE.set(this, value);
+    }
+
+    protected final void setZeroKeyValueRelease(final int value) {
+        ZERO_KEY_VALUE.setRelease(this, value);
+    }
+
+    @FunctionalInterface
+    public static interface IntIntConsumer {
+
+        void accept(final int key, final int value);
+
+    }
+}
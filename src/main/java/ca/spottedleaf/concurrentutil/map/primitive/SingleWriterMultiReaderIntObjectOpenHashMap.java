@@ -138,13 +138,15 @@ public abstract class SingleWriterMultiReaderIntObjectOpenHashMap<V> implements
 
         // now we must rebuild the table
 
-        int nextCapacity = IntegerUtil.roundCeilLog2(newSize);
+        final int[] currKeys = this.getKeysPlain();
+
+        // threshold < capacity, so doubling is always enough to bring newSize under the next threshold
+        int nextCapacity = currKeys.length << 1;
 
-        if (nextCapacity < 0) {
+        if (nextCapacity < 0 || nextCapacity > MAXIMUM_CAPACITY) {
             nextCapacity = MAXIMUM_CAPACITY;
         }
 
-        final int[] currKeys = this.getKeysPlain();
         final V[] currValues = this.getValuesPlain();
 
         final int[] nextKeys = new int[nextCapacity];
@@ -181,13 +183,15 @@ public abstract class SingleWriterMultiReaderIntObjectOpenHashMap<V> implements
 
         // now we must rebuild the table
 
-        int nextCapacity = IntegerUtil.roundCeilLog2(newSize);
+        final int[] currKeys = this.getKeysPlain();
+
+        // threshold < capacity, so doubling is always enough to bring newSize under the next threshold
+        int nextCapacity = currKeys.length << 1;
 
-        if (nextCapacity < 0) {
+        if (nextCapacity < 0 || nextCapacity > MAXIMUM_CAPACITY) {
             nextCapacity = MAXIMUM_CAPACITY;
         }
 
-        final int[] currKeys = this.getKeysPlain();
         final V[] currValues = this.getValuesPlain();
 
         final int[] nextKeys = new int[nextCapacity];
@@ -421,38 +425,13 @@ public abstract class SingleWriterMultiReaderIntObjectOpenHashMap<V> implements
             final int expectedIndex = hash & capacityMask;
 
             // Ensure that if we move this element to 'lastMigrated', that it is "reachable"
-            // reachable: it's index in the map is after (including wrapped, that is, 0 is after capacityMask) or equal
-            // to its expectedIndex (expectedIndex = hash & capacityMask)
-
-            // if we're not dealing with wrapped indices:
-            // reachable = map index >= expected index
-            // if we are dealing with wrapped indices:
-            // reachable = map index >= expected index && expectedIndex >= startIndex
-            // the second condition ensures we do not move, for example:
-            // lastMigrated = map index
-            // currIndex < lastMigrated (wrapped)
-            // currIndex is a key with expectedIndex 0
-            // without the second condition we would move the key, but it would be unreachable.
-            // TODO verify this
-            if (lastMigrated >= expectedIndex && (currIndex >= lastMigrated || expectedIndex >= index)) {
+            // reachable: its expected index must not lie (cyclically) in (lastMigrated, currIndex], otherwise
+            // the probe sequence for the key would hit the hole at lastMigrated before reaching the key
+            if (((currIndex - expectedIndex) & capacityMask) >= ((currIndex - lastMigrated) & capacityMask)) {
                 ArrayUtil.setPlain(values, lastMigrated, ArrayUtil.getPlain(values, currIndex));
                 ArrayUtil.setPlain(keys, lastMigrated, currKey);
                 lastMigrated = currIndex;
             }
-            /*
-            if (currIndex < lastMigrated) {
-                // we've wrapped
-                if (lastMigrated >= expectedIndex && expectedIndex >= index) {
-
-                }
-            } else {
-                // not wrapped
-                if (lastMigrated >= expectedIndex) {
-                    // the element would be reachable from this position
-
-                }
-
-            }*/
         }
     }
 
@@ -471,20 +450,9 @@ public abstract class SingleWriterMultiReaderIntObjectOpenHashMap<V> implements
             final int expectedIndex = hash & capacityMask;
 
             // Ensure that if we move this element to 'lastMigrated', that it is "reachable"
-            // reachable: it's index in the map is after (including wrapped, that is, 0 is after capacityMask) or equal
-            // to its expectedIndex (expectedIndex = hash & capacityMask)
-
-            // if we're not dealing with wrapped indices:
-            // reachable = map index >= expected index
-            // if we are dealing with wrapped indices:
-            // reachable = map index >= expected index && expectedIndex >= startIndex
-            // the second condition ensures we do not move, for example:
-            // lastMigrated = map index
-            // currIndex < lastMigrated (wrapped)
-            // currIndex is a key with expectedIndex 0
-            // without the second condition we would move the key, but it would be unreachable.
-            // TODO verify this
-            if (lastMigrated >= expectedIndex && (currIndex >= lastMigrated || expectedIndex >= index)) {
+            // reachable: its expected index must not lie (cyclically) in (lastMigrated, currIndex], otherwise
+            // the probe sequence for the key would hit the hole at lastMigrated before reaching the key
+            if (((currIndex - expectedIndex) & capacityMask) >= ((currIndex - lastMigrated) & capacityMask)) {
                 modified = true;
                 // we write to the value as null so that iterators can spinwait on the value
                 // that is, the null value is used to indicate the value is changing
@@ -497,20 +465,6 @@ public abstract class SingleWriterMultiReaderIntObjectOpenHashMap<V> implements
 
                 lastMigrated = currIndex;
             }
-            /*
-            if (currIndex < lastMigrated) {
-                // we've wrapped
-                if (lastMigrated >= expectedIndex && expectedIndex >= index) {
-
-                }
-            } else {
-                // not wrapped
-                if (lastMigrated >= expectedIndex) {
-                    // the element would be reachable from this position
-
-                }
-
-            }*/
         }
     }
 
@@ -921,7 +875,7 @@ public abstract class SingleWriterMultiReaderIntObjectOpenHashMap<V> implements
         final int start = findFirstGroupOpaque(keys);
 
         main_loop:
-        for (int i = (start - 1) & capacityMask; i != start; i = (i - 1) & capacityMask) {
+        for (int i = (start - 1) & capacityMask; start != -1 && i != start; i = (i - 1) & capacityMask) {
             int lastKey = ArrayUtil.getOpaque(keys, i);
             V lastVal = ArrayUtil.getAcquire(values, i);
             //VarHandle.loadLoadFence(); // acquire acts as this fence here
@@ -1124,21 +1078,21 @@ public abstract class SingleWriterMultiReaderIntObjectOpenHashMap<V> implements
     }
 
     @FunctionalInterface
-    static interface IntObjectProducer<T> {
+    public static interface IntObjectProducer<T> {
 
         T produce(final int value);
 
     }
 
     @FunctionalInterface
-    static interface IntObjectConsumer<T> {
+    public static interface IntObjectConsumer<T> {
 
         void accept(final int value, final T object);
 
     }
 
     @FunctionalInterface
-    static interface IntObjectObjectProducer<T> {
+    public static interface IntObjectObjectProducer<T> {
 
         T produce(final int value, final T object);
 
@@ -112,7 +112,6 @@ search_loop:
             final int currKey = ArrayUtil.getPlain(keys, currIndex);
 
             if (currKey == 0) {
-                this.removeFromSize(1);
                 return null;
             }
 
@@ -0,0 +1,860 @@
+package ca.spottedleaf.concurrentutil.map.primitive;
+
+import ca.spottedleaf.concurrentutil.ConcurrentUtil;
+import ca.spottedleaf.concurrentutil.lock.WeakSeqLock;
+import ca.spottedleaf.concurrentutil.util.ArrayUtil;
+import ca.spottedleaf.concurrentutil.util.IntegerUtil;
+
+import java.lang.invoke.VarHandle;
+import java.util.function.LongConsumer;
+
+/**
+ * Open addressing {@code long -> long} map supporting a single writer and any number of concurrent readers. The design
+ * follows {@link SingleWriterMultiReaderIntObjectOpenHashMap}, except values are stored unboxed. In place of
+ * {@code null}, a configurable absent value is returned by lookups of keys that are not mapped, and it may not be
+ * stored in the map.
+ * <p>
+ * There is no spare value to mark an entry as being moved, so every removal from the table is made under a
+ * {@link WeakSeqLock} which readers validate against. Insertions and value updates do not touch the lock.
+ * </p>
+ */
+public class SingleWriterMultiReaderLongLongOpenHashMap implements Cloneable {
+
+    protected long[] keys;
+
+    protected long[] values;
+
+    /** equal to the absent value if the zero key is not mapped */
+    protected long zeroKeyValue;
+
+    /** size excluding zero key value */
+    protected int size;
+
+    protected int threshold;
+
+    protected final float loadFactor;
+
+    protected final long absentValue;
+
+    /* acquired by the writer whenever entries are moved or removed from the table */
+    protected final WeakSeqLock mapLock = new WeakSeqLock();
+
+    protected static final int DEFAULT_CAPACITY = 32;
+    protected static final int MAXIMUM_CAPACITY = Integer.MIN_VALUE >>> 1;
+    protected static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    protected static int hash(final long x) {
+        return (int)IntegerUtil.hash1(x);
+    }
+
+    protected SingleWriterMultiReaderLongLongOpenHashMap(final SingleWriterMultiReaderLongLongOpenHashMap other) {
+        this.keys = other.getKeysPlain().clone();
+        this.values = other.getValuesPlain().clone();
+        this.zeroKeyValue = other.getZeroKeyValuePlain();
+        this.size = other.getSizePlain();
+        this.threshold = other.threshold;
+        this.loadFactor = other.loadFactor;
+        this.absentValue = other.absentValue;
+        VarHandle.releaseFence();
+    }
+
+    public SingleWriterMultiReaderLongLongOpenHashMap() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR, 0);
+    }
+
+    public SingleWriterMultiReaderLongLongOpenHashMap(final int capacity, final float loadFactor) {
+        this(capacity, loadFactor, 0);
+    }
+
+    public SingleWriterMultiReaderLongLongOpenHashMap(final int capacity, final float loadFactor, final long absentValue) {
+        if (capacity <= 1) {
+            throw new IllegalArgumentException("Capacity is invalid (must be greater-than 1): " + capacity);
+        }
+
+        final int realCapacity;
+        if (capacity >= MAXIMUM_CAPACITY) {
+            realCapacity = MAXIMUM_CAPACITY;
+        } else {
+            realCapacity = IntegerUtil.roundCeilLog2(capacity);
+        }
+
+        if (loadFactor <= 0.0f || loadFactor > 1.0f || !Float.isFinite(loadFactor)) {
+            throw new IllegalArgumentException("Invalid load factor (must be in (0.0, 1.0] : " + loadFactor);
+        }
+        this.threshold = realCapacity == MAXIMUM_CAPACITY ? -1 : Math.min(realCapacity - 2, (int)(loadFactor * realCapacity));
+
+        this.loadFactor = loadFactor;
+        this.absentValue = absentValue;
+        this.zeroKeyValue = absentValue;
+        this.setKeysPlain(new long[realCapacity]);
+        this.setValuesRelease(new long[realCapacity]);
+    }
+
+    @Override
+    public SingleWriterMultiReaderLongLongOpenHashMap clone() {
+        return new SingleWriterMultiReaderLongLongOpenHashMap(this);
+    }
+
+    protected final void checkValue(final long value) {
+        if (value == this.absentValue) {
+            throw new IllegalArgumentException("Value may not be the absent value: " + value);
+        }
+    }
+
+    protected final void removeFromSizeRelaxed(final int num) {
+        this.setSizePlain(this.getSizePlain() - num);
+    }
+
+    protected final void removeFromSize(final int num) {
+        this.setSizeOpaque(this.getSizePlain() - num); // diff from relaxed: opaque write
+    }
+
+    protected final void addToSizeRelaxed(final int num) {
+        this.addToSize(num, false);
+    }
+
+    protected final void addToSize(final int num) {
+        this.addToSize(num, true);
+    }
+
+    private void addToSize(final int num, final boolean publish) {
+        final int prevSize = this.getSizePlain();
+        final int newSize = prevSize + num;
+        if (newSize < 0 || newSize >= MAXIMUM_CAPACITY) { // overflow detection
+            throw new IllegalStateException("too many entries: curr size: " + prevSize + ", adding: " + num);
+        }
+
+        if (newSize >= (MAXIMUM_CAPACITY - 2)) {
+            throw new IllegalStateException("Maximum capacity reached: " + newSize);
+        }
+
+        if (publish) {
+            this.setSizeOpaque(newSize);
+        } else {
+            this.setSizePlain(newSize);
+        }
+
+        if (this.threshold == -1 || newSize < this.threshold) {
+            return;
+        }
+
+        // now we must rebuild the table
+
+        final long[] currKeys = this.getKeysPlain();
+
+        // threshold < capacity, so doubling is always enough to bring newSize under the next threshold
+        int nextCapacity = currKeys.length << 1;
+
+        if (nextCapacity < 0 || nextCapacity > MAXIMUM_CAPACITY) {
+            nextCapacity = MAXIMUM_CAPACITY;
+        }
+
+        final long[] currValues = this.getValuesPlain();
+
+        final long[] nextKeys = new long[nextCapacity];
+        final long[] nextValues = new long[nextCapacity];
+
+        SingleWriterMultiReaderLongLongOpenHashMap.copyTable(nextKeys, nextValues, currKeys, currValues);
+
+        if (nextCapacity == MAXIMUM_CAPACITY) {
+            this.threshold = -1; /* No more resizing */
+        } else {
+            this.threshold = Math.min(nextCapacity - 2, (int)(nextCapacity * (double)this.loadFactor));
+        }
+
+        this.setKeysPlain(nextKeys);
+        if (publish) {
+            this.setValuesRelease(nextValues);
+        } else {
+            this.setValuesPlain(nextValues);
+        }
+    }
+
+    public final float getLoadFactor() {
+        return this.loadFactor;
+    }
+
+    /**
+     * Returns the value returned by lookups of unmapped keys. This value may not be stored in this map.
+     */
+    public final long getAbsentValue() {
+        return this.absentValue;
+    }
+
+    public final boolean isEmpty() {
+        return this.getSizeOpaque() == 0 && this.getZeroKeyValueOpaque() == this.absentValue;
+    }
+
+    public final int size() {
+        if (this.getZeroKeyValueOpaque() != this.absentValue) {
+            return this.getSizeOpaque() + 1;
+        } else {
+            return this.getSizeOpaque();
+        }
+    }
+
+    /**
+     * Returns the value mapped to the specified key, or the absent value if there is none. May be invoked
+     * concurrently with the writer.
+     */
+    public final long get(final long key) {
+        if (key == 0) {
+            return this.getZeroKeyValueAcquire();
+        }
+
+        long[] keys;
+        long[] values;
+        int capacity;
+        int capacityMask;
+
+        for (;;) {
+            keys = this.getKeysPlain();
+            values = this.getValuesAcquire();
+            capacity = keys.length;
+            capacityMask = capacity - 1;
+            if (capacity == values.length) {
+                break;
+            }
+        }
+
+        final int hash = SingleWriterMultiReaderLongLongOpenHashMap.hash(key);
+        final int index = hash & capacityMask;
+
+        int readLock;
+        int currIndex;
+
+search_loop:
+        for (;;) {
+            readLock = this.mapLock.acquireRead();
+            for (currIndex = index;;currIndex = (currIndex + 1) & capacityMask) {
+                // acquire pairs with the release write of the key on insertion, so the value is visible
+                final long currKey = ArrayUtil.getAcquire(keys, currIndex);
+
+                if (currKey == 0) {
+                    if (!this.mapLock.tryReleaseRead(readLock)) {
+                        continue search_loop;
+                    }
+                    return this.absentValue;
+                }
+
+                if (key != currKey) {
+                    continue;
+                }
+
+                final long value = ArrayUtil.getOpaque(values, currIndex);
+                if (!this.mapLock.tryReleaseRead(readLock)) {
+                    continue search_loop;
+                }
+
+                return value;
+            }
+        }
+    }
+
+    public final long getOrDefault(final long key, final long dfl) {
+        final long value = this.get(key);
+        return value == this.absentValue ? dfl : value;
+    }
+
+    public final boolean containsKey(final long key) {
+        return this.get(key) != this.absentValue;
+    }
+
+    public final long getRelaxed(final long key) {
+        if (key == 0) {
+            return this.getZeroKeyValuePlain();
+        }
+
+        final long[] keys = this.getKeysPlain();
+        final long[] values = this.getValuesPlain();
+        final int capacityMask = keys.length - 1;
+
+        final int hash = SingleWriterMultiReaderLongLongOpenHashMap.hash(key);
+
+        for (int currIndex = hash & capacityMask;;currIndex = (currIndex + 1) & capacityMask) {
+            /* threshold < table length so we must eventually find 0 */
+            final long currKey = ArrayUtil.getPlain(keys, currIndex);
+
+            if (currKey == 0) {
+                return this.absentValue;
+            }
+
+            if (currKey == key) {
+                return ArrayUtil.getPlain(values, currIndex);
+            }
+        }
+    }
+
+    public final long getOrDefaultRelaxed(final long key, final long dfl) {
+        final long value = this.getRelaxed(key);
+        return value == this.absentValue ? dfl : value;
+    }
+
+    public final boolean containsKeyRelaxed(final long key) {
+        return this.getRelaxed(key) != this.absentValue;
+    }
+
+    /* returns the index of the key, or the bitwise inverse of the empty index the key would be inserted at */
+    protected final int findIndexPlain(final long[] keys, final long key) {
+        final int capacityMask = keys.length - 1;
+        final int hash = SingleWriterMultiReaderLongLongOpenHashMap.hash(key);
+
+        for (int currIndex = hash & capacityMask;;currIndex = (currIndex + 1) & capacityMask) {
+            /* threshold < table length so we must eventually find 0 */
+            final long currKey = ArrayUtil.getPlain(keys, currIndex);
+
+            if (currKey == 0) {
+                return ~currIndex;
+            }
+
+            if (currKey == key) {
+                return currIndex;
+            }
+        }
+    }
+
+    public final long put(final long key, final long value) {
+        this.checkValue(value);
+
+        if (key == 0) {
+            final long prev = this.getZeroKeyValuePlain();
+            this.setZeroKeyValueRelease(value); // diff from relaxed: release write
+            return prev;
+        }
+
+        final long[] keys = this.getKeysPlain();
+        final long[] values = this.getValuesPlain();
+        final int index = this.findIndexPlain(keys, key);
+
+        if (index < 0) {
+            ArrayUtil.setPlain(values, ~index, value);
+            ArrayUtil.setRelease(keys, ~index, key); // diff from relaxed: release write
+
+            this.addToSize(1); // diff from relaxed: non-relaxed addToSize
+            return this.absentValue;
+        }
+
+        final long prev = ArrayUtil.getPlain(values, index);
+        ArrayUtil.setRelease(values, index, value); // diff from relaxed: release write
+        return prev;
+    }
+
+    public final long putRelaxed(final long key, final long value) {
+        this.checkValue(value);
+
+        if (key == 0) {
+            final long prev = this.getZeroKeyValuePlain();
+            this.setZeroKeyValuePlain(value);
+            return prev;
+        }
+
+        final long[] keys = this.getKeysPlain();
+        final long[] values = this.getValuesPlain();
+        final int index = this.findIndexPlain(keys, key);
+
+        if (index < 0) {
+            ArrayUtil.setPlain(values, ~index, value);
+            ArrayUtil.setPlain(keys, ~index, key);
+
+            this.addToSizeRelaxed(1);
+            return this.absentValue;
+        }
+
+        final long prev = ArrayUtil.getPlain(values, index);
+        ArrayUtil.setPlain(values, index, value);
+        return prev;
+    }
+
+    public final long putIfAbsent(final long key, final long value) {
+        this.checkValue(value);
+
+        if (key == 0) {
+            final long curr = this.getZeroKeyValuePlain();
+            if (curr == this.absentValue) {
+                this.setZeroKeyValueRelease(value); // diff from relaxed: release write
+            }
+            return curr;
+        }
+
+        final long[] keys = this.getKeysPlain();
+        final long[] values = this.getValuesPlain();
+        final int index = this.findIndexPlain(keys, key);
+
+        if (index < 0) {
+            ArrayUtil.setPlain(values, ~index, value);
+            ArrayUtil.setRelease(keys, ~index, key); // diff from relaxed: release write
+
+            this.addToSize(1); // diff from relaxed: non-relaxed addToSize
+            return this.absentValue;
+        }
+
+        return ArrayUtil.getPlain(values, index);
+    }
+
+    public final long putIfAbsentRelaxed(final long key, final long value) {
+        this.checkValue(value);
+
+        if (key == 0) {
+            final long curr = this.getZeroKeyValuePlain();
+            if (curr == this.absentValue) {
+                this.setZeroKeyValuePlain(value);
+            }
+            return curr;
+        }
+
+        final long[] keys = this.getKeysPlain();
+        final long[] values = this.getValuesPlain();
+        final int index = this.findIndexPlain(keys, key);
+
+        if (index < 0) {
+            ArrayUtil.setPlain(values, ~index, value);
+            ArrayUtil.setPlain(keys, ~index, key);
+
+            this.addToSizeRelaxed(1);
+            return this.absentValue;
+        }
+
+        return ArrayUtil.getPlain(values, index);
+    }
+
+    /**
+     * Adds the specified amount to the value mapped to the key, treating an unmapped key as mapped to the absent
+     * value. If the result is the absent value, the mapping is removed.
+     * @return The new value.
+     */
+    public final long addTo(final long key, final long amount) {
+        if (key == 0) {
+            final long newValue = this.getZeroKeyValuePlain() + amount;
+            this.setZeroKeyValueRelease(newValue); // diff from relaxed: release write
+            return newValue;
+        }
+
+        final long[] keys = this.getKeysPlain();
+        final long[] values = this.getValuesPlain();
+        final int index = this.findIndexPlain(keys, key);
+
+        if (index < 0) {
+            final long newValue = this.absentValue + amount;
+            if (newValue == this.absentValue) {
+                return newValue;
+            }
+
+            ArrayUtil.setPlain(values, ~index, newValue);
+            ArrayUtil.setRelease(keys, ~index, key); // diff from relaxed: release write
+
+            this.addToSize(1); // diff from relaxed: non-relaxed addToSize
+            return newValue;
+        }
+
+        final long newValue = ArrayUtil.getPlain(values, index) + amount;
+
+        if (newValue == this.absentValue) {
+            this.removeAt(keys, values, keys.length - 1, index);
+        } else {
+            ArrayUtil.setRelease(values, index, newValue); // diff from relaxed: release write
+        }
+
+        return newValue;
+    }
+
+    public final long addToRelaxed(final long key, final long amount) {
+        if (key == 0) {
+            final long newValue = this.getZeroKeyValuePlain() + amount;
+            this.setZeroKeyValuePlain(newValue);
+            return newValue;
+        }
+
+        final long[] keys = this.getKeysPlain();
+        final long[] values = this.getValuesPlain();
+        final int index = this.findIndexPlain(keys, key);
+
+        if (index < 0) {
+            final long newValue = this.absentValue + amount;
+            if (newValue == this.absentValue) {
+                return newValue;
+            }
+
+            ArrayUtil.setPlain(values, ~index, newValue);
+            ArrayUtil.setPlain(keys, ~index, key);
+
+            this.addToSizeRelaxed(1);
+            return newValue;
+        }
+
+        final long newValue = ArrayUtil.getPlain(values, index) + amount;
+
+        if (newValue == this.absentValue) {
+            SingleWriterMultiReaderLongLongOpenHashMap.removeEntryAt(keys, values, keys.length - 1, index);
+            this.removeFromSizeRelaxed(1);
+        } else {
+            ArrayUtil.setPlain(values, index, newValue);
+        }
+
+        return newValue;
+    }
+
+    protected static void removeEntryAt(final long[] keys, final long[] values, final int capacityMask, final int index) {
+        for (int lastMigrated = index, currIndex = ((index + 1) & capacityMask);;currIndex = ((currIndex + 1) & capacityMask)) {
+            final long currKey = keys[currIndex];
+            if (currKey == 0) {
+                ArrayUtil.setPlain(keys, lastMigrated, 0);
+                return;
+            }
+
+            final int hash = SingleWriterMultiReaderLongLongOpenHashMap.hash(currKey);
+            final int expectedIndex = hash & capacityMask;
+
+            // Ensure that if we move this element to 'lastMigrated', that it is "reachable"
+            // reachable: its expected index must not lie (cyclically) in (lastMigrated, currIndex], otherwise
+            // the probe sequence for the key would hit the hole at lastMigrated before reaching the key
+            if (((currIndex - expectedIndex) & capacityMask) >= ((currIndex - lastMigrated) & capacityMask)) {
+                ArrayUtil.setPlain(values, lastMigrated, ArrayUtil.getPlain(values, currIndex));
+                ArrayUtil.setPlain(keys, lastMigrated, currKey);
+                lastMigrated = currIndex;
+            }
+        }
+    }
+
+    /* removes the entry at the specified index under the map lock and updates the size */
+    protected final void removeAt(final long[] keys, final long[] values, final int capacityMask, final int index) {
+        this.mapLock.acquireWrite();
+        SingleWriterMultiReaderLongLongOpenHashMap.removeEntryAt(keys, values, capacityMask, index);
+        this.mapLock.releaseWrite();
+
+        this.removeFromSize(1);
+    }
+
+    public final long remove(final long key) {
+        if (key == 0) {
+            final long prev = this.getZeroKeyValuePlain();
+            this.setZeroKeyValueRelease(this.absentValue);
+            return prev;
+        }
+
+        final long[] keys = this.getKeysPlain();
+        final long[] values = this.getValuesPlain();
+        final int index = this.findIndexPlain(keys, key);
+
+        if (index < 0) {
+            return this.absentValue;
+        }
+
+        final long ret = ArrayUtil.getPlain(values, index);
+        this.removeAt(keys, values, keys.length - 1, index);
+
+        return ret;
+    }
+
+    public final long removeRelaxed(final long key) {
+        if (key == 0) {
+            final long prev = this.getZeroKeyValuePlain();
+            this.setZeroKeyValuePlain(this.absentValue);
+            return prev;
+        }
+
+        final long[] keys = this.getKeysPlain();
+        final long[] values = this.getValuesPlain();
+        final int index = this.findIndexPlain(keys, key);
+
+        if (index < 0) {
+            return this.absentValue;
+        }
+
+        final long ret = ArrayUtil.getPlain(values, index);
+        SingleWriterMultiReaderLongLongOpenHashMap.removeEntryAt(keys, values, keys.length - 1, index);
+        this.removeFromSizeRelaxed(1);
+
+        return ret;
+    }
+
+    public final boolean remove(final long key, final long value) {
+        if (key == 0) {
+            if (value == this.absentValue || this.getZeroKeyValuePlain() != value) {
+                return false;
+            }
+            this.setZeroKeyValueRelease(this.absentValue);
+            return true;
+        }
+
+        final long[] keys = this.getKeysPlain();
+        final long[] values = this.getValuesPlain();
+        final int index = this.findIndexPlain(keys, key);
+
+        if (index < 0 || ArrayUtil.getPlain(values, index) != value) {
+            return false;
+        }
+
+        this.removeAt(keys, values, keys.length - 1, index);
+
+        return true;
+    }
+
+    public final boolean removeRelaxed(final long key, final long value) {
+        if (key == 0) {
+            if (value == this.absentValue || this.getZeroKeyValuePlain() != value) {
+                return false;
+            }
+            this.setZeroKeyValuePlain(this.absentValue);
+            return true;
+        }
+
+        final long[] keys = this.getKeysPlain();
+        final long[] values = this.getValuesPlain();
+        final int index = this.findIndexPlain(keys, key);
+
+        if (index < 0 || ArrayUtil.getPlain(values, index) != value) {
+            return false;
+        }
+
+        SingleWriterMultiReaderLongLongOpenHashMap.removeEntryAt(keys, values, keys.length - 1, index);
+        this.removeFromSizeRelaxed(1);
+
+        return true;
+    }
+
+    public final void clear() {
+        final long[] keys = this.getKeysPlain();
+
+        this.mapLock.acquireWrite();
+        for (int i = 0, len = keys.length; i < len; ++i) {
+            ArrayUtil.setPlain(keys, i, 0);
+        }
+        this.mapLock.releaseWrite();
+
+        this.setSizeOpaque(0);
+        this.setZeroKeyValueRelease(this.absentValue);
+    }
+
+    /*
+     * On iteration:
+     *
+     * Since removals can shift elements to previous indices, we have to iterate over the array backwards starting at
+     * the end of the first grouped entry. See SingleWriterMultiReaderIntObjectOpenHashMap. Each entry is read under
+     * the map lock, so a key and value read together always belong together.
+     */
+
+    protected final int findFirstGroupOpaque(final long[] keys) {
+        final int mask = keys.length - 1;
+
+        for (;;) {
+            if (this.getSizeOpaque() == 0) {
+                return -1;
+            }
+            for (int i = mask; i >= 0; --i) {
+                if (ArrayUtil.getOpaque(keys, i) == 0) {
+                    return i;
+                }
+            }
+        }
+    }
+
+    public final void forEachEntry(final LongLongConsumer action) {
+        long[] keys;
+        long[] values;
+        int capacity;
+        int capacityMask;
+
+        for (;;) {
+            keys = this.getKeysPlain();
+            values = this.getValuesAcquire();
+            capacity = keys.length;
+            capacityMask = capacity - 1;
+            if (capacity == values.length) {
+                break;
+            }
+        }
+
+        final int start = this.findFirstGroupOpaque(keys);
+
+        for (int i = (start - 1) & capacityMask; start != -1 && i != start; i = (i - 1) & capacityMask) {
+            long key;
+            long value;
+            int readLock;
+            do {
+                readLock = this.mapLock.acquireRead();
+                key = ArrayUtil.getAcquire(keys, i);
+                value = ArrayUtil.getOpaque(values, i);
+            } while (!this.mapLock.tryReleaseRead(readLock));
+
+            if (key != 0) {
+                action.accept(key, value);
+            }
+        }
+
+        final long zeroKeyValue = this.getZeroKeyValueAcquire();
+        if (zeroKeyValue != this.absentValue) {
+            action.accept(0, zeroKeyValue);
+        }
+    }
+
+    public final void forEachKey(final LongConsumer action) {
+        this.forEachEntry((final long key, final long value) -> {
+            action.accept(key);
+        });
+    }
+
+    public final void forEachValue(final LongConsumer action) {
+        this.forEachEntry((final long key, final long value) -> {
+            action.accept(value);
+        });
+    }
+
+    public final void forEachEntryRelaxed(final LongLongConsumer action) {
+        final long[] keys = this.getKeysPlain();
+        final long[] values = this.getValuesPlain();
+
+        for (int i = 0, len = keys.length; i < len; ++i) {
+            final long key = ArrayUtil.getPlain(keys, i);
+            if (key != 0) {
+                action.accept(key, ArrayUtil.getPlain(values, i));
+            }
+        }
+
+        final long zeroKeyValue = this.getZeroKeyValuePlain();
+        if (zeroKeyValue != this.absentValue) {
+            action.accept(0, zeroKeyValue);
+        }
+    }
+
+    public final void forEachKeyRelaxed(final LongConsumer action) {
+        final long[] keys = this.getKeysPlain();
+
+        for (int i = 0, len = keys.length; i < len; ++i) {
+            final long key = ArrayUtil.getPlain(keys, i);
+            if (key != 0) {
+                action.accept(key);
+            }
+        }
+
+        if (this.getZeroKeyValuePlain() != this.absentValue) {
+            action.accept(0);
+        }
+    }
+
+    public final void forEachValueRelaxed(final LongConsumer action) {
+        final long[] keys = this.getKeysPlain();
+        final long[] values = this.getValuesPlain();
+
+        for (int i = 0, len = keys.length; i < len; ++i) {
+            if (ArrayUtil.getPlain(keys, i) != 0) {
+                action.accept(ArrayUtil.getPlain(values, i));
+            }
+        }
+
+        final long zeroKeyValue = this.getZeroKeyValuePlain();
+        if (zeroKeyValue != this.absentValue) {
+            action.accept(zeroKeyValue);
+        }
+    }
+
+    // relaxed operation
+    protected static void copyTable(final long[] dstKeys, final long[] dstValues, final long[] srcKeys, final long[] srcValues) {
+        // presume dstKeys.length >= srcKeys.length
+        final int srcLen = srcKeys.length;
+        final int dstMask = dstKeys.length - 1;
+
+        for (int i = 0; i < srcLen; ++i) {
+            final long key = srcKeys[i];
+            if (key == 0) {
+                continue;
+            }
+
+            final int hash = SingleWriterMultiReaderLongLongOpenHashMap.hash(key);
+
+            for (int currIndex = hash & dstMask;;currIndex = (currIndex + 1) & dstMask) {
+                if (dstKeys[currIndex] == 0) {
+                    dstKeys[currIndex] = key;
+                    dstValues[currIndex] = srcValues[i];
+                    break;
+                }
+            }
+        }
+    }
+
+    protected static final VarHandle KEYS_HANDLE =
+            ConcurrentUtil.getVarHandle(SingleWriterMultiReaderLongLongOpenHashMap.class, "keys", long[].class);
+
+    protected static final VarHandle VALUES_HANDLE =
+            ConcurrentUtil.getVarHandle(SingleWriterMultiReaderLongLongOpenHashMap.class, "values", long[].class);
+
+    protected static final VarHandle SIZE_HANDLE =
+            ConcurrentUtil.getVarHandle(SingleWriterMultiReaderLongLongOpenHashMap.class, "size", int.class);
+
+    protected static final VarHandle ZERO_KEY_VALUE =
+            ConcurrentUtil.getVarHandle(SingleWriterMultiReaderLongLongOpenHashMap.class, "zeroKeyValue", long.class);
+
+    /* keys */
+
+    protected final long[] getKeysPlain() {
+        return (long[])KEYS_HANDLE.get(this);
+    }
+
+    protected final void setKeysPlain(final long[] keys) {
+        KEYS_HANDLE.set(this, keys);
+    }
+
+    /* values */
+
+    protected final long[] getValuesPlain() {
+        return (long[])VALUES_HANDLE.get(this);
+    }
+
+    protected final long[] getValuesAcquire() {
+        return (long[])VALUES_HANDLE.getAcquire(this);
+    }
+
+    protected final void setValuesPlain(final long[] values) {
+        VALUES_HANDLE.set(this, values);
+    }
+
+    protected final void setValuesRelease(final long[] values) {
+        VALUES_HANDLE.setRelease(this, values);
+    }
+
+    /* size */
+
+    protected final int getSizePlain() {
+        return (int)SIZE_HANDLE.get(this);
+    }
+
+    protected final int getSizeOpaque() {
+        return (int)SIZE_HANDLE.getOpaque(this);
+    }
+
+    protected final void setSizePlain(final int size) {
+        SIZE_HANDLE.set(this, size);
+    }
+
+    protected final void setSizeOpaque(final int size) {
+        SIZE_HANDLE.setOpaque(this, size);
+    }
+
+    /* zero key value */
+
+    protected final long getZeroKeyValuePlain() {
+        return (long)ZERO_KEY_VALUE.get(this);
+    }
+
+    protected final long getZeroKeyValueOpaque() {
+        return (long)ZERO_KEY_VALUE.getOpaque(this);
+    }
+
+    protected final long getZeroKeyValueAcquire() {
+        return (long)ZERO_KEY_VALUE.getAcquire(this);
+    }
+
+    protected final void setZeroKeyValuePlain(final long value) {
+        ZERO_KEY_VALUE.set(this, value);
+    }
+
+    protected final void setZeroKeyValueRelease(final long value) {
+        ZERO_KEY_VALUE.setRelease(this, value);
+    }
+
+    @FunctionalInterface
+    public static interface LongLongConsumer {
+
+        void accept(final long key, final long value);
+
+    }
+}
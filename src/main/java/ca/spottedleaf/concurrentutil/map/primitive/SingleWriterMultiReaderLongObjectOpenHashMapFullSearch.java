@@ -0,0 +1,363 @@
+package ca.spottedleaf.concurrentutil.map.primitive;
+
+import ca.spottedleaf.concurrentutil.ConcurrentUtil;
+import ca.spottedleaf.concurrentutil.util.ArrayUtil;
+import ca.spottedleaf.concurrentutil.util.Validate;
+import java.util.function.Predicate;
+
+public class SingleWriterMultiReaderLongObjectOpenHashMapFullSearch<V> extends SingleWriterMultiReaderLongObjectOpenHashMap<V> {
+
+    public SingleWriterMultiReaderLongObjectOpenHashMapFullSearch() {
+        super();
+    }
+
+    public SingleWriterMultiReaderLongObjectOpenHashMapFullSearch(final int capacity) {
+        super(capacity);
+    }
+
+    public SingleWriterMultiReaderLongObjectOpenHashMapFullSearch(final int capacity, final float loadFactor) {
+        super(capacity, loadFactor);
+    }
+
+    public SingleWriterMultiReaderLongObjectOpenHashMapFullSearch(final SingleWriterMultiReaderLongObjectOpenHashMap<V> map) {
+        super(map);
+    }
+
+    public SingleWriterMultiReaderLongObjectOpenHashMapFullSearch(final SingleWriterMultiReaderLongObjectOpenHashMap<V> map, final int capacity) {
+        super(map, capacity);
+    }
+
+    public SingleWriterMultiReaderLongObjectOpenHashMapFullSearch(final SingleWriterMultiReaderLongObjectOpenHashMap<V> map, final int capacity, final float loadFactor) {
+        super(map, capacity, loadFactor);
+    }
+
+    protected SingleWriterMultiReaderLongObjectOpenHashMapFullSearch(final SingleWriterMultiReaderLongObjectOpenHashMapFullSearch<V> other) {
+        super(other.keys.clone(), other.values.clone(), other.zeroKeyValue, other.size, other.threshold, other.loadFactor);
+    }
+
+    @Override
+    public V get(final long key) {
+        if (key == 0L) {
+            return this.getZeroKeyValueAcquire();
+        }
+
+        long[] keys;
+        V[] values;
+        int capacity;
+        int capacityMask;
+
+        for (;;) {
+            keys = this.getKeysPlain();
+            values = this.getValuesAcquire();
+            capacity = keys.length;
+            capacityMask = capacity - 1;
+            if (capacity == values.length) {
+                break;
+            }
+        }
+
+        final int hash = SingleWriterMultiReaderLongObjectOpenHashMap.hash(key);
+        final int startIndex = hash & capacityMask;
+
+        /* First find the divisor for the group */
+
+        int divisorIndex = startIndex;
+
+        for (;; divisorIndex = (divisorIndex + 1) & capacityMask) {
+            if (ArrayUtil.getOpaque(keys, divisorIndex) == 0L) {
+                break;
+            }
+        }
+
+        if (divisorIndex == startIndex) {
+            return null;
+        }
+
+        /* Now we need to search from the divisor index to the start index (backwards) */
+
+        main_loop:
+        for (int endIndex = (startIndex - 1) & capacityMask, currIndex = divisorIndex; currIndex != endIndex; currIndex = (currIndex - 1) & capacityMask) {
+            /* Note: The read style here is the same as in the reference's forEachEntry() method */
+            long lastKey = ArrayUtil.getAcquire(keys, currIndex); // acquire is needed to avoid re-ordering with later reads
+            V lastVal = ArrayUtil.getAcquire(values, currIndex);
+
+            if (lastKey != key) {
+                continue;
+            }
+
+            for (;;) {
+                final long keyCheck = ArrayUtil.getOpaque(keys, currIndex);
+                final V valueCheck = ArrayUtil.getAcquire(values, currIndex);
+
+                final long tempKey = lastKey;
+                final V tempVal = lastVal;
+
+                lastKey = keyCheck;
+                lastVal = valueCheck;
+
+                // make sure we update key/value if they change (otherwise we would loop an extra time)
+                if (tempKey != keyCheck || tempVal != valueCheck || lastVal == null) {
+                    ConcurrentUtil.pause();
+                    continue;
+                }
+
+                if (keyCheck != key) {
+                    continue main_loop;
+                }
+
+                return valueCheck;
+            }
+        }
+
+        return null;
+    }
+
+    /* removes the entry at the specified index and updates the size */
+    protected final void removeAt(final long[] keys, final V[] values, final int capacityMask, final int index) {
+        /* We effectively need to re-insert elements below this one until a divisor is reached */
+        this.removeEntryAt(keys, values, capacityMask, index);
+        this.removeFromSize(1);
+    }
+
+    @Override
+    public final V remove(final long key) {
+        if (key == 0L) {
+            final V prev = this.getZeroKeyValuePlain();
+            this.setZeroKeyValueRelease(null);
+            return prev;
+        }
+
+        final long[] keys = this.getKeysPlain();
+        final V[] values = this.getValuesPlain();
+        final int capacity = keys.length;
+        final int capacityMask = capacity - 1;
+
+        final int hash = SingleWriterMultiReaderLongObjectOpenHashMap.hash(key);
+
+        for (int currIndex = hash & capacityMask;;currIndex = (currIndex + 1) & capacityMask) {
+            /* threshold < table length so we must eventually find 0 */
+            final long currKey = ArrayUtil.getPlain(keys, currIndex);
+
+            if (currKey == 0L) {
+                return null;
+            }
+
+            if (currKey != key) {
+                continue;
+            }
+
+            final V ret = ArrayUtil.getPlain(values, currIndex);
+
+            this.removeAt(keys, values, capacityMask, currIndex);
+
+            return ret;
+        }
+    }
+
+    @Override
+    public boolean remove(final long key, final V value) {
+        Validate.notNull(value, "Value may not be null");
+
+        return this.removeIf(key, (final V curr) -> curr == value || curr.equals(value));
+    }
+
+    @Override
+    public boolean removeIf(final long key, final Predicate<V> predicate) {
+        Validate.notNull(predicate, "Predicate may not be null");
+
+        if (key == 0L) {
+            final V prev = this.getZeroKeyValuePlain();
+
+            if (prev == null || !predicate.test(prev)) {
+                return false;
+            }
+
+            this.setZeroKeyValueRelease(null);
+            return true;
+        }
+
+        final long[] keys = this.getKeysPlain();
+        final V[] values = this.getValuesPlain();
+        final int capacity = keys.length;
+        final int capacityMask = capacity - 1;
+
+        final int hash = SingleWriterMultiReaderLongObjectOpenHashMap.hash(key);
+
+        for (int currIndex = hash & capacityMask;;currIndex = (currIndex + 1) & capacityMask) {
+            /* threshold < table length so we must eventually find 0 */
+            final long currKey = ArrayUtil.getPlain(keys, currIndex);
+
+            if (currKey == 0L) {
+                return false;
+            }
+
+            if (currKey != key) {
+                continue;
+            }
+
+            if (!predicate.test(ArrayUtil.getPlain(values, currIndex))) {
+                return false;
+            }
+
+            this.removeAt(keys, values, capacityMask, currIndex);
+
+            return true;
+        }
+    }
+
+    @Override
+    public V compute(final long key, final LongObjectObjectProducer<V> function) {
+        Validate.notNull(function, "Function may not be null");
+
+        if (key == 0L) {
+            final V newValue = function.produce(key, this.getZeroKeyValuePlain());
+            this.setZeroKeyValueRelease(newValue);
+            return newValue;
+        }
+
+        final long[] keys = this.getKeysPlain();
+        final V[] values = this.getValuesPlain();
+        final int capacity = keys.length;
+        final int capacityMask = capacity - 1;
+
+        final int hash = SingleWriterMultiReaderLongObjectOpenHashMap.hash(key);
+
+        for (int currIndex = hash & capacityMask;;currIndex = (currIndex + 1) & capacityMask) {
+            /* threshold < table length so we must eventually find 0 */
+            final long currKey = ArrayUtil.getPlain(keys, currIndex);
+
+            if (currKey == 0L) {
+                final V newValue = function.produce(key, null);
+
+                if (newValue == null) {
+                    return null; // no change
+                }
+
+                ArrayUtil.setPlain(values, currIndex, newValue);
+                ArrayUtil.setRelease(keys, currIndex, key);
+
+                this.addToSize(1);
+
+                return newValue;
+            }
+
+            if (currKey != key) {
+                continue;
+            }
+
+            final V newValue = function.produce(key, ArrayUtil.getPlain(values, currIndex));
+
+            if (newValue != null) {
+                ArrayUtil.setRelease(values, currIndex, newValue);
+                return newValue;
+            }
+
+            this.removeAt(keys, values, capacityMask, currIndex);
+
+            return null;
+        }
+    }
+
+    @Override
+    public V computeIfAbsent(final long key, final LongObjectProducer<V> function) {
+        Validate.notNull(function, "Function may not be null");
+
+        if (key == 0L) {
+            final V curr = this.getZeroKeyValuePlain();
+
+            if (curr != null) {
+                return curr;
+            }
+
+            final V newValue = function.produce(key);
+            this.setZeroKeyValueRelease(newValue);
+
+            return newValue;
+        }
+
+        final long[] keys = this.getKeysPlain();
+        final V[] values = this.getValuesPlain();
+        final int capacity = keys.length;
+        final int capacityMask = capacity - 1;
+
+        final int hash = SingleWriterMultiReaderLongObjectOpenHashMap.hash(key);
+
+        for (int currIndex = hash & capacityMask;;currIndex = (currIndex + 1) & capacityMask) {
+            /* threshold < table length so we must eventually find 0 */
+            final long currKey = ArrayUtil.getPlain(keys, currIndex);
+
+            if (currKey == 0L) {
+                final V newValue = function.produce(key);
+
+                if (newValue == null) {
+                    return null; // no change
+                }
+
+                ArrayUtil.setPlain(values, currIndex, newValue);
+                ArrayUtil.setRelease(keys, currIndex, key);
+
+                this.addToSize(1);
+
+                return newValue;
+            }
+
+            if (currKey == key) {
+                return ArrayUtil.getPlain(values, currIndex);
+            }
+        }
+    }
+
+    @Override
+    public V computeIfPresent(final long key, final LongObjectObjectProducer<V> function) {
+        Validate.notNull(function, "Function may not be null");
+
+        if (key == 0L) {
+            final V curr = this.getZeroKeyValuePlain();
+
+            if (curr == null) {
+                return null;
+            }
+
+            final V newValue = function.produce(key, curr);
+            this.setZeroKeyValueRelease(newValue);
+
+            return newValue;
+        }
+
+        final long[] keys = this.getKeysPlain();
+        final V[] values = this.getValuesPlain();
+        final int capacity = keys.length;
+        final int capacityMask = capacity - 1;
+
+        final int hash = SingleWriterMultiReaderLongObjectOpenHashMap.hash(key);
+
+        for (int currIndex = hash & capacityMask;;currIndex = (currIndex + 1) & capacityMask) {
+            /* threshold < table length so we must eventually find 0 */
+            final long currKey = ArrayUtil.getPlain(keys, currIndex);
+
+            if (currKey == 0L) {
+                return null;
+            }
+
+            if (currKey != key) {
+                continue;
+            }
+
+            final V newValue = function.produce(key, ArrayUtil.getPlain(values, currIndex));
+
+            if (newValue != null) {
+                ArrayUtil.setRelease(values, currIndex, newValue);
+                return newValue;
+            }
+
+            this.removeAt(keys, values, capacityMask, currIndex);
+
+            return null;
+        }
+    }
+
+    @Override
+    public SingleWriterMultiReaderLongObjectOpenHashMapFullSearch<V> clone() {
+        return new SingleWriterMultiReaderLongObjectOpenHashMapFullSearch<>(this);
+    }
+}
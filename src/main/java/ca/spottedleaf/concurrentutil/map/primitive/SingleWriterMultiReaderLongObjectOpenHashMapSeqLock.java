@@ -0,0 +1,360 @@
+package ca.spottedleaf.concurrentutil.map.primitive;
+
+import ca.spottedleaf.concurrentutil.lock.WeakSeqLock;
+import ca.spottedleaf.concurrentutil.util.ArrayUtil;
+import ca.spottedleaf.concurrentutil.util.Validate;
+import java.util.function.Predicate;
+
+public class SingleWriterMultiReaderLongObjectOpenHashMapSeqLock<V> extends SingleWriterMultiReaderLongObjectOpenHashMap<V> {
+
+    /* used to implement remove()/get() */
+    protected final WeakSeqLock mapLock = new WeakSeqLock();
+
+    public SingleWriterMultiReaderLongObjectOpenHashMapSeqLock() {
+        super();
+    }
+
+    public SingleWriterMultiReaderLongObjectOpenHashMapSeqLock(final int capacity) {
+        super(capacity);
+    }
+
+    public SingleWriterMultiReaderLongObjectOpenHashMapSeqLock(final int capacity, final float loadFactor) {
+        super(capacity, loadFactor);
+    }
+
+    public SingleWriterMultiReaderLongObjectOpenHashMapSeqLock(final SingleWriterMultiReaderLongObjectOpenHashMap<V> map) {
+        super(map);
+    }
+
+    public SingleWriterMultiReaderLongObjectOpenHashMapSeqLock(final SingleWriterMultiReaderLongObjectOpenHashMap<V> map, final int capacity) {
+        super(map, capacity);
+    }
+
+    public SingleWriterMultiReaderLongObjectOpenHashMapSeqLock(final SingleWriterMultiReaderLongObjectOpenHashMap<V> map, final int capacity, final float loadFactor) {
+        super(map, capacity, loadFactor);
+    }
+
+    protected SingleWriterMultiReaderLongObjectOpenHashMapSeqLock(final SingleWriterMultiReaderLongObjectOpenHashMapSeqLock<V> other) {
+        super(other.keys.clone(), other.values.clone(), other.zeroKeyValue, other.size, other.threshold, other.loadFactor);
+    }
+
+    @Override
+    public V get(final long key) {
+        if (key == 0L) {
+            return this.getZeroKeyValueAcquire();
+        }
+
+        long[] keys;
+        V[] values;
+        int capacity;
+        int capacityMask;
+
+        for (;;) {
+            keys = this.getKeysPlain();
+            values = this.getValuesAcquire();
+            capacity = keys.length;
+            capacityMask = capacity - 1;
+            if (capacity == values.length) {
+                break;
+            }
+        }
+
+        final int hash = SingleWriterMultiReaderLongObjectOpenHashMap.hash(key);
+        final int index = hash & capacityMask;
+
+        int readLock;
+        int currIndex;
+
+search_loop:
+        for (;;) {
+            readLock = this.mapLock.acquireRead();
+            for (currIndex = index;;currIndex = (currIndex + 1) & capacityMask) {
+                final long currKey = ArrayUtil.getOpaque(keys, currIndex);
+
+                if (currKey == 0L) {
+                    if (!this.mapLock.tryReleaseRead(readLock)) {
+                        continue search_loop;
+                    }
+                    return null;
+                }
+
+                if (key != currKey) {
+                    continue;
+                }
+
+                final V value = ArrayUtil.getAcquire(values, currIndex);
+                if (!this.mapLock.tryReleaseRead(readLock)) {
+                    continue search_loop;
+                }
+
+                return value;
+            }
+        }
+    }
+
+    /* removes the entry at the specified index and updates the size, the write lock is only taken if entries need to move */
+    protected final void removeAt(final long[] keys, final V[] values, final int capacityMask, final int index) {
+        /* We effectively need to re-insert elements below this one until a divisor is reached */
+
+        /* We test if the next key is empty to avoid unneeded lock contention */
+        if (ArrayUtil.getPlain(keys, (index + 1) & capacityMask) == 0L) {
+            // entry after is empty, so no entries need to be moved and readers cannot observe a partial move
+            ArrayUtil.setPlain(keys, index, 0L);
+            ArrayUtil.setRelease(values, index, null);
+            this.removeFromSize(1);
+            return;
+        }
+
+        this.mapLock.acquireWrite();
+
+        if (this.removeEntryAt(keys, values, capacityMask, index)) {
+            this.mapLock.releaseWrite();
+        } else {
+            this.mapLock.abortWrite();
+        }
+
+        this.removeFromSize(1);
+    }
+
+    @Override
+    public final V remove(final long key) {
+        if (key == 0L) {
+            final V prev = this.getZeroKeyValuePlain();
+            this.setZeroKeyValueRelease(null);
+            return prev;
+        }
+
+        final long[] keys = this.getKeysPlain();
+        final V[] values = this.getValuesPlain();
+        final int capacity = keys.length;
+        final int capacityMask = capacity - 1;
+
+        final int hash = SingleWriterMultiReaderLongObjectOpenHashMap.hash(key);
+
+        for (int currIndex = hash & capacityMask;;currIndex = (currIndex + 1) & capacityMask) {
+            /* threshold < table length so we must eventually find 0 */
+            final long currKey = ArrayUtil.getPlain(keys, currIndex);
+
+            if (currKey == 0L) {
+                return null;
+            }
+
+            if (currKey != key) {
+                continue;
+            }
+
+            final V ret = ArrayUtil.getPlain(values, currIndex);
+
+            this.removeAt(keys, values, capacityMask, currIndex);
+
+            return ret;
+        }
+    }
+
+    @Override
+    public boolean remove(final long key, final V value) {
+        Validate.notNull(value, "Value may not be null");
+
+        return this.removeIf(key, (final V curr) -> curr == value || curr.equals(value));
+    }
+
+    @Override
+    public boolean removeIf(final long key, final Predicate<V> predicate) {
+        Validate.notNull(predicate, "Predicate may not be null");
+
+        if (key == 0L) {
+            final V prev = this.getZeroKeyValuePlain();
+
+            if (prev == null || !predicate.test(prev)) {
+                return false;
+            }
+
+            this.setZeroKeyValueRelease(null);
+            return true;
+        }
+
+        final long[] keys = this.getKeysPlain();
+        final V[] values = this.getValuesPlain();
+        final int capacity = keys.length;
+        final int capacityMask = capacity - 1;
+
+        final int hash = SingleWriterMultiReaderLongObjectOpenHashMap.hash(key);
+
+        for (int currIndex = hash & capacityMask;;currIndex = (currIndex + 1) & capacityMask) {
+            /* threshold < table length so we must eventually find 0 */
+            final long currKey = ArrayUtil.getPlain(keys, currIndex);
+
+            if (currKey == 0L) {
+                return false;
+            }
+
+            if (currKey != key) {
+                continue;
+            }
+
+            if (!predicate.test(ArrayUtil.getPlain(values, currIndex))) {
+                return false;
+            }
+
+            this.removeAt(keys, values, capacityMask, currIndex);
+
+            return true;
+        }
+    }
+
+    @Override
+    public V compute(final long key, final LongObjectObjectProducer<V> function) {
+        Validate.notNull(function, "Function may not be null");
+
+        if (key == 0L) {
+            final V newValue = function.produce(key, this.getZeroKeyValuePlain());
+            this.setZeroKeyValueRelease(newValue);
+            return newValue;
+        }
+
+        final long[] keys = this.getKeysPlain();
+        final V[] values = this.getValuesPlain();
+        final int capacity = keys.length;
+        final int capacityMask = capacity - 1;
+
+        final int hash = SingleWriterMultiReaderLongObjectOpenHashMap.hash(key);
+
+        for (int currIndex = hash & capacityMask;;currIndex = (currIndex + 1) & capacityMask) {
+            /* threshold < table length so we must eventually find 0 */
+            final long currKey = ArrayUtil.getPlain(keys, currIndex);
+
+            if (currKey == 0L) {
+                final V newValue = function.produce(key, null);
+
+                if (newValue == null) {
+                    return null; // no change
+                }
+
+                ArrayUtil.setPlain(values, currIndex, newValue);
+                ArrayUtil.setRelease(keys, currIndex, key);
+
+                this.addToSize(1);
+
+                return newValue;
+            }
+
+            if (currKey != key) {
+                continue;
+            }
+
+            final V newValue = function.produce(key, ArrayUtil.getPlain(values, currIndex));
+
+            if (newValue != null) {
+                ArrayUtil.setRelease(values, currIndex, newValue);
+                return newValue;
+            }
+
+            this.removeAt(keys, values, capacityMask, currIndex);
+
+            return null;
+        }
+    }
+
+    @Override
+    public V computeIfAbsent(final long key, final LongObjectProducer<V> function) {
+        Validate.notNull(function, "Function may not be null");
+
+        if (key == 0L) {
+            final V curr = this.getZeroKeyValuePlain();
+
+            if (curr != null) {
+                return curr;
+            }
+
+            final V newValue = function.produce(key);
+            this.setZeroKeyValueRelease(newValue);
+
+            return newValue;
+        }
+
+        final long[] keys = this.getKeysPlain();
+        final V[] values = this.getValuesPlain();
+        final int capacity = keys.length;
+        final int capacityMask = capacity - 1;
+
+        final int hash = SingleWriterMultiReaderLongObjectOpenHashMap.hash(key);
+
+        for (int currIndex = hash & capacityMask;;currIndex = (currIndex + 1) & capacityMask) {
+            /* threshold < table length so we must eventually find 0 */
+            final long currKey = ArrayUtil.getPlain(keys, currIndex);
+
+            if (currKey == 0L) {
+                final V newValue = function.produce(key);
+
+                if (newValue == null) {
+                    return null; // no change
+                }
+
+                ArrayUtil.setPlain(values, currIndex, newValue);
+                ArrayUtil.setRelease(keys, currIndex, key);
+
+                this.addToSize(1);
+
+                return newValue;
+            }
+
+            if (currKey == key) {
+                return ArrayUtil.getPlain(values, currIndex);
+            }
+        }
+    }
+
+    @Override
+    public V computeIfPresent(final long key, final LongObjectObjectProducer<V> function) {
+        Validate.notNull(function, "Function may not be null");
+
+        if (key == 0L) {
+            final V curr = this.getZeroKeyValuePlain();
+
+            if (curr == null) {
+                return null;
+            }
+
+            final V newValue = function.produce(key, curr);
+            this.setZeroKeyValueRelease(newValue);
+
+            return newValue;
+        }
+
+        final long[] keys = this.getKeysPlain();
+        final V[] values = this.getValuesPlain();
+        final int capacity = keys.length;
+        final int capacityMask = capacity - 1;
+
+        final int hash = SingleWriterMultiReaderLongObjectOpenHashMap.hash(key);
+
+        for (int currIndex = hash & capacityMask;;currIndex = (currIndex + 1) & capacityMask) {
+            /* threshold < table length so we must eventually find 0 */
+            final long currKey = ArrayUtil.getPlain(keys, currIndex);
+
+            if (currKey == 0L) {
+                return null;
+            }
+
+            if (currKey != key) {
+                continue;
+            }
+
+            final V newValue = function.produce(key, ArrayUtil.getPlain(values, currIndex));
+
+            if (newValue != null) {
+                ArrayUtil.setRelease(values, currIndex, newValue);
+                return newValue;
+            }
+
+            this.removeAt(keys, values, capacityMask, currIndex);
+
+            return null;
+        }
+    }
+
+    @Override
+    public SingleWriterMultiReaderLongObjectOpenHashMapSeqLock<V> clone() {
+        return new SingleWriterMultiReaderLongObjectOpenHashMapSeqLock<>(this);
+    }
+}
@@ -137,7 +137,6 @@ public class SingleWriterMultiWriterIntObjectOpenHashMapFullSearch<V> extends Si
             final int currKey = ArrayUtil.getPlain(keys, currIndex);
 
             if (currKey == 0) {
-                this.removeFromSize(1);
                 return null;
             }
 
@@ -0,0 +1,140 @@
+package ca.spottedleaf.concurrentutil.misc;
+
+/**
+ * Controls how threads wait in a {@link SynchronizationPoint}.
+ * <p>
+ * A waiting thread first busy-waits for {@link #getSpinNanos() spinNanos}, after which it parks until it is unparked
+ * by the thread releasing it. A thread which is {@link SynchronizationPoint#preemptThread(int, int) preempted} while
+ * parked busy-waits for {@link #getPreemptSpinNanos() preemptSpinNanos}, and then repeatedly parks for
+ * {@link #getPreemptParkNanos() preemptParkNanos} until {@link #getPreemptNanos() preemptNanos} have passed since it
+ * was preempted, after which it parks until unparked again.
+ * </p>
+ * <p>
+ * Spinning before parking avoids the cost of a park/unpark round trip, which is several microseconds on most systems,
+ * when threads are released shortly after they start waiting. It is only worth it if there are fewer threads than
+ * cores, otherwise spinning threads take time away from the threads they are waiting on.
+ * </p>
+ * <p>
+ * Strategies are immutable, and may be shared between any number of synchronization points.
+ * </p>
+ */
+public final class SpinParkStrategy {
+
+    /**
+     * The time a preempted thread busy-waits for in the {@link #defaultStrategy() default strategy}.
+     */
+    public static final long DEFAULT_PREEMPT_SPIN_NANOS = 500L * 1000L;
+
+    /**
+     * The time a preempted thread repeatedly parks for in the {@link #defaultStrategy() default strategy}.
+     */
+    public static final long DEFAULT_PREEMPT_PARK_NANOS = 10L * 1000L;
+
+    /**
+     * The time a preempted thread avoids parking until unparked in the {@link #defaultStrategy() default strategy}.
+     */
+    public static final long DEFAULT_PREEMPT_NANOS = 2L * 1000L * 1000L;
+
+    private static final SpinParkStrategy DEFAULT = new SpinParkStrategy(
+            0L, DEFAULT_PREEMPT_SPIN_NANOS, DEFAULT_PREEMPT_PARK_NANOS, DEFAULT_PREEMPT_NANOS
+    );
+
+    private final long spinNanos;
+    private final long preemptSpinNanos;
+    private final long preemptParkNanos;
+    private final long preemptNanos;
+
+    private SpinParkStrategy(final long spinNanos, final long preemptSpinNanos, final long preemptParkNanos,
+                             final long preemptNanos) {
+        this.spinNanos = spinNanos;
+        this.preemptSpinNanos = preemptSpinNanos;
+        this.preemptParkNanos = preemptParkNanos;
+        this.preemptNanos = preemptNanos;
+    }
+
+    /**
+     * Returns the strategy used by synchronization points when no strategy is specified. Waiting threads park
+     * immediately, and preempted threads use {@link #DEFAULT_PREEMPT_SPIN_NANOS}, {@link #DEFAULT_PREEMPT_PARK_NANOS}
+     * and {@link #DEFAULT_PREEMPT_NANOS}.
+     * @return The default strategy.
+     */
+    public static SpinParkStrategy defaultStrategy() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns a strategy where waiting threads busy-wait for the specified time before parking, and preempted threads
+     * behave as in the {@link #defaultStrategy() default strategy}.
+     * @param spinNanos The time to busy-wait for before parking.
+     * @return The spin-then-park strategy.
+     * @throws IllegalArgumentException If {@code spinNanos < 0}
+     */
+    public static SpinParkStrategy spinThenPark(final long spinNanos) {
+        return of(spinNanos, DEFAULT_PREEMPT_SPIN_NANOS, DEFAULT_PREEMPT_PARK_NANOS, DEFAULT_PREEMPT_NANOS);
+    }
+
+    /**
+     * Returns a strategy with the specified times.
+     * @param spinNanos The time to busy-wait for before parking.
+     * @param preemptSpinNanos The time a preempted thread busy-waits for.
+     * @param preemptParkNanos The time a preempted thread parks for at once, after busy-waiting.
+     * @param preemptNanos The time a preempted thread avoids parking until unparked.
+     * @return The strategy.
+     * @throws IllegalArgumentException If any time is negative, if {@code preemptParkNanos} is not positive or if
+     *                                  {@code preemptSpinNanos > preemptNanos}
+     */
+    public static SpinParkStrategy of(final long spinNanos, final long preemptSpinNanos, final long preemptParkNanos,
+                                      final long preemptNanos) {
+        if (spinNanos < 0L) {
+            throw new IllegalArgumentException("Spin time may not be negative: " + spinNanos);
+        }
+        if (preemptSpinNanos < 0L || preemptNanos < 0L) {
+            throw new IllegalArgumentException("Preempt time may not be negative: " + preemptSpinNanos + ", " + preemptNanos);
+        }
+        if (preemptParkNanos <= 0L) {
+            throw new IllegalArgumentException("Preempt park time must be > 0, not " + preemptParkNanos);
+        }
+        if (preemptSpinNanos > preemptNanos) {
+            throw new IllegalArgumentException("Preempt spin time exceeds preempt time " + preemptNanos + ": " + preemptSpinNanos);
+        }
+        return new SpinParkStrategy(spinNanos, preemptSpinNanos, preemptParkNanos, preemptNanos);
+    }
+
+    /**
+     * Returns the time waiting threads busy-wait for before parking.
+     * @return The spin time, in nanoseconds.
+     */
+    public long getSpinNanos() {
+        return this.spinNanos;
+    }
+
+    /**
+     * Returns the time preempted threads busy-wait for.
+     * @return The preempt spin time, in nanoseconds.
+     */
+    public long getPreemptSpinNanos() {
+        return this.preemptSpinNanos;
+    }
+
+    /**
+     * Returns the time preempted threads park for at once, after busy-waiting.
+     * @return The preempt park time, in nanoseconds.
+     */
+    public long getPreemptParkNanos() {
+        return this.preemptParkNanos;
+    }
+
+    /**
+     * Returns the time preempted threads avoid parking until unparked.
+     * @return The preempt time, in nanoseconds.
+     */
+    public long getPreemptNanos() {
+        return this.preemptNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "SpinParkStrategy{spinNanos=" + this.spinNanos + ", preemptSpinNanos=" + this.preemptSpinNanos
+                + ", preemptParkNanos=" + this.preemptParkNanos + ", preemptNanos=" + this.preemptNanos + "}";
+    }
+}
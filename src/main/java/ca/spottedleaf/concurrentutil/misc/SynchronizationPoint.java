@@ -1,48 +1,388 @@
 package ca.spottedleaf.concurrentutil.misc;
 
 import ca.spottedleaf.concurrentutil.ConcurrentUtil;
-import ca.spottedleaf.concurrentutil.util.IntegerUtil;
+import ca.spottedleaf.concurrentutil.set.ConcurrentBitSet;
+import ca.spottedleaf.concurrentutil.util.ArrayUtil;
+import ca.spottedleaf.concurrentutil.util.Validate;
 
 import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.LockSupport;
-import java.util.function.BooleanSupplier;
 
-public class SynchronizationPoint {
+/*
+ * Every running thread polls the synchronizing flag from weakEnter(), and waiting threads poll the generations, so
+ * both are padded onto their own cache lines away from the fields written while running, such as reEntryCount.
+ */
+abstract class SynchronizationPointPad0 {
+    byte p000, p001, p002, p003, p004, p005, p006, p007, p008, p009, p010, p011, p012, p013, p014, p015;
+    byte p016, p017, p018, p019, p020, p021, p022, p023, p024, p025, p026, p027, p028, p029, p030, p031;
+    byte p032, p033, p034, p035, p036, p037, p038, p039, p040, p041, p042, p043, p044, p045, p046, p047;
+    byte p048, p049, p050, p051, p052, p053, p054, p055, p056, p057, p058, p059, p060, p061, p062, p063;
+    byte p064, p065, p066, p067, p068, p069, p070, p071, p072, p073, p074, p075, p076, p077, p078, p079;
+}
+
+abstract class SynchronizationPointSynchronizing extends SynchronizationPointPad0 {
+    protected volatile boolean synchronizing;
+}
+
+abstract class SynchronizationPointPad1 extends SynchronizationPointSynchronizing {
+    byte p100, p101, p102, p103, p104, p105, p106, p107, p108, p109, p110, p111, p112, p113, p114, p115;
+    byte p116, p117, p118, p119, p120, p121, p122, p123, p124, p125, p126, p127, p128, p129, p130, p131;
+    byte p132, p133, p134, p135, p136, p137, p138, p139, p140, p141, p142, p143, p144, p145, p146, p147;
+    byte p148, p149, p150, p151, p152, p153, p154, p155, p156, p157, p158, p159, p160, p161, p162, p163;
+    byte p164, p165, p166, p167, p168, p169, p170, p171, p172, p173, p174, p175, p176, p177, p178, p179;
+}
+
+abstract class SynchronizationPointGenerations extends SynchronizationPointPad1 {
+    protected volatile int synchronizingGeneration;
+    protected volatile int runGeneration;
+}
+
+abstract class SynchronizationPointPad2 extends SynchronizationPointGenerations {
+    byte p200, p201, p202, p203, p204, p205, p206, p207, p208, p209, p210, p211, p212, p213, p214, p215;
+    byte p216, p217, p218, p219, p220, p221, p222, p223, p224, p225, p226, p227, p228, p229, p230, p231;
+    byte p232, p233, p234, p235, p236, p237, p238, p239, p240, p241, p242, p243, p244, p245, p246, p247;
+    byte p248, p249, p250, p251, p252, p253, p254, p255, p256, p257, p258, p259, p260, p261, p262, p263;
+    byte p264, p265, p266, p267, p268, p269, p270, p271, p272, p273, p274, p275, p276, p277, p278, p279;
+}
+
+/**
+ * Coordinates a fixed group of threads, identified by their index in the array given to the constructor, through
+ * repeated runs.
+ * <p>
+ * A run begins once every thread has invoked {@link #start(int)}, and finishes once every thread has invoked
+ * {@link #end(int)}. While running, threads synchronize with {@link #enter(int)}, which returns once every thread still
+ * running has entered. A thread which entered with {@link #enterAlone(int)} instead executes alone before the others
+ * are released, until it invokes {@link #endAloneExecution(int)}.
+ * </p>
+ * <p>
+ * Threads may {@link #register(Thread) register} and {@link #deregister(int) deregister} while others are running,
+ * similar to a {@link java.util.concurrent.Phaser}. Registered threads take part from the next run, while
+ * deregistered threads stop taking part immediately.
+ * </p>
+ * <p>
+ * {@link #tryStart(int, long, TimeUnit)}, {@link #tryEnter(int, long, TimeUnit)} and {@link #tryEnd(int, long, TimeUnit)}
+ * wait for a limited time, after which the thread withdraws its arrival so a stalled thread can be detected and shed
+ * without the waiting threads hanging.
+ * </p>
+ * <p>
+ * Arrivals are combined through trees of bitfields, where each node holds the children taking part and the children
+ * which have arrived in a single {@code long}. Only the last child to arrive at a node moves on to its parent, so at
+ * most {@code fanIn} threads contend on any node and an arrival takes {@code O(log(n))} atomic operations. Waiting
+ * threads wait for the generation of the run or synchronization to change, so no state needs to be reset by them.
+ * </p>
+ */
+public class SynchronizationPoint extends SynchronizationPointPad2 {
 
-    protected static final long WAKING_THREADS_BITFIELD = Long.MIN_VALUE;
+    /**
+     * The default maximum number of children of each node of the arrival trees.
+     */
+    public static final int DEFAULT_FAN_IN = 8;
+
+    /**
+     * The maximum number of children of each node of the arrival trees.
+     */
+    public static final int MAX_FAN_IN = 32;
+
+    /* every node is placed on its own cache line */
+    protected static final int NODE_STRIDE = ConcurrentUtil.CACHE_LINE_SIZE / Long.BYTES;
+
+    /* node layout: the children taking part in the upper 32 bits, the children which have arrived in the lower 32 bits */
+    protected static final long ARRIVED_MASK = 0xFFFFFFFFL;
 
     protected final Thread[] threads;
-    protected final long allWaitingThreads;
 
-    protected int reEntryCount;
+    protected final int fanInShift;
+    protected final int fanInMask;
 
-    @jdk.internal.vm.annotation.Contended
-    protected volatile long runningThreads;
+    /* index of the first node of each level, the last level only holds the root */
+    protected final int[] levelOffsets;
 
-    @jdk.internal.vm.annotation.Contended
-    protected volatile long synchronizingThreads;
+    /* threads arriving at start() and end(), the children taking part are the registered threads */
+    protected final long[] runNodes;
+    /* running threads arriving at enter() and enterAlone() */
+    protected final long[] synchronizingNodes;
 
-    @jdk.internal.vm.annotation.Contended
-    protected volatile long aloneExecutionThreads;
+    /* ids in use, and ids registered but not yet taking part in runs */
+    protected final ConcurrentBitSet registeredThreads;
+    protected final ConcurrentBitSet pendingThreads;
 
-    @jdk.internal.vm.annotation.Contended("lock")
-    protected volatile int synchronizingLockCount;
-    @jdk.internal.vm.annotation.Contended("lock")
-    protected volatile int startLockCount;
-    @jdk.internal.vm.annotation.Contended("lock")
-    protected volatile long preempt;
+    protected final ConcurrentBitSet aloneExecutionThreads;
+    protected final ConcurrentBitSet preempt;
+
+    protected final SpinParkStrategy strategy;
+
+    protected int reEntryCount;
 
     /**
-     * Constructs a synchronization point
+     * Constructs a synchronization point with the {@link #DEFAULT_FAN_IN default fan-in}, which cannot
+     * {@link #register(Thread) register} more threads than the specified threads.
      * @param threads The threads which will be interacting with this synchronization point.
      */
     public SynchronizationPoint(final Thread[] threads) {
-        final int nthreads = threads.length;
-        if (nthreads >= 64 || nthreads == 0) {
-            throw new IllegalArgumentException("total threads out of range (0, 64): " + nthreads);
+        this(threads, DEFAULT_FAN_IN);
+    }
+
+    /**
+     * Constructs a synchronization point which cannot {@link #register(Thread) register} more threads than the
+     * specified threads.
+     * @param threads The threads which will be interacting with this synchronization point.
+     * @param fanIn The maximum number of threads, or nodes, contending on each node of the arrival trees. Must be a
+     *              power of two in {@code [2, MAX_FAN_IN]}.
+     */
+    public SynchronizationPoint(final Thread[] threads, final int fanIn) {
+        this(threads, fanIn, threads.length);
+    }
+
+    /**
+     * Constructs a synchronization point. The specified threads are registered with the ids of their index in the
+     * array, and more threads may be {@link #register(Thread) registered} up to the specified maximum.
+     * @param threads The threads which will initially be interacting with this synchronization point.
+     * @param fanIn The maximum number of threads, or nodes, contending on each node of the arrival trees. Must be a
+     *              power of two in {@code [2, MAX_FAN_IN]}.
+     * @param maxThreads The maximum number of registered threads. Thread ids are in {@code [0, maxThreads)}.
+     */
+    public SynchronizationPoint(final Thread[] threads, final int fanIn, final int maxThreads) {
+        this(threads, fanIn, maxThreads, SpinParkStrategy.defaultStrategy());
+    }
+
+    /**
+     * Constructs a synchronization point. The specified threads are registered with the ids of their index in the
+     * array, and more threads may be {@link #register(Thread) registered} up to the specified maximum.
+     * @param threads The threads which will initially be interacting with this synchronization point.
+     * @param fanIn The maximum number of threads, or nodes, contending on each node of the arrival trees. Must be a
+     *              power of two in {@code [2, MAX_FAN_IN]}.
+     * @param maxThreads The maximum number of registered threads. Thread ids are in {@code [0, maxThreads)}.
+     * @param strategy The strategy waiting threads use.
+     */
+    public SynchronizationPoint(final Thread[] threads, final int fanIn, final int maxThreads,
+                                final SpinParkStrategy strategy) {
+        Validate.notNull(strategy, "Null strategy");
+        if (maxThreads <= 0) {
+            throw new IllegalArgumentException("max threads must be > 0, not " + maxThreads);
+        }
+        if (threads.length > maxThreads) {
+            throw new IllegalArgumentException("total threads exceeds max threads " + maxThreads + ": " + threads.length);
+        }
+        if (fanIn < 2 || fanIn > MAX_FAN_IN || Integer.bitCount(fanIn) != 1) {
+            throw new IllegalArgumentException("Fan-in must be a power of two in [2," + MAX_FAN_IN + "]: " + fanIn);
+        }
+        this.threads = new Thread[maxThreads];
+        this.fanInShift = Integer.numberOfTrailingZeros(fanIn);
+        this.fanInMask = fanIn - 1;
+
+        int levels = 1;
+        int totalNodes = 0;
+        for (int children = maxThreads;; ++levels) {
+            final int nodes = (children + this.fanInMask) >>> this.fanInShift;
+            totalNodes += nodes;
+            if (nodes == 1) {
+                break;
+            }
+            children = nodes;
+        }
+
+        this.levelOffsets = new int[levels];
+        for (int level = 0, children = maxThreads, offset = 0; level < levels; ++level) {
+            this.levelOffsets[level] = offset;
+            children = (children + this.fanInMask) >>> this.fanInShift;
+            offset += children;
+        }
+
+        /* leading and trailing padding, to separate the first and last nodes from the array header and whatever follows */
+        this.runNodes = new long[(totalNodes + 2) * NODE_STRIDE];
+        this.synchronizingNodes = new long[(totalNodes + 2) * NODE_STRIDE];
+
+        this.registeredThreads = ConcurrentBitSet.of(maxThreads);
+        this.pendingThreads = ConcurrentBitSet.of(maxThreads);
+        this.aloneExecutionThreads = ConcurrentBitSet.of(maxThreads);
+        this.preempt = ConcurrentBitSet.of(maxThreads);
+        this.strategy = strategy;
+
+        for (int id = 0; id < threads.length; ++id) {
+            this.threads[id] = Validate.notNull(threads[id], "Null thread");
+            this.registeredThreads.setOn(id);
+            this.attach(this.runNodes, id);
+        }
+        this.resetSynchronizingNodes();
+    }
+
+    protected final void checkId(final int id) {
+        if (id < 0 || id >= this.threads.length) {
+            throw new IllegalArgumentException("Thread id out of range [0," + this.threads.length + "): " + id);
+        }
+    }
+
+    protected final int getNodeIndex(final int level, final int node) {
+        return (this.levelOffsets[level] + node + 1) * NODE_STRIDE;
+    }
+
+    protected final int getRootIndex() {
+        return this.getNodeIndex(this.levelOffsets.length - 1, 0);
+    }
+
+    /**
+     * Makes every registered thread take part in the synchronizing tree, none of them having arrived. Must only be
+     * invoked while no thread can arrive at either tree, such as by the last thread to start.
+     */
+    protected final void resetSynchronizingNodes() {
+        for (int i = 0, len = this.runNodes.length / NODE_STRIDE - 2; i < len; ++i) {
+            final int index = (i + 1) * NODE_STRIDE;
+            ArrayUtil.setPlain(this.synchronizingNodes, index, ArrayUtil.getPlain(this.runNodes, index) & ~ARRIVED_MASK);
+        }
+    }
+
+    /**
+     * Makes the specified thread take part in the specified tree, adding every node which previously had no children to
+     * its parent. Must only be invoked while no thread can arrive at the tree.
+     */
+    protected final void attach(final long[] nodes, final int id) {
+        int child = id;
+        for (int level = 0, levels = this.levelOffsets.length; level < levels; ++level) {
+            final int node = child >>> this.fanInShift;
+            final long prev = ArrayUtil.getAndOrVolatile(nodes, this.getNodeIndex(level, node), (1L << (child & this.fanInMask)) << 32);
+            if ((prev >>> 32) != 0L) {
+                /* the node already takes part in its parent */
+                return;
+            }
+            child = node;
+        }
+    }
+
+    /**
+     * Marks the specified child of its node in the specified level as arrived, moving on to the parent node if every
+     * child taking part in the node has arrived. Children are thread ids in level 0, and node indices of the level
+     * below otherwise.
+     * @return {@code true} if the root node completed, in which case the caller must release the waiting threads.
+     */
+    protected final boolean arrive(final long[] nodes, int level, int child) {
+        for (final int levels = this.levelOffsets.length; level < levels; ++level) {
+            final int node = child >>> this.fanInShift;
+            final int index = this.getNodeIndex(level, node);
+            final long bit = 1L << (child & this.fanInMask);
+
+            boolean completed;
+            for (long curr = ArrayUtil.getVolatile(nodes, index);;) {
+                completed = ((curr & ARRIVED_MASK) | bit) == (curr >>> 32);
+                /*
+                 * reset completed nodes for the next round, none of their threads can arrive again before the root completes.
+                 * The root stays completed until the waiting threads are released, see withdraw()
+                 */
+                final long next = completed && level != levels - 1 ? curr & ~ARRIVED_MASK : curr | bit;
+                if (curr == (curr = ArrayUtil.compareAndExchangeVolatile(nodes, index, curr, next))) {
+                    break;
+                }
+            }
+
+            if (!completed) {
+                return false;
+            }
+            child = node;
+        }
+        return true;
+    }
+
+    /**
+     * Removes the specified thread from the tree. A node which no longer has children is removed from its parent, and
+     * a node whose remaining children have all arrived moves on to its parent as in {@link #arrive(long[], int, int)}.
+     * @return {@code true} if the root node completed, in which case the caller must release the waiting threads.
+     */
+    protected final boolean depart(final long[] nodes, final int id) {
+        int child = id;
+        for (int level = 0, levels = this.levelOffsets.length; level < levels; ++level) {
+            final int node = child >>> this.fanInShift;
+            final int index = this.getNodeIndex(level, node);
+            final long bit = 1L << (child & this.fanInMask);
+
+            long next;
+            boolean completed;
+            for (long curr = ArrayUtil.getVolatile(nodes, index);;) {
+                next = curr & ~((bit << 32) | bit);
+                final long participating = next >>> 32;
+                completed = participating != 0L && (next & ARRIVED_MASK) == participating;
+                if (completed && level != levels - 1) {
+                    next = participating << 32;
+                }
+                if (curr == (curr = ArrayUtil.compareAndExchangeVolatile(nodes, index, curr, next))) {
+                    break;
+                }
+            }
+
+            if (completed) {
+                return this.arrive(nodes, level + 1, node);
+            }
+            if (next != 0L) {
+                return false;
+            }
+            /* the node is now empty */
+            child = node;
         }
-        this.allWaitingThreads = -1L >>> (64 - nthreads); /* mask that represents all threads waiting */
-        this.threads = threads;
+        /* every thread departed */
+        return false;
+    }
+
+    /**
+     * Resets the arrivals of the completed root node of the specified tree. Must be invoked by the thread releasing the
+     * threads which arrived, before they are released.
+     */
+    protected final void resetRoot(final long[] nodes) {
+        final int index = this.getRootIndex();
+        ArrayUtil.setVolatile(nodes, index, ArrayUtil.getPlain(nodes, index) & ~ARRIVED_MASK);
+    }
+
+    /* results of withdraw() */
+    protected static final int WITHDRAW_SUCCESS = 0;
+    protected static final int WITHDRAW_RELEASING = 1;
+    protected static final int WITHDRAW_RETRY = 2;
+
+    /**
+     * Attempts to withdraw the arrival of the specified thread from the specified tree. The nodes on its path which
+     * completed because of it are restored to the arrivals of their other children, so the thread may arrive or depart
+     * again later. Must hold the lock on this, as the restored nodes are only consistent once this returns.
+     * <p>
+     * If the arrival is still moving on to a parent node, or the root is being reset before the release, this returns
+     * {@link #WITHDRAW_RETRY} without modifying the tree. The caller must then release the lock before retrying, as the
+     * releasing thread may need the lock to attach the pending threads.
+     * </p>
+     * @return {@link #WITHDRAW_SUCCESS} if the arrival was withdrawn, {@link #WITHDRAW_RELEASING} if the root
+     *         completed, or {@link #WITHDRAW_RETRY} if the state of the tree is changing.
+     */
+    protected final int withdraw(final long[] nodes, final int id) {
+        int child = id;
+        for (int level = 0, levels = this.levelOffsets.length; level < levels; ++level) {
+            final int node = child >>> this.fanInShift;
+            final int index = this.getNodeIndex(level, node);
+            final long bit = 1L << (child & this.fanInMask);
+            final long curr = ArrayUtil.getVolatile(nodes, index);
+
+            if ((curr & bit) == 0L) {
+                /* the node completed, and our arrival moved on to its parent */
+                child = node;
+                continue;
+            }
+
+            if ((curr & ARRIVED_MASK) == (curr >>> 32)) {
+                /* only the root stays completed, every thread arrived */
+                return WITHDRAW_RELEASING;
+            }
+
+            if (curr != ArrayUtil.compareAndExchangeVolatile(nodes, index, curr, curr & ~bit)) {
+                /* another child arrived, which may have completed the node */
+                return WITHDRAW_RETRY;
+            }
+
+            /* every other child of the completed nodes below has arrived, and cannot arrive or depart until released */
+            for (int below = level - 1, path = id; below >= 0; --below) {
+                final int pathChild = path >>> (below * this.fanInShift);
+                final int belowIndex = this.getNodeIndex(below, pathChild >>> this.fanInShift);
+                final long participating = ArrayUtil.getVolatile(nodes, belowIndex) >>> 32;
+                ArrayUtil.getAndOrVolatile(nodes, belowIndex, participating & ~(1L << (pathChild & this.fanInMask)));
+            }
+            return WITHDRAW_SUCCESS;
+        }
+
+        /* our arrival is moving on to a parent node, or the root is being reset before the release */
+        return WITHDRAW_RETRY;
     }
 
     protected final void unparkAll(final int exceptFor) {
@@ -54,168 +394,426 @@ public class SynchronizationPoint {
         }
     }
 
-    protected final void unparkAll(long bitset) {
-        for (int i = 0, bits = Long.bitCount(bitset); i < bits; ++i) {
-            final int leading = Long.numberOfLeadingZeros(bitset);
-            bitset ^= (IntegerUtil.HIGH_BIT_U64 >>> leading); // inlined IntegerUtil#roundFloorLog2(long)
-            LockSupport.unpark(this.threads[63 ^ leading]); // inlined IntegerUtil#floorLog2(long)
+    protected final void unparkSynchronizing(final int exceptFor) {
+        final long[] nodes = this.synchronizingNodes;
+        for (int leaf = 0, leaves = this.getLeafCount(); leaf < leaves; ++leaf) {
+            long participating = ArrayUtil.getVolatile(nodes, this.getNodeIndex(0, leaf)) >>> 32;
+            for (; participating != 0L; participating ^= Long.lowestOneBit(participating)) {
+                final int id = (leaf << this.fanInShift) | Long.numberOfTrailingZeros(participating);
+                if (id != exceptFor) {
+                    LockSupport.unpark(this.threads[id]);
+                }
+            }
         }
     }
 
-    /** @return {@code true} if the calling thread can continue, {@code false} otherwise */
-    protected final boolean wakeThreads(final int id) { // this function presumes all but one threads are awake
-        final long aloneThreads = this.getAloneExecutionThreadsPlain();
+    protected final int getLeafCount() {
+        /* level 0 starts at offset 0, so the offset of level 1 is the number of leaves */
+        return this.levelOffsets.length == 1 ? 1 : this.levelOffsets[1];
+    }
+
+    /**
+     * Releases the next thread waiting to execute alone, or every synchronizing thread if there is none. The caller
+     * must have completed the synchronizing tree, or be the thread which executed alone last.
+     * @return {@code true} if the synchronizing threads were released, {@code false} if an alone thread was.
+     */
+    protected final boolean wakeThreads(final int id) {
+        final int next = this.aloneExecutionThreads.nextSetBit(0);
 
-        if (aloneThreads == 0) {
+        if (next < 0) {
             /* no more alone threads to execute, we can continue */
+            this.resetRoot(this.synchronizingNodes);
+            this.setSynchronizingVolatile(false);
+            this.setSynchronizingGenerationVolatile(this.getSynchronizingGenerationPlain() + 1);
+            this.unparkSynchronizing(id);
+            return true;
+        }
 
-            this.setSynchronizingLockCountVolatile(this.getSynchronizingLockCountPlain() + 1);
-            /* remove our bitfield and the field for indicating we're waking the threads */
-            /* We use AND for our bitfield since it's not guaranteed that ours is in the synchronizing threads (see end()) */
-            this.unparkAll((this.getSynchronizingThreadsPlain() ^ WAKING_THREADS_BITFIELD) & ~(1L << id));
+        /* clearing the bit is what lets the alone thread continue, so it must happen before unpark() */
+        this.aloneExecutionThreads.setOff(next);
+        if (next != id) {
+            LockSupport.unpark(this.threads[next]);
+        }
+        return false;
+    }
 
-            return true;
+    /* what a thread waits on, the condition is checked by a switch rather than a lambda to avoid allocating */
+    protected static final int WAIT_PENDING = 0;
+    protected static final int WAIT_RUN_GENERATION = 1;
+    protected static final int WAIT_SYNCHRONIZING_GENERATION = 2;
+    protected static final int WAIT_ALONE = 3;
+
+    protected final boolean isWaiting(final int kind, final int id, final int generation) {
+        switch (kind) {
+            case WAIT_PENDING:
+                return this.pendingThreads.get(id);
+            case WAIT_RUN_GENERATION:
+                return this.getRunGenerationVolatile() == generation;
+            case WAIT_SYNCHRONIZING_GENERATION:
+                return this.getSynchronizingGenerationVolatile() == generation;
+            case WAIT_ALONE:
+                return this.aloneExecutionThreads.get(id);
+            default:
+                throw new IllegalStateException("Unknown wait kind: " + kind);
         }
+    }
+
+    /**
+     * Busy-waits until the thread is no longer waiting, or until the specified time has passed.
+     * @return {@code true} if the thread is no longer waiting.
+     */
+    protected final boolean spinWait(final int kind, final int id, final int generation, final long spinNanos,
+                                     final long parkNanos, final long timeNanos) {
+        final long start = System.nanoTime();
+
+        for (;;) {
+            Thread.onSpinWait();
 
-        final int leading = Long.numberOfLeadingZeros(aloneThreads);
+            if (!this.isWaiting(kind, id, generation)) {
+                return true;
+            }
 
-        /* we need to set this before unpark() so the alone thread can wake up from park() */
-        this.setAloneExecutionThreadsVolatile(aloneThreads ^ (IntegerUtil.HIGH_BIT_U64 >>> leading)); // inlined IntegerUtil#roundFloorLog2(long)
-        LockSupport.unpark(this.threads[63 ^ leading]); // inlined IntegerUtil#floorLog2(long)
+            final long elapsed = System.nanoTime() - start;
 
-        /* indicate there are alone threads executing (possibly) */
+            if (elapsed >= timeNanos) {
+                return false;
+            }
 
-        return false;
+            if (elapsed >= spinNanos) {
+                LockSupport.parkNanos(parkNanos);
+            }
+        }
+    }
+
+    // waits until the thread is no longer waiting
+    protected final void waitConditionally(final int id, final int kind, final int generation) {
+        this.waitConditionally(id, kind, generation, false, 0L);
     }
 
-    // waits until the condition is false
-    protected final void waitConditionally(final long bitfield, final BooleanSupplier condition) {
+    /**
+     * Waits until the thread is no longer waiting, or until the deadline if timed.
+     * @return {@code true} if the thread is no longer waiting, {@code false} if the deadline passed.
+     */
+    protected final boolean waitConditionally(final int id, final int kind, final int generation, final boolean timed,
+                                              final long deadline) {
+        if (!this.isWaiting(kind, id, generation)) {
+            return true;
+        }
+
+        final SpinParkStrategy strategy = this.strategy;
+        final long spinNanos = timed ? Math.min(strategy.getSpinNanos(), deadline - System.nanoTime()) : strategy.getSpinNanos();
+
+        if (spinNanos > 0L && this.spinWait(kind, id, generation, spinNanos, 0L, spinNanos)) {
+            return true;
+        }
+
         boolean interrupted = false; // pass on interrupts
-        for (;;) {
-            LockSupport.park();
-            interrupted |= Thread.interrupted();
-            if (!condition.getAsBoolean()) {
-                if (interrupted) {
-                    Thread.currentThread().interrupt();
+        boolean waiting;
+        while (waiting = this.isWaiting(kind, id, generation)) {
+            if (!timed) {
+                LockSupport.park();
+            } else {
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0L) {
+                    break;
                 }
-                return;
+                LockSupport.parkNanos(remaining);
+            }
+            interrupted |= Thread.interrupted();
+            if (!(waiting = this.isWaiting(kind, id, generation))) {
+                break;
             }
 
-            if ((this.getAndAndPreemptVolatile(~bitfield) & bitfield) == 0) {
+            if (!this.preempt.getAndSetOff(id)) {
                 // not preempted
                 continue;
             }
 
             // we've been preempted
-            final long start = System.nanoTime();
+            final long preemptNanos = timed ? Math.min(strategy.getPreemptNanos(), deadline - System.nanoTime()) : strategy.getPreemptNanos();
+            if (this.spinWait(kind, id, generation, strategy.getPreemptSpinNanos(), strategy.getPreemptParkNanos(), preemptNanos)) {
+                waiting = false;
+                break;
+            }
+            // return to park()
+        }
 
-            for (;;) {
-                Thread.onSpinWait();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
 
-                final long currTime = System.nanoTime();
+        return !waiting;
+    }
 
-                if ((currTime - start) >= (2 * 1000 * 1000)) {
-                    break; // return to park()
-                }
+    /**
+     * Registers the specified thread, which takes part in the runs starting after the current run ends. If no thread is
+     * registered, it takes part in the next run instead. The registered thread must invoke {@link #start(int)} with the
+     * returned id next, which waits until the thread takes part.
+     * <p>
+     * The other threads do not need to stop for a thread to be registered.
+     * </p>
+     * @param thread The thread to register.
+     * @return The id of the registered thread.
+     * @throws IllegalStateException If the maximum number of threads are registered.
+     */
+    public int register(final Thread thread) {
+        Validate.notNull(thread, "Null thread");
+        synchronized (this) {
+            final int id = this.registeredThreads.claimNextClearBit();
+            if (id < 0) {
+                throw new IllegalStateException("Cannot register more than " + this.threads.length + " threads");
+            }
+            ArrayUtil.setVolatile(this.threads, id, thread);
+
+            if ((ArrayUtil.getVolatile(this.runNodes, this.getRootIndex()) >>> 32) == 0L) {
+                /* no registered thread can arrive at the run tree, so the thread can take part right away */
+                this.attach(this.runNodes, id);
+            } else {
+                /* added to the run tree by the last thread to end the current run */
+                this.pendingThreads.setOn(id);
+            }
+            return id;
+        }
+    }
 
-                if ((currTime - start) >= (1000 * 1000 / 2)) {
-                    LockSupport.parkNanos(10_000); // pause for 10us
-                }
+    /**
+     * Deregisters the thread with the specified id, which must not be running: the thread must either have not yet
+     * started, or its last invocation of {@link #end(int)} must have returned. This is equivalent to the thread taking
+     * part in the next {@link #start(int)} without waiting and then leaving, so the other threads may start the next
+     * run without it. The id may be reused by a later registration.
+     * <p>
+     * Must be invoked by the thread with the specified id.
+     * </p>
+     * @param id The id of the thread to deregister.
+     * @throws IllegalStateException If the id is not registered.
+     */
+    public void deregister(final int id) {
+        this.checkId(id);
+        synchronized (this) {
+            if (!this.registeredThreads.get(id)) {
+                throw new IllegalStateException("Thread id is not registered: " + id);
+            }
+            if (this.pendingThreads.getAndSetOff(id)) {
+                /* never took part in a run */
+                this.releaseId(id);
+                return;
+            }
 
-                if (!condition.getAsBoolean()) {
-                    return;
-                }
+            final int generation = this.getRunGenerationVolatile();
+            final boolean started = this.depart(this.runNodes, id);
+            this.releaseId(id);
+
+            if (started) {
+                /* every other thread was waiting to start on us */
+                this.releaseStart(generation, id);
+                return;
             }
+
+            if ((ArrayUtil.getVolatile(this.runNodes, this.getRootIndex()) >>> 32) == 0L && this.pendingThreads.nextSetBit(0) >= 0) {
+                /* no thread is left to end a run, so the pending threads must take part right away */
+                this.attachPending();
+                this.pendingThreads.clearRange(0, this.threads.length);
+                this.unparkAll(id);
+            }
+        }
+    }
+
+    protected final void releaseId(final int id) {
+        ArrayUtil.setVolatile(this.threads, id, null);
+        this.preempt.setOff(id);
+        this.registeredThreads.setOff(id);
+    }
+
+    /* must hold the lock on this, and no thread may be able to arrive at the run tree */
+    protected final void attachPending() {
+        final ConcurrentBitSet pending = this.pendingThreads;
+        for (int id = pending.nextSetBit(0); id >= 0; id = pending.nextSetBit(id + 1)) {
+            this.attach(this.runNodes, id);
         }
     }
 
+    protected final void releaseStart(final int generation, final int id) {
+        /* every thread is running */
+        this.resetRoot(this.runNodes);
+        this.resetSynchronizingNodes();
+        this.setRunGenerationVolatile(generation + 1);
+        this.unparkAll(id);
+    }
+
     public void start(final int id) {
-        final long bitfield = 1L << id;
-        final int lockCount = this.getStartLockCountPlain();
+        this.checkId(id);
+        this.start(id, false, 0L);
+    }
 
-        final long runningThreads = this.getAndOrRunningThreadsVolatile(bitfield) | bitfield;
+    /**
+     * Waits for every thread to start, as {@link #start(int)} does, for up to the specified time. If the time passes
+     * first, the thread withdraws from starting and this returns {@code false}: the other threads keep waiting for it,
+     * and it must either try to start again or {@link #deregister(int) deregister}.
+     * @param id The id of the thread.
+     * @param timeout The maximum time to wait.
+     * @param unit The unit of {@code timeout}.
+     * @return {@code true} if the run started, {@code false} if the time passed first.
+     */
+    public boolean tryStart(final int id, final long timeout, final TimeUnit unit) {
+        this.checkId(id);
+        return this.start(id, true, System.nanoTime() + unit.toNanos(timeout));
+    }
 
-        if (runningThreads != this.allWaitingThreads) {
-            this.waitConditionally(bitfield, () -> {
-                return this.getStartLockCountVolatile() == lockCount;
-            });
-        } else {
-            this.setStartLockCountVolatile(lockCount + 1);
-            this.unparkAll(id);
+    protected final boolean start(final int id, final boolean timed, final long deadline) {
+        if (this.pendingThreads.get(id) && !this.waitConditionally(id, WAIT_PENDING, 0, timed, deadline)) {
+            /* still registered during the current run, there is no arrival to withdraw */
+            return false;
+        }
+
+        final int generation = this.getRunGenerationVolatile();
+
+        if (!this.arrive(this.runNodes, 0, id)) {
+            return this.awaitRelease(this.runNodes, id, WAIT_RUN_GENERATION, generation, timed, deadline);
         }
+
+        /* last thread to start */
+        this.releaseStart(generation, id);
+        return true;
     }
 
     public void end(final int id) {
-        final long bitfield = 1L << id;
-        final int lockCount = this.getStartLockCountPlain();
+        this.checkId(id);
+        this.end(id, false, 0L);
+    }
+
+    /**
+     * Waits for every thread to end, as {@link #end(int)} does, for up to the specified time. If the time passes
+     * first, the thread withdraws from ending and this returns {@code false}: the thread no longer takes part in
+     * synchronizations of the current run, and the other threads keep waiting for it to end. It must try to end again.
+     * @param id The id of the thread.
+     * @param timeout The maximum time to wait.
+     * @param unit The unit of {@code timeout}.
+     * @return {@code true} if the run ended, {@code false} if the time passed first.
+     */
+    public boolean tryEnd(final int id, final long timeout, final TimeUnit unit) {
+        this.checkId(id);
+        return this.end(id, true, System.nanoTime() + unit.toNanos(timeout));
+    }
 
-        final long runningThreads = this.getAndXorRunningThreadsVolatile(bitfield) ^ bitfield;
+    protected final boolean end(final int id, final boolean timed, final long deadline) {
+        final int generation = this.getRunGenerationVolatile();
+        final long synchronizingBit = (1L << (id & this.fanInMask)) << 32;
 
-        if (runningThreads == 0) {
-            /* Last thread running */
-            this.setStartLockCountVolatile(lockCount + 1);
+        /* a thread which withdrew from ending has already departed */
+        if ((ArrayUtil.getVolatile(this.synchronizingNodes, this.getNodeIndex(0, id >>> this.fanInShift)) & synchronizingBit) != 0L
+                && this.depart(this.synchronizingNodes, id)) {
+            /* every other running thread is synchronizing, and was waiting on us */
+            this.wakeThreads(id);
+        }
+
+        if (!this.arrive(this.runNodes, 0, id)) {
+            return this.awaitRelease(this.runNodes, id, WAIT_RUN_GENERATION, generation, timed, deadline);
+        }
+
+        /* Last thread running */
+        this.resetRoot(this.runNodes);
+
+        if (this.pendingThreads.nextSetBit(0) < 0) {
+            this.setRunGenerationVolatile(generation + 1);
             this.unparkAll(id);
+            return true;
+        }
 
-            return;
+        synchronized (this) {
+            /* no thread can arrive at the run tree until the generation changes */
+            this.attachPending();
+            this.setRunGenerationVolatile(generation + 1);
+            /* the pending threads read the generation once released, so they must not observe the old generation */
+            this.pendingThreads.clearRange(0, this.threads.length);
         }
+        this.unparkAll(id);
+        return true;
+    }
 
-        final long synchronizingThreads = this.getSynchronizingThreadsOpaque();
+    /**
+     * Waits until the threads which arrived at the specified tree are released. If the deadline passes first, the
+     * arrival of the thread is withdrawn, unless every thread arrived in the meantime.
+     * @return {@code true} if the thread was released, {@code false} if its arrival was withdrawn.
+     */
+    protected final boolean awaitRelease(final long[] nodes, final int id, final int kind, final int generation,
+                                         final boolean timed, final long deadline) {
+        if (this.waitConditionally(id, kind, generation, timed, deadline)) {
+            return true;
+        }
 
-        if (synchronizingThreads == runningThreads
-                && synchronizingThreads == this.compareAndExchangeSynchronizingThreadsVolatile(synchronizingThreads, synchronizingThreads | WAKING_THREADS_BITFIELD)) {
-            this.wakeThreads(id);
+        for (;;) {
+            final int result;
+            synchronized (this) {
+                result = this.withdraw(nodes, id);
+            }
+            if (result == WITHDRAW_SUCCESS) {
+                return false;
+            }
+            if (result == WITHDRAW_RELEASING || !this.isWaiting(kind, id, generation)) {
+                break;
+            }
+            /* spin without the lock, the releasing thread may need it before changing the generation */
+            Thread.onSpinWait();
         }
 
-        this.waitConditionally(bitfield, () -> {
-            return this.getStartLockCountVolatile() == lockCount;
-        });
+        /* every thread arrived before the deadline passed, so we are about to be released */
+        this.waitConditionally(id, kind, generation);
+        return true;
     }
 
     public void weakEnter(final int id) {
         /* Use volatile to prevent re-ordering of this call */
-        if (this.getSynchronizingThreadsVolatile() != 0) {
+        if (this.getSynchronizingVolatile()) {
             this.enter(id);
         }
     }
 
     public void enter(final int id) {
-        final long bitfield = 1L << id;
-        final int lockCount = this.getSynchronizingLockCountPlain();
+        this.checkId(id);
+        this.enter(id, false, 0L);
+    }
+
+    /**
+     * Waits for every running thread to enter, as {@link #enter(int)} does, for up to the specified time. If the time
+     * passes first, the thread withdraws from the synchronization and this returns {@code false}: the other threads
+     * keep waiting for it, and it must either try to enter again or {@link #end(int) end}.
+     * <p>
+     * If every thread entered before the time passed, this waits for the threads executing alone regardless of the
+     * time, as they rely on the other threads waiting.
+     * </p>
+     * @param id The id of the thread.
+     * @param timeout The maximum time to wait.
+     * @param unit The unit of {@code timeout}.
+     * @return {@code true} if the synchronization completed, {@code false} if the time passed first.
+     */
+    public boolean tryEnter(final int id, final long timeout, final TimeUnit unit) {
+        this.checkId(id);
+        return this.enter(id, true, System.nanoTime() + unit.toNanos(timeout));
+    }
 
+    protected final boolean enter(final int id, final boolean timed, final long deadline) {
         if (this.reEntryCount != 0) {
             /* we are the alone thread executing, we are re-entrant */
-            return;
+            return true;
         }
 
-        final long synchronizing = this.getAndOrSynchronizingThreadsVolatile(bitfield) | bitfield;
-        if (synchronizing != this.getRunningThreadsOpaque()) {
-            /* Other threads are running */
-            this.waitConditionally(bitfield, () -> {
-                return this.getSynchronizingLockCountVolatile() == lockCount;
-            });
-            return;
-        }
+        final int generation = this.getSynchronizingGenerationVolatile();
+        this.markSynchronizing();
 
-        /* potentially the only thread executing */
-        if (synchronizing != this.compareAndExchangeSynchronizingThreadsVolatile(synchronizing, synchronizing | WAKING_THREADS_BITFIELD)) {
-            /* Lost cas, so we assume an alone thread could execute */
-            this.waitConditionally(bitfield, () -> {
-                return this.getSynchronizingLockCountVolatile() == lockCount;
-            });
-        } else {
-            /* Won cas, now we must wake up the other threads */
-            if (this.wakeThreads(id)) {
-                return;
-            }
+        if (!this.arrive(this.synchronizingNodes, 0, id)) {
+            return this.awaitRelease(this.synchronizingNodes, id, WAIT_SYNCHRONIZING_GENERATION, generation, timed, deadline);
+        }
 
-            this.waitConditionally(bitfield, () -> {
-                return this.getSynchronizingLockCountVolatile() == lockCount;
-            });
+        /* we were the last thread to synchronize */
+        if (!this.wakeThreads(id)) {
+            /* an alone thread is executing */
+            this.waitConditionally(id, WAIT_SYNCHRONIZING_GENERATION, generation);
         }
+        return true;
     }
 
     public void enterAlone(final int id) {
-        final long bitfield = 1L << id;
+        this.checkId(id);
 
         if (this.reEntryCount != 0) {
             /* We are the alone thread executing */
@@ -224,26 +822,15 @@ public class SynchronizationPoint {
         }
 
         /* add to the alone thread execution list */
-        this.getAndOrAloneExecutionThreadsVolatile(bitfield);
-
-        final long synchronizing = this.getAndOrSynchronizingThreadsVolatile(bitfield) | bitfield;
+        this.aloneExecutionThreads.setOn(id);
+        this.markSynchronizing();
 
-        if (synchronizing != this.getRunningThreadsOpaque()) {
-            /* Other threads are running */
-            this.waitConditionally(bitfield, () -> {
-                return this.getAloneExecutionThreadsVolatile() != 0;
-            });
-            this.reEntryCount = 1;
-            return;
+        if (this.arrive(this.synchronizingNodes, 0, id)) {
+            /* we were the last thread to synchronize, this releases an alone thread which may be us */
+            this.wakeThreads(id);
         }
 
-        /* potentially the only thread executing */
-        if (synchronizing != this.compareAndExchangeSynchronizingThreadsVolatile(synchronizing, synchronizing | WAKING_THREADS_BITFIELD)) {
-            /* Lost cas, this means another alone thread could execute */
-            this.waitConditionally(bitfield, () -> {
-                return this.getAloneExecutionThreadsVolatile() != 0;
-            });
-        }
+        this.waitConditionally(id, WAIT_ALONE, 0);
         this.reEntryCount = 1;
     }
 
@@ -253,139 +840,67 @@ public class SynchronizationPoint {
             return;
         }
 
-        final int lockCount = this.getSynchronizingLockCountPlain();
+        final int generation = this.getSynchronizingGenerationPlain();
 
         if (this.wakeThreads(id)) {
             /* synchronizing threads have been unparked */
             return;
         }
 
-        this.waitConditionally(1L << id, () -> {
-            return this.getSynchronizingLockCountVolatile() == lockCount;
-        });
+        this.waitConditionally(id, WAIT_SYNCHRONIZING_GENERATION, generation);
     }
 
     public void preemptThread(final int currId, final int preemptId) {
-        final long bitfield = 1L << preemptId;
-        this.getAndOrPreemptVolatile(bitfield);
+        this.preempt.setOn(preemptId);
         LockSupport.unpark(this.threads[preemptId]);
     }
 
-    protected static final VarHandle RUNNING_THREADS_HANDLE =
-            ConcurrentUtil.getVarHandle(SynchronizationPoint.class, "runningThreads", long.class);
-    protected static final VarHandle SYNCHRONIZING_THREADS_HANDLE =
-            ConcurrentUtil.getVarHandle(SynchronizationPoint.class, "synchronizingThreads", long.class);
-    protected static final VarHandle ALONE_EXECUTION_THREADS_HANDLE =
-            ConcurrentUtil.getVarHandle(SynchronizationPoint.class, "aloneExecutionThreads", long.class);
-
-    protected static final VarHandle SYNCHRONIZING_LOCK_COUNT_HANDLE =
-            ConcurrentUtil.getVarHandle(SynchronizationPoint.class, "synchronizingLockCount", int.class);
-    protected static final VarHandle START_LOCK_COUNT_HANDLE =
-            ConcurrentUtil.getVarHandle(SynchronizationPoint.class, "startLockCount", int.class);
-    protected static final VarHandle PREEMPT_HANDLE =
-            ConcurrentUtil.getVarHandle(SynchronizationPoint.class, "preempt", long.class);
-
-    /* running threads */
-
-    protected final long getRunningThreadsOpaque() {
-        return (long)RUNNING_THREADS_HANDLE.getOpaque(this);
-    }
-
-    protected final long getRunningThreadsVolatile() {
-        return (long)RUNNING_THREADS_HANDLE.getVolatile(this);
-    }
-
-    protected final long getAndOrRunningThreadsVolatile(final long param) {
-        return (long)RUNNING_THREADS_HANDLE.getAndBitwiseXor(this, param);
-    }
-
-    protected final long getAndXorRunningThreadsVolatile(final long param) {
-        return (long)RUNNING_THREADS_HANDLE.getAndBitwiseXor(this, param);
-    }
-
-    /* synchronizing threads */
-
-    protected final long getSynchronizingThreadsPlain() {
-        return (long)SYNCHRONIZING_THREADS_HANDLE.get(this);
-    }
-
-    protected final long getSynchronizingThreadsOpaque() {
-        return (long)SYNCHRONIZING_THREADS_HANDLE.getOpaque(this);
-    }
-
-    protected final long getSynchronizingThreadsVolatile() {
-        return (long)SYNCHRONIZING_THREADS_HANDLE.getVolatile(this);
-    }
-
-    protected final long compareAndExchangeSynchronizingThreadsVolatile(final long expect, final long update) {
-        return (long)SYNCHRONIZING_THREADS_HANDLE.compareAndExchange(this, expect, update);
-    }
-
-    protected final long getAndOrSynchronizingThreadsVolatile(final long param) {
-        return (long)SYNCHRONIZING_THREADS_HANDLE.getAndBitwiseOr(this, param);
-    }
-
-    /* alone execution threads */
-
-    protected final long getAloneExecutionThreadsPlain() {
-        return (long)ALONE_EXECUTION_THREADS_HANDLE.get(this);
-    }
-
-    protected final long getAloneExecutionThreadsVolatile() {
-        return (long)ALONE_EXECUTION_THREADS_HANDLE.getVolatile(this);
-    }
-
-    protected final void setAloneExecutionThreadsPlain(final long value) {
-        ALONE_EXECUTION_THREADS_HANDLE.set(this, value);
-    }
-
-    protected final void setAloneExecutionThreadsVolatile(final long value) {
-        ALONE_EXECUTION_THREADS_HANDLE.setVolatile(this, value);
-    }
-
-    protected final long getAndOrAloneExecutionThreadsVolatile(final long param) {
-        return (long)ALONE_EXECUTION_THREADS_HANDLE.getAndBitwiseOr(this, param);
+    protected final void markSynchronizing() {
+        /* avoid writing to the shared field if another thread has already marked it */
+        if (!this.getSynchronizingVolatile()) {
+            this.setSynchronizingVolatile(true);
+        }
     }
 
-    /* synchronizing lock count */
+    protected static final VarHandle SYNCHRONIZING_HANDLE =
+            ConcurrentUtil.getVarHandle(SynchronizationPoint.class, "synchronizing", boolean.class);
 
-    protected final int getSynchronizingLockCountPlain() {
-        return (int)SYNCHRONIZING_LOCK_COUNT_HANDLE.get(this);
-    }
+    protected static final VarHandle SYNCHRONIZING_GENERATION_HANDLE =
+            ConcurrentUtil.getVarHandle(SynchronizationPoint.class, "synchronizingGeneration", int.class);
+    protected static final VarHandle RUN_GENERATION_HANDLE =
+            ConcurrentUtil.getVarHandle(SynchronizationPoint.class, "runGeneration", int.class);
 
-    protected final int getSynchronizingLockCountVolatile() {
-        return (int)SYNCHRONIZING_LOCK_COUNT_HANDLE.getVolatile(this);
-    }
+    /* synchronizing */
 
-    protected final void setSynchronizingLockCountVolatile(final int value) {
-        SYNCHRONIZING_LOCK_COUNT_HANDLE.setVolatile(this, value);
+    protected final boolean getSynchronizingVolatile() {
+        return (boolean)SYNCHRONIZING_HANDLE.getVolatile(this);
     }
 
-    protected final int compareAndExchangeSynchronizingLockCountVolatile(final int expect, final int update) {
-        return (int)SYNCHRONIZING_LOCK_COUNT_HANDLE.compareAndExchange(this, expect, update);
+    protected final void setSynchronizingVolatile(final boolean value) {
+        SYNCHRONIZING_HANDLE.setVolatile(this, value);
     }
 
-    /* start lock count */
+    /* synchronizing generation */
 
-    protected final int getStartLockCountPlain() {
-        return (int)START_LOCK_COUNT_HANDLE.get(this);
+    protected final int getSynchronizingGenerationPlain() {
+        return (int)SYNCHRONIZING_GENERATION_HANDLE.get(this);
     }
 
-    protected final int getStartLockCountVolatile() {
-        return (int)START_LOCK_COUNT_HANDLE.getVolatile(this);
+    protected final int getSynchronizingGenerationVolatile() {
+        return (int)SYNCHRONIZING_GENERATION_HANDLE.getVolatile(this);
     }
 
-    protected final void setStartLockCountVolatile(final int value) {
-        START_LOCK_COUNT_HANDLE.setVolatile(this, value);
+    protected final void setSynchronizingGenerationVolatile(final int value) {
+        SYNCHRONIZING_GENERATION_HANDLE.setVolatile(this, value);
     }
 
-    /* preempt */
+    /* run generation */
 
-    protected final long getAndAndPreemptVolatile(final long value) {
-        return (long)PREEMPT_HANDLE.getAndAdd(this, value);
+    protected final int getRunGenerationVolatile() {
+        return (int)RUN_GENERATION_HANDLE.getVolatile(this);
     }
 
-    protected final long getAndOrPreemptVolatile(final long value) {
-        return (long)PREEMPT_HANDLE.getAndBitwiseOr(this, value);
+    protected final void setRunGenerationVolatile(final int value) {
+        RUN_GENERATION_HANDLE.setVolatile(this, value);
     }
 }
\ No newline at end of file
@@ -0,0 +1,486 @@
+package ca.spottedleaf.concurrentutil.misc;
+
+import ca.spottedleaf.concurrentutil.ConcurrentUtil;
+import ca.spottedleaf.concurrentutil.util.ArrayUtil;
+import ca.spottedleaf.concurrentutil.util.Throw;
+import ca.spottedleaf.concurrentutil.util.Validate;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Executes ticks of a simulation over a fixed group of worker threads owned by this executor.
+ * <p>
+ * A tick is a sequence of {@link Phase phases}, executed in order by {@link #tick(Phase...)}. A
+ * {@link Phase#parallel(String, int, int, RangeTask) parallel} phase splits a range into chunks which every worker
+ * executes, and a phase only starts once every chunk of the previous phase has completed. An
+ * {@link Phase#alone(String, Runnable) alone} phase executes a single task while every worker waits.
+ * </p>
+ * <p>
+ * The chunks of a parallel phase are initially partitioned evenly between the workers. A worker which has completed
+ * its own chunks steals the remaining chunks of the other workers, so uneven chunks do not leave workers idle. Each
+ * worker claims chunks through its own counter, placed on its own {@link ConcurrentUtil#CACHE_LINE_SIZE cache line},
+ * so workers only contend while stealing.
+ * </p>
+ * <p>
+ * The workers synchronize between phases through a {@link SynchronizationPoint}, where each tick is one run and
+ * alone phases are executed by the first worker through {@link SynchronizationPoint#enterAlone(int)}.
+ * </p>
+ */
+public class TickExecutor {
+
+    protected static final int CURSOR_STRIDE = ConcurrentUtil.CACHE_LINE_SIZE / Integer.BYTES;
+
+    protected final Thread[] workers;
+    protected final SynchronizationPoint point;
+
+    /* published to the workers by the write to tickCount */
+    protected TickState state;
+
+    protected volatile int tickCount;
+    /* workers which have not completed the current tick, 0 if no tick is executing */
+    protected volatile int remaining;
+    protected volatile boolean shutdown;
+
+    protected static final VarHandle TICK_COUNT_HANDLE = ConcurrentUtil.getVarHandle(TickExecutor.class, "tickCount", int.class);
+    protected static final VarHandle REMAINING_HANDLE = ConcurrentUtil.getVarHandle(TickExecutor.class, "remaining", int.class);
+    protected static final VarHandle SHUTDOWN_HANDLE = ConcurrentUtil.getVarHandle(TickExecutor.class, "shutdown", boolean.class);
+
+    protected final int getTickCountPlain() {
+        return (int)TICK_COUNT_HANDLE.get(this);
+    }
+
+    protected final int getTickCountVolatile() {
+        return (int)TICK_COUNT_HANDLE.getVolatile(this);
+    }
+
+    protected final void setTickCountVolatile(final int value) {
+        TICK_COUNT_HANDLE.setVolatile(this, value);
+    }
+
+    protected final int getRemainingVolatile() {
+        return (int)REMAINING_HANDLE.getVolatile(this);
+    }
+
+    protected final int compareAndExchangeRemainingVolatile(final int expect, final int update) {
+        return (int)REMAINING_HANDLE.compareAndExchange(this, expect, update);
+    }
+
+    protected final int getAndAddRemainingVolatile(final int param) {
+        return (int)REMAINING_HANDLE.getAndAdd(this, param);
+    }
+
+    protected final boolean getShutdownVolatile() {
+        return (boolean)SHUTDOWN_HANDLE.getVolatile(this);
+    }
+
+    protected final void setShutdownVolatile(final boolean value) {
+        SHUTDOWN_HANDLE.setVolatile(this, value);
+    }
+
+    /**
+     * Constructs and starts a tick executor with the {@link SpinParkStrategy#defaultStrategy() default} strategy.
+     * @param name The name of the executor, which prefixes the names of the worker threads.
+     * @param workers The number of worker threads.
+     */
+    public TickExecutor(final String name, final int workers) {
+        this(name, workers, SpinParkStrategy.defaultStrategy());
+    }
+
+    /**
+     * Constructs and starts a tick executor.
+     * @param name The name of the executor, which prefixes the names of the worker threads.
+     * @param workers The number of worker threads.
+     * @param strategy The strategy workers use to wait for each other.
+     * @throws IllegalArgumentException If {@code workers} is not positive.
+     */
+    public TickExecutor(final String name, final int workers, final SpinParkStrategy strategy) {
+        Validate.notNull(name, "Null name");
+        Validate.notNull(strategy, "Null strategy");
+        if (workers <= 0) {
+            throw new IllegalArgumentException("Workers must be > 0, not " + workers);
+        }
+
+        this.workers = new Thread[workers];
+        for (int i = 0; i < workers; ++i) {
+            final int id = i;
+            this.workers[i] = new Thread(() -> {
+                TickExecutor.this.runWorker(id);
+            }, name + " worker #" + id);
+        }
+        this.point = new SynchronizationPoint(this.workers, SynchronizationPoint.DEFAULT_FAN_IN, workers, strategy);
+
+        for (final Thread worker : this.workers) {
+            worker.start();
+        }
+    }
+
+    /**
+     * Returns the number of worker threads.
+     * @return The number of worker threads.
+     */
+    public int getWorkers() {
+        return this.workers.length;
+    }
+
+    /**
+     * Executes a tick made of the specified phases, and waits for it to complete. Only one tick may execute at once.
+     * <p>
+     * If a task throws, the remaining tasks of the tick are still executed, after which the first exception thrown is
+     * rethrown by this function.
+     * </p>
+     * @param phases The phases of the tick, in order.
+     * @return The time spent in each phase.
+     * @throws IllegalStateException If another tick is executing, or if this executor is shut down.
+     */
+    public TickTimings tick(final Phase... phases) {
+        Validate.notNull(phases, "Null phases");
+        for (final Phase phase : phases) {
+            Validate.notNull(phase, "Null phase");
+        }
+
+        final int workers = this.workers.length;
+        if (this.compareAndExchangeRemainingVolatile(0, workers) != 0) {
+            throw new IllegalStateException("Another tick is executing");
+        }
+        if (this.getShutdownVolatile()) {
+            this.getAndAddRemainingVolatile(-workers);
+            throw new IllegalStateException("Executor is shut down");
+        }
+
+        final TickState state = new TickState(phases, workers, Thread.currentThread());
+        final long start = System.nanoTime();
+
+        this.state = state;
+        this.setTickCountVolatile(this.getTickCountPlain() + 1);
+        for (final Thread worker : this.workers) {
+            LockSupport.unpark(worker);
+        }
+
+        boolean interrupted = false; // pass on interrupts
+        while (this.getRemainingVolatile() != 0) {
+            LockSupport.park(this);
+            interrupted |= Thread.interrupted();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        final long end = System.nanoTime();
+        this.state = null;
+
+        final Throwable failure = state.getFailureVolatile();
+        if (failure != null) {
+            Throw.rethrow(failure);
+        }
+
+        return new TickTimings(phases, state.startTime, state.phaseEnds, end - start);
+    }
+
+    /**
+     * Stops the worker threads, and waits for them to exit. Must not be invoked while a tick is executing.
+     */
+    public void shutdown() {
+        this.setShutdownVolatile(true);
+
+        boolean interrupted = false; // pass on interrupts
+        for (final Thread worker : this.workers) {
+            LockSupport.unpark(worker);
+            for (;;) {
+                try {
+                    worker.join();
+                    break;
+                } catch (final InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    protected void runWorker(final int id) {
+        for (int lastTick = 0;;) {
+            int tick;
+            while ((tick = this.getTickCountVolatile()) == lastTick) {
+                if (this.getShutdownVolatile()) {
+                    return;
+                }
+                LockSupport.park(this);
+                /* ticks cannot be interrupted */
+                Thread.interrupted();
+            }
+            lastTick = tick;
+
+            final TickState state = this.state;
+            this.runTick(id, state);
+
+            if (this.getAndAddRemainingVolatile(-1) == 1) {
+                LockSupport.unpark(state.caller);
+            }
+        }
+    }
+
+    protected final void runTick(final int id, final TickState state) {
+        final SynchronizationPoint point = this.point;
+        final Phase[] phases = state.phases;
+
+        point.start(id);
+        if (id == 0) {
+            state.startTime = System.nanoTime();
+        }
+
+        for (int i = 0; i < phases.length; ++i) {
+            final Phase phase = phases[i];
+
+            if (phase.task != null) {
+                this.runParallel(id, state, phase, state.cursors[i]);
+                point.enter(id);
+            } else if (id == 0) {
+                point.enterAlone(id);
+                try {
+                    phase.aloneTask.run();
+                } catch (final Throwable throwable) {
+                    state.fail(throwable);
+                }
+                point.endAloneExecution(id);
+            } else {
+                point.enter(id);
+            }
+
+            if (id == 0) {
+                state.phaseEnds[i] = System.nanoTime();
+            }
+        }
+
+        point.end(id);
+    }
+
+    protected final void runParallel(final int id, final TickState state, final Phase phase, final int[] cursors) {
+        final int workers = this.workers.length;
+        final int chunks = phase.getChunks();
+
+        /* our own chunks first, then steal from the following workers */
+        for (int i = 0; i < workers; ++i) {
+            final int victim = (id + i) % workers;
+            final int index = (victim + 1) * CURSOR_STRIDE;
+            final int limit = getFirstChunk(victim + 1, chunks, workers);
+
+            if (ArrayUtil.getVolatile(cursors, index) >= limit) {
+                /* avoid writing to the cursors of finished workers */
+                continue;
+            }
+
+            for (int chunk; (chunk = ArrayUtil.getAndAddVolatile(cursors, index, 1)) < limit;) {
+                final int from = chunk * phase.grain;
+                final int to = Math.min(from + phase.grain, phase.size);
+                try {
+                    phase.task.run(from, to);
+                } catch (final Throwable throwable) {
+                    state.fail(throwable);
+                }
+            }
+        }
+    }
+
+    protected static int getFirstChunk(final int worker, final int chunks, final int workers) {
+        return (int)((long)chunks * worker / workers);
+    }
+
+    /**
+     * A task executed over part of the range of a parallel phase.
+     */
+    @FunctionalInterface
+    public static interface RangeTask {
+
+        /**
+         * Executes this task over the specified part of the range.
+         * @param from The start of the part, inclusive.
+         * @param to The end of the part, exclusive.
+         */
+        public void run(final int from, final int to);
+    }
+
+    /**
+     * A phase of a tick. Phases are immutable, and may be reused for any number of ticks.
+     */
+    public static final class Phase {
+
+        protected final String name;
+        protected final int size;
+        protected final int grain;
+        protected final RangeTask task;
+        protected final Runnable aloneTask;
+
+        protected Phase(final String name, final int size, final int grain, final RangeTask task, final Runnable aloneTask) {
+            this.name = name;
+            this.size = size;
+            this.grain = grain;
+            this.task = task;
+            this.aloneTask = aloneTask;
+        }
+
+        /**
+         * Returns a phase which executes the specified task over {@code [0, size)} on every worker, in chunks of
+         * {@code grain}.
+         * @param name The name of the phase.
+         * @param size The size of the range.
+         * @param grain The size of each chunk. Smaller chunks balance better between workers, at the cost of more
+         *              claims.
+         * @param task The task.
+         * @return The phase.
+         * @throws IllegalArgumentException If {@code size} is negative or {@code grain} is not positive.
+         */
+        public static Phase parallel(final String name, final int size, final int grain, final RangeTask task) {
+            Validate.notNull(name, "Null name");
+            Validate.notNull(task, "Null task");
+            if (size < 0) {
+                throw new IllegalArgumentException("Size may not be negative: " + size);
+            }
+            if (grain <= 0) {
+                throw new IllegalArgumentException("Grain must be > 0, not " + grain);
+            }
+            return new Phase(name, size, grain, task, null);
+        }
+
+        /**
+         * Returns a phase which executes the specified task on one worker, while every other worker waits.
+         * @param name The name of the phase.
+         * @param task The task.
+         * @return The phase.
+         */
+        public static Phase alone(final String name, final Runnable task) {
+            Validate.notNull(name, "Null name");
+            Validate.notNull(task, "Null task");
+            return new Phase(name, 0, 1, null, task);
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public boolean isAlone() {
+            return this.aloneTask != null;
+        }
+
+        protected int getChunks() {
+            return (int)(((long)this.size + this.grain - 1L) / this.grain);
+        }
+
+        @Override
+        public String toString() {
+            return this.isAlone() ? "Phase{name=" + this.name + ", alone}" :
+                    "Phase{name=" + this.name + ", size=" + this.size + ", grain=" + this.grain + "}";
+        }
+    }
+
+    /**
+     * The time spent in each phase of a tick. A phase is timed from the end of the previous phase, or from the start of
+     * the tick for the first phase, until every worker has completed it.
+     */
+    public static final class TickTimings {
+
+        protected final Phase[] phases;
+        protected final long[] phaseNanos;
+        protected final long totalNanos;
+
+        protected TickTimings(final Phase[] phases, final long startTime, final long[] phaseEnds, final long totalNanos) {
+            this.phases = phases.clone();
+            this.phaseNanos = new long[phaseEnds.length];
+            for (int i = 0, len = phaseEnds.length; i < len; ++i) {
+                this.phaseNanos[i] = phaseEnds[i] - (i == 0 ? startTime : phaseEnds[i - 1]);
+            }
+            this.totalNanos = totalNanos;
+        }
+
+        /**
+         * Returns the number of phases of the tick.
+         * @return The number of phases.
+         */
+        public int getPhases() {
+            return this.phases.length;
+        }
+
+        /**
+         * Returns the name of the specified phase.
+         * @param phase The index of the phase.
+         * @return The name of the phase.
+         */
+        public String getPhaseName(final int phase) {
+            return this.phases[phase].getName();
+        }
+
+        /**
+         * Returns the time spent in the specified phase.
+         * @param phase The index of the phase.
+         * @return The time spent, in nanoseconds.
+         */
+        public long getPhaseNanos(final int phase) {
+            return this.phaseNanos[phase];
+        }
+
+        /**
+         * Returns the time spent in the tick, including waking the workers and waiting for them to complete.
+         * @return The time spent, in nanoseconds.
+         */
+        public long getTotalNanos() {
+            return this.totalNanos;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder ret = new StringBuilder("TickTimings{total=").append(this.totalNanos).append("ns");
+            for (int i = 0; i < this.phases.length; ++i) {
+                ret.append(", ").append(this.phases[i].getName()).append('=').append(this.phaseNanos[i]).append("ns");
+            }
+            return ret.append('}').toString();
+        }
+    }
+
+    protected static final class TickState {
+
+        protected final Phase[] phases;
+        protected final Thread caller;
+
+        /* chunk cursors of each parallel phase, the cursor of worker i is at (i + 1) * CURSOR_STRIDE */
+        protected final int[][] cursors;
+
+        /* only written by the first worker, read by the caller once every worker completed */
+        protected long startTime;
+        protected final long[] phaseEnds;
+
+        protected volatile Throwable failure;
+
+        protected static final VarHandle FAILURE_HANDLE = ConcurrentUtil.getVarHandle(TickState.class, "failure", Throwable.class);
+
+        protected TickState(final Phase[] phases, final int workers, final Thread caller) {
+            this.phases = phases.clone();
+            this.caller = caller;
+            this.cursors = new int[phases.length][];
+            this.phaseEnds = new long[phases.length];
+
+            for (int i = 0; i < phases.length; ++i) {
+                final Phase phase = phases[i];
+                if (phase.isAlone()) {
+                    continue;
+                }
+                final int chunks = phase.getChunks();
+                final int[] cursors = new int[(workers + 2) * CURSOR_STRIDE];
+                for (int worker = 0; worker < workers; ++worker) {
+                    ArrayUtil.setPlain(cursors, (worker + 1) * CURSOR_STRIDE, getFirstChunk(worker, chunks, workers));
+                }
+                this.cursors[i] = cursors;
+            }
+        }
+
+        protected final Throwable getFailureVolatile() {
+            return (Throwable)FAILURE_HANDLE.getVolatile(this);
+        }
+
+        protected final void fail(final Throwable throwable) {
+            /* keep the first failure */
+            FAILURE_HANDLE.compareAndSet(this, (Throwable)null, throwable);
+        }
+    }
+}
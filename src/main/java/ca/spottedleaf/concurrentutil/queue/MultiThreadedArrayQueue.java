@@ -0,0 +1,1253 @@
+package ca.spottedleaf.concurrentutil.queue;
+
+import ca.spottedleaf.concurrentutil.ConcurrentUtil;
+import ca.spottedleaf.concurrentutil.util.ArrayUtil;
+import ca.spottedleaf.concurrentutil.util.IntegerUtil;
+import ca.spottedleaf.concurrentutil.util.Throw;
+import ca.spottedleaf.concurrentutil.util.Validate;
+
+import java.lang.invoke.VarHandle;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+/* the head and tail counters are padded onto their own cache lines, as each is written by every consumer or producer */
+abstract class MultiThreadedArrayQueuePad0 {
+    byte p000, p001, p002, p003, p004, p005, p006, p007, p008, p009, p010, p011, p012, p013, p014, p015;
+    byte p016, p017, p018, p019, p020, p021, p022, p023, p024, p025, p026, p027, p028, p029, p030, p031;
+    byte p032, p033, p034, p035, p036, p037, p038, p039, p040, p041, p042, p043, p044, p045, p046, p047;
+    byte p048, p049, p050, p051, p052, p053, p054, p055, p056, p057, p058, p059, p060, p061, p062, p063;
+    byte p064, p065, p066, p067, p068, p069, p070, p071, p072, p073, p074, p075, p076, p077, p078, p079;
+}
+
+abstract class MultiThreadedArrayQueueHead extends MultiThreadedArrayQueuePad0 {
+    protected volatile long head; /* Index of the next slot to be claimed by a consumer */
+}
+
+abstract class MultiThreadedArrayQueuePad1 extends MultiThreadedArrayQueueHead {
+    byte p100, p101, p102, p103, p104, p105, p106, p107, p108, p109, p110, p111, p112, p113, p114, p115;
+    byte p116, p117, p118, p119, p120, p121, p122, p123, p124, p125, p126, p127, p128, p129, p130, p131;
+    byte p132, p133, p134, p135, p136, p137, p138, p139, p140, p141, p142, p143, p144, p145, p146, p147;
+    byte p148, p149, p150, p151, p152, p153, p154, p155, p156, p157, p158, p159, p160, p161, p162, p163;
+    byte p164, p165, p166, p167, p168, p169, p170, p171, p172, p173, p174, p175, p176, p177, p178, p179;
+}
+
+abstract class MultiThreadedArrayQueueTail extends MultiThreadedArrayQueuePad1 {
+    protected volatile long tail; /* Index of the next slot to be claimed by a producer, may contain ADDS_BLOCKED */
+}
+
+abstract class MultiThreadedArrayQueuePad2 extends MultiThreadedArrayQueueTail {
+    byte p200, p201, p202, p203, p204, p205, p206, p207, p208, p209, p210, p211, p212, p213, p214, p215;
+    byte p216, p217, p218, p219, p220, p221, p222, p223, p224, p225, p226, p227, p228, p229, p230, p231;
+    byte p232, p233, p234, p235, p236, p237, p238, p239, p240, p241, p242, p243, p244, p245, p246, p247;
+    byte p248, p249, p250, p251, p252, p253, p254, p255, p256, p257, p258, p259, p260, p261, p262, p263;
+    byte p264, p265, p266, p267, p268, p269, p270, p271, p272, p273, p274, p275, p276, p277, p278, p279;
+}
+
+/**
+ * MT-Safe bounded array-backed first in first out ordered queue.
+ * <p>
+ * This queue is a fixed capacity alternative to {@link MultiThreadedQueue} which performs no allocation per element.
+ * Each slot in the backing array is paired with a sequence number which determines whether the slot may be written
+ * to by a producer or read from by a consumer, so producers and consumers only contend on the head or tail counter
+ * respectively.
+ * </p>
+ * <p>
+ * Like {@link MultiThreadedQueue}, this queue breaks the specification laid out by {@link Collection}, see
+ * {@link #preventAdds()} and {@link Collection#add(Object)}. Additionally, additions will fail when this queue is full.
+ * </p>
+ * <p><b>
+ * Elements removed through {@link #remove(Object)}, {@link #removeIf(Predicate)} or {@link Iterator#remove()} still occupy
+ * their slot until a poll or drain operation reaches them.
+ * </b></p>
+ * @param <E> Type of element in this queue.
+ */
+public class MultiThreadedArrayQueue<E> extends MultiThreadedArrayQueuePad2 implements Queue<E> {
+
+    /* Set on the tail when additions are blocked, producers may only claim a slot while this bit is clear */
+    protected static final long ADDS_BLOCKED = IntegerUtil.HIGH_BIT_U64;
+
+    protected static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /*
+     * For the slot at index i (mod capacity):
+     * sequence == i means the slot is free for the producer claiming index i
+     * sequence == i + 1 means the slot contains the element for index i
+     * sequence == i + capacity means the element was consumed, and the slot is free for the producer claiming i + capacity
+     */
+    protected final E[] elements;
+    protected final long[] sequences;
+    protected final int capacityMask;
+
+    /* IMPL NOTE: Leave hashCode and equals to their defaults */
+
+    protected static final VarHandle HEAD_HANDLE = ConcurrentUtil.getVarHandle(MultiThreadedArrayQueue.class, "head", long.class);
+    protected static final VarHandle TAIL_HANDLE = ConcurrentUtil.getVarHandle(MultiThreadedArrayQueue.class, "tail", long.class);
+
+    /* head */
+
+    protected final long getHeadPlain() {
+        return (long)HEAD_HANDLE.get(this);
+    }
+
+    protected final long getHeadOpaque() {
+        return (long)HEAD_HANDLE.getOpaque(this);
+    }
+
+    protected final long getHeadVolatile() {
+        return (long)HEAD_HANDLE.getVolatile(this);
+    }
+
+    protected final void setHeadOpaque(final long value) {
+        HEAD_HANDLE.setOpaque(this, value);
+    }
+
+    protected final long compareAndExchangeHeadVolatile(final long expect, final long update) {
+        return (long)HEAD_HANDLE.compareAndExchange(this, expect, update);
+    }
+
+    /* tail */
+
+    protected final long getTailPlain() {
+        return (long)TAIL_HANDLE.get(this);
+    }
+
+    protected final void setTailPlain(final long value) {
+        TAIL_HANDLE.set(this, value);
+    }
+
+    protected final long getTailVolatile() {
+        return (long)TAIL_HANDLE.getVolatile(this);
+    }
+
+    protected final long compareAndExchangeTailVolatile(final long expect, final long update) {
+        return (long)TAIL_HANDLE.compareAndExchange(this, expect, update);
+    }
+
+    protected final long getAndOrTailVolatile(final long param) {
+        return (long)TAIL_HANDLE.getAndBitwiseOr(this, param);
+    }
+
+    protected final long getAndAndTailVolatile(final long param) {
+        return (long)TAIL_HANDLE.getAndBitwiseAnd(this, param);
+    }
+
+    /**
+     * Constructs a {@code MultiThreadedArrayQueue}, initially empty. The capacity is rounded up to the next power of two,
+     * and is at least {@code 2}.
+     * <p>
+     * The returned object may not be published without synchronization.
+     * </p>
+     * @param capacity The minimum number of elements this queue may hold.
+     * @throws IllegalArgumentException If {@code capacity} is not in {@code [1, 2^30]}.
+     */
+    @SuppressWarnings("unchecked")
+    public MultiThreadedArrayQueue(final int capacity) {
+        if (capacity <= 0 || capacity > MAXIMUM_CAPACITY) {
+            throw new IllegalArgumentException("Capacity is invalid (must be in [1, 2^30]): " + capacity);
+        }
+
+        /* with a single slot, the sequence of a full slot (i + 1) would equal the sequence of a free slot (i + capacity) */
+        final int length = IntegerUtil.roundCeilLog2(Math.max(2, capacity));
+
+        this.elements = (E[])new Object[length];
+        this.sequences = new long[length];
+        this.capacityMask = length - 1;
+
+        for (int i = 0; i < length; ++i) {
+            this.sequences[i] = (long)i;
+        }
+    }
+
+    /**
+     * Constructs a {@code MultiThreadedArrayQueue}, initially containing all elements in the specified {@code collection}.
+     * <p>
+     * The returned object may not be published without synchronization.
+     * </p>
+     * @param capacity The minimum number of elements this queue may hold.
+     * @param collection The specified collection.
+     * @throws IllegalArgumentException If {@code capacity} is not in {@code [1, 2^30]}, or if the specified collection
+     * does not fit into this queue.
+     * @throws NullPointerException If {@code collection} is {@code null} or contains {@code null} elements.
+     */
+    public MultiThreadedArrayQueue(final int capacity, final Iterable<? extends E> collection) {
+        this(capacity);
+
+        int index = 0;
+        for (final E element : collection) {
+            if (index > this.capacityMask) {
+                throw new IllegalArgumentException("Collection does not fit into capacity " + this.capacity());
+            }
+            this.elements[index] = Validate.notNull(element, "Null element");
+            this.sequences[index] = (long)index + 1L;
+            ++index;
+        }
+
+        this.setTailPlain((long)index);
+    }
+
+    /**
+     * Returns the maximum number of elements this queue may hold.
+     * @return The maximum number of elements this queue may hold.
+     */
+    public final int capacity() {
+        return this.capacityMask + 1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public E remove() throws NoSuchElementException {
+        final E ret = this.poll();
+
+        if (ret == null) {
+            throw new NoSuchElementException();
+        }
+
+        return ret;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Contrary to the specification of {@link Collection#add}, this method will fail to add the element to this queue
+     * and return {@code false} if this queue is add-blocked or full.
+     * </p>
+     */
+    @Override
+    public boolean add(final E element) {
+        return this.offer(element);
+    }
+
+    /**
+     * Adds the specified element to the tail of this queue. If this queue is currently add-locked, then the queue is
+     * released from that lock and this element is added. The unlock operation and addition of the specified
+     * element is atomic.
+     * @param element The specified element.
+     * @return {@code true} if this queue previously allowed additions
+     * @throws IllegalStateException If this queue is full.
+     */
+    public boolean forceAdd(final E element) {
+        Validate.notNull(element, "Null element");
+
+        final int result = this.appendElement(element, APPEND_MODE_FORCE);
+
+        if (result == APPEND_RESULT_FULL) {
+            throw new IllegalStateException("Queue is full");
+        }
+
+        return result == APPEND_RESULT_ADDED;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public E element() throws NoSuchElementException {
+        final E ret = this.peek();
+
+        if (ret == null) {
+            throw new NoSuchElementException();
+        }
+
+        return ret;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This method may also return {@code false} to indicate an element was not added if this queue is add-blocked.
+     * </p>
+     */
+    @Override
+    public boolean offer(final E element) {
+        Validate.notNull(element, "Null element");
+
+        return this.appendElement(element, APPEND_MODE_NORMAL) == APPEND_RESULT_ADDED;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public E peek() {
+        for (long index = this.getHeadVolatile(); (index = this.findElement(index)) != -1L; ++index) {
+            final E element = ArrayUtil.getOpaque(this.elements, (int)index & this.capacityMask);
+
+            if (element != null) {
+                return element;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public E poll() {
+        return this.removeHead(null);
+    }
+
+    /**
+     * Retrieves and removes the head of this queue if it matches the specified predicate. If this queue is empty
+     * or the head does not match the predicate, this function returns {@code null}.
+     * <p>
+     * The predicate may be invoked multiple or no times in this call.
+     * </p>
+     * @param predicate The specified predicate.
+     * @return The head if it matches the predicate, or {@code null} if it did not or this queue is empty.
+     */
+    public E pollIf(final Predicate<E> predicate) {
+        return this.removeHead(Validate.notNull(predicate, "Null predicate"));
+    }
+
+    /**
+     * Retrieves and removes up to {@code dst.length} elements from the head of this queue, storing them in the
+     * specified array in queue order.
+     * @param dst The array to store the elements in.
+     * @return The number of elements removed.
+     * @see #pollBatch(Object[], int, int)
+     */
+    public int pollBatch(final E[] dst) {
+        return this.pollBatch(dst, 0, dst.length);
+    }
+
+    /**
+     * Retrieves and removes up to {@code max} elements from the head of this queue, storing them in the
+     * specified array starting at {@code off} in queue order.
+     * <p>
+     * All elements are claimed with a single update to the head of this queue, so this function is MT-Safe and
+     * contends far less with other consumers than a loop on {@link #poll()}.
+     * </p>
+     * @param dst The array to store the elements in.
+     * @param off The offset in the array.
+     * @param max The maximum number of elements to remove.
+     * @return The number of elements removed.
+     */
+    public int pollBatch(final E[] dst, final int off, final int max) {
+        Validate.notNull(dst, "Null destination");
+        Validate.arrayBounds(off, max, dst.length, "Destination array indices out of bounds");
+
+        final E[] elements = this.elements;
+        final long[] sequences = this.sequences;
+        final int capacityMask = this.capacityMask;
+
+        int failures = 0;
+        for (long head = this.getHeadVolatile(); max != 0;) {
+            /* Published slots stay published until a consumer claims them, which requires moving head past them */
+            int claim = 0;
+            while (claim < max && ArrayUtil.getAcquire(sequences, (int)(head + (long)claim) & capacityMask) == head + (long)claim + 1L) {
+                ++claim;
+            }
+
+            if (claim == 0) {
+                if (ArrayUtil.getAcquire(sequences, (int)head & capacityMask) < head + 1L && head == (head = this.getHeadVolatile())) {
+                    return 0; /* End of queue */
+                }
+                /* head is out-of-date */
+                head = this.getHeadVolatile();
+                continue;
+            }
+
+            for (int i = 0; i < failures; ++i) {
+                ConcurrentUtil.pause();
+            }
+
+            if (head != (head = this.compareAndExchangeHeadVolatile(head, head + (long)claim))) {
+                /* Failed to claim head */
+                ++failures;
+                continue;
+            }
+
+            int total = 0;
+            for (int i = 0; i < claim; ++i) {
+                final int slot = (int)(head + (long)i) & capacityMask;
+
+                /* Exchange to synchronise with remove(Object) */
+                final E element = ArrayUtil.getAndSetVolatile(elements, slot, null);
+                ArrayUtil.setRelease(sequences, slot, head + (long)i + (long)elements.length);
+
+                if (element != null) {
+                    dst[off + total++] = element;
+                }
+            }
+
+            if (total != 0) {
+                return total;
+            }
+
+            /* Every claimed element was removed through remove(Object), try again */
+            head = this.getHeadVolatile();
+        }
+
+        return 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        //noinspection StatementWithEmptyBody
+        while (this.poll() != null);
+    }
+
+    /**
+     * Prevents elements from being added to this queue. Once this is called, any attempt to add to this queue will fail.
+     * <p>
+     * This function is MT-Safe.
+     * </p>
+     * @return {@code true} if the queue was modified to prevent additions, {@code false} if it already prevented additions.
+     */
+    public boolean preventAdds() {
+        return (this.getAndOrTailVolatile(ADDS_BLOCKED) & ADDS_BLOCKED) == 0L;
+    }
+
+    /**
+     * Allows elements to be added to this queue once again. Note that this function has undefined behaviour if
+     * {@link #preventAdds()} is not called beforehand.
+     * <p>
+     * Unlike {@link MultiThreadedQueue#allowAdds()}, this function is MT-Safe.
+     * </p>
+     */
+    public void allowAdds() {
+        this.getAndAndTailVolatile(~ADDS_BLOCKED);
+    }
+
+    /**
+     * Tries to allow elements to be added to this queue. Returns {@code true} if the queue was previous add-locked,
+     * {@code false} otherwise.
+     * <p>
+     * This function is MT-Safe.
+     * </p>
+     * @return {@code true} if the queue was previously add-locked, {@code false} otherwise.
+     */
+    public boolean tryAllowAdds() {
+        return (this.getAndAndTailVolatile(~ADDS_BLOCKED) & ADDS_BLOCKED) != 0L;
+    }
+
+    /**
+     * Atomically adds the specified element to this queue or allows additions to the queue. If additions
+     * are not allowed, the element is not added.
+     * <p>
+     * This function is MT-Safe.
+     * </p>
+     * @param element The specified element.
+     * @return {@code true} if the queue now allows additions, {@code false} if the element was added.
+     * @throws IllegalStateException If this queue allows additions and is full.
+     */
+    public boolean addOrAllowAdds(final E element) {
+        Validate.notNull(element, "Null element");
+
+        final int result = this.appendElement(element, APPEND_MODE_OR_ALLOW);
+
+        if (result == APPEND_RESULT_FULL) {
+            throw new IllegalStateException("Queue is full");
+        }
+
+        return result == APPEND_RESULT_BLOCKED;
+    }
+
+    /**
+     * Atomically removes the head from this queue if it exists, otherwise prevents additions to this queue if no
+     * head is removed.
+     * <p>
+     * This function is MT-Safe.
+     * </p>
+     * If the queue is already add-blocked and empty then no operation is performed.
+     * @return {@code null} if the queue is now add-blocked or was previously add-blocked, else returns
+     * an non-null value which was the previous head of queue.
+     */
+    public E pollOrBlockAdds() {
+        int failures = 0;
+        for (long head = this.getHeadVolatile();;) {
+            final int index = (int)head & this.capacityMask;
+            final long sequence = ArrayUtil.getAcquire(this.sequences, index);
+
+            for (int i = 0; i < failures; ++i) {
+                ConcurrentUtil.pause();
+            }
+
+            if (sequence == head + 1L) {
+                if (head != (head = this.compareAndExchangeHeadVolatile(head, head + 1L))) {
+                    ++failures;
+                    continue;
+                }
+
+                final E element = ArrayUtil.getAndSetVolatile(this.elements, index, null);
+                ArrayUtil.setRelease(this.sequences, index, head + (long)this.elements.length);
+
+                if (element == null) {
+                    /* Removed through remove(Object) */
+                    head = this.getHeadVolatile();
+                    continue;
+                }
+
+                return element;
+            }
+
+            if (sequence > head + 1L) {
+                /* head is out-of-date */
+                head = this.getHeadVolatile();
+                continue;
+            }
+
+            final long tail = this.getTailVolatile();
+
+            if ((tail & ~ADDS_BLOCKED) != head) {
+                /* Either head is out-of-date or a producer has claimed the slot, but not yet written to it */
+                ++failures;
+                head = this.getHeadVolatile();
+                continue;
+            }
+
+            if ((tail & ADDS_BLOCKED) != 0L) {
+                return null; /* Additions are already blocked */
+            }
+
+            if (tail == this.compareAndExchangeTailVolatile(tail, tail | ADDS_BLOCKED)) {
+                return null; /* We blocked additions */
+            }
+
+            ++failures;
+            head = this.getHeadVolatile();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean remove(final Object object) {
+        Validate.notNull(object, "Null object to remove");
+
+        for (long index = this.getHeadVolatile(); (index = this.findElement(index)) != -1L; ++index) {
+            final int slot = (int)index & this.capacityMask;
+            final E element = ArrayUtil.getOpaque(this.elements, slot);
+
+            if (element != null && (element == object || element.equals(object))
+                    && ArrayUtil.compareAndExchangeVolatile(this.elements, slot, element, null) == element) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean removeIf(final Predicate<? super E> filter) {
+        Validate.notNull(filter, "Null filter");
+
+        boolean ret = false;
+
+        for (long index = this.getHeadVolatile(); (index = this.findElement(index)) != -1L; ++index) {
+            final int slot = (int)index & this.capacityMask;
+            final E element = ArrayUtil.getOpaque(this.elements, slot);
+
+            if (element != null) {
+                ret |= filter.test(element) && ArrayUtil.compareAndExchangeVolatile(this.elements, slot, element, null) == element;
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean removeAll(final Collection<?> collection) {
+        Validate.notNull(collection, "Null collection");
+
+        return this.removeIf(collection::contains);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean retainAll(final Collection<?> collection) {
+        Validate.notNull(collection, "Null collection");
+
+        return this.removeIf((final E element) -> !collection.contains(element));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object[] toArray() {
+        final List<E> ret = new ArrayList<>();
+
+        this.forEach(ret::add);
+
+        return ret.toArray();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> T[] toArray(final T[] array) {
+        final List<E> ret = new ArrayList<>();
+
+        this.forEach(ret::add);
+
+        return ret.toArray(array);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> T[] toArray(final IntFunction<T[]> generator) {
+        Validate.notNull(generator, "Null generator");
+
+        final List<E> ret = new ArrayList<>();
+
+        this.forEach(ret::add);
+
+        return ret.toArray(generator);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+
+        builder.append("MultiThreadedArrayQueue: {elements: {");
+
+        int totalEntries = 0;
+
+        for (long index = this.getHeadVolatile(); (index = this.findElement(index)) != -1L; ++index) {
+            final E element = ArrayUtil.getOpaque(this.elements, (int)index & this.capacityMask);
+
+            if (element == null) {
+                continue;
+            }
+
+            if (totalEntries != 0) {
+                builder.append(", ");
+            }
+
+            builder.append(totalEntries++).append(": \"").append(element).append('"');
+        }
+
+        builder.append("}, total_entries: \"").append(totalEntries).append("\", capacity: \"").append(this.capacity())
+                .append("\", add_locked: \"").append((this.getTailVolatile() & ADDS_BLOCKED) != 0L)
+                .append("\"}");
+
+        return builder.toString();
+    }
+
+    /**
+     * Adds all elements from the specified collection to this queue. The addition is atomic.
+     * @param collection The specified collection.
+     * @return {@code true} if all elements were added successfully, or {@code false} if this queue is add-blocked, or
+     * {@code false} if this queue does not have room for all elements, or
+     * {@code false} if the specified collection contains no elements.
+     */
+    @Override
+    public boolean addAll(final Collection<? extends E> collection) {
+        return this.addAll((Iterable<? extends E>)collection);
+    }
+
+    /**
+     * Adds all elements from the specified iterable object to this queue. The addition is atomic.
+     * @param iterable The specified iterable object.
+     * @return {@code true} if all elements were added successfully, or {@code false} if this queue is add-blocked, or
+     * {@code false} if this queue does not have room for all elements, or
+     * {@code false} if the specified iterable contains no elements.
+     */
+    @SuppressWarnings("unchecked")
+    public boolean addAll(final Iterable<? extends E> iterable) {
+        Validate.notNull(iterable, "Null iterable");
+
+        final List<E> elements = new ArrayList<>();
+        for (final E element : iterable) {
+            elements.add(Validate.notNull(element, "Null element"));
+        }
+
+        return this.addAll((E[])elements.toArray());
+    }
+
+    /**
+     * Adds all of the elements from the specified array to this queue.
+     * @param items The specified array.
+     * @return {@code true} if all elements were added successfully, or {@code false} if this queue is add-blocked, or
+     * {@code false} if this queue does not have room for all elements, or
+     * {@code false} if the specified array has a length of 0.
+     */
+    public boolean addAll(final E[] items) {
+        return this.addAll(items, 0, items.length);
+    }
+
+    /**
+     * Adds all of the elements from the specified array to this queue. The addition is atomic, and claims all
+     * required slots with a single update to the tail.
+     * @param items The specified array.
+     * @param off The offset in the array.
+     * @param len The number of items.
+     * @return {@code true} if all elements were added successfully, or {@code false} if this queue is add-blocked, or
+     * {@code false} if this queue does not have room for all elements, or
+     * {@code false} if the specified array has a length of 0.
+     */
+    public boolean addAll(final E[] items, final int off, final int len) {
+        Validate.notNull(items, "Items may not be null");
+        Validate.arrayBounds(off, len, items.length, "Items array indices out of bounds");
+
+        for (int i = 0; i < len; ++i) {
+            Validate.notNull(items[off + i], "Null element");
+        }
+
+        if (len == 0 || len > this.elements.length) {
+            return false;
+        }
+
+        long tail = this.getTailVolatile();
+        for (int failures = 0;;) {
+            if ((tail & ADDS_BLOCKED) != 0L) {
+                return false;
+            }
+
+            /* The head only increases, so if there is room now there will be room once we claim the slots */
+            if (tail + (long)len - this.getHeadVolatile() > (long)this.elements.length) {
+                return false;
+            }
+
+            for (int i = 0; i < failures; ++i) {
+                ConcurrentUtil.pause();
+            }
+
+            if (tail == (tail = this.compareAndExchangeTailVolatile(tail, tail + (long)len))) {
+                break;
+            }
+
+            ++failures;
+        }
+
+        for (int i = 0; i < len; ++i) {
+            this.publishElement(tail + (long)i, items[off + i]);
+        }
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsAll(final Collection<?> collection) {
+        Validate.notNull(collection, "Null collection");
+
+        for (final Object element : collection) {
+            if (!this.contains(element)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new ArrayIterator<>(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The returned spliterator is weakly consistent in the same way as {@link #iterator()}.
+     * </p>
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return Spliterators.spliteratorUnknownSize(this.iterator(), Spliterator.CONCURRENT |
+                Spliterator.NONNULL | Spliterator.ORDERED);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Note that this function is computed non-atomically, and includes elements which have been removed through
+     * {@link #remove(Object)} but not yet reached by a consumer. The value returned may not be representative of
+     * the queue in its current state.
+     * </p>
+     */
+    @Override
+    public int size() {
+        final long head = this.getHeadVolatile();
+        final long tail = this.getTailVolatile() & ~ADDS_BLOCKED;
+
+        return (int)Math.max(0L, Math.min((long)this.elements.length, tail - head));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEmpty() {
+        return this.peek() == null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean contains(final Object object) {
+        Validate.notNull(object, "Null object");
+
+        return this.find((final E element) -> element == object || element.equals(object)) != null;
+    }
+
+    /**
+     * Finds the first element in this queue that matches the predicate.
+     * @param predicate The predicate to test elements against.
+     * @return The first element that matched the predicate, {@code null} if none matched.
+     */
+    public E find(final Predicate<E> predicate) {
+        Validate.notNull(predicate, "Null predicate");
+
+        for (long index = this.getHeadVolatile(); (index = this.findElement(index)) != -1L; ++index) {
+            final E element = ArrayUtil.getOpaque(this.elements, (int)index & this.capacityMask);
+
+            if (element != null && predicate.test(element)) {
+                return element;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void forEach(final Consumer<? super E> action) {
+        Validate.notNull(action, "Null action");
+
+        for (long index = this.getHeadVolatile(); (index = this.findElement(index)) != -1L; ++index) {
+            final E element = ArrayUtil.getOpaque(this.elements, (int)index & this.capacityMask);
+
+            if (element != null) {
+                action.accept(element);
+            }
+        }
+    }
+
+    /**
+     * Empties the queue into the specified consumer. This function is optimized for single-threaded reads, and should
+     * be faster than a loop on {@link #poll()}.
+     * <p>
+     * This function is not MT-Safe. This function cannot be called with other read operations ({@link #peek()}, {@link #poll()},
+     * {@link #clear()}, etc).
+     * Write operations are safe to be called concurrently.
+     * </p>
+     * @param consumer The consumer to accept the elements.
+     * @return The total number of elements drained.
+     */
+    public int drain(final Consumer<E> consumer) {
+        return this.drain(consumer, false, Throw::rethrow);
+    }
+
+    /**
+     * Empties the queue into the specified consumer. This function is optimized for single-threaded reads, and should
+     * be faster than a loop on {@link #poll()}.
+     * <p>
+     * If {@code preventAdds} is {@code true}, then after this function returns the queue is guaranteed to be empty and
+     * additions to the queue will fail.
+     * </p>
+     * <p>
+     * This function is not MT-Safe. This function cannot be called with other read operations ({@link #peek()}, {@link #poll()},
+     * {@link #clear()}, etc).
+     * Write operations are safe to be called concurrently.
+     * </p>
+     * @param consumer The consumer to accept the elements.
+     * @param preventAdds Whether to prevent additions to this queue after draining.
+     * @return The total number of elements drained.
+     */
+    public int drain(final Consumer<E> consumer, final boolean preventAdds) {
+        return this.drain(consumer, preventAdds, Throw::rethrow);
+    }
+
+    /**
+     * Empties the queue into the specified consumer. This function is optimized for single-threaded reads, and should
+     * be faster than a loop on {@link #poll()}.
+     * <p>
+     * If {@code preventAdds} is {@code true}, then after this function returns the queue is guaranteed to be empty and
+     * additions to the queue will fail.
+     * </p>
+     * <p>
+     * This function is not MT-Safe. This function cannot be called with other read operations ({@link #peek()}, {@link #poll()},
+     * {@link #clear()}, {@link #remove(Object)} etc).
+     * Only write operations are safe to be called concurrently.
+     * </p>
+     * @param consumer The consumer to accept the elements.
+     * @param preventAdds Whether to prevent additions to this queue after draining.
+     * @param exceptionHandler Invoked when the consumer raises an exception.
+     * @return The total number of elements drained.
+     */
+    public int drain(final Consumer<E> consumer, final boolean preventAdds, final Consumer<Throwable> exceptionHandler) {
+        Validate.notNull(consumer, "Null consumer");
+        Validate.notNull(exceptionHandler, "Null exception handler");
+
+        /* This function assumes proper synchronization is made to ensure drain and no other read function are called concurrently */
+        /* This allows plain reads of head and of the elements instead of CAS */
+        final E[] elements = this.elements;
+        final long[] sequences = this.sequences;
+        final int capacityMask = this.capacityMask;
+
+        int total = 0;
+
+        for (long head = this.getHeadPlain();;) {
+            final int index = (int)head & capacityMask;
+
+            if (ArrayUtil.getAcquire(sequences, index) == head + 1L) {
+                final E element = ArrayUtil.getPlain(elements, index);
+
+                ArrayUtil.setPlain(elements, index, null);
+                /* head must be published before the slot is released, see addAll(E[], int, int) */
+                this.setHeadOpaque(++head);
+                ArrayUtil.setRelease(sequences, index, head - 1L + (long)elements.length);
+
+                if (element == null) {
+                    continue;
+                }
+
+                try {
+                    consumer.accept(element);
+                } catch (final Exception ex) {
+                    exceptionHandler.accept(ex);
+                }
+
+                ++total;
+                continue;
+            }
+
+            if (!preventAdds) {
+                break;
+            }
+
+            final long tail = this.getTailVolatile();
+
+            if ((tail & ~ADDS_BLOCKED) != head) {
+                /* A producer has claimed the slot, but not yet written to it */
+                ConcurrentUtil.pause();
+                continue;
+            }
+
+            if ((tail & ADDS_BLOCKED) != 0L || tail == this.compareAndExchangeTailVolatile(tail, tail | ADDS_BLOCKED)) {
+                break;
+            }
+        }
+
+        return total;
+    }
+
+    /**
+     * Removes up to {@code max} elements from the head of this queue into the specified consumer. This function is
+     * optimized for single-threaded reads, and should be faster than a loop on {@link #poll()}.
+     * <p>
+     * This function is not MT-Safe. This function cannot be called with other read operations ({@link #peek()}, {@link #poll()},
+     * {@link #clear()}, etc).
+     * Write operations are safe to be called concurrently.
+     * </p>
+     * @param consumer The consumer to accept the elements.
+     * @param max The maximum number of elements to drain.
+     * @return The total number of elements drained.
+     */
+    public int drain(final Consumer<E> consumer, final int max) {
+        return this.drain(consumer, max, Throw::rethrow);
+    }
+
+    /**
+     * Removes up to {@code max} elements from the head of this queue into the specified consumer. This function is
+     * optimized for single-threaded reads, and should be faster than a loop on {@link #poll()}.
+     * <p>
+     * This function is not MT-Safe. This function cannot be called with other read operations ({@link #peek()}, {@link #poll()},
+     * {@link #clear()}, {@link #remove(Object)} etc).
+     * Only write operations are safe to be called concurrently.
+     * </p>
+     * @param consumer The consumer to accept the elements.
+     * @param max The maximum number of elements to drain.
+     * @param exceptionHandler Invoked when the consumer raises an exception.
+     * @return The total number of elements drained.
+     */
+    public int drain(final Consumer<E> consumer, final int max, final Consumer<Throwable> exceptionHandler) {
+        Validate.notNull(consumer, "Null consumer");
+        Validate.notNull(exceptionHandler, "Null exception handler");
+        if (max < 0) {
+            throw new IllegalArgumentException("Max may not be negative: " + max);
+        }
+
+        /* See drain(Consumer, boolean, Consumer) */
+        final E[] elements = this.elements;
+        final long[] sequences = this.sequences;
+        final int capacityMask = this.capacityMask;
+
+        int total = 0;
+
+        for (long head = this.getHeadPlain(); total < max;) {
+            final int index = (int)head & capacityMask;
+
+            if (ArrayUtil.getAcquire(sequences, index) != head + 1L) {
+                break;
+            }
+
+            final E element = ArrayUtil.getPlain(elements, index);
+
+            ArrayUtil.setPlain(elements, index, null);
+            /* head must be published before the slot is released, see addAll(E[], int, int) */
+            this.setHeadOpaque(++head);
+            ArrayUtil.setRelease(sequences, index, head - 1L + (long)elements.length);
+
+            if (element == null) {
+                continue;
+            }
+
+            ++total;
+
+            try {
+                consumer.accept(element);
+            } catch (final Exception ex) {
+                exceptionHandler.accept(ex);
+            }
+        }
+
+        return total;
+    }
+
+    /* waits for the slot at the specified index to be released by consumers, then publishes the element to it */
+    protected final void publishElement(final long index, final E element) {
+        final int slot = (int)index & this.capacityMask;
+
+        /* The slot was claimed by a consumer already, so this only waits for that consumer to finish reading it */
+        while (ArrayUtil.getAcquire(this.sequences, slot) != index) {
+            ConcurrentUtil.pause();
+        }
+
+        ArrayUtil.setPlain(this.elements, slot, element);
+        ArrayUtil.setRelease(this.sequences, slot, index + 1L);
+    }
+
+    protected static final int APPEND_MODE_NORMAL   = 0; /* fail if add-blocked */
+    protected static final int APPEND_MODE_FORCE    = 1; /* clear add-blocked and add */
+    protected static final int APPEND_MODE_OR_ALLOW = 2; /* clear add-blocked instead of adding */
+
+    protected static final int APPEND_RESULT_ADDED   = 0;
+    protected static final int APPEND_RESULT_BLOCKED = 1; /* queue was add-blocked, the element was added only for APPEND_MODE_FORCE */
+    protected static final int APPEND_RESULT_FULL    = 2;
+
+    protected final int appendElement(final E element, final int mode) {
+        final E[] elements = this.elements;
+        final long[] sequences = this.sequences;
+        final int capacityMask = this.capacityMask;
+
+        int failures = 0;
+        for (long tail = this.getTailVolatile();;) {
+            final boolean blocked = (tail & ADDS_BLOCKED) != 0L;
+
+            if (blocked && mode != APPEND_MODE_FORCE) {
+                if (mode == APPEND_MODE_NORMAL) {
+                    return APPEND_RESULT_BLOCKED;
+                }
+                if (tail == (tail = this.compareAndExchangeTailVolatile(tail, tail & ~ADDS_BLOCKED))) {
+                    return APPEND_RESULT_BLOCKED;
+                }
+                ++failures;
+                continue;
+            }
+
+            final long index = tail & ~ADDS_BLOCKED;
+            final int slot = (int)index & capacityMask;
+            final long sequence = ArrayUtil.getAcquire(sequences, slot);
+
+            if (sequence != index) {
+                if (sequence < index) {
+                    /* The slot has not been released by the consumer for the previous lap */
+                    if (tail == (tail = this.getTailVolatile())) {
+                        return APPEND_RESULT_FULL;
+                    }
+                } else {
+                    /* tail is out-of-date */
+                    tail = this.getTailVolatile();
+                }
+                continue;
+            }
+
+            for (int i = 0; i < failures; ++i) {
+                ConcurrentUtil.pause();
+            }
+
+            /* For force mode, the unlock is performed by the same CAS that claims the slot */
+            if (tail == (tail = this.compareAndExchangeTailVolatile(tail, index + 1L))) {
+                ArrayUtil.setPlain(elements, slot, element);
+                ArrayUtil.setRelease(sequences, slot, index + 1L);
+                return blocked ? APPEND_RESULT_BLOCKED : APPEND_RESULT_ADDED;
+            }
+
+            ++failures;
+        }
+    }
+
+    protected final E removeHead(final Predicate<E> predicate) {
+        final E[] elements = this.elements;
+        final long[] sequences = this.sequences;
+        final int capacityMask = this.capacityMask;
+
+        int failures = 0;
+        for (long head = this.getHeadVolatile();;) {
+            final int slot = (int)head & capacityMask;
+            final long sequence = ArrayUtil.getAcquire(sequences, slot);
+
+            if (sequence != head + 1L) {
+                if (sequence < head + 1L) {
+                    /* The slot has not been written to for this lap */
+                    if (head == (head = this.getHeadVolatile())) {
+                        return null; /* End of queue */
+                    }
+                } else {
+                    /* head is out-of-date */
+                    head = this.getHeadVolatile();
+                }
+                continue;
+            }
+
+            if (predicate != null) {
+                final E element = ArrayUtil.getOpaque(elements, slot);
+                if (element != null && !predicate.test(element)) {
+                    /* Re-check the head is the same, otherwise the predicate tested a newer element */
+                    if (head == (head = this.getHeadVolatile())) {
+                        return null;
+                    }
+                    continue;
+                }
+            }
+
+            for (int i = 0; i < failures; ++i) {
+                ConcurrentUtil.pause();
+            }
+
+            if (head != (head = this.compareAndExchangeHeadVolatile(head, head + 1L))) {
+                /* Failed to claim head */
+                ++failures;
+                continue;
+            }
+
+            /* Exchange to synchronise with remove(Object) */
+            final E element = ArrayUtil.getAndSetVolatile(elements, slot, null);
+            ArrayUtil.setRelease(sequences, slot, head + (long)elements.length);
+
+            if (element != null) {
+                return element;
+            }
+
+            /* Removed through remove(Object), try the next element */
+            head = this.getHeadVolatile();
+        }
+    }
+
+    /* returns the first index >= the specified index which contains an element for its lap, or -1 if there is none */
+    protected final long findElement(long index) {
+        for (;;++index) {
+            final long sequence = ArrayUtil.getAcquire(this.sequences, (int)index & this.capacityMask);
+
+            if (sequence == index + 1L) {
+                return index;
+            }
+
+            if (sequence < index + 1L) {
+                return -1L; /* End of queue */
+            }
+
+            /* Consumers have moved past index */
+            final long head = this.getHeadVolatile();
+            if (head > index + 1L) {
+                index = head - 1L;
+            }
+        }
+    }
+
+    protected static final class ArrayIterator<E> implements Iterator<E> {
+
+        protected final MultiThreadedArrayQueue<E> queue;
+        protected long lastIndex = -1L; /* index of the element last returned by next() */
+        protected E lastElement;
+        protected long nextIndex; /* index of the element to return from next() */
+        protected E nextElement; /* cached to avoid a race condition with removing or polling */
+
+        protected ArrayIterator(final MultiThreadedArrayQueue<E> queue) {
+            this.queue = queue;
+            this.findNext(queue.getHeadVolatile());
+        }
+
+        protected final void findNext(long index) {
+            final MultiThreadedArrayQueue<E> queue = this.queue;
+
+            for (; (index = queue.findElement(index)) != -1L; ++index) {
+                final E element = ArrayUtil.getOpaque(queue.elements, (int)index & queue.capacityMask);
+
+                if (element != null) {
+                    this.nextIndex = index;
+                    this.nextElement = element;
+                    return;
+                }
+            }
+
+            /* out of elements to iterate */
+            this.nextElement = null;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean hasNext() {
+            return this.nextElement != null;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public E next() {
+            final E element = this.nextElement;
+
+            if (element == null) {
+                throw new NoSuchElementException();
+            }
+
+            this.lastIndex = this.nextIndex;
+            this.lastElement = element;
+
+            this.findNext(this.nextIndex + 1L);
+
+            return element;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void remove() {
+            if (this.lastElement == null) {
+                throw new IllegalStateException();
+            }
+
+            /* if the slot was re-used, the element will differ and the exchange will fail */
+            ArrayUtil.compareAndExchangeVolatile(this.queue.elements, (int)this.lastIndex & this.queue.capacityMask, this.lastElement, null);
+            this.lastElement = null;
+        }
+    }
+}
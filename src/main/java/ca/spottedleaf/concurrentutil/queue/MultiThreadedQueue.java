@@ -10,6 +10,39 @@ import java.util.function.Consumer;
 import java.util.function.IntFunction;
 import java.util.function.Predicate;
 
+/* head and tail are padded onto their own cache lines, so that consumers and producers do not contend with each other */
+abstract class MultiThreadedQueuePad0 {
+    byte p000, p001, p002, p003, p004, p005, p006, p007, p008, p009, p010, p011, p012, p013, p014, p015;
+    byte p016, p017, p018, p019, p020, p021, p022, p023, p024, p025, p026, p027, p028, p029, p030, p031;
+    byte p032, p033, p034, p035, p036, p037, p038, p039, p040, p041, p042, p043, p044, p045, p046, p047;
+    byte p048, p049, p050, p051, p052, p053, p054, p055, p056, p057, p058, p059, p060, p061, p062, p063;
+    byte p064, p065, p066, p067, p068, p069, p070, p071, p072, p073, p074, p075, p076, p077, p078, p079;
+}
+
+abstract class MultiThreadedQueueHead<E> extends MultiThreadedQueuePad0 {
+    protected volatile MultiThreadedQueue.LinkedNode<E> head; /* Always non-null, high chance of being the actual head */
+}
+
+abstract class MultiThreadedQueuePad1<E> extends MultiThreadedQueueHead<E> {
+    byte p100, p101, p102, p103, p104, p105, p106, p107, p108, p109, p110, p111, p112, p113, p114, p115;
+    byte p116, p117, p118, p119, p120, p121, p122, p123, p124, p125, p126, p127, p128, p129, p130, p131;
+    byte p132, p133, p134, p135, p136, p137, p138, p139, p140, p141, p142, p143, p144, p145, p146, p147;
+    byte p148, p149, p150, p151, p152, p153, p154, p155, p156, p157, p158, p159, p160, p161, p162, p163;
+    byte p164, p165, p166, p167, p168, p169, p170, p171, p172, p173, p174, p175, p176, p177, p178, p179;
+}
+
+abstract class MultiThreadedQueueTail<E> extends MultiThreadedQueuePad1<E> {
+    protected volatile MultiThreadedQueue.LinkedNode<E> tail; /* Always non-null, high chance of being the actual tail */
+}
+
+abstract class MultiThreadedQueuePad2<E> extends MultiThreadedQueueTail<E> {
+    byte p200, p201, p202, p203, p204, p205, p206, p207, p208, p209, p210, p211, p212, p213, p214, p215;
+    byte p216, p217, p218, p219, p220, p221, p222, p223, p224, p225, p226, p227, p228, p229, p230, p231;
+    byte p232, p233, p234, p235, p236, p237, p238, p239, p240, p241, p242, p243, p244, p245, p246, p247;
+    byte p248, p249, p250, p251, p252, p253, p254, p255, p256, p257, p258, p259, p260, p261, p262, p263;
+    byte p264, p265, p266, p267, p268, p269, p270, p271, p272, p273, p274, p275, p276, p277, p278, p279;
+}
+
 /**
  * MT-Safe linked first in first out ordered queue.
  *
@@ -24,13 +57,7 @@ import java.util.function.Predicate;
  * </b></p>
  * @param <E> Type of element in this queue.
  */
-public class MultiThreadedQueue<E> implements Queue<E> {
-
-    @jdk.internal.vm.annotation.Contended
-    protected volatile LinkedNode<E> head; /* Always non-null, high chance of being the actual head */
-
-    @jdk.internal.vm.annotation.Contended
-    protected volatile LinkedNode<E> tail; /* Always non-null, high chance of being the actual tail */
+public class MultiThreadedQueue<E> extends MultiThreadedQueuePad2<E> implements Queue<E> {
 
     /* Note that it is possible to reach head from tail. */
 
@@ -239,6 +266,72 @@ public class MultiThreadedQueue<E> implements Queue<E> {
         return this.removeHead(Validate.notNull(predicate, "Null predicate"));
     }
 
+    /**
+     * Retrieves and removes up to {@code dst.length} elements from the head of this queue, storing them in the
+     * specified array in queue order.
+     * @param dst The array to store the elements in.
+     * @return The number of elements removed.
+     * @see #pollBatch(Object[], int, int)
+     */
+    public int pollBatch(final E[] dst) {
+        return this.pollBatch(dst, 0, dst.length);
+    }
+
+    /**
+     * Retrieves and removes up to {@code max} elements from the head of this queue, storing them in the
+     * specified array starting at {@code off} in queue order.
+     * <p>
+     * Unlike a loop on {@link #poll()}, the head of this queue is only read and updated once for the entire batch.
+     * Each element is still removed atomically, so this function is MT-Safe.
+     * </p>
+     * @param dst The array to store the elements in.
+     * @param off The offset in the array.
+     * @param max The maximum number of elements to remove.
+     * @return The number of elements removed.
+     */
+    public int pollBatch(final E[] dst, final int off, final int max) {
+        Validate.notNull(dst, "Null destination");
+        Validate.arrayBounds(off, max, dst.length, "Destination array indices out of bounds");
+
+        if (max == 0) {
+            return 0;
+        }
+
+        int total = 0;
+
+        final LinkedNode<E> head = this.getHeadOpaque();
+        LinkedNode<E> curr = head;
+
+        for (;;) {
+            final LinkedNode<E> next = curr.getNextVolatile();
+
+            if (curr.getElementPlain() != null) { /* Likely in sync */
+                final E element = curr.getAndSetElementVolatile(null);
+
+                if (element != null) {
+                    dst[off + total++] = element;
+                }
+            }
+
+            if (next == null || next == curr) {
+                break;
+            }
+
+            curr = next;
+
+            if (total == max) {
+                break;
+            }
+        }
+
+        /* "CAS" to avoid setting an out-of-date head */
+        if (curr != head && this.getHeadOpaque() == head) {
+            this.setHeadOpaque(curr);
+        }
+
+        return total;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -1218,10 +1311,101 @@ public class MultiThreadedQueue<E> implements Queue<E> {
         return total;
     }
 
+    /**
+     * Removes up to {@code max} elements from the head of this queue into the specified consumer. This function is
+     * optimized for single-threaded reads, and should be faster than a loop on {@link #poll()}.
+     * <p>
+     * This function is not MT-Safe. This function cannot be called with other read operations ({@link #peek()}, {@link #poll()},
+     * {@link #clear()}, etc).
+     * Write operations are safe to be called concurrently.
+     * </p>
+     * @param consumer The consumer to accept the elements.
+     * @param max The maximum number of elements to drain.
+     * @return The total number of elements drained.
+     */
+    public int drain(final Consumer<E> consumer, final int max) {
+        return this.drain(consumer, max, Throw::rethrow);
+    }
+
+    /**
+     * Removes up to {@code max} elements from the head of this queue into the specified consumer. This function is
+     * optimized for single-threaded reads, and should be faster than a loop on {@link #poll()}.
+     * <p>
+     * This function is not MT-Safe. This function cannot be called with other read operations ({@link #peek()}, {@link #poll()},
+     * {@link #clear()}, {@link #remove(Object)} etc).
+     * Only write operations are safe to be called concurrently.
+     * </p>
+     * @param consumer The consumer to accept the elements.
+     * @param max The maximum number of elements to drain.
+     * @param exceptionHandler Invoked when the consumer raises an exception.
+     * @return The total number of elements drained.
+     */
+    public int drain(final Consumer<E> consumer, final int max, final Consumer<Throwable> exceptionHandler) {
+        Validate.notNull(consumer, "Null consumer");
+        Validate.notNull(exceptionHandler, "Null exception handler");
+        if (max < 0) {
+            throw new IllegalArgumentException("Max may not be negative: " + max);
+        }
+
+        /* See drain(Consumer, boolean, Consumer) */
+        int total = 0;
+
+        final LinkedNode<E> head = this.getHeadAcquire(); /* Required to synchronize with the write to the first element field */
+        LinkedNode<E> curr = head;
+
+        while (total < max) {
+            final E currentVal = curr.getElementPlain();
+            final LinkedNode<E> next = curr.getNextVolatile();
+
+            if (next == curr) {
+                /* Add-locked nodes always have a null value */
+                break;
+            }
+
+            if (currentVal == null) {
+                if (next == null) {
+                    break;
+                }
+                curr = next;
+                continue;
+            }
+
+            curr.setElementOpaque(null);
+            ++total;
+
+            if (next != null) {
+                curr = next;
+            }
+
+            try {
+                consumer.accept(currentVal);
+            } catch (final Exception ex) {
+                this.setHeadOpaque(curr); /* Avoid perf penalty (of reiterating) if the exception handler decides to re-throw */
+
+                exceptionHandler.accept(ex);
+            }
+
+            if (next == null) {
+                break;
+            }
+        }
+
+        if (curr != head) {
+            this.setHeadOpaque(curr); /* While this may be a plain write, eventually publish it for methods such as find. */
+        }
+        return total;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The returned spliterator is weakly consistent in the same way as {@link #iterator()}. Splits are made by copying
+     * increasingly large batches of elements into arrays.
+     * </p>
+     */
     @Override
-    public Spliterator<E> spliterator() { // TODO implement
-        return Spliterators.spliterator(this, Spliterator.CONCURRENT |
-                Spliterator.NONNULL | Spliterator.ORDERED);
+    public Spliterator<E> spliterator() {
+        return new LinkedSpliterator<>(this.getHeadOpaque());
     }
 
     protected static final class LinkedNode<E> {
@@ -1307,6 +1491,93 @@ public class MultiThreadedQueue<E> implements Queue<E> {
         }
     }
 
+    protected static final class LinkedSpliterator<E> implements Spliterator<E> {
+
+        protected static final int BATCH_SIZE_INCREMENT = 1 << 10;
+        protected static final int MAX_BATCH_SIZE = 1 << 25;
+
+        protected static final int CHARACTERISTICS = Spliterator.CONCURRENT | Spliterator.NONNULL | Spliterator.ORDERED;
+
+        protected LinkedNode<E> curr; /* next node to read, null if there are no more nodes */
+        protected int batchSize;
+
+        protected LinkedSpliterator(final LinkedNode<E> start) {
+            this.curr = start;
+        }
+
+        /* returns the next element and moves curr past it, or null if there are no more elements */
+        protected final E advance() {
+            for (LinkedNode<E> curr = this.curr; curr != null;) {
+                final LinkedNode<E> next = curr.getNextVolatile();
+                final E element = curr.getElementPlain(); /* Likely in sync */
+
+                curr = (next == null || next == curr) ? null : next;
+
+                if (element != null) {
+                    this.curr = curr;
+                    return element;
+                }
+            }
+
+            this.curr = null;
+            return null;
+        }
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super E> action) {
+            Validate.notNull(action, "Null action");
+
+            final E element = this.advance();
+
+            if (element == null) {
+                return false;
+            }
+
+            action.accept(element);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(final Consumer<? super E> action) {
+            Validate.notNull(action, "Null action");
+
+            for (E element; (element = this.advance()) != null;) {
+                action.accept(element);
+            }
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            if (this.curr == null) {
+                return null;
+            }
+
+            final int batchSize = this.batchSize = Math.min(MAX_BATCH_SIZE, this.batchSize + BATCH_SIZE_INCREMENT);
+            final Object[] batch = new Object[batchSize];
+
+            int size = 0;
+            for (E element; size < batchSize && (element = this.advance()) != null;) {
+                batch[size++] = element;
+            }
+
+            if (size == 0) {
+                return null;
+            }
+
+            return Spliterators.spliterator(batch, 0, size, CHARACTERISTICS);
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return CHARACTERISTICS;
+        }
+    }
+
     protected static final class LinkedIterator<E> implements Iterator<E> {
 
         protected LinkedNode<E> curr; /* last returned by next() */
@@ -2,8 +2,14 @@ package ca.spottedleaf.concurrentutil.set;
 
 import ca.spottedleaf.concurrentutil.ConcurrentUtil;
 import ca.spottedleaf.concurrentutil.util.ArrayUtil;
+import ca.spottedleaf.concurrentutil.util.Validate;
 
+import java.lang.invoke.MethodHandles;
 import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.BitSet;
+import java.util.concurrent.atomic.LongAdder;
 
 public interface ConcurrentBitSet {
 
@@ -19,8 +25,66 @@ public interface ConcurrentBitSet {
         return bits <= Long.SIZE ? new SmallConcurrentBitSet(bits) : new LargeConcurrentBitset(bits);
     }
 
-    // TODO Add contended versions
-    // TODO Initial values/copying
+    /**
+     * Constructs and returns a {@code ConcurrentBitSet} which is suitable for the number of bits specified and
+     * the expected amount of threads concurrently writing to nearby bits.
+     * @param bits The specified capacity of bits.
+     * @param contention The expected write contention.
+     * @return The {@code ConcurrentBitSet} with a capacity of the specified bits.
+     * @see Contention
+     */
+    static ConcurrentBitSet of(final int bits, final Contention contention) {
+        if (bits <= 0) {
+            throw new IllegalArgumentException("bit count must be > 0, not " + bits);
+        }
+        switch (contention) {
+            case NONE:
+                return of(bits);
+            case LOW:
+                return bits <= ContendedConcurrentBitSet.MAX_BITS_PER_LINE / 2 ? of(bits) : new ContendedConcurrentBitSet(bits, ContendedConcurrentBitSet.MAX_BITS_PER_LINE / 2);
+            case HIGH:
+                return bits <= Long.SIZE ? of(bits) : new ContendedConcurrentBitSet(bits, Long.SIZE);
+            case EXTREME:
+                return new FastLargeConcurrentBitset(bits);
+            default:
+                throw new IllegalArgumentException("Unknown contention: " + contention);
+        }
+    }
+
+    /**
+     * Constructs and returns a {@code ConcurrentBitSet} which is suitable for the number of bits specified, with its bits
+     * initialised from the specified words. Word {@code i} initialises the bits {@code [i * 64, i * 64 + 64)}, with bit
+     * {@code i * 64 + n} stored as {@code 1L << n}. Missing words are initialised to OFF.
+     * @param bits The specified capacity of bits.
+     * @param words The initial words, which is not modified or retained.
+     * @return The {@code ConcurrentBitSet} with a capacity of the specified bits.
+     * @throws IllegalArgumentException If there are more words than needed for the capacity, or if a bit past the
+     *                                  capacity is ON.
+     */
+    static ConcurrentBitSet of(final int bits, final long[] words) {
+        if (bits <= 0) {
+            throw new IllegalArgumentException("bit count must be > 0, not " + bits);
+        }
+        Validate.notNull(words, "Null words");
+        if (bits <= Long.SIZE) {
+            checkInitialWords(words, bits);
+            return new SmallConcurrentBitSet(bits, words.length == 0 ? 0L : words[0]);
+        }
+        return new LargeConcurrentBitset(bits, words);
+    }
+
+    /**
+     * Constructs and returns a {@code ConcurrentBitSet} which is suitable for the number of bits specified, with its bits
+     * initialised from the specified {@link BitSet}.
+     * @param bits The specified capacity of bits.
+     * @param initial The initial bits, which is not modified or retained.
+     * @return The {@code ConcurrentBitSet} with a capacity of the specified bits.
+     * @throws IllegalArgumentException If a bit past the capacity is ON.
+     */
+    static ConcurrentBitSet of(final int bits, final BitSet initial) {
+        Validate.notNull(initial, "Null initial bits");
+        return of(bits, initial.toLongArray());
+    }
 
     /**
      * Returns whether the specified bit is set to ON. The bit is read with volatile access.
@@ -117,6 +181,419 @@ public interface ConcurrentBitSet {
      */
     int getOnBits();
 
+    /**
+     * Returns the approximate total number of bits ON in this bitset. Implementations maintaining a population counter
+     * return it without reading any bit, otherwise this function is equivalent to {@link #getOnBits()}.
+     * <p>
+     * This function is MT-Safe but not atomic. The returned value may lag behind concurrent changes, but is exact
+     * once all writes have completed.
+     * </p>
+     * @return Approximate number of ON bits.
+     */
+    default int getOnBitsApproximate() {
+        return this.getOnBits();
+    }
+
+    /**
+     * Returns the number of 64-bit words needed to store {@link #totalBits()} bits. Word {@code i} holds the bits
+     * {@code [i * 64, i * 64 + 64)}, with bit {@code i * 64 + n} stored as {@code 1L << n}.
+     * @return The number of words in this bitset.
+     */
+    default int totalWords() {
+        return (int)(((long)this.totalBits() + (Long.SIZE - 1)) >>> 6);
+    }
+
+    /**
+     * Returns the specified word of this bitset. Bits past {@link #totalBits()} are always OFF.
+     * <p>
+     * This function is MT-Safe. Implementations storing bits in 64-bit words read the word atomically with volatile
+     * access, otherwise each bit is read with volatile access.
+     * </p>
+     * @param wordIndex The specified word.
+     * @return The bits of the word.
+     */
+    default long getWord(final int wordIndex) {
+        checkWord(this, wordIndex);
+
+        final int base = wordIndex << 6;
+        final int bits = Math.min(Long.SIZE, this.totalBits() - base);
+
+        long ret = 0L;
+        for (int i = 0; i < bits; ++i) {
+            if (this.get(base + i)) {
+                ret |= 1L << i;
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Sets every bit in the specified word which is ON in the specified mask to ON, and returns the previous bits of the
+     * word. Bits of the mask past {@link #totalBits()} are ignored.
+     * <p>
+     * This function is MT-Safe. Implementations storing bits in 64-bit words perform the operation atomically with
+     * volatile access, otherwise each bit is set atomically with volatile access.
+     * </p>
+     * @param wordIndex The specified word.
+     * @param mask The bits to set to ON.
+     * @return The previous bits of the word.
+     */
+    default long getAndOrWord(final int wordIndex, final long mask) {
+        checkWord(this, wordIndex);
+
+        final int base = wordIndex << 6;
+        final long validMask = mask & getValidWordMask(this.totalBits(), wordIndex);
+
+        long ret = 0L;
+        for (long bits = validMask; bits != 0L; bits ^= Long.lowestOneBit(bits)) {
+            final int bit = Long.numberOfTrailingZeros(bits);
+            if (this.getAndSetOn(base + bit)) {
+                ret |= 1L << bit;
+            }
+        }
+        return ret | (this.getWord(wordIndex) & ~validMask);
+    }
+
+    /**
+     * Sets every bit in the specified word which is OFF in the specified mask to OFF, and returns the previous bits of
+     * the word.
+     * <p>
+     * This function is MT-Safe. Implementations storing bits in 64-bit words perform the operation atomically with
+     * volatile access, otherwise each bit is set atomically with volatile access.
+     * </p>
+     * @param wordIndex The specified word.
+     * @param mask The bits to keep.
+     * @return The previous bits of the word.
+     */
+    default long getAndAndWord(final int wordIndex, final long mask) {
+        checkWord(this, wordIndex);
+
+        final int base = wordIndex << 6;
+        final long clearMask = ~mask & getValidWordMask(this.totalBits(), wordIndex);
+
+        long ret = 0L;
+        for (long bits = clearMask; bits != 0L; bits ^= Long.lowestOneBit(bits)) {
+            final int bit = Long.numberOfTrailingZeros(bits);
+            if (this.getAndSetOff(base + bit)) {
+                ret |= 1L << bit;
+            }
+        }
+        return ret | (this.getWord(wordIndex) & ~clearMask);
+    }
+
+    /**
+     * Sets every bit in the range {@code [fromBit, toBit)} to ON. Each word in the range is modified with
+     * {@link #getAndOrWord(int, long)}.
+     * <p>
+     * This function is MT-Safe, but is not atomic over the whole range.
+     * </p>
+     * @param fromBit The first bit to set, inclusive.
+     * @param toBit The last bit to set, exclusive.
+     */
+    default void setRange(final int fromBit, final int toBit) {
+        checkRange(this, fromBit, toBit);
+        if (fromBit == toBit) {
+            return;
+        }
+
+        final int fromWord = fromBit >>> 6;
+        final int toWord = (toBit - 1) >>> 6;
+        for (int word = fromWord; word <= toWord; ++word) {
+            this.getAndOrWord(word, getRangeWordMask(fromBit, toBit, word));
+        }
+    }
+
+    /**
+     * Sets every bit in the range {@code [fromBit, toBit)} to OFF. Each word in the range is modified with
+     * {@link #getAndAndWord(int, long)}.
+     * <p>
+     * This function is MT-Safe, but is not atomic over the whole range.
+     * </p>
+     * @param fromBit The first bit to clear, inclusive.
+     * @param toBit The last bit to clear, exclusive.
+     */
+    default void clearRange(final int fromBit, final int toBit) {
+        checkRange(this, fromBit, toBit);
+        if (fromBit == toBit) {
+            return;
+        }
+
+        final int fromWord = fromBit >>> 6;
+        final int toWord = (toBit - 1) >>> 6;
+        for (int word = fromWord; word <= toWord; ++word) {
+            this.getAndAndWord(word, ~getRangeWordMask(fromBit, toBit, word));
+        }
+    }
+
+    /**
+     * Returns the index of the first bit that is ON at or after the specified bit. Each word is read with
+     * {@link #getWord(int)}.
+     * <p>
+     * This function is MT-Safe but not atomic. Concurrent changes may not be observed by this function.
+     * </p>
+     * @param fromBit The bit to start searching from, inclusive.
+     * @return The index of the next ON bit, or {@code -1} if there is none.
+     */
+    default int nextSetBit(final int fromBit) {
+        if (fromBit < 0) {
+            throw new IllegalArgumentException("From bit may not be negative: " + fromBit);
+        }
+        if (fromBit >= this.totalBits()) {
+            return -1;
+        }
+
+        int word = fromBit >>> 6;
+        long bits = this.getWord(word) & (-1L << fromBit);
+        for (final int words = this.totalWords(); bits == 0L;) {
+            if (++word >= words) {
+                return -1;
+            }
+            bits = this.getWord(word);
+        }
+
+        return (word << 6) | Long.numberOfTrailingZeros(bits);
+    }
+
+    /**
+     * Returns the index of the first bit that is OFF at or after the specified bit. Each word is read with
+     * {@link #getWord(int)}.
+     * <p>
+     * This function is MT-Safe but not atomic. Concurrent changes may not be observed by this function.
+     * </p>
+     * @param fromBit The bit to start searching from, inclusive.
+     * @return The index of the next OFF bit, or {@code -1} if there is none.
+     */
+    default int nextClearBit(final int fromBit) {
+        if (fromBit < 0) {
+            throw new IllegalArgumentException("From bit may not be negative: " + fromBit);
+        }
+        final int totalBits = this.totalBits();
+        if (fromBit >= totalBits) {
+            return -1;
+        }
+
+        int word = fromBit >>> 6;
+        long bits = ~this.getWord(word) & (-1L << fromBit) & getValidWordMask(totalBits, word);
+        for (final int words = this.totalWords(); bits == 0L;) {
+            if (++word >= words) {
+                return -1;
+            }
+            bits = ~this.getWord(word) & getValidWordMask(totalBits, word);
+        }
+
+        return (word << 6) | Long.numberOfTrailingZeros(bits);
+    }
+
+    /**
+     * Equivalent to {@code claimNextClearBit(0)}.
+     * @return The index of the claimed bit, or {@code -1} if every bit is ON.
+     * @see #claimNextClearBit(int)
+     */
+    default int claimNextClearBit() {
+        return this.claimNextClearBit(0);
+    }
+
+    /**
+     * Finds the first bit that is OFF at or after the specified bit, and atomically sets it to ON. Only one thread
+     * can claim any given bit, which makes this function suitable as a slot allocator.
+     * <p>
+     * This function is MT-Safe. The claim is performed atomically with {@link #getAndOrWord(int, long)}, the search
+     * is not atomic.
+     * </p>
+     * @param fromBit The bit to start searching from, inclusive.
+     * @return The index of the claimed bit, or {@code -1} if no OFF bit was found.
+     */
+    default int claimNextClearBit(final int fromBit) {
+        if (fromBit < 0) {
+            throw new IllegalArgumentException("From bit may not be negative: " + fromBit);
+        }
+        final int totalBits = this.totalBits();
+        if (fromBit >= totalBits) {
+            return -1;
+        }
+
+        final int words = this.totalWords();
+        int word = fromBit >>> 6;
+        long fromMask = -1L << fromBit;
+        long curr = this.getWord(word);
+        for (;;) {
+            final long clear = ~curr & fromMask & getValidWordMask(totalBits, word);
+            if (clear == 0L) {
+                if (++word >= words) {
+                    return -1;
+                }
+                fromMask = -1L;
+                curr = this.getWord(word);
+                continue;
+            }
+
+            final long claim = Long.lowestOneBit(clear);
+            curr = this.getAndOrWord(word, claim);
+            if ((curr & claim) == 0L) {
+                return (word << 6) | Long.numberOfTrailingZeros(claim);
+            }
+            /* lost the race, curr now holds the current word */
+        }
+    }
+
+    /**
+     * Sets every bit in this bitset to ON if it is ON in the specified bitset. Bits past the specified bitset's
+     * {@link #totalBits()} are unaffected. Each word is modified with {@link #getAndOrWord(int, long)}.
+     * <p>
+     * This function is MT-Safe, but is not atomic over the whole bitset.
+     * </p>
+     * @param other The specified bitset.
+     */
+    default void or(final ConcurrentBitSet other) {
+        for (int word = 0, words = Math.min(this.totalWords(), other.totalWords()); word < words; ++word) {
+            final long bits = other.getWord(word);
+            if (bits != 0L) {
+                this.getAndOrWord(word, bits);
+            }
+        }
+    }
+
+    /**
+     * Sets every bit in this bitset to OFF if it is OFF in the specified bitset. Bits past the specified bitset's
+     * {@link #totalBits()} are set to OFF. Each word is modified with {@link #getAndAndWord(int, long)}.
+     * <p>
+     * This function is MT-Safe, but is not atomic over the whole bitset.
+     * </p>
+     * @param other The specified bitset.
+     */
+    default void and(final ConcurrentBitSet other) {
+        final int words = this.totalWords();
+        final int otherWords = Math.min(words, other.totalWords());
+        int word = 0;
+        for (; word < otherWords; ++word) {
+            final long bits = other.getWord(word);
+            if (bits != -1L) {
+                this.getAndAndWord(word, bits);
+            }
+        }
+        for (; word < words; ++word) {
+            this.getAndAndWord(word, 0L);
+        }
+    }
+
+    /**
+     * Sets every bit in this bitset to OFF if it is ON in the specified bitset. Each word is modified with
+     * {@link #getAndAndWord(int, long)}.
+     * <p>
+     * This function is MT-Safe, but is not atomic over the whole bitset.
+     * </p>
+     * @param other The specified bitset.
+     */
+    default void andNot(final ConcurrentBitSet other) {
+        for (int word = 0, words = Math.min(this.totalWords(), other.totalWords()); word < words; ++word) {
+            final long bits = other.getWord(word);
+            if (bits != 0L) {
+                this.getAndAndWord(word, ~bits);
+            }
+        }
+    }
+
+    /**
+     * Returns the words of this bitset, in the format accepted by {@link #of(int, long[])}. The returned array has a
+     * length of {@link #totalWords()}. Each word is read with {@link #getWord(int)}.
+     * <p>
+     * This function is MT-Safe but not atomic over the whole bitset. Every returned word was the value of that word
+     * at some point during this call, and writes completed before this call are observed. For a snapshot of the
+     * whole bitset at a single point in time, writers must be excluded for the duration of this call.
+     * </p>
+     * @return The words of this bitset.
+     */
+    default long[] toLongArray() {
+        final long[] ret = new long[this.totalWords()];
+        for (int word = 0; word < ret.length; ++word) {
+            ret[word] = this.getWord(word);
+        }
+        return ret;
+    }
+
+    /**
+     * Returns a {@link BitSet} holding the bits of this bitset, read with {@link #toLongArray()}.
+     * <p>
+     * This function is MT-Safe but not atomic over the whole bitset, see {@link #toLongArray()}.
+     * </p>
+     * @return The bits of this bitset.
+     */
+    default BitSet toBitSet() {
+        return BitSet.valueOf(this.toLongArray());
+    }
+
+    /**
+     * Returns a new bitset with the same capacity and bits as this bitset. Implementations return a bitset of their
+     * own type and configuration, copying the words in bulk.
+     * <p>
+     * This function is MT-Safe but not atomic over the whole bitset, see {@link #toLongArray()}.
+     * </p>
+     * @return The copy of this bitset.
+     */
+    default ConcurrentBitSet copy() {
+        return of(this.totalBits(), this.toLongArray());
+    }
+
+    /**
+     * Returns the sum of the specified population counter, which implementations keep when created with
+     * {@code countOnBits} and leave {@code null} otherwise. Concurrent decrements may be counted before their
+     * increments, so the sum is clamped to {@code [0, totalBits]}.
+     */
+    private static long getCountedOnBits(final LongAdder onBits, final long totalBits) {
+        return Math.max(0L, Math.min(totalBits, onBits.sum()));
+    }
+
+    /**
+     * Validates that the specified initial words fit in the specified number of bits.
+     * @return The number of ON bits in the words.
+     */
+    private static long checkInitialWords(final long[] words, final long totalBits) {
+        final long totalWords = (totalBits >>> 6) + ((totalBits & (Long.SIZE - 1)) == 0L ? 0L : 1L); // ceil(totalBits / Long.SIZE)
+        if ((long)words.length > totalWords) {
+            throw new IllegalArgumentException("Too many initial words for " + totalBits + " bits: " + words.length);
+        }
+        final long lastBits = totalBits - ((totalWords - 1L) << 6);
+        if ((long)words.length == totalWords && lastBits != Long.SIZE && (words[words.length - 1] >>> lastBits) != 0L) {
+            throw new IllegalArgumentException("Initial words have bits ON past " + totalBits + " bits");
+        }
+
+        long ret = 0L;
+        for (final long word : words) {
+            ret += Long.bitCount(word);
+        }
+        return ret;
+    }
+
+    private static void checkWord(final ConcurrentBitSet set, final int wordIndex) {
+        if (wordIndex < 0 || wordIndex >= set.totalWords()) {
+            throw new IllegalArgumentException("Word out of range [0," + set.totalWords() + "): " + wordIndex);
+        }
+    }
+
+    private static void checkRange(final ConcurrentBitSet set, final int fromBit, final int toBit) {
+        if (fromBit < 0 || toBit > set.totalBits() || fromBit > toBit) {
+            throw new IllegalArgumentException("Range out of bounds [0," + set.totalBits() + "]: [" + fromBit + "," + toBit + ")");
+        }
+    }
+
+    /**
+     * Returns the mask of the bits in the specified word which are less than the specified total bits.
+     */
+    private static long getValidWordMask(final int totalBits, final int wordIndex) {
+        final int bits = totalBits - (wordIndex << 6);
+        return bits >= Long.SIZE ? -1L : (1L << bits) - 1L;
+    }
+
+    /**
+     * Returns the mask of the bits in the specified word which are in the range {@code [fromBit, toBit)}.
+     */
+    private static long getRangeWordMask(final int fromBit, final int toBit, final int wordIndex) {
+        final int base = wordIndex << 6;
+        final long from = fromBit <= base ? -1L : -1L << fromBit;
+        final long to = toBit - base >= Long.SIZE ? -1L : (1L << (toBit - base)) - 1L;
+        return from & to;
+    }
+
     /**
      * {@link ConcurrentBitSet} implementation offering a maximum capacity of 64 bits. The bits are packed into a single
      * {@code long} field.
@@ -164,6 +641,20 @@ public interface ConcurrentBitSet {
             this.maxBits = maxBits;
         }
 
+        /**
+         * Constructs a new bitset with the specified initial bits.
+         * @param maxBits The specified capacity of bits.
+         * @param bits The initial bits, with bit {@code n} stored as {@code 1L << n}.
+         * @throws IllegalArgumentException If a bit past the capacity is ON.
+         */
+        public SmallConcurrentBitSet(final int maxBits, final long bits) {
+            this(maxBits);
+            if (maxBits != Long.SIZE && (bits >>> maxBits) != 0L) {
+                throw new IllegalArgumentException("Initial bits have bits ON past " + maxBits + " bits");
+            }
+            this.setBitsetRelease(bits);
+        }
+
         protected final void checkBit(final int bit) {
             if (bit < 0 || bit >= this.maxBits) {
                 throw new IllegalArgumentException("Bit out of range [0," + this.maxBits + "): " + bit);
@@ -178,6 +669,30 @@ public interface ConcurrentBitSet {
             return this.maxBits;
         }
 
+        /**
+         * Returns the words of this bitset.
+         * <p>
+         * This function is MT-Safe and atomic.
+         * </p>
+         * @return The words of this bitset.
+         */
+        @Override
+        public long[] toLongArray() {
+            return new long[] { this.getBitsetVolatile() };
+        }
+
+        /**
+         * Returns a new bitset with the same capacity and bits as this bitset.
+         * <p>
+         * This function is MT-Safe and atomic.
+         * </p>
+         * @return The copy of this bitset.
+         */
+        @Override
+        public SmallConcurrentBitSet copy() {
+            return new SmallConcurrentBitSet(this.maxBits, this.getBitsetVolatile());
+        }
+
         /**
          * Returns the total number of bits ON in this bitset. Each bit is read with volatile access.
          * <p>
@@ -273,11 +788,47 @@ public interface ConcurrentBitSet {
          */
         @Override
         public boolean flip(final int bit) {
+            this.checkBit(bit);
+
             final long bitfield = 1L << bit;
             final long prev = this.getAndBitwiseXorBitsetVolatile(bitfield);
 
             return (prev & bitfield) != 0;
         }
+
+        protected final void checkWord(final int wordIndex) {
+            if (wordIndex != 0) {
+                throw new IllegalArgumentException("Word out of range [0,1): " + wordIndex);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long getWord(final int wordIndex) {
+            this.checkWord(wordIndex);
+            return this.getBitsetVolatile();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long getAndOrWord(final int wordIndex, final long mask) {
+            this.checkWord(wordIndex);
+            final long validMask = this.maxBits == Long.SIZE ? -1L : (1L << this.maxBits) - 1L;
+            return this.getAndBitwiseOrBitsetVolatile(mask & validMask);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long getAndAndWord(final int wordIndex, final long mask) {
+            this.checkWord(wordIndex);
+            return this.getAndBitwiseAndBitseteVolatile(mask);
+        }
     }
 
     /**
@@ -290,32 +841,110 @@ public interface ConcurrentBitSet {
 
         protected final long[] bitset;
 
+        protected final LongAdder onBits;
+
         public LargeConcurrentBitset(final int maxBits) {
+            this(maxBits, false);
+        }
+
+        /**
+         * Constructs a new bitset.
+         * @param maxBits The specified capacity of bits.
+         * @param countOnBits Whether to maintain a striped population counter, which makes
+         *                    {@link #getOnBitsApproximate()} O(1) at the cost of an extra update per changed bit.
+         */
+        public LargeConcurrentBitset(final int maxBits, final boolean countOnBits) {
             if (maxBits <= 0) {
                 throw new IllegalArgumentException("Max bits must be positive");
             }
             final int size = maxBits >>> 6; // maxBits / Long.SIZE
-            final int remainder = (~(maxBits & (Long.SIZE - 1))) >>> 31;
+            final int remainder = (-(maxBits & (Long.SIZE - 1))) >>> 31; // 1 if maxBits is not a multiple of Long.SIZE
             this.bitset = new long[size + remainder];
             this.maxBits = maxBits;
+            this.onBits = countOnBits ? new LongAdder() : null;
         }
 
-        protected final void checkBit(final int bit) {
-            if (bit < 0 || bit >= this.maxBits) {
-                throw new IllegalArgumentException("Bit out of range [0," + this.maxBits + "): " + bit);
-            }
+        public LargeConcurrentBitset(final int maxBits, final long[] words) {
+            this(maxBits, words, false);
         }
 
         /**
-         * {@inheritDoc}
+         * Constructs a new bitset with its bits initialised from the specified words, see
+         * {@link ConcurrentBitSet#of(int, long[])}.
+         * @param maxBits The specified capacity of bits.
+         * @param words The initial words, which is not modified or retained.
+         * @param countOnBits Whether to maintain a striped population counter, which makes
+         *                    {@link #getOnBitsApproximate()} O(1) at the cost of an extra update per changed bit.
+         * @throws IllegalArgumentException If there are more words than needed for the capacity, or if a bit past the
+         *                                  capacity is ON.
          */
-        @Override
-        public int totalBits() {
-            return this.maxBits;
+        public LargeConcurrentBitset(final int maxBits, final long[] words, final boolean countOnBits) {
+            this(maxBits, countOnBits);
+            Validate.notNull(words, "Null words");
+
+            final long onBits = checkInitialWords(words, maxBits);
+            System.arraycopy(words, 0, this.bitset, 0, words.length);
+            if (this.onBits != null) {
+                this.onBits.add(onBits);
+            }
         }
 
-        /**
-         * {@inheritDoc}
+        protected LargeConcurrentBitset(final LargeConcurrentBitset other) {
+            final long[] from = other.bitset;
+            final long[] to = new long[from.length];
+
+            long onBits = 0L;
+            for (int i = 0; i < to.length; ++i) {
+                onBits += Long.bitCount(to[i] = ArrayUtil.getVolatile(from, i));
+            }
+
+            this.bitset = to;
+            this.maxBits = other.maxBits;
+            if (other.onBits == null) {
+                this.onBits = null;
+            } else {
+                this.onBits = new LongAdder();
+                this.onBits.add(onBits);
+            }
+        }
+
+        protected final void checkBit(final int bit) {
+            if (bit < 0 || bit >= this.maxBits) {
+                throw new IllegalArgumentException("Bit out of range [0," + this.maxBits + "): " + bit);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int totalBits() {
+            return this.maxBits;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long[] toLongArray() {
+            final long[] bitset = this.bitset;
+            final long[] ret = new long[bitset.length];
+            for (int i = 0; i < ret.length; ++i) {
+                ret[i] = ArrayUtil.getVolatile(bitset, i);
+            }
+            return ret;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public LargeConcurrentBitset copy() {
+            return new LargeConcurrentBitset(this);
+        }
+
+        /**
+         * {@inheritDoc}
          */
         @Override
         public int getOnBits() {
@@ -326,6 +955,23 @@ public interface ConcurrentBitSet {
             return ret;
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int getOnBitsApproximate() {
+            final LongAdder onBits = this.onBits;
+            return onBits == null ? this.getOnBits() : (int)getCountedOnBits(onBits, (long)this.maxBits);
+        }
+
+        /**
+         * Returns whether this bitset maintains a population counter for {@link #getOnBitsApproximate()}.
+         * @return {@code true} if ON bits are counted.
+         */
+        public boolean isCountingOnBits() {
+            return this.onBits != null;
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -334,7 +980,7 @@ public interface ConcurrentBitSet {
             this.checkBit(bit);
 
             final long bitfield = 1L << (bit & (Long.SIZE - 1));
-            final long bitset = this.bitset[bit >>> 6]; // bit / Long.SIZE
+            final long bitset = ArrayUtil.getVolatile(this.bitset, bit >>> 6); // bit / Long.SIZE
 
             return (bitset & bitfield) != 0;
         }
@@ -349,7 +995,10 @@ public interface ConcurrentBitSet {
             final long bitfield = 1L << (bit & (Long.SIZE - 1));
             final int index = bit >>> 6; // bit / LONG.SIZE
 
-            ArrayUtil.getAndOrVolatile(this.bitset, index, bitfield);
+            final long prev = ArrayUtil.getAndOrVolatile(this.bitset, index, bitfield);
+            if (this.onBits != null && (prev & bitfield) == 0L) {
+                this.onBits.increment();
+            }
         }
 
         /**
@@ -362,7 +1011,10 @@ public interface ConcurrentBitSet {
             final long bitfield = 1L << (bit & (Long.SIZE - 1));
             final int index = bit >>> 6; // bit / LONG.SIZE
 
-            ArrayUtil.getAndAndVolatile(this.bitset, index, ~bitfield);
+            final long prev = ArrayUtil.getAndAndVolatile(this.bitset, index, ~bitfield);
+            if (this.onBits != null && (prev & bitfield) != 0L) {
+                this.onBits.decrement();
+            }
         }
 
         /**
@@ -387,7 +1039,11 @@ public interface ConcurrentBitSet {
             final long bitfield = 1L << (bit & (Long.SIZE - 1));
             final int index = bit >>> 6; // bit / LONG.SIZE
 
-            return (ArrayUtil.getAndOrVolatile(this.bitset, index, bitfield) & bitfield) != 0;
+            final long prev = ArrayUtil.getAndOrVolatile(this.bitset, index, bitfield);
+            if (this.onBits != null && (prev & bitfield) == 0L) {
+                this.onBits.increment();
+            }
+            return (prev & bitfield) != 0;
         }
 
         /**
@@ -400,7 +1056,11 @@ public interface ConcurrentBitSet {
             final long bitfield = 1L << (bit & (Long.SIZE - 1));
             final int index = bit >>> 6; // bit / LONG.SIZE
 
-            return (ArrayUtil.getAndAndVolatile(this.bitset, index, ~bitfield) & bitfield) != 0;
+            final long prev = ArrayUtil.getAndAndVolatile(this.bitset, index, ~bitfield);
+            if (this.onBits != null && (prev & bitfield) != 0L) {
+                this.onBits.decrement();
+            }
+            return (prev & bitfield) != 0;
         }
 
         /**
@@ -425,33 +1085,228 @@ public interface ConcurrentBitSet {
             final long bitfield = 1L << (bit & (Long.SIZE - 1));
             final int index = bit >>> 6; // bit / LONG.SIZE
 
-            return (ArrayUtil.getAndXorVolatile(this.bitset, index, bitfield) & bitfield) != 0;
+            final long prev = ArrayUtil.getAndXorVolatile(this.bitset, index, bitfield);
+            if (this.onBits != null) {
+                this.onBits.add((prev & bitfield) == 0L ? 1L : -1L);
+            }
+            return (prev & bitfield) != 0;
+        }
+
+        protected final void checkWord(final int wordIndex) {
+            if (wordIndex < 0 || wordIndex >= this.bitset.length) {
+                throw new IllegalArgumentException("Word out of range [0," + this.bitset.length + "): " + wordIndex);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int totalWords() {
+            return this.bitset.length;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long getWord(final int wordIndex) {
+            this.checkWord(wordIndex);
+            return ArrayUtil.getVolatile(this.bitset, wordIndex);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long getAndOrWord(final int wordIndex, final long mask) {
+            this.checkWord(wordIndex);
+            final int bits = this.maxBits - (wordIndex << 6);
+            final long validMask = bits >= Long.SIZE ? -1L : (1L << bits) - 1L;
+            final long prev = ArrayUtil.getAndOrVolatile(this.bitset, wordIndex, mask & validMask);
+            if (this.onBits != null) {
+                this.onBits.add((long)Long.bitCount(mask & validMask & ~prev));
+            }
+            return prev;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long getAndAndWord(final int wordIndex, final long mask) {
+            this.checkWord(wordIndex);
+            final long prev = ArrayUtil.getAndAndVolatile(this.bitset, wordIndex, mask);
+            if (this.onBits != null) {
+                this.onBits.add(-(long)Long.bitCount(prev & ~mask));
+            }
+            return prev;
         }
     }
 
     /**
-     * {@link ConcurrentBitSet} offering a cache-aware implementation for bitsets. Writes to one bit field will not
-     * cause cache misses for reads/writes on other bit fields (aka, avoiding false sharing). However, this implementation
-     * will use significantly more memory (expect at least two orders of magnitude) compared to {@link LargeConcurrentBitset}.
+     * Hint describing how many threads are expected to concurrently write to nearby bits, used by
+     * {@link ConcurrentBitSet#of(int, Contention)} to pick a memory layout.
      */
-    class FastLargeConcurrentBitset implements ConcurrentBitSet {
+    enum Contention {
+
+        /**
+         * Writes are rare or made by a single thread. Bits are densely packed into 64-bit words.
+         */
+        NONE,
+
+        /**
+         * A few threads write concurrently. Every 256 bits are placed on their own cache line.
+         */
+        LOW,
+
+        /**
+         * Many threads write concurrently. Every 64-bit word is placed on its own cache line.
+         */
+        HIGH,
+
+        /**
+         * Many threads write concurrently to adjacent bits. Every bit is placed on its own cache line, see
+         * {@link FastLargeConcurrentBitset}.
+         */
+        EXTREME
+    }
+
+    /**
+     * {@link ConcurrentBitSet} implementation with the same operations as {@link LargeConcurrentBitset}, but which spreads
+     * its 64-bit words over cache lines. Each cache line holds at most {@code bitsPerLine} bits, so that
+     * writers to bits far enough apart do not invalidate each other's cache lines (aka, avoiding false sharing).
+     * <p>
+     * With {@code bitsPerLine} of 64 every word is on its own cache line, which uses {@link ConcurrentUtil#CACHE_LINE_SIZE}
+     * / 8 times the memory of {@link LargeConcurrentBitset}. With {@code bitsPerLine} of 512, the layout is the same as
+     * {@link LargeConcurrentBitset} except for the padding around the words.
+     * </p>
+     */
+    class ContendedConcurrentBitSet implements ConcurrentBitSet {
+
+        /**
+         * The maximum number of bits per cache line.
+         */
+        public static final int MAX_BITS_PER_LINE = ConcurrentUtil.CACHE_LINE_SIZE * Byte.SIZE;
+        protected static final int LINE_WORDS = ConcurrentUtil.CACHE_LINE_SIZE / Long.BYTES;
 
         protected final int maxBits;
+        protected final int words;
+        protected final int bitsPerLine;
 
-        protected final boolean[] bitset;
+        /* word w is stored at ((w >>> wordsPerLineShift) * LINE_WORDS) + (w & wordsPerLineMask) + LINE_WORDS */
+        protected final int wordsPerLineShift;
+        protected final int wordsPerLineMask;
 
-        public FastLargeConcurrentBitset(final int bits) {
-            if (bits <= 0) {
-                throw new IllegalArgumentException("bit count must be > 0, not: " + bits);
+        protected final long[] bitset;
+
+        protected final LongAdder onBits;
+
+        /**
+         * Constructs a new bitset with every 64-bit word on its own cache line.
+         * @param maxBits The specified capacity of bits.
+         */
+        public ContendedConcurrentBitSet(final int maxBits) {
+            this(maxBits, Long.SIZE);
+        }
+
+        /**
+         * Constructs a new bitset storing at most the specified number of bits per cache line.
+         * @param maxBits The specified capacity of bits.
+         * @param bitsPerLine The number of bits per cache line, which must be a power of two in
+         *                    {@code [64, MAX_BITS_PER_LINE]}.
+         */
+        public ContendedConcurrentBitSet(final int maxBits, final int bitsPerLine) {
+            this(maxBits, bitsPerLine, false);
+        }
+
+        /**
+         * Constructs a new bitset storing at most the specified number of bits per cache line.
+         * @param maxBits The specified capacity of bits.
+         * @param bitsPerLine The number of bits per cache line, which must be a power of two in
+         *                    {@code [64, MAX_BITS_PER_LINE]}.
+         * @param countOnBits Whether to maintain a striped population counter, which makes
+         *                    {@link #getOnBitsApproximate()} O(1) at the cost of an extra update per changed bit.
+         */
+        public ContendedConcurrentBitSet(final int maxBits, final int bitsPerLine, final boolean countOnBits) {
+            if (maxBits <= 0) {
+                throw new IllegalArgumentException("Max bits must be positive");
+            }
+            if (bitsPerLine < Long.SIZE || bitsPerLine > MAX_BITS_PER_LINE || Integer.bitCount(bitsPerLine) != 1) {
+                throw new IllegalArgumentException("Bits per line must be a power of two in [" + Long.SIZE + "," + MAX_BITS_PER_LINE + "]: " + bitsPerLine);
             }
 
-            // allocate a cache line at the start and end of the returned buffer
-            this.bitset = new boolean[getIndexForBit(bits + 1)];
-            this.maxBits = bits;
+            this.maxBits = maxBits;
+            this.words = (int)(((long)maxBits + (Long.SIZE - 1)) >>> 6);
+            this.bitsPerLine = bitsPerLine;
+
+            final int wordsPerLine = bitsPerLine >>> 6;
+            this.wordsPerLineShift = Integer.numberOfTrailingZeros(wordsPerLine);
+            this.wordsPerLineMask = wordsPerLine - 1;
+
+            final long lines = ((long)this.words + this.wordsPerLineMask) >>> this.wordsPerLineShift;
+            // allocate a cache line at the start and end of the array
+            final long length = (lines + 2L) * LINE_WORDS;
+            if (length > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Max bits too large for " + bitsPerLine + " bits per line: " + maxBits);
+            }
+            this.bitset = new long[(int)length];
+            this.onBits = countOnBits ? new LongAdder() : null;
         }
 
-        protected static int getIndexForBit(final int bit) {
-            return ConcurrentUtil.CACHE_LINE_SIZE * (bit + 1);
+        /**
+         * Constructs a new bitset storing at most the specified number of bits per cache line, with its bits initialised
+         * from the specified words, see {@link ConcurrentBitSet#of(int, long[])}.
+         * @param maxBits The specified capacity of bits.
+         * @param bitsPerLine The number of bits per cache line, which must be a power of two in
+         *                    {@code [64, MAX_BITS_PER_LINE]}.
+         * @param countOnBits Whether to maintain a striped population counter, which makes
+         *                    {@link #getOnBitsApproximate()} O(1) at the cost of an extra update per changed bit.
+         * @param words The initial words, which is not modified or retained.
+         * @throws IllegalArgumentException If there are more words than needed for the capacity, or if a bit past the
+         *                                  capacity is ON.
+         */
+        public ContendedConcurrentBitSet(final int maxBits, final int bitsPerLine, final boolean countOnBits, final long[] words) {
+            this(maxBits, bitsPerLine, countOnBits);
+            Validate.notNull(words, "Null words");
+
+            final long onBits = checkInitialWords(words, maxBits);
+            /* copy each line's run of words at once */
+            for (int word = 0, wordsPerLine = this.wordsPerLineMask + 1; word < words.length; word += wordsPerLine) {
+                System.arraycopy(words, word, this.bitset, this.getIndexForWord(word), Math.min(wordsPerLine, words.length - word));
+            }
+            if (this.onBits != null) {
+                this.onBits.add(onBits);
+            }
+        }
+
+        protected ContendedConcurrentBitSet(final ContendedConcurrentBitSet other) {
+            this.maxBits = other.maxBits;
+            this.words = other.words;
+            this.bitsPerLine = other.bitsPerLine;
+            this.wordsPerLineShift = other.wordsPerLineShift;
+            this.wordsPerLineMask = other.wordsPerLineMask;
+
+            final long[] from = other.bitset;
+            final long[] to = new long[from.length];
+
+            long onBits = 0L;
+            for (int word = 0; word < this.words; ++word) {
+                final int index = other.getIndexForWord(word);
+                onBits += Long.bitCount(to[index] = ArrayUtil.getVolatile(from, index));
+            }
+
+            this.bitset = to;
+            if (other.onBits == null) {
+                this.onBits = null;
+            } else {
+                this.onBits = new LongAdder();
+                this.onBits.add(onBits);
+            }
+        }
+
+        protected final int getIndexForWord(final int word) {
+            return ((word >>> this.wordsPerLineShift) * LINE_WORDS) + (word & this.wordsPerLineMask) + LINE_WORDS;
         }
 
         protected final void checkBit(final int bit) {
@@ -460,6 +1315,20 @@ public interface ConcurrentBitSet {
             }
         }
 
+        protected final void checkWord(final int wordIndex) {
+            if (wordIndex < 0 || wordIndex >= this.words) {
+                throw new IllegalArgumentException("Word out of range [0," + this.words + "): " + wordIndex);
+            }
+        }
+
+        /**
+         * Returns the maximum number of bits stored on each cache line.
+         * @return The number of bits per cache line.
+         */
+        public int getBitsPerLine() {
+            return this.bitsPerLine;
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -468,24 +1337,75 @@ public interface ConcurrentBitSet {
             return this.maxBits;
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long[] toLongArray() {
+            final long[] bitset = this.bitset;
+            final long[] ret = new long[this.words];
+            for (int i = 0; i < ret.length; ++i) {
+                ret[i] = ArrayUtil.getVolatile(bitset, this.getIndexForWord(i));
+            }
+            return ret;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public ContendedConcurrentBitSet copy() {
+            return new ContendedConcurrentBitSet(this);
+        }
+
         /**
          * {@inheritDoc}
          */
         @Override
         public int getOnBits() {
             int ret = 0;
-            for (int i = 0, len = this.maxBits; i < len; ++i) {
-                ret += ArrayUtil.getVolatile(this.bitset, getIndexForBit(i)) ? 1 : 0;
+            for (int i = 0, len = this.words; i < len; ++i) {
+                ret += Long.bitCount(ArrayUtil.getVolatile(this.bitset, this.getIndexForWord(i)));
             }
             return ret;
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int getOnBitsApproximate() {
+            final LongAdder onBits = this.onBits;
+            return onBits == null ? this.getOnBits() : (int)getCountedOnBits(onBits, (long)this.maxBits);
+        }
+
+        /**
+         * Returns whether this bitset maintains a population counter for {@link #getOnBitsApproximate()}.
+         * @return {@code true} if ON bits are counted.
+         */
+        public boolean isCountingOnBits() {
+            return this.onBits != null;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean get(final int bit) {
+            this.checkBit(bit);
+
+            final long bitfield = 1L << (bit & (Long.SIZE - 1));
+            final long bitset = ArrayUtil.getVolatile(this.bitset, this.getIndexForWord(bit >>> 6));
+
+            return (bitset & bitfield) != 0;
+        }
+
         /**
          * {@inheritDoc}
          */
         @Override
         public void setOn(final int bit) {
-            this.set(bit, true);
+            this.getAndSetOn(bit);
         }
 
         /**
@@ -493,17 +1413,19 @@ public interface ConcurrentBitSet {
          */
         @Override
         public void setOff(final int bit) {
-            this.set(bit, false);
+            this.getAndSetOff(bit);
         }
 
         /**
          * {@inheritDoc}
          */
         @Override
-        public void set(final int bit, final boolean value) {
-            this.checkBit(bit);
-
-            ArrayUtil.setVolatile(this.bitset, getIndexForBit(bit), value);
+        public void set(final int bit, final boolean on) {
+            if (on) {
+                this.setOn(bit);
+            } else {
+                this.setOff(bit);
+            }
         }
 
         /**
@@ -511,7 +1433,15 @@ public interface ConcurrentBitSet {
          */
         @Override
         public boolean getAndSetOn(final int bit) {
-            return this.getAndSet(bit, true);
+            this.checkBit(bit);
+
+            final long bitfield = 1L << (bit & (Long.SIZE - 1));
+
+            final long prev = ArrayUtil.getAndOrVolatile(this.bitset, this.getIndexForWord(bit >>> 6), bitfield);
+            if (this.onBits != null && (prev & bitfield) == 0L) {
+                this.onBits.increment();
+            }
+            return (prev & bitfield) != 0;
         }
 
         /**
@@ -519,7 +1449,15 @@ public interface ConcurrentBitSet {
          */
         @Override
         public boolean getAndSetOff(final int bit) {
-            return this.getAndSet(bit, false);
+            this.checkBit(bit);
+
+            final long bitfield = 1L << (bit & (Long.SIZE - 1));
+
+            final long prev = ArrayUtil.getAndAndVolatile(this.bitset, this.getIndexForWord(bit >>> 6), ~bitfield);
+            if (this.onBits != null && (prev & bitfield) != 0L) {
+                this.onBits.decrement();
+            }
+            return (prev & bitfield) != 0;
         }
 
         /**
@@ -527,9 +1465,11 @@ public interface ConcurrentBitSet {
          */
         @Override
         public boolean getAndSet(final int bit, final boolean on) {
-            this.checkBit(bit);
-
-            return ArrayUtil.getAndSetVolatile(this.bitset, getIndexForBit(bit), on);
+            if (on) {
+                return this.getAndSetOn(bit);
+            } else {
+                return this.getAndSetOff(bit);
+            }
         }
 
         /**
@@ -539,15 +1479,1216 @@ public interface ConcurrentBitSet {
         public boolean flip(final int bit) {
             this.checkBit(bit);
 
-            return ArrayUtil.getAndXorVolatile(this.bitset, getIndexForBit(bit), true);
+            final long bitfield = 1L << (bit & (Long.SIZE - 1));
+
+            final long prev = ArrayUtil.getAndXorVolatile(this.bitset, this.getIndexForWord(bit >>> 6), bitfield);
+            if (this.onBits != null) {
+                this.onBits.add((prev & bitfield) == 0L ? 1L : -1L);
+            }
+            return (prev & bitfield) != 0;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int totalWords() {
+            return this.words;
         }
 
         /**
          * {@inheritDoc}
          */
         @Override
-        public boolean get(final int bit) {
-            return ArrayUtil.getVolatile(this.bitset, getIndexForBit(bit));
+        public long getWord(final int wordIndex) {
+            this.checkWord(wordIndex);
+            return ArrayUtil.getVolatile(this.bitset, this.getIndexForWord(wordIndex));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long getAndOrWord(final int wordIndex, final long mask) {
+            this.checkWord(wordIndex);
+            final int bits = this.maxBits - (wordIndex << 6);
+            final long validMask = bits >= Long.SIZE ? -1L : (1L << bits) - 1L;
+            final long prev = ArrayUtil.getAndOrVolatile(this.bitset, this.getIndexForWord(wordIndex), mask & validMask);
+            if (this.onBits != null) {
+                this.onBits.add((long)Long.bitCount(mask & validMask & ~prev));
+            }
+            return prev;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long getAndAndWord(final int wordIndex, final long mask) {
+            this.checkWord(wordIndex);
+            final long prev = ArrayUtil.getAndAndVolatile(this.bitset, this.getIndexForWord(wordIndex), mask);
+            if (this.onBits != null) {
+                this.onBits.add(-(long)Long.bitCount(prev & ~mask));
+            }
+            return prev;
+        }
+    }
+
+    /**
+     * {@link ConcurrentBitSet} offering a cache-aware implementation for bitsets. Writes to one bit field will not
+     * cause cache misses for reads/writes on other bit fields (aka, avoiding false sharing). However, this implementation
+     * will use significantly more memory (expect at least two orders of magnitude) compared to {@link LargeConcurrentBitset}.
+     */
+    class FastLargeConcurrentBitset implements ConcurrentBitSet {
+
+        protected final int maxBits;
+
+        protected final boolean[] bitset;
+
+        protected final LongAdder onBits;
+
+        public FastLargeConcurrentBitset(final int bits) {
+            this(bits, false);
+        }
+
+        /**
+         * Constructs a new bitset.
+         * @param bits The specified capacity of bits.
+         * @param countOnBits Whether to maintain a striped population counter, which makes
+         *                    {@link #getOnBitsApproximate()} O(1) at the cost of an extra update per changed bit.
+         */
+        public FastLargeConcurrentBitset(final int bits, final boolean countOnBits) {
+            if (bits <= 0) {
+                throw new IllegalArgumentException("bit count must be > 0, not: " + bits);
+            }
+
+            // allocate a cache line at the start and end of the returned buffer
+            this.bitset = new boolean[getIndexForBit(bits + 1)];
+            this.maxBits = bits;
+            this.onBits = countOnBits ? new LongAdder() : null;
+        }
+
+        protected FastLargeConcurrentBitset(final FastLargeConcurrentBitset other) {
+            final boolean[] from = other.bitset;
+            final boolean[] to = new boolean[from.length];
+
+            long onBits = 0L;
+            for (int i = 0, len = other.maxBits; i < len; ++i) {
+                final int index = getIndexForBit(i);
+                if (to[index] = ArrayUtil.getVolatile(from, index)) {
+                    ++onBits;
+                }
+            }
+
+            this.bitset = to;
+            this.maxBits = other.maxBits;
+            if (other.onBits == null) {
+                this.onBits = null;
+            } else {
+                this.onBits = new LongAdder();
+                this.onBits.add(onBits);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public FastLargeConcurrentBitset copy() {
+            return new FastLargeConcurrentBitset(this);
+        }
+
+        protected static int getIndexForBit(final int bit) {
+            return ConcurrentUtil.CACHE_LINE_SIZE * (bit + 1);
+        }
+
+        protected final void checkBit(final int bit) {
+            if (bit < 0 || bit >= this.maxBits) {
+                throw new IllegalArgumentException("Bit out of range [0," + this.maxBits + "): " + bit);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int totalBits() {
+            return this.maxBits;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int getOnBits() {
+            int ret = 0;
+            for (int i = 0, len = this.maxBits; i < len; ++i) {
+                ret += ArrayUtil.getVolatile(this.bitset, getIndexForBit(i)) ? 1 : 0;
+            }
+            return ret;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int getOnBitsApproximate() {
+            final LongAdder onBits = this.onBits;
+            return onBits == null ? this.getOnBits() : (int)getCountedOnBits(onBits, (long)this.maxBits);
+        }
+
+        /**
+         * Returns whether this bitset maintains a population counter for {@link #getOnBitsApproximate()}.
+         * @return {@code true} if ON bits are counted.
+         */
+        public boolean isCountingOnBits() {
+            return this.onBits != null;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setOn(final int bit) {
+            this.set(bit, true);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setOff(final int bit) {
+            this.set(bit, false);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void set(final int bit, final boolean value) {
+            if (this.onBits != null) {
+                this.getAndSet(bit, value);
+                return;
+            }
+
+            this.checkBit(bit);
+
+            ArrayUtil.setVolatile(this.bitset, getIndexForBit(bit), value);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean getAndSetOn(final int bit) {
+            return this.getAndSet(bit, true);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean getAndSetOff(final int bit) {
+            return this.getAndSet(bit, false);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean getAndSet(final int bit, final boolean on) {
+            this.checkBit(bit);
+
+            final boolean prev = ArrayUtil.getAndSetVolatile(this.bitset, getIndexForBit(bit), on);
+            if (this.onBits != null && prev != on) {
+                this.onBits.add(on ? 1L : -1L);
+            }
+            return prev;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean flip(final int bit) {
+            this.checkBit(bit);
+
+            final boolean prev = ArrayUtil.getAndXorVolatile(this.bitset, getIndexForBit(bit), true);
+            if (this.onBits != null) {
+                this.onBits.add(prev ? -1L : 1L);
+            }
+            return prev;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean get(final int bit) {
+            return ArrayUtil.getVolatile(this.bitset, getIndexForBit(bit));
+        }
+    }
+
+    /**
+     * {@link ConcurrentBitSet} implementation offering capacities up to {@link Long#MAX_VALUE} bits. The bits are
+     * packed into {@code long} words stored off-heap in direct {@link ByteBuffer}s, which are accessed through
+     * atomic {@link MethodHandles#byteBufferViewVarHandle(Class, ByteOrder) VarHandle views}.
+     * <p>
+     * The Java heap only holds the buffer objects, so even multi-gigabit bitsets add nothing for the garbage collector
+     * to scan or copy. Each buffer holds up to {@link #CHUNK_WORDS} words, since a buffer can be at most 2GiB large.
+     * The off-heap memory is zeroed when allocated, and is released when this bitset is garbage collected.
+     * </p>
+     * <p>
+     * Every operation of {@link ConcurrentBitSet} has an overload taking a {@code long} bit index. The {@code int}
+     * operations behave as their {@code long} overloads. Since {@link #totalBits()} and {@link #getOnBits()} return
+     * an {@code int}, they are clamped to {@link Integer#MAX_VALUE}, use {@link #totalBitsLong()} and
+     * {@link #getOnBitsLong()} instead.
+     * </p>
+     */
+    class OffHeapConcurrentBitSet implements ConcurrentBitSet {
+
+        /**
+         * The maximum number of {@code long} words stored in each off-heap buffer, so that each buffer is 1GiB large.
+         */
+        public static final int CHUNK_WORDS = 1 << 27;
+        protected static final int CHUNK_SHIFT = 27;
+
+        protected static final VarHandle BUFFER_HANDLE = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+        protected final long maxBits;
+        protected final long words;
+
+        /* CHUNK_SHIFT and CHUNK_WORDS, unless smaller chunks were requested */
+        protected final int chunkShift;
+        protected final int chunkWords;
+
+        protected final ByteBuffer[] chunks;
+
+        protected final LongAdder onBits;
+
+        public OffHeapConcurrentBitSet(final long maxBits) {
+            this(maxBits, false);
+        }
+
+        /**
+         * Constructs a new bitset.
+         * @param maxBits The specified capacity of bits.
+         * @param countOnBits Whether to maintain a striped population counter, which makes
+         *                    {@link #getOnBitsApproximate()} O(1) at the cost of an extra update per changed bit.
+         */
+        public OffHeapConcurrentBitSet(final long maxBits, final boolean countOnBits) {
+            this(maxBits, countOnBits, CHUNK_SHIFT);
+        }
+
+        /**
+         * Constructs a new bitset which stores up to {@code 1 << chunkShift} words in each off-heap buffer. Smaller
+         * buffers are only useful to exercise the buffer boundaries without allocating gigabytes.
+         * @param maxBits The specified capacity of bits.
+         * @param countOnBits Whether to maintain a striped population counter.
+         * @param chunkShift The log2 of the number of words in each buffer.
+         * @throws IllegalArgumentException If {@code chunkShift} is not in {@code [0, CHUNK_SHIFT]}, or if the
+         *                                  capacity needs more than {@link Integer#MAX_VALUE} buffers.
+         */
+        protected OffHeapConcurrentBitSet(final long maxBits, final boolean countOnBits, final int chunkShift) {
+            if (maxBits <= 0L) {
+                throw new IllegalArgumentException("Max bits must be positive");
+            }
+            if (chunkShift < 0 || chunkShift > CHUNK_SHIFT) {
+                throw new IllegalArgumentException("Chunk shift must be in [0," + CHUNK_SHIFT + "]: " + chunkShift);
+            }
+            this.maxBits = maxBits;
+            this.words = (maxBits >>> 6) + ((maxBits & (Long.SIZE - 1)) == 0L ? 0L : 1L); // ceil(maxBits / Long.SIZE)
+            this.chunkShift = chunkShift;
+            this.chunkWords = 1 << chunkShift;
+
+            final long chunks = (this.words + (this.chunkWords - 1)) >>> chunkShift;
+            if (chunks > (long)Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Too many chunks of " + this.chunkWords + " words for " + maxBits + " bits");
+            }
+            this.chunks = new ByteBuffer[(int)chunks];
+            for (int i = 0; i < this.chunks.length; ++i) {
+                final int chunkWords = (int)Math.min(this.chunkWords, this.words - ((long)i << chunkShift));
+                // atomic access requires 8 byte alignment, which direct buffers do not guarantee
+                this.chunks[i] = ByteBuffer.allocateDirect(chunkWords * Long.BYTES + (Long.BYTES - 1)).alignedSlice(Long.BYTES);
+            }
+            this.onBits = countOnBits ? new LongAdder() : null;
+            VarHandle.storeStoreFence();
+        }
+
+        /**
+         * Constructs a new bitset with its bits initialised from the specified words, see
+         * {@link ConcurrentBitSet#of(int, long[])}.
+         * @param maxBits The specified capacity of bits.
+         * @param words The initial words, which is not modified or retained.
+         * @param countOnBits Whether to maintain a striped population counter, which makes
+         *                    {@link #getOnBitsApproximate()} O(1) at the cost of an extra update per changed bit.
+         * @throws IllegalArgumentException If there are more words than needed for the capacity, or if a bit past the
+         *                                  capacity is ON.
+         */
+        public OffHeapConcurrentBitSet(final long maxBits, final long[] words, final boolean countOnBits) {
+            this(maxBits, words, countOnBits, CHUNK_SHIFT);
+        }
+
+        /**
+         * Constructs a new bitset with its bits initialised from the specified words, which stores up to
+         * {@code 1 << chunkShift} words in each off-heap buffer, see
+         * {@link #OffHeapConcurrentBitSet(long, boolean, int)}.
+         * @param maxBits The specified capacity of bits.
+         * @param words The initial words, which is not modified or retained.
+         * @param countOnBits Whether to maintain a striped population counter.
+         * @param chunkShift The log2 of the number of words in each buffer.
+         * @throws IllegalArgumentException If there are more words than needed for the capacity, if a bit past the
+         *                                  capacity is ON, or if {@code chunkShift} is not in {@code [0, CHUNK_SHIFT]}.
+         */
+        protected OffHeapConcurrentBitSet(final long maxBits, final long[] words, final boolean countOnBits, final int chunkShift) {
+            this(maxBits, countOnBits, chunkShift);
+            Validate.notNull(words, "Null words");
+
+            final long onBits = checkInitialWords(words, maxBits);
+            /* bulk copy into each chunk, the buffer views use native order so the words are not swapped */
+            for (int chunk = 0, chunks = (int)(((long)words.length + (this.chunkWords - 1)) >>> chunkShift); chunk < chunks; ++chunk) {
+                final int word = chunk << chunkShift;
+                this.chunks[chunk].duplicate().order(ByteOrder.nativeOrder()).asLongBuffer()
+                        .put(words, word, Math.min(this.chunkWords, words.length - word));
+            }
+            if (this.onBits != null) {
+                this.onBits.add(onBits);
+            }
+            VarHandle.storeStoreFence();
+        }
+
+        protected OffHeapConcurrentBitSet(final OffHeapConcurrentBitSet other) {
+            this(other.maxBits, other.onBits != null, other.chunkShift);
+
+            long onBits = 0L;
+            for (int i = 0; i < this.chunks.length; ++i) {
+                final ByteBuffer from = other.chunks[i];
+                final ByteBuffer to = this.chunks[i];
+                for (int offset = 0, len = from.capacity() & ~(Long.BYTES - 1); offset < len; offset += Long.BYTES) {
+                    final long word = getWordVolatile(from, offset);
+                    BUFFER_HANDLE.set(to, offset, word);
+                    onBits += Long.bitCount(word);
+                }
+            }
+            if (this.onBits != null) {
+                this.onBits.add(onBits);
+            }
+            VarHandle.storeStoreFence();
+        }
+
+        protected final void checkBit(final long bit) {
+            if (bit < 0L || bit >= this.maxBits) {
+                throw new IllegalArgumentException("Bit out of range [0," + this.maxBits + "): " + bit);
+            }
+        }
+
+        protected final ByteBuffer getChunk(final long bit) {
+            return this.chunks[(int)(bit >>> (6 + this.chunkShift))];
+        }
+
+        protected final int getByteOffset(final long bit) {
+            return ((int)(bit >>> 6) & (this.chunkWords - 1)) << 3; // (word % chunkWords) * Long.BYTES
+        }
+
+        protected final ByteBuffer getWordChunk(final int wordIndex) {
+            return this.chunks[wordIndex >>> this.chunkShift];
+        }
+
+        protected final int getWordByteOffset(final int wordIndex) {
+            return (wordIndex & (this.chunkWords - 1)) << 3; // (wordIndex % chunkWords) * Long.BYTES
+        }
+
+        protected static long getWordVolatile(final ByteBuffer chunk, final int offset) {
+            return (long)BUFFER_HANDLE.getVolatile(chunk, offset);
+        }
+
+        protected static long getAndOrWordVolatile(final ByteBuffer chunk, final int offset, final long param) {
+            return (long)BUFFER_HANDLE.getAndBitwiseOr(chunk, offset, param);
+        }
+
+        protected static long getAndAndWordVolatile(final ByteBuffer chunk, final int offset, final long param) {
+            return (long)BUFFER_HANDLE.getAndBitwiseAnd(chunk, offset, param);
+        }
+
+        protected static long getAndXorWordVolatile(final ByteBuffer chunk, final int offset, final long param) {
+            return (long)BUFFER_HANDLE.getAndBitwiseXor(chunk, offset, param);
+        }
+
+        /**
+         * Returns the total number of bits stored in this bitset, clamped to {@link Integer#MAX_VALUE}.
+         * @return The total number of bits stored in this bitset, clamped to {@link Integer#MAX_VALUE}.
+         * @see #totalBitsLong()
+         */
+        @Override
+        public int totalBits() {
+            return (int)Math.min((long)Integer.MAX_VALUE, this.maxBits);
+        }
+
+        /**
+         * Returns the total number of bits stored in this bitset. This value cannot change through invocations.
+         * @return The total number of bits stored in this bitset.
+         */
+        public long totalBitsLong() {
+            return this.maxBits;
+        }
+
+        /**
+         * Returns the total number of bits ON in this bitset, clamped to {@link Integer#MAX_VALUE}.
+         * Each bit is read with volatile access.
+         * <p>
+         * This function is MT-Safe but not atomic. Concurrent changes may not be observed by this function.
+         * </p>
+         * @return Total number of ON bits, clamped to {@link Integer#MAX_VALUE}.
+         * @see #getOnBitsLong()
+         */
+        @Override
+        public int getOnBits() {
+            return (int)Math.min((long)Integer.MAX_VALUE, this.getOnBitsLong());
+        }
+
+        /**
+         * Returns the total number of bits ON in this bitset. Each bit is read with volatile access.
+         * <p>
+         * This function is MT-Safe but not atomic. Concurrent changes may not be observed by this function.
+         * </p>
+         * @return Total number of ON bits.
+         */
+        public long getOnBitsLong() {
+            long ret = 0L;
+            for (final ByteBuffer chunk : this.chunks) {
+                for (int offset = 0, len = chunk.capacity() & ~(Long.BYTES - 1); offset < len; offset += Long.BYTES) {
+                    ret += Long.bitCount(getWordVolatile(chunk, offset));
+                }
+            }
+            return ret;
+        }
+
+        /**
+         * Returns the approximate total number of bits ON in this bitset, clamped to {@link Integer#MAX_VALUE}.
+         * @return Approximate number of ON bits, clamped to {@link Integer#MAX_VALUE}.
+         * @see #getOnBitsLongApproximate()
+         */
+        @Override
+        public int getOnBitsApproximate() {
+            return (int)Math.min((long)Integer.MAX_VALUE, this.getOnBitsLongApproximate());
+        }
+
+        /**
+         * Equivalent to {@link ConcurrentBitSet#getOnBitsApproximate()}, without clamping to {@link Integer#MAX_VALUE}.
+         * @return Approximate number of ON bits.
+         */
+        public long getOnBitsLongApproximate() {
+            final LongAdder onBits = this.onBits;
+            return onBits == null ? this.getOnBitsLong() : getCountedOnBits(onBits, this.maxBits);
+        }
+
+        /**
+         * Returns whether this bitset maintains a population counter for {@link #getOnBitsApproximate()}.
+         * @return {@code true} if ON bits are counted.
+         */
+        public boolean isCountingOnBits() {
+            return this.onBits != null;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean get(final int bit) {
+            return this.get((long)bit);
+        }
+
+        /**
+         * Returns whether the specified bit is set to ON. The bit is read with volatile access.
+         * <p>
+         * This function is MT-Safe and is performed atomically.
+         * </p>
+         * @param bit The specified bit.
+         * @return {@code true} if the bit is set, {@code false} otherwise.
+         */
+        public boolean get(final long bit) {
+            this.checkBit(bit);
+
+            final long bitfield = 1L << bit; // shift distance is masked to (bit % Long.SIZE)
+
+            return (getWordVolatile(this.getChunk(bit), this.getByteOffset(bit)) & bitfield) != 0L;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setOn(final int bit) {
+            this.setOn((long)bit);
+        }
+
+        /**
+         * Sets the bit at the specified index to ON. The bit is written with volatile access.
+         * <p>
+         * This function is MT-Safe and is performed atomically.
+         * </p>
+         * @param bit The specified bit.
+         */
+        public void setOn(final long bit) {
+            this.getAndSetOn(bit);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setOff(final int bit) {
+            this.setOff((long)bit);
+        }
+
+        /**
+         * Sets the bit at the specified index to OFF. The bit is written with volatile access.
+         * <p>
+         * This function is MT-Safe and is performed atomically.
+         * </p>
+         * @param bit The specified bit.
+         */
+        public void setOff(final long bit) {
+            this.getAndSetOff(bit);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void set(final int bit, final boolean on) {
+            this.set((long)bit, on);
+        }
+
+        /**
+         * Sets the specified bit to the specified value. The write to the specified bit is made with volatile access.
+         * <p>
+         * This function is MT-Safe and is performed atomically.
+         * </p>
+         * @param bit The specified bit.
+         * @param on Whether to set the bit to ON.
+         */
+        public void set(final long bit, final boolean on) {
+            if (on) {
+                this.setOn(bit);
+            } else {
+                this.setOff(bit);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean getAndSetOn(final int bit) {
+            return this.getAndSetOn((long)bit);
+        }
+
+        /**
+         * Sets the specified bit to ON and returns the previous state of the bit. The operation is made with volatile access.
+         * <p>
+         * This function is MT-Safe and is performed atomically.
+         * </p>
+         * @param bit The specified bit.
+         * @return The previous value of the bit.
+         */
+        public boolean getAndSetOn(final long bit) {
+            this.checkBit(bit);
+
+            final long bitfield = 1L << bit;
+
+            final long prev = getAndOrWordVolatile(this.getChunk(bit), this.getByteOffset(bit), bitfield);
+            if (this.onBits != null && (prev & bitfield) == 0L) {
+                this.onBits.increment();
+            }
+            return (prev & bitfield) != 0L;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean getAndSetOff(final int bit) {
+            return this.getAndSetOff((long)bit);
+        }
+
+        /**
+         * Sets the specified bit to OFF and returns the previous state of the bit. The operation is made with volatile access.
+         * <p>
+         * This function is MT-Safe and is performed atomically.
+         * </p>
+         * @param bit The specified bit.
+         * @return The previous value of the bit.
+         */
+        public boolean getAndSetOff(final long bit) {
+            this.checkBit(bit);
+
+            final long bitfield = 1L << bit;
+
+            final long prev = getAndAndWordVolatile(this.getChunk(bit), this.getByteOffset(bit), ~bitfield);
+            if (this.onBits != null && (prev & bitfield) != 0L) {
+                this.onBits.decrement();
+            }
+            return (prev & bitfield) != 0L;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean getAndSet(final int bit, final boolean on) {
+            return this.getAndSet((long)bit, on);
+        }
+
+        /**
+         * Sets the specified bit to the specified value and returns the previous state of the bit. The operation is made with volatile access.
+         * <p>
+         * This function is MT-Safe and is performed atomically.
+         * </p>
+         * @param bit The specified bit.
+         * @param on The specified value.
+         * @return The previous value of the bit.
+         */
+        public boolean getAndSet(final long bit, final boolean on) {
+            if (on) {
+                return this.getAndSetOn(bit);
+            } else {
+                return this.getAndSetOff(bit);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean flip(final int bit) {
+            return this.flip((long)bit);
+        }
+
+        /**
+         * Flips the specified bit. The write to the specified bit is made with volatile access, and the read is made with
+         * volatile access. Both the read and write are performed atomically.
+         * <p>
+         * This function is MT-Safe.
+         * </p>
+         * @param bit The specified bit
+         * @return The previous value of the specified bit
+         */
+        public boolean flip(final long bit) {
+            this.checkBit(bit);
+
+            final long bitfield = 1L << bit;
+
+            final long prev = getAndXorWordVolatile(this.getChunk(bit), this.getByteOffset(bit), bitfield);
+            if (this.onBits != null) {
+                this.onBits.add((prev & bitfield) == 0L ? 1L : -1L);
+            }
+            return (prev & bitfield) != 0L;
+        }
+
+        protected final void checkWord(final int wordIndex) {
+            if (wordIndex < 0 || (long)wordIndex >= this.words) {
+                throw new IllegalArgumentException("Word out of range [0," + this.words + "): " + wordIndex);
+            }
+        }
+
+        /**
+         * Returns the number of 64-bit words, clamped to {@link Integer#MAX_VALUE}. The word-level operations of
+         * {@link ConcurrentBitSet} can only access the first {@link Integer#MAX_VALUE} words.
+         * @return The number of words, clamped to {@link Integer#MAX_VALUE}.
+         */
+        @Override
+        public int totalWords() {
+            return (int)Math.min((long)Integer.MAX_VALUE, this.words);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long getWord(final int wordIndex) {
+            this.checkWord(wordIndex);
+            return getWordVolatile(this.getWordChunk(wordIndex), this.getWordByteOffset(wordIndex));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long getAndOrWord(final int wordIndex, final long mask) {
+            this.checkWord(wordIndex);
+            final long bits = this.maxBits - ((long)wordIndex << 6);
+            final long validMask = bits >= Long.SIZE ? -1L : (1L << bits) - 1L;
+            final long prev = getAndOrWordVolatile(this.getWordChunk(wordIndex), this.getWordByteOffset(wordIndex), mask & validMask);
+            if (this.onBits != null) {
+                this.onBits.add((long)Long.bitCount(mask & validMask & ~prev));
+            }
+            return prev;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long getAndAndWord(final int wordIndex, final long mask) {
+            this.checkWord(wordIndex);
+            final long prev = getAndAndWordVolatile(this.getWordChunk(wordIndex), this.getWordByteOffset(wordIndex), mask);
+            if (this.onBits != null) {
+                this.onBits.add(-(long)Long.bitCount(prev & ~mask));
+            }
+            return prev;
+        }
+
+        /**
+         * {@inheritDoc}
+         * @throws IllegalStateException If this bitset has more words than an array can hold.
+         */
+        @Override
+        public long[] toLongArray() {
+            if (this.words > (long)(Integer.MAX_VALUE - 8)) {
+                throw new IllegalStateException("Too many words for an array: " + this.words);
+            }
+            final long[] ret = new long[(int)this.words];
+            for (int i = 0; i < this.chunks.length; ++i) {
+                final ByteBuffer chunk = this.chunks[i];
+                final int base = i << this.chunkShift;
+                for (int offset = 0, len = chunk.capacity() & ~(Long.BYTES - 1); offset < len; offset += Long.BYTES) {
+                    ret[base + (offset >>> 3)] = getWordVolatile(chunk, offset);
+                }
+            }
+            return ret;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public OffHeapConcurrentBitSet copy() {
+            return new OffHeapConcurrentBitSet(this);
+        }
+    }
+
+    /**
+     * {@link ConcurrentBitSet} implementation offering capacities up to {@link Integer#MAX_VALUE} bits, which keeps
+     * summaries of its words so that {@link #nextSetBit(int)}, {@link #nextClearBit(int)} and
+     * {@link #claimNextClearBit(int)} skip over empty and full words instead of reading every word.
+     * <p>
+     * The bits are packed into a {@code long} array as with {@link LargeConcurrentBitset}. Two summary hierarchies are
+     * kept, one for ON bits and one for OFF bits. The first level of each has one bit per word of the bitset, which is
+     * ON if the word has any ON (respectively OFF) bit, and every further level has one bit per word of the level
+     * below, which is ON if that word is non-zero. Levels are added until a level fits in a single word, so a search
+     * reads {@code O(log64(n))} words, at the cost of about 1/32 extra memory.
+     * </p>
+     * <p>
+     * The summaries are maintained without locks. A write which makes a word empty, non-empty, full or non-full
+     * updates the summary bit for that word and then re-reads the word, repeating until the summary bit agrees with the
+     * word, and propagates to the next level in the same way. The summaries are therefore only hints while writes are
+     * in progress: searches always confirm a result against the bitset itself, but may miss bits changed concurrently,
+     * as the specification of {@link ConcurrentBitSet#nextSetBit(int)} allows. Once all writes have completed, the
+     * summaries exactly match the bitset.
+     * </p>
+     * <p>
+     * Writes which change whether a word is empty or full are more expensive than with {@link LargeConcurrentBitset},
+     * other writes cost the same. This implementation is intended for slot allocators, where
+     * {@link #claimNextClearBit()} would otherwise have to read every word in front of the first free slot.
+     * </p>
+     */
+    class HierarchicalConcurrentBitSet implements ConcurrentBitSet {
+
+        protected final int maxBits;
+
+        protected final long[] bitset;
+
+        /* summary[0] has one bit per word of bitset, summary[n] has one bit per word of summary[n - 1] */
+        protected final long[][] setSummary;
+        protected final long[][] clearSummary;
+
+        public HierarchicalConcurrentBitSet(final int maxBits) {
+            this(maxBits, new long[0]);
+        }
+
+        /**
+         * Constructs a new bitset with its bits initialised from the specified words, see
+         * {@link ConcurrentBitSet#of(int, long[])}.
+         * @param maxBits The specified capacity of bits.
+         * @param words The initial words, which is not modified or retained.
+         * @throws IllegalArgumentException If there are more words than needed for the capacity, or if a bit past the
+         *                                  capacity is ON.
+         */
+        public HierarchicalConcurrentBitSet(final int maxBits, final long[] words) {
+            if (maxBits <= 0) {
+                throw new IllegalArgumentException("Max bits must be positive");
+            }
+            Validate.notNull(words, "Null words");
+            checkInitialWords(words, maxBits);
+
+            this.maxBits = maxBits;
+            this.bitset = new long[(int)(((long)maxBits + (Long.SIZE - 1)) >>> 6)];
+            System.arraycopy(words, 0, this.bitset, 0, words.length);
+
+            int levels = 0;
+            for (int length = this.bitset.length; length > 1; length = (length + (Long.SIZE - 1)) >>> 6) {
+                ++levels;
+            }
+            this.setSummary = new long[levels][];
+            this.clearSummary = new long[levels][];
+
+            /* build each level from the one below, which is complete by the time it is read */
+            for (int level = 0, length = this.bitset.length; level < levels; ++level) {
+                final long[] setSummary = new long[(length + (Long.SIZE - 1)) >>> 6];
+                final long[] clearSummary = new long[setSummary.length];
+                this.setSummary[level] = setSummary;
+                this.clearSummary[level] = clearSummary;
+                for (int i = 0; i < length; ++i) {
+                    if (this.isNonZero(false, level, i)) {
+                        setSummary[i >>> 6] |= 1L << i;
+                    }
+                    if (this.isNonZero(true, level, i)) {
+                        clearSummary[i >>> 6] |= 1L << i;
+                    }
+                }
+                length = setSummary.length;
+            }
+            VarHandle.storeStoreFence();
+        }
+
+        protected final void checkBit(final int bit) {
+            if (bit < 0 || bit >= this.maxBits) {
+                throw new IllegalArgumentException("Bit out of range [0," + this.maxBits + "): " + bit);
+            }
+        }
+
+        protected final void checkWord(final int wordIndex) {
+            if (wordIndex < 0 || wordIndex >= this.bitset.length) {
+                throw new IllegalArgumentException("Word out of range [0," + this.bitset.length + "): " + wordIndex);
+            }
+        }
+
+        protected final long getValidMask(final int wordIndex) {
+            final int bits = this.maxBits - (wordIndex << 6);
+            return bits >= Long.SIZE ? -1L : (1L << bits) - 1L;
+        }
+
+        /**
+         * Returns the specified word of the specified level. Level 0 is the bitset, inverted for the OFF hierarchy, and
+         * level {@code n} is summary level {@code n - 1}.
+         */
+        protected final long getLevelWord(final boolean clear, final int level, final int wordIndex) {
+            if (level == 0) {
+                final long word = ArrayUtil.getVolatile(this.bitset, wordIndex);
+                return clear ? ~word & this.getValidMask(wordIndex) : word;
+            }
+            return ArrayUtil.getVolatile((clear ? this.clearSummary : this.setSummary)[level - 1], wordIndex);
+        }
+
+        protected final int getLevelLength(final int level) {
+            return level == 0 ? this.bitset.length : this.setSummary[level - 1].length;
+        }
+
+        protected final boolean isNonZero(final boolean clear, final int level, final int wordIndex) {
+            return this.getLevelWord(clear, level, wordIndex) != 0L;
+        }
+
+        /**
+         * Brings the summaries up to date after a write changed the specified word of the bitset from the specified
+         * previous value to the specified new value.
+         */
+        protected final void updateSummaries(final int wordIndex, final long prev, final long next) {
+            if (this.setSummary.length == 0) {
+                return;
+            }
+            if ((prev == 0L) != (next == 0L)) {
+                this.propagate(false, wordIndex);
+            }
+            final long validMask = this.getValidMask(wordIndex);
+            if (((~prev & validMask) == 0L) != ((~next & validMask) == 0L)) {
+                this.propagate(true, wordIndex);
+            }
+        }
+
+        protected final void propagate(final boolean clear, int wordIndex) {
+            final long[][] summaries = clear ? this.clearSummary : this.setSummary;
+            for (int level = 0; level < summaries.length; ++level) {
+                final long[] summary = summaries[level];
+                final int summaryIndex = wordIndex >>> 6;
+                final long bit = 1L << wordIndex;
+
+                boolean changed = false;
+                for (;;) {
+                    final boolean nonZero = this.isNonZero(clear, level, wordIndex);
+                    final long prev = nonZero ? ArrayUtil.getAndOrVolatile(summary, summaryIndex, bit) : ArrayUtil.getAndAndVolatile(summary, summaryIndex, ~bit);
+                    final long next = nonZero ? prev | bit : prev & ~bit;
+                    /* every change to whether a summary word is zero must be followed by an update of the next level */
+                    changed |= (prev == 0L) != (next == 0L);
+                    /* the word may have been changed after it was read, in which case the bit we wrote may be stale */
+                    if (this.isNonZero(clear, level, wordIndex) == nonZero) {
+                        break;
+                    }
+                }
+
+                if (!changed) {
+                    return;
+                }
+                wordIndex = summaryIndex;
+            }
+        }
+
+        /**
+         * Returns the index of the first ON bit at or after the specified index in the specified level, using the
+         * next level to skip zero words, or {@code -1} if there is none.
+         */
+        protected final int findNext(final boolean clear, final int level, final int fromIndex) {
+            final int length = this.getLevelLength(level);
+            final boolean top = level == this.setSummary.length;
+
+            int word = fromIndex >>> 6;
+            long fromMask = -1L << fromIndex;
+            while (word < length) {
+                final long bits = this.getLevelWord(clear, level, word) & fromMask;
+                if (bits != 0L) {
+                    return (word << 6) | Long.numberOfTrailingZeros(bits);
+                }
+                fromMask = -1L;
+                if (top) {
+                    ++word;
+                    continue;
+                }
+                /* the summary may be stale, so the word it points to is checked again above */
+                word = this.findNext(clear, level + 1, word + 1);
+                if (word < 0) {
+                    return -1;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int totalBits() {
+            return this.maxBits;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int getOnBits() {
+            int ret = 0;
+            for (int i = 0, len = this.bitset.length; i < len; ++i) {
+                ret += Long.bitCount(ArrayUtil.getVolatile(this.bitset, i));
+            }
+            return ret;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean get(final int bit) {
+            this.checkBit(bit);
+
+            final long bitfield = 1L << (bit & (Long.SIZE - 1));
+
+            return (ArrayUtil.getVolatile(this.bitset, bit >>> 6) & bitfield) != 0;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setOn(final int bit) {
+            this.getAndSetOn(bit);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setOff(final int bit) {
+            this.getAndSetOff(bit);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void set(final int bit, final boolean on) {
+            if (on) {
+                this.setOn(bit);
+            } else {
+                this.setOff(bit);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean getAndSetOn(final int bit) {
+            this.checkBit(bit);
+
+            final long bitfield = 1L << (bit & (Long.SIZE - 1));
+            final int index = bit >>> 6; // bit / LONG.SIZE
+
+            final long prev = ArrayUtil.getAndOrVolatile(this.bitset, index, bitfield);
+            this.updateSummaries(index, prev, prev | bitfield);
+            return (prev & bitfield) != 0;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean getAndSetOff(final int bit) {
+            this.checkBit(bit);
+
+            final long bitfield = 1L << (bit & (Long.SIZE - 1));
+            final int index = bit >>> 6; // bit / LONG.SIZE
+
+            final long prev = ArrayUtil.getAndAndVolatile(this.bitset, index, ~bitfield);
+            this.updateSummaries(index, prev, prev & ~bitfield);
+            return (prev & bitfield) != 0;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean getAndSet(final int bit, final boolean on) {
+            if (on) {
+                return this.getAndSetOn(bit);
+            } else {
+                return this.getAndSetOff(bit);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean flip(final int bit) {
+            this.checkBit(bit);
+
+            final long bitfield = 1L << (bit & (Long.SIZE - 1));
+            final int index = bit >>> 6; // bit / LONG.SIZE
+
+            final long prev = ArrayUtil.getAndXorVolatile(this.bitset, index, bitfield);
+            this.updateSummaries(index, prev, prev ^ bitfield);
+            return (prev & bitfield) != 0;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int totalWords() {
+            return this.bitset.length;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long getWord(final int wordIndex) {
+            this.checkWord(wordIndex);
+            return ArrayUtil.getVolatile(this.bitset, wordIndex);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long getAndOrWord(final int wordIndex, final long mask) {
+            this.checkWord(wordIndex);
+            final long validMask = mask & this.getValidMask(wordIndex);
+            final long prev = ArrayUtil.getAndOrVolatile(this.bitset, wordIndex, validMask);
+            this.updateSummaries(wordIndex, prev, prev | validMask);
+            return prev;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long getAndAndWord(final int wordIndex, final long mask) {
+            this.checkWord(wordIndex);
+            final long prev = ArrayUtil.getAndAndVolatile(this.bitset, wordIndex, mask);
+            this.updateSummaries(wordIndex, prev, prev & mask);
+            return prev;
+        }
+
+        /**
+         * {@inheritDoc}
+         * <p>
+         * Empty words are skipped using the summaries, so this function reads {@code O(log64(n))} words.
+         * </p>
+         */
+        @Override
+        public int nextSetBit(final int fromBit) {
+            if (fromBit < 0) {
+                throw new IllegalArgumentException("From bit may not be negative: " + fromBit);
+            }
+            if (fromBit >= this.maxBits) {
+                return -1;
+            }
+            return this.findNext(false, 0, fromBit);
+        }
+
+        /**
+         * {@inheritDoc}
+         * <p>
+         * Full words are skipped using the summaries, so this function reads {@code O(log64(n))} words.
+         * </p>
+         */
+        @Override
+        public int nextClearBit(final int fromBit) {
+            if (fromBit < 0) {
+                throw new IllegalArgumentException("From bit may not be negative: " + fromBit);
+            }
+            if (fromBit >= this.maxBits) {
+                return -1;
+            }
+            return this.findNext(true, 0, fromBit);
+        }
+
+        /**
+         * {@inheritDoc}
+         * <p>
+         * Full words are skipped using the summaries, see {@link #nextClearBit(int)}.
+         * </p>
+         */
+        @Override
+        public int claimNextClearBit(final int fromBit) {
+            for (int bit = fromBit;;) {
+                bit = this.nextClearBit(bit);
+                if (bit < 0 || !this.getAndSetOn(bit)) {
+                    return bit;
+                }
+                /* lost the race, the bit is now ON so the next search moves past it */
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long[] toLongArray() {
+            final long[] bitset = this.bitset;
+            final long[] ret = new long[bitset.length];
+            for (int i = 0; i < ret.length; ++i) {
+                ret[i] = ArrayUtil.getVolatile(bitset, i);
+            }
+            return ret;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public HierarchicalConcurrentBitSet copy() {
+            return new HierarchicalConcurrentBitSet(this.maxBits, this.toLongArray());
         }
     }
-}
+}
\ No newline at end of file
@@ -792,7 +792,7 @@ public final class ArrayUtil {
 
     @SuppressWarnings("unchecked")
     public static <T> T getAndSetVolatile(final T[] array, final int index, final T param) {
-        final Object ret = BYTE_ARRAY_HANDLE.getAndSet((Object[])array, index, (Object)param);
+        final Object ret = OBJECT_ARRAY_HANDLE.getAndSet((Object[])array, index, (Object)param);
         return (T)ret;
     }
 
@@ -0,0 +1,86 @@
+package io.denery.concurrentutil.lock;
+
+import ca.spottedleaf.concurrentutil.lock.ReaderBiasedSeqLock;
+import ca.spottedleaf.concurrentutil.lock.SeqLock;
+import ca.spottedleaf.concurrentutil.lock.SeqLockWaitStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that a writer revoking the read bias of a {@link ReaderBiasedSeqLock} waits for readers with the wait
+ * strategy of the lock, and that parking strategies cannot strand it.
+ */
+public class ReaderBiasedSeqLockTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000L;
+
+    /* counts the waits made while the observed counter is even, which is how revocation waits */
+    private static final class CountingStrategy extends SeqLockWaitStrategy {
+
+        private final AtomicInteger evenWaits = new AtomicInteger();
+
+        @Override
+        public void await(final SeqLock lock, final int observed, final int failures) {
+            if (lock.canRead(observed)) {
+                this.evenWaits.getAndIncrement();
+            }
+            Thread.yield();
+        }
+    }
+
+    private static void awaitCondition(final BooleanSupplier condition, final String message)
+            throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MILLIS);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, message);
+            Thread.sleep(1L);
+        }
+    }
+
+    /* holds a read-biased read while a writer revokes the bias, then releases it and checks the writer completes */
+    private static void revokeWithReader(final ReaderBiasedSeqLock lock, final BooleanSupplier writerWaiting)
+            throws InterruptedException {
+        assertTrue(lock.isReadBiased(), "initially read-biased");
+        final int read = lock.acquireRead();
+        assertTrue(read < 0, "read is read-biased");
+
+        final Thread writer = new Thread(() -> {
+            lock.acquireWrite();
+            lock.releaseWrite();
+        }, "writer");
+        writer.start();
+
+        awaitCondition(() -> !lock.isReadBiased(), "writer did not revoke the bias");
+        awaitCondition(writerWaiting, "writer did not wait for the reader");
+        assertTrue(writer.isAlive(), "writer completed while a biased read was held");
+
+        assertTrue(lock.tryReleaseRead(read), "release biased read");
+        writer.join(TIMEOUT_MILLIS);
+        assertFalse(writer.isAlive(), "writer hung after the reader released");
+        assertEquals(2, lock.getSequentialCounter(), "counter after one write");
+    }
+
+    @Test
+    public void testRevocationUsesWaitStrategy() throws InterruptedException {
+        final CountingStrategy strategy = new CountingStrategy();
+        final ReaderBiasedSeqLock lock = new ReaderBiasedSeqLock(4, strategy);
+
+        revokeWithReader(lock, () -> strategy.evenWaits.get() > 0);
+    }
+
+    @Test
+    public void testRevocationWithParkingStrategy() throws InterruptedException {
+        for (final SeqLockWaitStrategy strategy : new SeqLockWaitStrategy[] { SeqLockWaitStrategy.spinThenPark(0), SeqLockWaitStrategy.adaptive() }) {
+            final ReaderBiasedSeqLock lock = new ReaderBiasedSeqLock(4, strategy);
+            /* these would park until the counter changes, which only the waiting writer can do */
+            revokeWithReader(lock, () -> true);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package io.denery.concurrentutil.lock;
+
+import ca.spottedleaf.concurrentutil.lock.SeqLock;
+import ca.spottedleaf.concurrentutil.lock.SeqLockArray;
+import ca.spottedleaf.concurrentutil.lock.SeqLockWaitStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiPredicate;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that threads waiting on a lock of a {@link SeqLockArray} wait with the wait strategy of the array, receiving
+ * a view of the lock at the waited index, and that parked threads are woken by the release of that index.
+ */
+public class SeqLockArrayTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000L;
+
+    /* counts the waits and the write hooks, and records the counter of the first waited lock */
+    private static final class CountingStrategy extends SeqLockWaitStrategy {
+
+        private final AtomicInteger waits = new AtomicInteger();
+        private final AtomicInteger acquires = new AtomicInteger();
+        private final AtomicInteger releases = new AtomicInteger();
+        private final AtomicInteger waitedCounter = new AtomicInteger(-1);
+
+        @Override
+        public void await(final SeqLock lock, final int observed, final int failures) {
+            this.waitedCounter.compareAndSet(-1, lock.getSequentialCounter());
+            this.waits.getAndIncrement();
+            Thread.yield();
+        }
+
+        @Override
+        public void onAcquireWrite(final SeqLock lock) {
+            this.acquires.getAndIncrement();
+        }
+
+        @Override
+        public void onReleaseWrite(final SeqLock lock) {
+            this.releases.getAndIncrement();
+        }
+    }
+
+    private static void awaitCondition(final BooleanSupplier condition, final String message)
+            throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MILLIS);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, message);
+            Thread.sleep(1L);
+        }
+    }
+
+    /* holds the write lock at index 1 while a reader and a writer wait on it, then releases it */
+    private static void waitOnHeldIndex(final SeqLockArray array, final BiPredicate<Thread, Thread> waiting)
+            throws InterruptedException {
+        array.acquireWrite(1);
+
+        final Thread reader = new Thread(() -> array.acquireRead(1), "reader");
+        final Thread writer = new Thread(() -> {
+            array.acquireWrite(1);
+            array.releaseWrite(1);
+        }, "writer");
+        reader.setDaemon(true);
+        writer.setDaemon(true);
+        reader.start();
+        writer.start();
+
+        awaitCondition(() -> waiting.test(reader, writer), "waiters did not wait with the strategy");
+        /* writes to other indices must not release the waiters */
+        array.acquireWrite(0);
+        array.releaseWrite(0);
+        assertTrue(reader.isAlive() && writer.isAlive(), array.getWaitStrategy() + ": released by another index");
+
+        array.releaseWrite(1);
+        reader.join(TIMEOUT_MILLIS);
+        writer.join(TIMEOUT_MILLIS);
+        assertFalse(reader.isAlive(), array.getWaitStrategy() + ": reader hung after release");
+        assertFalse(writer.isAlive(), array.getWaitStrategy() + ": writer hung after release");
+        assertEquals(4, array.getSequentialCounter(1), array.getWaitStrategy() + ": counter after two writes");
+        assertEquals(2, array.getSequentialCounter(0), array.getWaitStrategy() + ": counter of the other index");
+    }
+
+    @Test
+    public void testDefaultStrategy() {
+        assertSame(SeqLockWaitStrategy.defaultStrategy(), new SeqLockArray(2).getWaitStrategy(), "unpadded");
+        assertSame(SeqLockWaitStrategy.defaultStrategy(), new SeqLockArray(2, true).getWaitStrategy(), "padded");
+    }
+
+    @Test
+    public void testWaitUsesStrategy() throws InterruptedException {
+        final CountingStrategy strategy = new CountingStrategy();
+        final SeqLockArray array = new SeqLockArray(2, true, strategy);
+
+        waitOnHeldIndex(array, (final Thread reader, final Thread writer) -> strategy.waits.get() > 1);
+        assertEquals(1, strategy.waitedCounter.get(), "waited on the view of the held index");
+        assertEquals(3, strategy.acquires.get(), "write acquisitions");
+        assertEquals(3, strategy.releases.get(), "write releases");
+
+        assertTrue(array.tryAcquireWrite(1), "try acquire");
+        array.abortWrite(1);
+        assertEquals(4, strategy.acquires.get(), "write acquisitions after try acquire");
+        assertEquals(4, strategy.releases.get(), "write releases after abort");
+    }
+
+    @Test
+    public void testParkingStrategy() throws InterruptedException {
+        final SeqLockArray array = new SeqLockArray(2, false, SeqLockWaitStrategy.spinThenPark(0));
+
+        waitOnHeldIndex(array, (final Thread reader, final Thread writer) ->
+                reader.getState() == Thread.State.WAITING && writer.getState() == Thread.State.WAITING);
+    }
+}
@@ -0,0 +1,110 @@
+package io.denery.concurrentutil.lock;
+
+import ca.spottedleaf.concurrentutil.lock.SeqLock;
+import ca.spottedleaf.concurrentutil.lock.SeqLocked;
+import ca.spottedleaf.concurrentutil.lock.VolatileSeqLock;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that single element reads of {@link SeqLocked.OfLongs} and {@link SeqLocked.OfInts} give up optimistic
+ * reading after {@link SeqLocked#getMaxOptimisticReads()} attempts, and that single element writes advance the
+ * sequential counter once.
+ */
+public class SeqLockedTest {
+
+    private static final int MAX_OPTIMISTIC_READS = 5;
+
+    /* a lock on which every optimistic read fails, so only the pessimistic fallback can complete a read */
+    private static final class FailingReadsLock implements SeqLock {
+
+        private final VolatileSeqLock lock = new VolatileSeqLock();
+        private int reads;
+        private int writes;
+
+        @Override
+        public void acquireWrite() {
+            ++this.writes;
+            this.lock.acquireWrite();
+        }
+
+        @Override
+        public boolean tryAcquireWrite() {
+            return this.lock.tryAcquireWrite();
+        }
+
+        @Override
+        public void releaseWrite() {
+            this.lock.releaseWrite();
+        }
+
+        @Override
+        public void abortWrite() {
+            this.lock.abortWrite();
+        }
+
+        @Override
+        public int acquireRead() {
+            ++this.reads;
+            return this.lock.acquireRead();
+        }
+
+        @Override
+        public boolean tryReleaseRead(final int read) {
+            return false;
+        }
+
+        @Override
+        public int getSequentialCounter() {
+            return this.lock.getSequentialCounter();
+        }
+    }
+
+    @Test
+    public void testOfLongsGetFallsBack() {
+        final FailingReadsLock lock = new FailingReadsLock();
+        final SeqLocked.OfLongs seqLocked = new SeqLocked.OfLongs(3, lock, MAX_OPTIMISTIC_READS);
+        seqLocked.set(new long[] { 1L, Long.MIN_VALUE, 3L });
+        final int counter = lock.getSequentialCounter();
+
+        assertEquals(Long.MIN_VALUE, seqLocked.get(1), "element");
+        assertEquals(MAX_OPTIMISTIC_READS, lock.reads, "optimistic reads");
+        assertEquals(2, lock.writes, "write lock acquisitions");
+        assertEquals(counter, lock.getSequentialCounter(), "fallback must abort the write");
+    }
+
+    @Test
+    public void testOfIntsGetFallsBack() {
+        final FailingReadsLock lock = new FailingReadsLock();
+        final SeqLocked.OfInts seqLocked = new SeqLocked.OfInts(3, lock, MAX_OPTIMISTIC_READS);
+        seqLocked.set(new int[] { 1, Integer.MIN_VALUE, 3 });
+        final int counter = lock.getSequentialCounter();
+
+        assertEquals(Integer.MIN_VALUE, seqLocked.get(1), "element");
+        assertEquals(MAX_OPTIMISTIC_READS, lock.reads, "optimistic reads");
+        assertEquals(2, lock.writes, "write lock acquisitions");
+        assertEquals(counter, lock.getSequentialCounter(), "fallback must abort the write");
+    }
+
+    @Test
+    public void testSetElement() {
+        final SeqLocked.OfLongs longs = new SeqLocked.OfLongs(2);
+        final SeqLocked.OfInts ints = new SeqLocked.OfInts(2);
+
+        longs.set(1, -1L);
+        ints.set(1, -1);
+        assertEquals(2, longs.getLock().getSequentialCounter(), "OfLongs counter");
+        assertEquals(2, ints.getLock().getSequentialCounter(), "OfInts counter");
+        assertEquals(-1L, longs.get(1), "OfLongs element");
+        assertEquals(-1, ints.get(1), "OfInts element");
+
+        assertThrows(IndexOutOfBoundsException.class, () -> longs.set(2, 0L));
+        assertThrows(IndexOutOfBoundsException.class, () -> ints.set(-1, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> longs.get(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> ints.get(-1));
+        assertEquals(2, longs.getLock().getSequentialCounter(), "OfLongs counter after out of bounds");
+        assertEquals(2, ints.getLock().getSequentialCounter(), "OfInts counter after out of bounds");
+    }
+}
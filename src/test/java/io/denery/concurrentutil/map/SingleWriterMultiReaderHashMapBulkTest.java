@@ -0,0 +1,158 @@
+package io.denery.concurrentutil.map;
+
+import ca.spottedleaf.concurrentutil.map.SingleWriterMultiReaderHashMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the parallel bulk operations of {@link SingleWriterMultiReaderHashMap} against the same operations run
+ * sequentially on a {@link HashMap}, with thresholds that always split the operation and that never split it.
+ */
+public class SingleWriterMultiReaderHashMapBulkTest {
+
+    private static final long[] THRESHOLDS = new long[] { 1L, 1_000L, Long.MAX_VALUE };
+    private static final int[] SIZES = new int[] { 0, 1, 2, 5_000 };
+
+    private static Map<Integer, Integer> oracle(final int size) {
+        final Map<Integer, Integer> ret = new HashMap<>();
+        for (int i = 0; i < size; ++i) {
+            ret.put(Integer.valueOf(i * 7), Integer.valueOf(i));
+        }
+        return ret;
+    }
+
+    private static SingleWriterMultiReaderHashMap<Integer, Integer> create(final Map<Integer, Integer> oracle) {
+        final SingleWriterMultiReaderHashMap<Integer, Integer> ret = new SingleWriterMultiReaderHashMap<>(2);
+        ret.putAll(oracle);
+        /* removed entries must not be reported by any operation */
+        for (int i = -1; i >= -100; --i) {
+            ret.put(Integer.valueOf(i), Integer.valueOf(i));
+            ret.remove(Integer.valueOf(i));
+        }
+        return ret;
+    }
+
+    @Test
+    public void testForEach() {
+        for (final int size : SIZES) {
+            final Map<Integer, Integer> oracle = oracle(size);
+            final SingleWriterMultiReaderHashMap<Integer, Integer> map = create(oracle);
+            for (final long threshold : THRESHOLDS) {
+                final String name = size + " entries threshold " + threshold;
+
+                final Map<Integer, Integer> entries = new ConcurrentHashMap<>();
+                final AtomicInteger calls = new AtomicInteger();
+                map.forEach(threshold, (final Integer key, final Integer value) -> {
+                    calls.getAndIncrement();
+                    entries.put(key, value);
+                });
+                assertEquals(oracle, entries, name + ": forEach");
+                assertEquals(size, calls.get(), name + ": forEach calls");
+
+                final Map<Integer, Integer> keys = new ConcurrentHashMap<>();
+                map.forEachKey(threshold, (final Integer key) -> {
+                    keys.merge(key, Integer.valueOf(1), Integer::sum);
+                });
+                final Map<Integer, Integer> values = new ConcurrentHashMap<>();
+                map.forEachValue(threshold, (final Integer value) -> {
+                    values.merge(value, Integer.valueOf(1), Integer::sum);
+                });
+
+                final Map<Integer, Integer> expectedKeys = new HashMap<>();
+                final Map<Integer, Integer> expectedValues = new HashMap<>();
+                for (final Map.Entry<Integer, Integer> entry : oracle.entrySet()) {
+                    expectedKeys.merge(entry.getKey(), Integer.valueOf(1), Integer::sum);
+                    expectedValues.merge(entry.getValue(), Integer.valueOf(1), Integer::sum);
+                }
+                assertEquals(expectedKeys, keys, name + ": forEachKey");
+                assertEquals(expectedValues, values, name + ": forEachValue");
+            }
+        }
+    }
+
+    @Test
+    public void testSearch() {
+        for (final int size : SIZES) {
+            final Map<Integer, Integer> oracle = oracle(size);
+            final SingleWriterMultiReaderHashMap<Integer, Integer> map = create(oracle);
+            for (final long threshold : THRESHOLDS) {
+                final String name = size + " entries threshold " + threshold;
+
+                for (final Map.Entry<Integer, Integer> entry : oracle.entrySet()) {
+                    if (entry.getValue().intValue() % 97 != size % 97) {
+                        continue;
+                    }
+                    final Integer target = entry.getKey();
+                    assertEquals(entry.getValue(), map.search(threshold, (final Integer key, final Integer value) -> {
+                        return key.equals(target) ? value : null;
+                    }), name + ": search " + target);
+                    assertEquals(target, map.searchKeys(threshold, (final Integer key) -> {
+                        return key.equals(target) ? key : null;
+                    }), name + ": searchKeys " + target);
+                    assertEquals(target, map.searchValues(threshold, (final Integer value) -> {
+                        return value.equals(entry.getValue()) ? target : null;
+                    }), name + ": searchValues " + target);
+                }
+
+                /* the removed entries must not be found, and neither may absent ones */
+                assertNull(map.search(threshold, (final Integer key, final Integer value) -> {
+                    return key.intValue() < 0 || (key.intValue() % 7) != 0 ? key : null;
+                }), name + ": search absent");
+                assertNull(map.searchKeys(threshold, (final Integer key) -> key.intValue() < 0 ? key : null),
+                        name + ": searchKeys removed");
+
+                /* any matching result may be returned, but it must match */
+                final Integer found = map.searchKeys(threshold, (final Integer key) -> key.intValue() % 2 == 0 ? key : null);
+                if (size == 0) {
+                    assertNull(found, name + ": search empty map");
+                } else {
+                    assertTrue(oracle.containsKey(found) && found.intValue() % 2 == 0, name + ": search any result " + found);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReduce() {
+        for (final int size : SIZES) {
+            final Map<Integer, Integer> oracle = oracle(size);
+            final SingleWriterMultiReaderHashMap<Integer, Integer> map = create(oracle);
+
+            Long expectedSum = null;
+            Integer expectedMaxKey = null;
+            Integer expectedMinValue = null;
+            Long expectedEvenSum = null;
+            for (final Map.Entry<Integer, Integer> entry : oracle.entrySet()) {
+                final long product = (long)entry.getKey().intValue() * entry.getValue().intValue();
+                expectedSum = expectedSum == null ? product : expectedSum + product;
+                expectedMaxKey = expectedMaxKey == null ? entry.getKey() : Math.max(expectedMaxKey, entry.getKey());
+                expectedMinValue = expectedMinValue == null ? entry.getValue() : Math.min(expectedMinValue, entry.getValue());
+                if (entry.getValue().intValue() % 2 == 0) {
+                    expectedEvenSum = expectedEvenSum == null ? product : expectedEvenSum + product;
+                }
+            }
+
+            for (final long threshold : THRESHOLDS) {
+                final String name = size + " entries threshold " + threshold;
+
+                assertEquals(expectedSum, map.reduce(threshold,
+                        (final Integer key, final Integer value) -> Long.valueOf((long)key.intValue() * value.intValue()),
+                        Long::sum), name + ": reduce");
+                /* pairs transformed to null are skipped */
+                assertEquals(expectedEvenSum, map.reduce(threshold,
+                        (final Integer key, final Integer value) -> value.intValue() % 2 == 0 ? Long.valueOf((long)key.intValue() * value.intValue()) : null,
+                        Long::sum), name + ": reduce skipping");
+                assertEquals(expectedMaxKey, map.reduceKeys(threshold, Math::max), name + ": reduceKeys");
+                assertEquals(expectedMinValue, map.reduceValues(threshold, Math::min), name + ": reduceValues");
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package io.denery.concurrentutil.map;
+
+import ca.spottedleaf.concurrentutil.map.SingleWriterMultiReaderHashMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the spliterators of {@link SingleWriterMultiReaderHashMap} and its key, value and entry views. Splits are
+ * made over ranges of the table, so no element may be reported by more than one spliterator.
+ */
+public class SingleWriterMultiReaderHashMapSpliteratorTest {
+
+    private static final int ENTRIES = 10_000;
+
+    private static final int UNORDERED_CHARACTERISTICS = Spliterator.CONCURRENT | Spliterator.NONNULL;
+    private static final int DISTINCT_CHARACTERISTICS = UNORDERED_CHARACTERISTICS | Spliterator.DISTINCT;
+
+    private static SingleWriterMultiReaderHashMap<Integer, String> create(final int entries) {
+        final SingleWriterMultiReaderHashMap<Integer, String> map = new SingleWriterMultiReaderHashMap<>();
+        for (int i = 0; i < entries; ++i) {
+            map.put(Integer.valueOf(i), Integer.toString(i));
+        }
+        return map;
+    }
+
+    /* splits every spliterator up to the specified depth, and collects all of their elements */
+    private static <T> void collect(final Spliterator<T> spliterator, final int characteristics, final List<T> into,
+                                    final int depth) {
+        assertEquals(characteristics, spliterator.characteristics(), "characteristics");
+        if (depth > 0) {
+            final long size = spliterator.estimateSize();
+            final Spliterator<T> split = spliterator.trySplit();
+            if (split != null) {
+                /* the estimate is divided between both halves */
+                assertTrue(split.estimateSize() + spliterator.estimateSize() <= size, "estimate grew on split");
+                collect(split, characteristics, into, depth - 1);
+                collect(spliterator, characteristics, into, depth - 1);
+                return;
+            }
+        }
+        if ((depth & 1) == 0) {
+            spliterator.forEachRemaining(into::add);
+        } else {
+            while (spliterator.tryAdvance(into::add));
+        }
+        assertFalse(spliterator.tryAdvance((final T element) -> {}), "advanced past end");
+    }
+
+    private static <T> void assertCovers(final Map<T, Integer> expected, final Spliterator<T> spliterator,
+                                         final int characteristics, final int depth, final String name) {
+        final List<T> collected = new ArrayList<>();
+        collect(spliterator, characteristics, collected, depth);
+
+        final Map<T, Integer> counts = new HashMap<>();
+        for (final T element : collected) {
+            counts.merge(element, Integer.valueOf(1), Integer::sum);
+        }
+        assertEquals(expected, counts, name);
+    }
+
+    private static <T> Map<T, Integer> countAll(final Iterable<Integer> keys, final Function<Integer, T> mapper) {
+        final Map<T, Integer> ret = new HashMap<>();
+        for (final Integer key : keys) {
+            ret.merge(mapper.apply(key), Integer.valueOf(1), Integer::sum);
+        }
+        return ret;
+    }
+
+    @Test
+    public void testSplitCoverage() {
+        for (final int entries : new int[] { 0, 1, 17, ENTRIES }) {
+            final SingleWriterMultiReaderHashMap<Integer, String> map = create(entries);
+            final List<Integer> keys = new ArrayList<>(new HashMap<>(map).keySet());
+            final Map<Integer, Integer> expectedKeys = countAll(keys, Function.identity());
+            final Map<String, Integer> expectedValues = countAll(keys, (final Integer key) -> key.toString());
+            final Map<Map.Entry<Integer, String>, Integer> expectedEntries = countAll(keys,
+                    (final Integer key) -> Map.entry(key, key.toString()));
+
+            for (final int depth : new int[] { 0, 1, 3, 32 }) {
+                final String name = entries + " entries depth " + depth;
+                assertCovers(expectedKeys, map.keySet().spliterator(), DISTINCT_CHARACTERISTICS, depth, "keys " + name);
+                assertCovers(expectedValues, map.values().spliterator(), UNORDERED_CHARACTERISTICS, depth, "values " + name);
+                assertCovers(expectedEntries, map.entrySet().spliterator(), DISTINCT_CHARACTERISTICS, depth, "entries " + name);
+                assertCovers(expectedEntries, map.spliterator(), DISTINCT_CHARACTERISTICS, depth, "map " + name);
+            }
+        }
+    }
+
+    @Test
+    public void testSkipsRemoved() {
+        final SingleWriterMultiReaderHashMap<Integer, String> map = create(ENTRIES);
+        final List<Integer> keys = new ArrayList<>();
+        for (int i = 0; i < ENTRIES; ++i) {
+            if (i % 3 == 0) {
+                map.remove(Integer.valueOf(i));
+            } else {
+                keys.add(Integer.valueOf(i));
+            }
+        }
+
+        assertCovers(countAll(keys, Function.identity()), map.keySet().spliterator(), DISTINCT_CHARACTERISTICS, 32, "keys");
+        assertCovers(countAll(keys, (final Integer key) -> key.toString()), map.values().spliterator(),
+                UNORDERED_CHARACTERISTICS, 32, "values");
+    }
+
+    @Test
+    public void testEstimateSize() {
+        final SingleWriterMultiReaderHashMap<Integer, String> map = create(ENTRIES);
+        final Spliterator<Integer> spliterator = map.keySet().spliterator();
+        assertEquals(ENTRIES, spliterator.estimateSize(), "initial estimate");
+        assertFalse(spliterator.hasCharacteristics(Spliterator.SIZED), "SIZED");
+
+        final Spliterator<Integer> split = spliterator.trySplit();
+        assertEquals(ENTRIES / 2, split.estimateSize(), "split estimate");
+        assertEquals(ENTRIES / 2, spliterator.estimateSize(), "remaining estimate");
+
+        final Spliterator<Integer> empty = create(0).keySet().spliterator();
+        assertEquals(0L, empty.estimateSize(), "empty estimate");
+        empty.forEachRemaining((final Integer key) -> {
+            throw new AssertionError("Element in empty map: " + key);
+        });
+        assertNull(empty.trySplit(), "split after consuming");
+    }
+
+    @Test
+    public void testParallelStream() {
+        final SingleWriterMultiReaderHashMap<Integer, String> map = create(ENTRIES);
+        assertEquals((long)ENTRIES * (ENTRIES - 1) / 2,
+                StreamSupport.stream(map.keySet().spliterator(), true).mapToLong(Integer::longValue).sum(), "key sum");
+        assertEquals(map.size(), StreamSupport.stream(map.values().spliterator(), true).collect(Collectors.toSet()).size(),
+                "distinct values");
+    }
+}
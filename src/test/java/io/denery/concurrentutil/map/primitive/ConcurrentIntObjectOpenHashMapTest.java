@@ -0,0 +1,126 @@
+package io.denery.concurrentutil.map.primitive;
+
+import ca.spottedleaf.concurrentutil.map.primitive.ConcurrentIntObjectOpenHashMap;
+import ca.spottedleaf.concurrentutil.util.IntegerUtil;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that removing an absent key from {@link ConcurrentIntObjectOpenHashMap} never resizes the table, even when its
+ * probe sequence runs past the reprobe limit, and that a cluster of live keys longer than the reprobe limit grows the
+ * table rather than rebuilding it at the same size forever.
+ */
+public class ConcurrentIntObjectOpenHashMapTest {
+
+    private static final int CAPACITY = 64;
+    /* below the resize threshold of 48, and longer than the reprobe limit of 26 */
+    private static final int FILLED_SLOTS = 40;
+
+    private static final int COLLIDING_KEYS = 199;
+    private static final long TIMEOUT_MILLIS = 10_000L;
+
+    /* exposes the current table so that a resize can be detected */
+    private static final class TableMap<V> extends ConcurrentIntObjectOpenHashMap<V> {
+
+        private TableMap(final int capacity) {
+            super(capacity);
+        }
+
+        private Object table() {
+            return this.getTableAcquire();
+        }
+    }
+
+    /* returns a key for every slot in [0, FILLED_SLOTS), followed by an absent key whose probe starts at slot 0 */
+    private static int[] crowdedKeys() {
+        final int[] ret = new int[FILLED_SLOTS + 1];
+        final boolean[] found = new boolean[FILLED_SLOTS];
+        int remaining = FILLED_SLOTS;
+        for (int key = 1; remaining > 0 || ret[FILLED_SLOTS] == 0; ++key) {
+            final int slot = IntegerUtil.hash0(key) & (CAPACITY - 1);
+            if (slot >= FILLED_SLOTS) {
+                continue;
+            }
+            if (!found[slot]) {
+                found[slot] = true;
+                ret[slot] = key;
+                --remaining;
+            } else if (slot == 0 && ret[FILLED_SLOTS] == 0) {
+                ret[FILLED_SLOTS] = key;
+            }
+        }
+        return ret;
+    }
+
+    @Test
+    public void testRemoveAbsentKeyDoesNotResize() {
+        final int[] keys = crowdedKeys();
+        final int absent = keys[FILLED_SLOTS];
+
+        final TableMap<Integer> map = new TableMap<>(CAPACITY);
+        for (int i = 0; i < FILLED_SLOTS; ++i) {
+            assertNull(map.put(keys[i], Integer.valueOf(i)), "put " + keys[i]);
+        }
+        final Object table = map.table();
+
+        assertNull(map.remove(absent), "remove absent key");
+        assertFalse(map.remove(absent, Integer.valueOf(0)), "remove absent key with value");
+        assertNull(map.get(absent), "get absent key");
+        assertSame(table, map.table(), "removal of an absent key resized the table");
+        assertEquals(FILLED_SLOTS, map.size(), "size");
+
+        /* a put of the same key cannot be placed within the reprobe limit, so it must resize */
+        assertNull(map.put(absent, Integer.valueOf(-1)), "put crowded key");
+        assertEquals(Integer.valueOf(-1), map.remove(absent), "remove crowded key");
+        assertNull(map.remove(absent), "remove removed key");
+        for (int i = 0; i < FILLED_SLOTS; ++i) {
+            assertEquals(Integer.valueOf(i), map.get(keys[i]), "get " + keys[i]);
+        }
+        assertEquals(FILLED_SLOTS, map.size(), "size after resize");
+    }
+
+    /* the keys only differ in their upper 8 bits, so they hash into long clusters while the map is still mostly empty */
+    private static void putCollidingKeys(final ConcurrentIntObjectOpenHashMap<Integer> map, final boolean relaxed) {
+        for (int k = 1; k <= COLLIDING_KEYS; ++k) {
+            final int key = k << 24;
+            if (relaxed) {
+                assertNull(map.putRelaxed(key, Integer.valueOf(k)), "putRelaxed " + key);
+            } else {
+                assertNull(map.put(key, Integer.valueOf(k)), "put " + key);
+            }
+        }
+    }
+
+    @Test
+    public void testCollidingKeysGrow() throws InterruptedException {
+        for (final boolean relaxed : new boolean[] { false, true }) {
+            final String name = relaxed ? "putRelaxed" : "put";
+            final ConcurrentIntObjectOpenHashMap<Integer> map = new ConcurrentIntObjectOpenHashMap<>();
+            final Throwable[] failure = new Throwable[1];
+
+            /* a put which keeps rebuilding the same table never returns */
+            final Thread thread = new Thread(() -> {
+                try {
+                    putCollidingKeys(map, relaxed);
+                } catch (final Throwable throwable) {
+                    failure[0] = throwable;
+                }
+            }, name);
+            thread.setDaemon(true);
+            thread.start();
+            thread.join(TIMEOUT_MILLIS);
+            assertTrue(!thread.isAlive(), name + " of colliding keys hung");
+            assertNull(failure[0], name + " of colliding keys failed");
+
+            assertEquals(COLLIDING_KEYS, map.size(), name + ": size");
+            for (int k = 1; k <= COLLIDING_KEYS; ++k) {
+                assertEquals(Integer.valueOf(k), map.get(k << 24), name + ": get " + (k << 24));
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package io.denery.concurrentutil.map.primitive;
+
+import ca.spottedleaf.concurrentutil.map.primitive.SingleWriterMultiReaderLongObjectOpenHashMap;
+import ca.spottedleaf.concurrentutil.map.primitive.SingleWriterMultiReaderLongObjectOpenHashMapFullSearch;
+import ca.spottedleaf.concurrentutil.map.primitive.SingleWriterMultiReaderLongObjectOpenHashMapSeqLock;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks both {@link SingleWriterMultiReaderLongObjectOpenHashMap} implementations against {@link HashMap}. The maps
+ * start small so that they resize many times, and the keys include 0, negative keys and keys which only differ in their
+ * upper 32 bits.
+ */
+public class SingleWriterMultiReaderLongObjectOpenHashMapTest {
+
+    private static final int OPERATIONS = 200_000;
+    private static final int KEY_RANGE = 2048;
+
+    private static List<IntFunction<SingleWriterMultiReaderLongObjectOpenHashMap<Long>>> implementations() {
+        final List<IntFunction<SingleWriterMultiReaderLongObjectOpenHashMap<Long>>> ret = new ArrayList<>();
+        ret.add(SingleWriterMultiReaderLongObjectOpenHashMapFullSearch::new);
+        ret.add(SingleWriterMultiReaderLongObjectOpenHashMapSeqLock::new);
+        return ret;
+    }
+
+    private static long randomKey(final SplittableRandom random) {
+        final long key = random.nextInt(KEY_RANGE) - (KEY_RANGE / 4);
+        /* half of the keys differ from the others only in their upper 32 bits */
+        return random.nextBoolean() ? key : key << 32;
+    }
+
+    private static void assertMatches(final Map<Long, Long> expected, final SingleWriterMultiReaderLongObjectOpenHashMap<Long> map,
+                                      final String description) {
+        final String name = map.getClass().getSimpleName() + " " + description;
+        assertEquals(expected.size(), map.size(), name + ": size");
+        assertEquals(expected.isEmpty(), map.isEmpty(), name + ": isEmpty");
+        for (final Map.Entry<Long, Long> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey().longValue()), name + ": get " + entry.getKey());
+            assertEquals(entry.getValue(), map.getRelaxed(entry.getKey().longValue()), name + ": getRelaxed " + entry.getKey());
+        }
+
+        final Map<Long, Long> entries = new HashMap<>();
+        map.forEachEntry((final long key, final Long value) -> {
+            assertNull(entries.put(key, value), name + ": duplicate entry " + key);
+        });
+        assertEquals(expected, entries, name + ": forEachEntry");
+
+        final Map<Long, Long> keys = new HashMap<>();
+        map.forEachKey((final long key) -> {
+            assertNull(keys.put(key, expected.get(key)), name + ": duplicate key " + key);
+        });
+        assertEquals(expected, keys, name + ": forEachKey");
+
+        final int[] values = new int[1];
+        map.forEachValue((final Long value) -> {
+            ++values[0];
+        });
+        assertEquals(expected.size(), values[0], name + ": forEachValue");
+    }
+
+    @Test
+    public void testRandomOperations() {
+        for (final IntFunction<SingleWriterMultiReaderLongObjectOpenHashMap<Long>> constructor : implementations()) {
+            final SingleWriterMultiReaderLongObjectOpenHashMap<Long> map = constructor.apply(2);
+            final Map<Long, Long> expected = new HashMap<>();
+            final SplittableRandom random = new SplittableRandom(42L);
+
+            for (int i = 0; i < OPERATIONS; ++i) {
+                final long key = randomKey(random);
+                final Long value = Long.valueOf(random.nextLong());
+                final String name = map.getClass().getSimpleName() + " operation " + i + " key " + key;
+
+                switch (random.nextInt(11)) {
+                    case 0, 1 -> assertEquals(expected.put(key, value), map.put(key, value), name + ": put");
+                    case 2 -> assertEquals(expected.put(key, value), map.putRelaxed(key, value), name + ": putRelaxed");
+                    case 3 -> assertEquals(expected.putIfAbsent(key, value), map.putIfAbsent(key, value), name + ": putIfAbsent");
+                    case 4, 5 -> assertEquals(expected.remove(key), map.remove(key), name + ": remove");
+                    case 6 -> assertEquals(expected.remove(key), map.removeRelaxed(key), name + ": removeRelaxed");
+                    case 7 -> {
+                        /* remove the current value half of the time, otherwise a value which does not match */
+                        final Long current = expected.get(key);
+                        final Long match = current != null && random.nextBoolean() ? Long.valueOf(current.longValue()) : value;
+                        assertEquals(expected.remove(key, match), map.remove(key, match), name + ": remove value");
+                    }
+                    case 8 -> assertEquals(expected.compute(key, (final Long k, final Long old) -> old == null ? value : null),
+                            map.compute(key, (final long k, final Long old) -> old == null ? value : null), name + ": compute");
+                    case 9 -> assertEquals(expected.computeIfAbsent(key, (final Long k) -> value),
+                            map.computeIfAbsent(key, (final long k) -> value), name + ": computeIfAbsent");
+                    case 10 -> assertEquals(expected.computeIfPresent(key, (final Long k, final Long old) -> value),
+                            map.computeIfPresent(key, (final long k, final Long old) -> value), name + ": computeIfPresent");
+                    default -> throw new IllegalStateException();
+                }
+                assertEquals(expected.size(), map.size(), name + ": size");
+            }
+
+            assertMatches(expected, map, "after random operations");
+        }
+    }
+
+    @Test
+    public void testResize() {
+        for (final IntFunction<SingleWriterMultiReaderLongObjectOpenHashMap<Long>> constructor : implementations()) {
+            final SingleWriterMultiReaderLongObjectOpenHashMap<Long> map = constructor.apply(2);
+            final Map<Long, Long> expected = new HashMap<>();
+
+            /* grow through many resizes, then remove every other key and check the remaining keys are still found */
+            for (long key = -KEY_RANGE; key < KEY_RANGE; ++key) {
+                final long realKey = key * 31L << 20;
+                assertNull(map.put(realKey, Long.valueOf(key)), "put " + realKey);
+                expected.put(realKey, Long.valueOf(key));
+            }
+            assertMatches(expected, map, "after growing");
+
+            for (long key = -KEY_RANGE; key < KEY_RANGE; key += 2) {
+                final long realKey = key * 31L << 20;
+                assertEquals(Long.valueOf(key), map.remove(realKey), "remove " + realKey);
+                expected.remove(realKey);
+            }
+            assertMatches(expected, map, "after removing");
+
+            for (long key = -KEY_RANGE; key < KEY_RANGE; ++key) {
+                final long realKey = key * 31L << 20;
+                map.remove(realKey);
+                expected.remove(realKey);
+            }
+            assertMatches(expected, map, "after clearing");
+            assertTrue(map.isEmpty(), "isEmpty after clearing");
+        }
+    }
+
+    @Test
+    public void testZeroKey() {
+        for (final IntFunction<SingleWriterMultiReaderLongObjectOpenHashMap<Long>> constructor : implementations()) {
+            final SingleWriterMultiReaderLongObjectOpenHashMap<Long> map = constructor.apply(16);
+            final String name = map.getClass().getSimpleName();
+
+            assertNull(map.get(0L), name);
+            assertNull(map.put(0L, 1L), name);
+            assertEquals(1, map.size(), name);
+            assertFalse(map.isEmpty(), name);
+            assertEquals(Long.valueOf(1L), map.put(0L, 2L), name);
+            assertEquals(Long.valueOf(2L), map.get(0L), name);
+            assertFalse(map.remove(0L, 1L), name);
+            assertTrue(map.remove(0L, 2L), name);
+            assertNull(map.get(0L), name);
+            assertTrue(map.isEmpty(), name);
+        }
+    }
+}
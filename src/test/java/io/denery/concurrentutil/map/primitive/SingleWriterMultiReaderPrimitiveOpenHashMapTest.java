@@ -0,0 +1,740 @@
+package io.denery.concurrentutil.map.primitive;
+
+import ca.spottedleaf.concurrentutil.map.primitive.SingleWriterMultiReaderIntIntOpenHashMap;
+import ca.spottedleaf.concurrentutil.map.primitive.SingleWriterMultiReaderLongIntOpenHashMap;
+import ca.spottedleaf.concurrentutil.map.primitive.SingleWriterMultiReaderLongLongOpenHashMap;
+import ca.spottedleaf.concurrentutil.util.IntegerUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the {@link SingleWriterMultiReaderIntIntOpenHashMap}, {@link SingleWriterMultiReaderLongIntOpenHashMap} and
+ * {@link SingleWriterMultiReaderLongLongOpenHashMap} against {@link HashMap}, with both the default and a custom absent
+ * value. The maps start small so that they resize many times, the keys include 0 and negative keys, and the values
+ * include the absent value, which may not be stored.
+ */
+public class SingleWriterMultiReaderPrimitiveOpenHashMapTest {
+
+    private static final int OPERATIONS = 100_000;
+    private static final int KEY_RANGE = 1024;
+    private static final int VALUE_RANGE = 16;
+    private static final long CUSTOM_ABSENT = -7L;
+
+    /* widens the keys and values of every map to long, the int maps only ever receive values which fit */
+    private interface PrimitiveMap {
+
+        boolean longKeys();
+
+        long absent();
+
+        int size();
+
+        boolean isEmpty();
+
+        long get(final long key);
+
+        long getRelaxed(final long key);
+
+        long getOrDefault(final long key, final long dfl);
+
+        boolean containsKey(final long key);
+
+        long put(final long key, final long value);
+
+        long putRelaxed(final long key, final long value);
+
+        long putIfAbsent(final long key, final long value);
+
+        long putIfAbsentRelaxed(final long key, final long value);
+
+        long addTo(final long key, final long amount);
+
+        long addToRelaxed(final long key, final long amount);
+
+        long remove(final long key);
+
+        long removeRelaxed(final long key);
+
+        boolean remove(final long key, final long value);
+
+        boolean removeRelaxed(final long key, final long value);
+
+        void clear();
+
+        Map<Long, Long> entries();
+
+        Map<Long, Long> entriesRelaxed();
+
+        List<Long> keys();
+    }
+
+    @FunctionalInterface
+    private interface Constructor {
+
+        PrimitiveMap create(final int capacity, final long absent);
+    }
+
+    private static PrimitiveMap intInt(final int capacity, final long absent) {
+        final SingleWriterMultiReaderIntIntOpenHashMap map = new SingleWriterMultiReaderIntIntOpenHashMap(capacity, 0.75f, (int)absent);
+        return new PrimitiveMap() {
+            @Override
+            public boolean longKeys() {
+                return false;
+            }
+
+            @Override
+            public long absent() {
+                return map.getAbsentValue();
+            }
+
+            @Override
+            public int size() {
+                return map.size();
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return map.isEmpty();
+            }
+
+            @Override
+            public long get(final long key) {
+                return map.get((int)key);
+            }
+
+            @Override
+            public long getRelaxed(final long key) {
+                return map.getRelaxed((int)key);
+            }
+
+            @Override
+            public long getOrDefault(final long key, final long dfl) {
+                return map.getOrDefault((int)key, (int)dfl);
+            }
+
+            @Override
+            public boolean containsKey(final long key) {
+                return map.containsKey((int)key);
+            }
+
+            @Override
+            public long put(final long key, final long value) {
+                return map.put((int)key, (int)value);
+            }
+
+            @Override
+            public long putRelaxed(final long key, final long value) {
+                return map.putRelaxed((int)key, (int)value);
+            }
+
+            @Override
+            public long putIfAbsent(final long key, final long value) {
+                return map.putIfAbsent((int)key, (int)value);
+            }
+
+            @Override
+            public long putIfAbsentRelaxed(final long key, final long value) {
+                return map.putIfAbsentRelaxed((int)key, (int)value);
+            }
+
+            @Override
+            public long addTo(final long key, final long amount) {
+                return map.addTo((int)key, (int)amount);
+            }
+
+            @Override
+            public long addToRelaxed(final long key, final long amount) {
+                return map.addToRelaxed((int)key, (int)amount);
+            }
+
+            @Override
+            public long remove(final long key) {
+                return map.remove((int)key);
+            }
+
+            @Override
+            public long removeRelaxed(final long key) {
+                return map.removeRelaxed((int)key);
+            }
+
+            @Override
+            public boolean remove(final long key, final long value) {
+                return map.remove((int)key, (int)value);
+            }
+
+            @Override
+            public boolean removeRelaxed(final long key, final long value) {
+                return map.removeRelaxed((int)key, (int)value);
+            }
+
+            @Override
+            public void clear() {
+                map.clear();
+            }
+
+            @Override
+            public Map<Long, Long> entries() {
+                final Map<Long, Long> ret = new HashMap<>();
+                map.forEachEntry((final int key, final int value) -> {
+                    assertNull(ret.put((long)key, (long)value), "duplicate entry " + key);
+                });
+                return ret;
+            }
+
+            @Override
+            public Map<Long, Long> entriesRelaxed() {
+                final Map<Long, Long> ret = new HashMap<>();
+                map.forEachEntryRelaxed((final int key, final int value) -> {
+                    assertNull(ret.put((long)key, (long)value), "duplicate relaxed entry " + key);
+                });
+                return ret;
+            }
+
+            @Override
+            public List<Long> keys() {
+                final List<Long> ret = new ArrayList<>();
+                map.forEachKey((final int key) -> ret.add((long)key));
+                return ret;
+            }
+
+            @Override
+            public String toString() {
+                return map.getClass().getSimpleName() + " absent " + absent;
+            }
+        };
+    }
+
+    private static PrimitiveMap longInt(final int capacity, final long absent) {
+        final SingleWriterMultiReaderLongIntOpenHashMap map = new SingleWriterMultiReaderLongIntOpenHashMap(capacity, 0.75f, (int)absent);
+        return new PrimitiveMap() {
+            @Override
+            public boolean longKeys() {
+                return true;
+            }
+
+            @Override
+            public long absent() {
+                return map.getAbsentValue();
+            }
+
+            @Override
+            public int size() {
+                return map.size();
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return map.isEmpty();
+            }
+
+            @Override
+            public long get(final long key) {
+                return map.get(key);
+            }
+
+            @Override
+            public long getRelaxed(final long key) {
+                return map.getRelaxed(key);
+            }
+
+            @Override
+            public long getOrDefault(final long key, final long dfl) {
+                return map.getOrDefault(key, (int)dfl);
+            }
+
+            @Override
+            public boolean containsKey(final long key) {
+                return map.containsKey(key);
+            }
+
+            @Override
+            public long put(final long key, final long value) {
+                return map.put(key, (int)value);
+            }
+
+            @Override
+            public long putRelaxed(final long key, final long value) {
+                return map.putRelaxed(key, (int)value);
+            }
+
+            @Override
+            public long putIfAbsent(final long key, final long value) {
+                return map.putIfAbsent(key, (int)value);
+            }
+
+            @Override
+            public long putIfAbsentRelaxed(final long key, final long value) {
+                return map.putIfAbsentRelaxed(key, (int)value);
+            }
+
+            @Override
+            public long addTo(final long key, final long amount) {
+                return map.addTo(key, (int)amount);
+            }
+
+            @Override
+            public long addToRelaxed(final long key, final long amount) {
+                return map.addToRelaxed(key, (int)amount);
+            }
+
+            @Override
+            public long remove(final long key) {
+                return map.remove(key);
+            }
+
+            @Override
+            public long removeRelaxed(final long key) {
+                return map.removeRelaxed(key);
+            }
+
+            @Override
+            public boolean remove(final long key, final long value) {
+                return map.remove(key, (int)value);
+            }
+
+            @Override
+            public boolean removeRelaxed(final long key, final long value) {
+                return map.removeRelaxed(key, (int)value);
+            }
+
+            @Override
+            public void clear() {
+                map.clear();
+            }
+
+            @Override
+            public Map<Long, Long> entries() {
+                final Map<Long, Long> ret = new HashMap<>();
+                map.forEachEntry((final long key, final int value) -> {
+                    assertNull(ret.put(key, (long)value), "duplicate entry " + key);
+                });
+                return ret;
+            }
+
+            @Override
+            public Map<Long, Long> entriesRelaxed() {
+                final Map<Long, Long> ret = new HashMap<>();
+                map.forEachEntryRelaxed((final long key, final int value) -> {
+                    assertNull(ret.put(key, (long)value), "duplicate relaxed entry " + key);
+                });
+                return ret;
+            }
+
+            @Override
+            public List<Long> keys() {
+                final List<Long> ret = new ArrayList<>();
+                map.forEachKey((final long key) -> ret.add(key));
+                return ret;
+            }
+
+            @Override
+            public String toString() {
+                return map.getClass().getSimpleName() + " absent " + absent;
+            }
+        };
+    }
+
+    private static PrimitiveMap longLong(final int capacity, final long absent) {
+        final SingleWriterMultiReaderLongLongOpenHashMap map = new SingleWriterMultiReaderLongLongOpenHashMap(capacity, 0.75f, absent);
+        return new PrimitiveMap() {
+            @Override
+            public boolean longKeys() {
+                return true;
+            }
+
+            @Override
+            public long absent() {
+                return map.getAbsentValue();
+            }
+
+            @Override
+            public int size() {
+                return map.size();
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return map.isEmpty();
+            }
+
+            @Override
+            public long get(final long key) {
+                return map.get(key);
+            }
+
+            @Override
+            public long getRelaxed(final long key) {
+                return map.getRelaxed(key);
+            }
+
+            @Override
+            public long getOrDefault(final long key, final long dfl) {
+                return map.getOrDefault(key, dfl);
+            }
+
+            @Override
+            public boolean containsKey(final long key) {
+                return map.containsKey(key);
+            }
+
+            @Override
+            public long put(final long key, final long value) {
+                return map.put(key, value);
+            }
+
+            @Override
+            public long putRelaxed(final long key, final long value) {
+                return map.putRelaxed(key, value);
+            }
+
+            @Override
+            public long putIfAbsent(final long key, final long value) {
+                return map.putIfAbsent(key, value);
+            }
+
+            @Override
+            public long putIfAbsentRelaxed(final long key, final long value) {
+                return map.putIfAbsentRelaxed(key, value);
+            }
+
+            @Override
+            public long addTo(final long key, final long amount) {
+                return map.addTo(key, amount);
+            }
+
+            @Override
+            public long addToRelaxed(final long key, final long amount) {
+                return map.addToRelaxed(key, amount);
+            }
+
+            @Override
+            public long remove(final long key) {
+                return map.remove(key);
+            }
+
+            @Override
+            public long removeRelaxed(final long key) {
+                return map.removeRelaxed(key);
+            }
+
+            @Override
+            public boolean remove(final long key, final long value) {
+                return map.remove(key, value);
+            }
+
+            @Override
+            public boolean removeRelaxed(final long key, final long value) {
+                return map.removeRelaxed(key, value);
+            }
+
+            @Override
+            public void clear() {
+                map.clear();
+            }
+
+            @Override
+            public Map<Long, Long> entries() {
+                final Map<Long, Long> ret = new HashMap<>();
+                map.forEachEntry((final long key, final long value) -> {
+                    assertNull(ret.put(key, value), "duplicate entry " + key);
+                });
+                return ret;
+            }
+
+            @Override
+            public Map<Long, Long> entriesRelaxed() {
+                final Map<Long, Long> ret = new HashMap<>();
+                map.forEachEntryRelaxed((final long key, final long value) -> {
+                    assertNull(ret.put(key, value), "duplicate relaxed entry " + key);
+                });
+                return ret;
+            }
+
+            @Override
+            public List<Long> keys() {
+                final List<Long> ret = new ArrayList<>();
+                map.forEachKey((final long key) -> ret.add(key));
+                return ret;
+            }
+
+            @Override
+            public String toString() {
+                return map.getClass().getSimpleName() + " absent " + absent;
+            }
+        };
+    }
+
+    private static List<Constructor> implementations() {
+        final List<Constructor> ret = new ArrayList<>();
+        ret.add(SingleWriterMultiReaderPrimitiveOpenHashMapTest::intInt);
+        ret.add(SingleWriterMultiReaderPrimitiveOpenHashMapTest::longInt);
+        ret.add(SingleWriterMultiReaderPrimitiveOpenHashMapTest::longLong);
+        return ret;
+    }
+
+    private static long expectedGet(final Map<Long, Long> expected, final long key, final long absent) {
+        final Long value = expected.get(key);
+        return value == null ? absent : value.longValue();
+    }
+
+    private static void assertMatches(final Map<Long, Long> expected, final PrimitiveMap map, final String description) {
+        final String name = map + " " + description;
+        assertEquals(expected.size(), map.size(), name + ": size");
+        assertEquals(expected.isEmpty(), map.isEmpty(), name + ": isEmpty");
+        for (final Map.Entry<Long, Long> entry : expected.entrySet()) {
+            final long key = entry.getKey().longValue();
+            assertEquals(entry.getValue().longValue(), map.get(key), name + ": get " + key);
+            assertEquals(entry.getValue().longValue(), map.getRelaxed(key), name + ": getRelaxed " + key);
+            assertTrue(map.containsKey(key), name + ": containsKey " + key);
+        }
+        assertEquals(expected, map.entries(), name + ": forEachEntry");
+        assertEquals(expected, map.entriesRelaxed(), name + ": forEachEntryRelaxed");
+
+        final List<Long> keys = map.keys();
+        assertEquals(expected.size(), keys.size(), name + ": forEachKey count");
+        assertEquals(expected.keySet(), new HashSet<>(keys), name + ": forEachKey");
+    }
+
+    private static long randomKey(final PrimitiveMap map, final SplittableRandom random) {
+        final long key = random.nextInt(KEY_RANGE) - (KEY_RANGE / 4);
+        /* for the long keyed maps, half of the keys differ from the others only in their upper 32 bits */
+        return map.longKeys() && random.nextBoolean() ? key << 32 : key;
+    }
+
+    private static void testRandomOperations(final PrimitiveMap map, final long seed) {
+        final Map<Long, Long> expected = new HashMap<>();
+        final SplittableRandom random = new SplittableRandom(seed);
+        final long absent = map.absent();
+
+        for (int i = 0; i < OPERATIONS; ++i) {
+            final long key = randomKey(map, random);
+            /* the range includes both absent values, so they are regularly attempted to be stored */
+            final long value = random.nextInt(2 * VALUE_RANGE + 1) - VALUE_RANGE;
+            final long amount = random.nextInt(9) - 4;
+            final long current = expectedGet(expected, key, absent);
+            final String name = map + " operation " + i + " key " + key + " value " + value;
+
+            switch (random.nextInt(12)) {
+                case 0, 1, 2 -> {
+                    final boolean relaxed = random.nextBoolean();
+                    if (value == absent) {
+                        assertThrows(IllegalArgumentException.class, () -> {
+                            if (relaxed) {
+                                map.putRelaxed(key, value);
+                            } else {
+                                map.put(key, value);
+                            }
+                        }, name + ": put absent value");
+                    } else {
+                        assertEquals(current, relaxed ? map.putRelaxed(key, value) : map.put(key, value), name + ": put");
+                        expected.put(key, value);
+                    }
+                }
+                case 3 -> {
+                    final boolean relaxed = random.nextBoolean();
+                    if (value == absent) {
+                        assertThrows(IllegalArgumentException.class, () -> {
+                            if (relaxed) {
+                                map.putIfAbsentRelaxed(key, value);
+                            } else {
+                                map.putIfAbsent(key, value);
+                            }
+                        }, name + ": putIfAbsent absent value");
+                    } else {
+                        assertEquals(current, relaxed ? map.putIfAbsentRelaxed(key, value) : map.putIfAbsent(key, value), name + ": putIfAbsent");
+                        expected.putIfAbsent(key, value);
+                    }
+                }
+                case 4, 5 -> {
+                    /* a result equal to the absent value removes the mapping */
+                    final long next = current + amount;
+                    assertEquals(next, random.nextBoolean() ? map.addToRelaxed(key, amount) : map.addTo(key, amount), name + ": addTo " + amount);
+                    if (next == absent) {
+                        expected.remove(key);
+                    } else {
+                        expected.put(key, next);
+                    }
+                }
+                case 6, 7 -> {
+                    assertEquals(current, random.nextBoolean() ? map.removeRelaxed(key) : map.remove(key), name + ": remove");
+                    expected.remove(key);
+                }
+                case 8, 9 -> {
+                    /* remove the current value half of the time, otherwise a value which may not match */
+                    final long match = current != absent && random.nextBoolean() ? current : value;
+                    final boolean removed = expected.remove(key, match);
+                    assertEquals(removed, random.nextBoolean() ? map.removeRelaxed(key, match) : map.remove(key, match), name + ": remove value " + match);
+                }
+                case 10, 11 -> {
+                    assertEquals(current, map.get(key), name + ": get");
+                    assertEquals(current, map.getRelaxed(key), name + ": getRelaxed");
+                    assertEquals(current != absent, map.containsKey(key), name + ": containsKey");
+                    assertEquals(current != absent ? current : 100L, map.getOrDefault(key, 100L), name + ": getOrDefault");
+                }
+                default -> throw new IllegalStateException();
+            }
+            assertEquals(expected.size(), map.size(), name + ": size");
+
+            if ((i % 10_000) == 0) {
+                assertMatches(expected, map, "at operation " + i);
+            }
+        }
+
+        assertMatches(expected, map, "after random operations");
+        map.clear();
+        expected.clear();
+        assertMatches(expected, map, "after clear");
+    }
+
+    @Test
+    public void testRandomOperations() {
+        for (final Constructor constructor : implementations()) {
+            testRandomOperations(constructor.create(2, 0L), 42L);
+            testRandomOperations(constructor.create(2, CUSTOM_ABSENT), 43L);
+        }
+    }
+
+    @Test
+    public void testAbsentValue() {
+        for (final Constructor constructor : implementations()) {
+            for (final long absent : new long[] { 0L, CUSTOM_ABSENT }) {
+                final PrimitiveMap map = constructor.create(16, absent);
+                for (final long key : new long[] { 0L, 5L }) {
+                    final String name = map + " key " + key;
+
+                    assertEquals(absent, map.get(key), name + ": get unmapped");
+                    assertEquals(3L, map.getOrDefault(key, 3L), name + ": getOrDefault unmapped");
+                    assertFalse(map.containsKey(key), name + ": containsKey unmapped");
+                    assertThrows(IllegalArgumentException.class, () -> map.put(key, absent), name + ": put absent value");
+                    assertThrows(IllegalArgumentException.class, () -> map.putRelaxed(key, absent), name + ": putRelaxed absent value");
+                    assertThrows(IllegalArgumentException.class, () -> map.putIfAbsent(key, absent), name + ": putIfAbsent absent value");
+                    assertThrows(IllegalArgumentException.class, () -> map.putIfAbsentRelaxed(key, absent), name + ": putIfAbsentRelaxed absent value");
+                    assertFalse(map.containsKey(key), name + ": mapped by storing the absent value");
+
+                    /* adding nothing to an unmapped key leaves it unmapped */
+                    assertEquals(absent, map.addTo(key, 0L), name + ": addTo 0 unmapped");
+                    assertFalse(map.containsKey(key), name + ": mapped by adding 0");
+
+                    assertEquals(absent + 2L, map.addTo(key, 2L), name + ": addTo unmapped");
+                    assertEquals(absent + 2L, map.get(key), name + ": get after addTo");
+                    assertEquals(1, map.size(), name + ": size after addTo");
+                    assertFalse(map.remove(key, absent), name + ": remove absent value");
+
+                    /* reaching the absent value removes the mapping */
+                    assertEquals(absent, map.addToRelaxed(key, -2L), name + ": addToRelaxed to absent");
+                    assertFalse(map.containsKey(key), name + ": mapped after reaching the absent value");
+                    assertEquals(0, map.size(), name + ": size after reaching the absent value");
+                    assertTrue(map.isEmpty(), name + ": isEmpty after reaching the absent value");
+                    assertEquals(absent, map.remove(key), name + ": remove unmapped");
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testResize() {
+        for (final Constructor constructor : implementations()) {
+            final PrimitiveMap map = constructor.create(2, CUSTOM_ABSENT);
+            final Map<Long, Long> expected = new HashMap<>();
+
+            /* grow through many resizes, then remove every other key and check the remaining keys are still found */
+            for (long key = -KEY_RANGE; key < KEY_RANGE; ++key) {
+                final long realKey = map.longKeys() ? key * 31L << 20 : key << 12;
+                /* a multiple of 4 is never the absent value */
+                assertEquals(CUSTOM_ABSENT, map.put(realKey, key * 4L), map + ": put " + realKey);
+                expected.put(realKey, key * 4L);
+            }
+            assertMatches(expected, map, "after growing");
+
+            for (long key = -KEY_RANGE; key < KEY_RANGE; key += 2) {
+                final long realKey = map.longKeys() ? key * 31L << 20 : key << 12;
+                assertEquals(key * 4L, map.remove(realKey), map + ": remove " + realKey);
+                expected.remove(realKey);
+            }
+            assertMatches(expected, map, "after removing");
+
+            for (long key = -KEY_RANGE; key < KEY_RANGE; ++key) {
+                final long realKey = map.longKeys() ? key * 31L << 20 : key << 12;
+                assertEquals(expectedGet(expected, realKey, CUSTOM_ABSENT) + 1L, map.addTo(realKey, 1L), map + ": addTo " + realKey);
+                expected.merge(realKey, 1L + CUSTOM_ABSENT, (final Long prev, final Long add) -> prev + 1L);
+                expected.remove(realKey, CUSTOM_ABSENT);
+            }
+            assertMatches(expected, map, "after adding");
+        }
+    }
+
+    private static final int CLUSTER_CAPACITY = 64;
+    /* below the resize threshold of 48 */
+    private static final int CLUSTER_KEYS = 12;
+    private static final int OTHER_KEYS = 24;
+
+    /* returns keys whose probe starts at the second to last slot, so the cluster wraps around to the start of the table */
+    private static long[] collidingKeys(final boolean longKeys) {
+        final long[] ret = new long[CLUSTER_KEYS];
+        final int slot = CLUSTER_CAPACITY - 2;
+        int found = 0;
+        for (long key = 1L; found < CLUSTER_KEYS; ++key) {
+            final int hash = longKeys ? (int)IntegerUtil.hash1(key) : IntegerUtil.hash0((int)key);
+            if ((hash & (CLUSTER_CAPACITY - 1)) == slot) {
+                ret[found++] = key;
+            }
+        }
+        return ret;
+    }
+
+    @Test
+    public void testRemoveFromClusters() {
+        for (final Constructor constructor : implementations()) {
+            for (int seed = 0; seed < 20; ++seed) {
+                final PrimitiveMap map = constructor.create(CLUSTER_CAPACITY, CUSTOM_ABSENT);
+                final Map<Long, Long> expected = new HashMap<>();
+                final SplittableRandom random = new SplittableRandom(seed);
+                final long[] cluster = collidingKeys(map.longKeys());
+
+                /* the other keys land in and around the cluster, and must still be found once it shifts back */
+                for (final long key : cluster) {
+                    map.put(key, key);
+                    expected.put(key, key);
+                }
+                while (expected.size() < CLUSTER_KEYS + OTHER_KEYS) {
+                    final long key = random.nextInt(1 << 20) + 1;
+                    map.put(key, -key);
+                    expected.put(key, -key);
+                }
+                assertMatches(expected, map, "seed " + seed + " filled");
+
+                /* remove the cluster in a random order, through each path which removes an entry */
+                final List<Long> order = new ArrayList<>();
+                for (final long key : cluster) {
+                    order.add(key);
+                }
+                while (!order.isEmpty()) {
+                    final long key = order.remove(random.nextInt(order.size())).longValue();
+                    final String name = map + " seed " + seed + " key " + key;
+                    switch (random.nextInt(5)) {
+                        case 0 -> assertEquals(key, map.remove(key), name + ": remove");
+                        case 1 -> assertEquals(key, map.removeRelaxed(key), name + ": removeRelaxed");
+                        case 2 -> assertTrue(map.remove(key, key), name + ": remove value");
+                        case 3 -> assertEquals(CUSTOM_ABSENT, map.addTo(key, CUSTOM_ABSENT - key), name + ": addTo");
+                        case 4 -> assertEquals(CUSTOM_ABSENT, map.addToRelaxed(key, CUSTOM_ABSENT - key), name + ": addToRelaxed");
+                        default -> throw new IllegalStateException();
+                    }
+                    expected.remove(key);
+                    assertMatches(expected, map, "seed " + seed + " removed " + key);
+                }
+            }
+        }
+    }
+}
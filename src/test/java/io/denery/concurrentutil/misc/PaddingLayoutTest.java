@@ -0,0 +1,86 @@
+package io.denery.concurrentutil.misc;
+
+import ca.spottedleaf.concurrentutil.ConcurrentUtil;
+import ca.spottedleaf.concurrentutil.lock.ReadWriteSeqLock;
+import ca.spottedleaf.concurrentutil.lock.ReaderBiasedSeqLock;
+import ca.spottedleaf.concurrentutil.lock.VolatileSeqLock;
+import ca.spottedleaf.concurrentutil.lock.WeakSeqLock;
+import ca.spottedleaf.concurrentutil.misc.SynchronizationPoint;
+import ca.spottedleaf.concurrentutil.queue.MultiThreadedArrayQueue;
+import ca.spottedleaf.concurrentutil.queue.MultiThreadedQueue;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.ClassLayout;
+import org.openjdk.jol.info.FieldLayout;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the field layout of the classes padded through their class hierarchy, which must keep their contended fields
+ * on their own cache lines without {@code -XX:-RestrictContended}. Run with different heap sizes or
+ * {@code -XX:-UseCompressedOops} to check other layouts.
+ * <p>
+ * A group of contended fields must be at least {@link ConcurrentUtil#CACHE_LINE_SIZE} bytes away from every other
+ * field which is not padding, and from the start and end of the object so that neighbouring objects in the heap cannot
+ * share its cache line either.
+ * </p>
+ */
+public class PaddingLayoutTest {
+
+    private static boolean isPadding(final FieldLayout field) {
+        return field.name().matches("p\\d{3}");
+    }
+
+    private static void assertPadded(final Class<?> clazz, final String... group) {
+        final ClassLayout layout = ClassLayout.parseClass(clazz);
+        final List<String> names = Arrays.asList(group);
+
+        long start = Long.MAX_VALUE;
+        long end = Long.MIN_VALUE;
+        for (final FieldLayout field : layout.fields()) {
+            if (names.contains(field.name())) {
+                start = Math.min(start, field.offset());
+                end = Math.max(end, field.offset() + field.size());
+            }
+        }
+
+        final String description = clazz.getName() + " " + names + "\n" + layout.toPrintable();
+        assertTrue(end != Long.MIN_VALUE, "Fields not found: " + description);
+        assertTrue(start >= ConcurrentUtil.CACHE_LINE_SIZE, "Not padded from the start of the object: " + description);
+        assertTrue(layout.instanceSize() - end >= ConcurrentUtil.CACHE_LINE_SIZE, "Not padded from the end of the object: " + description);
+
+        for (final FieldLayout field : layout.fields()) {
+            if (names.contains(field.name()) || isPadding(field)) {
+                continue;
+            }
+            final boolean before = field.offset() + field.size() + ConcurrentUtil.CACHE_LINE_SIZE <= start;
+            final boolean after = field.offset() >= end + ConcurrentUtil.CACHE_LINE_SIZE;
+            assertTrue(before || after, "Field " + field.name() + " shares a cache line with " + description);
+        }
+    }
+
+    @Test
+    public void testSeqLocks() {
+        assertPadded(VolatileSeqLock.class, "lock");
+        assertPadded(WeakSeqLock.class, "lock");
+        assertPadded(ReadWriteSeqLock.class, "state");
+        assertPadded(ReaderBiasedSeqLock.class, "lock");
+        assertPadded(ReaderBiasedSeqLock.class, "readBias", "inhibitUntil");
+    }
+
+    @Test
+    public void testQueues() {
+        assertPadded(MultiThreadedQueue.class, "head");
+        assertPadded(MultiThreadedQueue.class, "tail");
+        assertPadded(MultiThreadedArrayQueue.class, "head");
+        assertPadded(MultiThreadedArrayQueue.class, "tail");
+    }
+
+    @Test
+    public void testSynchronizationPoint() {
+        assertPadded(SynchronizationPoint.class, "synchronizing");
+        assertPadded(SynchronizationPoint.class, "synchronizingGeneration", "runGeneration");
+    }
+}
@@ -0,0 +1,175 @@
+package io.denery.concurrentutil.misc;
+
+import ca.spottedleaf.concurrentutil.misc.SynchronizationPoint;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs many rounds of {@link SynchronizationPoint#start(int)}, {@link SynchronizationPoint#enter(int)},
+ * {@link SynchronizationPoint#enterAlone(int)} and {@link SynchronizationPoint#end(int)} with enough threads that the
+ * arrival trees have several levels, and checks that:
+ * <ul>
+ *     <li>no thread passes a barrier before every thread arrived at it,</li>
+ *     <li>alone sections never overlap each other or a running thread,</li>
+ *     <li>each generation advances exactly once per start, end and synchronization.</li>
+ * </ul>
+ */
+public class SynchronizationPointStressTest {
+
+    private static final int THREADS = 130;
+    private static final int ROUNDS = 100;
+    private static final int STEPS = 3;
+    private static final long TIMEOUT_MILLIS = 60_000L;
+
+    /* exposes the generations, which waiting threads use to detect their release */
+    private static final class Point extends SynchronizationPoint {
+
+        Point(final Thread[] threads, final int fanIn) {
+            super(threads, fanIn);
+        }
+
+        int runGeneration() {
+            return this.getRunGenerationVolatile();
+        }
+
+        int synchronizingGeneration() {
+            return this.getSynchronizingGenerationVolatile();
+        }
+    }
+
+    private static final class State {
+
+        final AtomicInteger startArrivals = new AtomicInteger();
+        final AtomicInteger synchronizingArrivals = new AtomicInteger();
+        final AtomicInteger endArrivals = new AtomicInteger();
+
+        /* threads running outside of the synchronization point, and threads executing alone */
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger alone = new AtomicInteger();
+        final AtomicInteger aloneSections = new AtomicInteger();
+
+        final List<String> failures = new ArrayList<>();
+
+        /* failures are recorded rather than thrown, as a thread leaving early would hang the others */
+        void check(final boolean condition, final String failure) {
+            if (!condition) {
+                synchronized (this.failures) {
+                    this.failures.add(Thread.currentThread().getName() + ": " + failure);
+                }
+            }
+        }
+    }
+
+    /* the threads executing alone at the specified synchronization, which may be none, one or several */
+    private static boolean isAlone(final int synchronization, final int id) {
+        switch (synchronization % 3) {
+            case 0:
+                return false;
+            case 1:
+                return id == (synchronization * 31) % THREADS;
+            case 2:
+                return (id & 15) == (synchronization & 15);
+            default:
+                throw new IllegalStateException();
+        }
+    }
+
+    private static int countAlone(final int synchronization) {
+        int ret = 0;
+        for (int id = 0; id < THREADS; ++id) {
+            if (isAlone(synchronization, id)) {
+                ++ret;
+            }
+        }
+        return ret;
+    }
+
+    private static void run(final Point point, final State state, final int id) {
+        int synchronization = 0;
+        int aloneSections = 0;
+        for (int round = 0; round < ROUNDS; ++round) {
+            state.startArrivals.getAndIncrement();
+            point.start(id);
+            state.check(state.startArrivals.get() >= THREADS * (round + 1), "passed start " + round + " early");
+            state.check(point.runGeneration() == 2 * round + 1, "run generation after start " + round + ": " + point.runGeneration());
+            state.running.getAndIncrement();
+
+            for (int step = 0; step < STEPS; ++step, ++synchronization) {
+                state.running.getAndDecrement();
+                state.synchronizingArrivals.getAndIncrement();
+                if (isAlone(synchronization, id)) {
+                    point.enterAlone(id);
+                    state.check(state.alone.getAndIncrement() == 0, "alone sections overlapped at " + synchronization);
+                    state.check(state.synchronizingArrivals.get() >= THREADS * (synchronization + 1),
+                            "executed alone at " + synchronization + " early");
+                    /* give the other threads the chance to run, which they must not take */
+                    Thread.yield();
+                    state.check(state.running.get() == 0, "thread running during alone section at " + synchronization);
+                    state.aloneSections.getAndIncrement();
+                    state.check(state.alone.decrementAndGet() == 0, "alone sections overlapped at " + synchronization);
+                    point.endAloneExecution(id);
+                } else {
+                    point.enter(id);
+                }
+                state.running.getAndIncrement();
+
+                aloneSections += countAlone(synchronization);
+                state.check(state.synchronizingArrivals.get() >= THREADS * (synchronization + 1),
+                        "passed synchronization " + synchronization + " early");
+                state.check(state.alone.get() == 0, "released during alone section at " + synchronization);
+                state.check(state.aloneSections.get() == aloneSections,
+                        "alone sections at " + synchronization + ": " + state.aloneSections.get() + " != " + aloneSections);
+                state.check(point.synchronizingGeneration() == synchronization + 1,
+                        "synchronizing generation after " + synchronization + ": " + point.synchronizingGeneration());
+            }
+
+            state.running.getAndDecrement();
+            state.endArrivals.getAndIncrement();
+            point.end(id);
+            state.check(state.endArrivals.get() >= THREADS * (round + 1), "passed end " + round + " early");
+            state.check(point.runGeneration() == 2 * round + 2, "run generation after end " + round + ": " + point.runGeneration());
+        }
+    }
+
+    private static void testFanIn(final int fanIn) throws InterruptedException {
+        final Thread[] threads = new Thread[THREADS];
+        final Point[] point = new Point[1];
+        final State state = new State();
+        for (int i = 0; i < THREADS; ++i) {
+            final int id = i;
+            threads[i] = new Thread(() -> run(point[0], state, id), "Synchronizing thread " + id);
+            /* a thread stuck in a barrier must not keep the test from exiting */
+            threads[i].setDaemon(true);
+        }
+        point[0] = new Point(threads, fanIn);
+
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        for (final Thread thread : threads) {
+            thread.join(Math.max(1L, deadline - System.currentTimeMillis()));
+            assertTrue(!thread.isAlive(), () -> "fan-in " + fanIn + ": thread hung: " + thread.getName() + ", failures: " + state.failures);
+        }
+
+        assertTrue(state.failures.isEmpty(), () -> "fan-in " + fanIn + ": " + state.failures);
+        assertEquals(2 * ROUNDS, point[0].runGeneration(), "fan-in " + fanIn + ": final run generation");
+        assertEquals(ROUNDS * STEPS, point[0].synchronizingGeneration(), "fan-in " + fanIn + ": final synchronizing generation");
+    }
+
+    @Test
+    public void testFanInTwo() throws InterruptedException {
+        testFanIn(2);
+    }
+
+    @Test
+    public void testDefaultFanIn() throws InterruptedException {
+        testFanIn(SynchronizationPoint.DEFAULT_FAN_IN);
+    }
+}
@@ -0,0 +1,472 @@
+package io.denery.concurrentutil.misc;
+
+import ca.spottedleaf.concurrentutil.misc.SynchronizationPoint;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks how {@link SynchronizationPoint} handles threads joining and leaving:
+ * <ul>
+ *     <li>threads registered during a run wait until the last thread to end attaches them,</li>
+ *     <li>deregistering releases the threads waiting on the deregistered thread, and attaches pending threads once no
+ *     thread is left to end a run,</li>
+ *     <li>released ids are reused,</li>
+ *     <li>a thread which times out in {@link SynchronizationPoint#tryStart(int, long, TimeUnit)} or
+ *     {@link SynchronizationPoint#tryEnter(int, long, TimeUnit)} after completing nodes of the arrival tree withdraws
+ *     from them, so the other threads stay blocked until it retries,</li>
+ *     <li>a timed wait which withdraws while the last thread is ending cannot hang the run, when a thread registered
+ *     during the run makes the last thread take the lock to attach it. The test holds the lock of the synchronization
+ *     point itself, so that both the withdrawing thread and the last thread to end block on it with the run tree already
+ *     completed, and either of them may take it first.</li>
+ * </ul>
+ */
+public class SynchronizationPointTest {
+
+    private static final int ITERATIONS = 20;
+    private static final long TIMEOUT_MILLIS = 10_000L;
+
+    /* exposes the state which the tests wait on */
+    private static final class Point extends SynchronizationPoint {
+
+        Point(final Thread[] threads, final int fanIn, final int maxThreads) {
+            super(threads, fanIn, maxThreads);
+        }
+
+        int runGeneration() {
+            return this.getRunGenerationVolatile();
+        }
+
+        int synchronizingGeneration() {
+            return this.getSynchronizingGenerationVolatile();
+        }
+
+        boolean isPending(final int id) {
+            return this.pendingThreads.get(id);
+        }
+
+        boolean isRegistered(final int id) {
+            return this.registeredThreads.get(id);
+        }
+    }
+
+    private static Thread thread(final String name, final List<Throwable> failures, final Runnable run) {
+        final Thread ret = new Thread(run, name);
+        ret.setUncaughtExceptionHandler((final Thread t, final Throwable ex) -> {
+            synchronized (failures) {
+                failures.add(ex);
+            }
+        });
+        /* a thread stuck in the synchronization point must not keep the test from exiting */
+        ret.setDaemon(true);
+        return ret;
+    }
+
+    private static void awaitState(final Thread thread, final Thread.State state) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MILLIS);
+        while (thread.getState() != state) {
+            assertTrue(System.nanoTime() < deadline, "Thread did not reach " + state + ": " + thread.getName());
+            Thread.sleep(1L);
+        }
+    }
+
+    private static void awaitCount(final AtomicInteger count, final int expected) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MILLIS);
+        while (count.get() < expected) {
+            assertTrue(System.nanoTime() < deadline, "Count did not reach " + expected + ": " + count.get());
+            Thread.sleep(1L);
+        }
+    }
+
+    private static void join(final Thread thread) throws InterruptedException {
+        thread.join(TIMEOUT_MILLIS);
+        assertTrue(!thread.isAlive(), "Thread hung: " + thread.getName());
+    }
+
+    @Test
+    public void testRegisterDuringRun() throws InterruptedException {
+        final List<Throwable> failures = new ArrayList<>();
+        final Point[] point = new Point[1];
+        final CountDownLatch started = new CountDownLatch(2);
+        final CountDownLatch end = new CountDownLatch(1);
+        final AtomicInteger registeredGeneration = new AtomicInteger(-1);
+
+        final Thread[] running = new Thread[2];
+        for (int i = 0; i < running.length; ++i) {
+            final int id = i;
+            running[i] = thread("running " + id, failures, () -> {
+                point[0].start(id);
+                started.countDown();
+                awaitLatch(end);
+                point[0].end(id);
+                /* the registered thread takes part in this run, so it must start with us */
+                point[0].start(id);
+                point[0].end(id);
+            });
+        }
+        final Thread registered = thread("registered", failures, () -> {
+            point[0].start(2);
+            registeredGeneration.set(point[0].runGeneration());
+            point[0].end(2);
+        });
+
+        /* three threads with a fan-in of 2, so the registered thread is attached to a new leaf */
+        point[0] = new Point(running, 2, 3);
+        for (final Thread thread : running) {
+            thread.start();
+        }
+        started.await();
+
+        assertEquals(2, point[0].register(registered), "Registered id");
+        assertTrue(point[0].isPending(2), "Registered during a run");
+        registered.start();
+        awaitState(registered, Thread.State.WAITING);
+        assertTrue(point[0].isPending(2), "Attached before the run ended");
+        assertEquals(-1, registeredGeneration.get(), "Registered thread started during the run");
+
+        end.countDown();
+        for (final Thread thread : running) {
+            join(thread);
+        }
+        join(registered);
+
+        assertTrue(failures.isEmpty(), () -> failures.toString());
+        assertFalse(point[0].isPending(2), "Pending after the run ended");
+        assertEquals(3, registeredGeneration.get(), "Generation the registered thread started in");
+        assertEquals(4, point[0].runGeneration(), "Run generation");
+    }
+
+    @Test
+    public void testDeregisterReleasesStart() throws InterruptedException {
+        /* with a fan-in of 2, deregistering 0 or 1 completes the first leaf, and deregistering 2 empties the second */
+        for (int deregistering = 0; deregistering < 3; ++deregistering) {
+            final int deregisterId = deregistering;
+            final List<Throwable> failures = new ArrayList<>();
+            final Point[] point = new Point[1];
+            final AtomicInteger passed = new AtomicInteger();
+            final CountDownLatch deregister = new CountDownLatch(1);
+
+            final Thread[] threads = new Thread[3];
+            for (int i = 0; i < threads.length; ++i) {
+                final int id = i;
+                threads[i] = thread("thread " + id, failures, id == deregisterId ? () -> {
+                    awaitLatch(deregister);
+                    point[0].deregister(id);
+                } : () -> {
+                    point[0].start(id);
+                    passed.getAndIncrement();
+                    point[0].end(id);
+                });
+            }
+
+            point[0] = new Point(threads, 2, threads.length);
+            for (final Thread thread : threads) {
+                thread.start();
+            }
+            for (final Thread thread : threads) {
+                if (thread != threads[deregisterId]) {
+                    awaitState(thread, Thread.State.WAITING);
+                }
+            }
+            assertEquals(0, passed.get(), "Started without thread " + deregisterId);
+
+            deregister.countDown();
+            for (final Thread thread : threads) {
+                join(thread);
+            }
+
+            assertTrue(failures.isEmpty(), () -> failures.toString());
+            assertEquals(2, passed.get(), "Started after deregistering " + deregisterId);
+            assertFalse(point[0].isRegistered(deregisterId), "Registered after deregistering " + deregisterId);
+            assertEquals(2, point[0].runGeneration(), "Run generation after deregistering " + deregisterId);
+        }
+    }
+
+    @Test
+    public void testDeregisterLastAttachesPending() throws InterruptedException {
+        /* the last participant either never started, or ended its run before leaving */
+        for (final boolean ran : new boolean[] { false, true }) {
+            final List<Throwable> failures = new ArrayList<>();
+            final Point[] point = new Point[1];
+            final CountDownLatch deregister = new CountDownLatch(1);
+            final AtomicInteger passed = new AtomicInteger();
+
+            final Thread last = thread("last", failures, () -> {
+                if (ran) {
+                    point[0].start(0);
+                    point[0].end(0);
+                }
+                awaitLatch(deregister);
+                point[0].deregister(0);
+            });
+            final Thread[] pending = new Thread[2];
+            for (int i = 0; i < pending.length; ++i) {
+                final int id = i + 1;
+                pending[i] = thread("pending " + id, failures, () -> {
+                    point[0].start(id);
+                    passed.getAndIncrement();
+                    point[0].end(id);
+                });
+            }
+
+            point[0] = new Point(new Thread[] { last }, 2, 3);
+            last.start();
+            if (ran) {
+                awaitState(last, Thread.State.WAITING);
+                assertEquals(2, point[0].runGeneration(), "Run generation after the last participant ran");
+            }
+
+            for (int i = 0; i < pending.length; ++i) {
+                assertEquals(i + 1, point[0].register(pending[i]), "Registered id");
+                assertTrue(point[0].isPending(i + 1), "Registered while a participant is registered");
+                pending[i].start();
+            }
+            for (final Thread thread : pending) {
+                awaitState(thread, Thread.State.WAITING);
+            }
+            assertEquals(0, passed.get(), "Pending threads started");
+
+            deregister.countDown();
+            join(last);
+            for (final Thread thread : pending) {
+                join(thread);
+            }
+
+            assertTrue(failures.isEmpty(), () -> failures.toString());
+            assertEquals(2, passed.get(), "Pending threads which started, ran: " + ran);
+            assertFalse(point[0].isPending(1) || point[0].isPending(2), "Pending after the last participant left");
+            assertEquals(ran ? 4 : 2, point[0].runGeneration(), "Run generation, ran: " + ran);
+        }
+    }
+
+    @Test
+    public void testReuseReleasedId() throws InterruptedException {
+        final List<Throwable> failures = new ArrayList<>();
+        final Point[] point = new Point[1];
+        final AtomicInteger passed = new AtomicInteger();
+
+        final Thread participant = thread("participant", failures, () -> {
+            /* the reusing thread is registered before we start, so it is pending until our first run ends */
+            for (int run = 0; run < 2; ++run) {
+                point[0].start(0);
+                point[0].end(0);
+            }
+        });
+        final Thread released = thread("released", failures, () -> point[0].deregister(1));
+        final Thread reusing = thread("reusing", failures, () -> {
+            point[0].start(1);
+            passed.getAndIncrement();
+            point[0].end(1);
+            point[0].deregister(1);
+        });
+
+        point[0] = new Point(new Thread[] { participant }, 2, 2);
+        assertEquals(1, point[0].register(released), "Registered id");
+        assertThrows(IllegalStateException.class, () -> point[0].register(reusing));
+
+        released.start();
+        join(released);
+        assertFalse(point[0].isRegistered(1), "Registered after deregistering");
+        assertThrows(IllegalStateException.class, () -> point[0].deregister(1));
+
+        assertEquals(1, point[0].register(reusing), "Reused id");
+        reusing.start();
+        participant.start();
+        join(participant);
+        join(reusing);
+
+        assertTrue(failures.isEmpty(), () -> failures.toString());
+        assertEquals(1, passed.get(), "Reusing thread started");
+        assertFalse(point[0].isRegistered(1), "Registered after deregistering the reused id");
+        assertEquals(4, point[0].runGeneration(), "Run generation");
+    }
+
+    /* with 5 threads and a fan-in of 2, the leaves are {0, 1}, {2, 3} and {4} */
+    private static final int TIMED_THREADS = 5;
+    private static final int TIMED_ID = 1;
+
+    /**
+     * Makes the threads arrive at start, or at enter once running, one at a time. The timed thread arrives after the
+     * threads arriving before it, so its arrival completes its leaf and possibly its parent, and then times out. The
+     * threads arriving after it must stay blocked until it retries.
+     */
+    private static void testTimedRetry(final boolean enter, final int[] before, final int[] after) throws InterruptedException {
+        final String name = (enter ? "tryEnter" : "tryStart") + " after " + before.length + " threads";
+        final List<Throwable> failures = new ArrayList<>();
+        final Point[] point = new Point[1];
+        final CountDownLatch started = new CountDownLatch(TIMED_THREADS);
+        final CountDownLatch[] arrive = new CountDownLatch[TIMED_THREADS];
+        final CountDownLatch timedOut = new CountDownLatch(1);
+        final CountDownLatch retry = new CountDownLatch(1);
+        final AtomicInteger arrived = new AtomicInteger();
+        final AtomicInteger passed = new AtomicInteger();
+
+        final Thread[] threads = new Thread[TIMED_THREADS];
+        for (int i = 0; i < threads.length; ++i) {
+            final int id = i;
+            arrive[i] = new CountDownLatch(1);
+            threads[i] = thread("thread " + id, failures, () -> {
+                final Point p = point[0];
+                if (enter) {
+                    p.start(id);
+                }
+                started.countDown();
+                awaitLatch(arrive[id]);
+                arrived.getAndIncrement();
+
+                if (id == TIMED_ID) {
+                    if (enter ? p.tryEnter(id, 20L, TimeUnit.MILLISECONDS) : p.tryStart(id, 20L, TimeUnit.MILLISECONDS)) {
+                        throw new IllegalStateException("Did not time out");
+                    }
+                    timedOut.countDown();
+                    awaitLatch(retry);
+                    if (!(enter ? p.tryEnter(id, TIMEOUT_MILLIS, TimeUnit.MILLISECONDS) : p.tryStart(id, TIMEOUT_MILLIS, TimeUnit.MILLISECONDS))) {
+                        throw new IllegalStateException("Retry timed out");
+                    }
+                } else if (enter) {
+                    p.enter(id);
+                } else {
+                    p.start(id);
+                }
+                passed.getAndIncrement();
+                p.end(id);
+            });
+        }
+
+        point[0] = new Point(threads, 2, TIMED_THREADS);
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+        started.await();
+        final int runGeneration = point[0].runGeneration();
+
+        int arrivals = 0;
+        for (final int id : before) {
+            arrive[id].countDown();
+            awaitCount(arrived, ++arrivals);
+            awaitState(threads[id], Thread.State.WAITING);
+        }
+        arrive[TIMED_ID].countDown();
+        assertTrue(timedOut.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS), name + ": timed thread did not time out");
+        ++arrivals;
+        for (final int id : after) {
+            arrive[id].countDown();
+            awaitCount(arrived, ++arrivals);
+            awaitState(threads[id], Thread.State.WAITING);
+        }
+
+        /* every other thread arrived, but the timed thread withdrew */
+        assertTrue(failures.isEmpty(), () -> name + ": " + failures);
+        assertEquals(0, passed.get(), name + ": threads released without the timed thread");
+        assertEquals(runGeneration, point[0].runGeneration(), name + ": run generation before retrying");
+        assertEquals(0, point[0].synchronizingGeneration(), name + ": synchronizing generation before retrying");
+        for (final Thread thread : threads) {
+            if (thread != threads[TIMED_ID]) {
+                assertEquals(Thread.State.WAITING, thread.getState(), name + ": " + thread.getName() + " not blocked");
+            }
+        }
+
+        retry.countDown();
+        for (final Thread thread : threads) {
+            join(thread);
+        }
+
+        assertTrue(failures.isEmpty(), () -> name + ": " + failures);
+        assertEquals(TIMED_THREADS, passed.get(), name + ": threads released by the retry");
+        assertEquals(2, point[0].runGeneration(), name + ": run generation");
+        assertEquals(enter ? 1 : 0, point[0].synchronizingGeneration(), name + ": synchronizing generation");
+    }
+
+    @Test
+    public void testTryStartRetry() throws InterruptedException {
+        /* the timed arrival completes its leaf, then also the parent of the first two leaves */
+        testTimedRetry(false, new int[] { 0 }, new int[] { 2, 3, 4 });
+        testTimedRetry(false, new int[] { 0, 2, 3 }, new int[] { 4 });
+    }
+
+    @Test
+    public void testTryEnterRetry() throws InterruptedException {
+        testTimedRetry(true, new int[] { 0 }, new int[] { 2, 3, 4 });
+        testTimedRetry(true, new int[] { 0, 2, 3 }, new int[] { 4 });
+    }
+
+    @Test
+    public void testTimedEndRacingLastEnd() throws InterruptedException {
+        for (int i = 0; i < ITERATIONS; ++i) {
+            /* alternate which thread blocks on the lock last, as that changes which one takes it first */
+            final boolean timedBlocksFirst = (i & 1) == 0;
+            final long timeout = timedBlocksFirst ? 1L : 150L;
+            final SynchronizationPoint[] point = new SynchronizationPoint[1];
+            final CountDownLatch started = new CountDownLatch(2);
+            final CountDownLatch endTimed = new CountDownLatch(1);
+            final CountDownLatch endLast = new CountDownLatch(1);
+            final AtomicInteger ended = new AtomicInteger();
+
+            final Thread timed = new Thread(() -> {
+                final SynchronizationPoint p = point[0];
+                p.start(0);
+                started.countDown();
+                awaitLatch(endTimed);
+                /* the last thread cannot release us while the test holds the lock, so this times out */
+                if (p.tryEnd(0, timeout, TimeUnit.MILLISECONDS)) {
+                    ended.incrementAndGet();
+                }
+                p.deregister(0);
+            }, "timed");
+            final Thread last = new Thread(() -> {
+                final SynchronizationPoint p = point[0];
+                p.start(1);
+                started.countDown();
+                awaitLatch(endLast);
+                p.end(1);
+                ended.incrementAndGet();
+                p.deregister(1);
+            }, "last");
+            final Thread registered = new Thread(() -> {
+                final SynchronizationPoint p = point[0];
+                p.start(2);
+                p.end(2);
+            }, "registered");
+
+            point[0] = new SynchronizationPoint(new Thread[] { timed, last }, 2, 3);
+            timed.start();
+            last.start();
+            started.await();
+
+            assertEquals(2, point[0].register(registered), "Registered id");
+            registered.start();
+
+            synchronized (point[0]) {
+                /* the timed thread arrives first, then the last thread completes the run and blocks to attach the registered thread */
+                endTimed.countDown();
+                awaitState(timed, timedBlocksFirst ? Thread.State.BLOCKED : Thread.State.TIMED_WAITING);
+                endLast.countDown();
+                awaitState(last, Thread.State.BLOCKED);
+                awaitState(timed, Thread.State.BLOCKED);
+            }
+
+            join(timed);
+            join(last);
+            join(registered);
+            /* the last thread arrived before the timed thread withdrew, so the run ended for both */
+            assertEquals(2, ended.get(), "Threads which ended");
+        }
+    }
+
+    private static void awaitLatch(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (final InterruptedException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+}
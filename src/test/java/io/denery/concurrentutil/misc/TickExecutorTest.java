@@ -0,0 +1,88 @@
+package io.denery.concurrentutil.misc;
+
+import ca.spottedleaf.concurrentutil.misc.TickExecutor;
+import ca.spottedleaf.concurrentutil.misc.TickExecutor.Phase;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that every index of a parallel phase is executed exactly once per tick, and that alone phases run while no
+ * parallel task is executing.
+ */
+public class TickExecutorTest {
+
+    private static final int TICKS = 500;
+    private static final int SIZE = 1003;
+
+    @Test
+    public void testPhases() {
+        for (int workers = 1; workers <= 4; ++workers) {
+            final TickExecutor executor = new TickExecutor("TickExecutorTest", workers);
+            try {
+                final AtomicIntegerArray hits = new AtomicIntegerArray(SIZE);
+                final AtomicInteger executing = new AtomicInteger();
+                final AtomicInteger aloneRuns = new AtomicInteger();
+
+                final Phase parallel = Phase.parallel("parallel", SIZE, 7, (final int from, final int to) -> {
+                    executing.incrementAndGet();
+                    for (int i = from; i < to; ++i) {
+                        hits.incrementAndGet(i);
+                    }
+                    executing.decrementAndGet();
+                });
+                final Phase alone = Phase.alone("alone", () -> {
+                    assertEquals(0, executing.get(), "Alone phase overlapped a parallel phase");
+                    aloneRuns.incrementAndGet();
+                });
+                final Phase empty = Phase.parallel("empty", 0, 1, (final int from, final int to) -> {
+                    throw new AssertionError("Executed empty range");
+                });
+
+                for (int tick = 0; tick < TICKS; ++tick) {
+                    final TickExecutor.TickTimings timings = executor.tick(parallel, alone, empty, parallel);
+                    assertEquals(4, timings.getPhases(), "Phase count");
+                    assertEquals("alone", timings.getPhaseName(1));
+                }
+
+                for (int i = 0; i < SIZE; ++i) {
+                    assertEquals(2 * TICKS, hits.get(i), "Executions of index " + i);
+                }
+                assertEquals(TICKS, aloneRuns.get(), "Alone executions");
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void testFailure() {
+        final TickExecutor executor = new TickExecutor("TickExecutorTest", 3);
+        try {
+            final AtomicInteger executed = new AtomicInteger();
+            final IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> {
+                executor.tick(Phase.parallel("failing", 10, 1, (final int from, final int to) -> {
+                    executed.incrementAndGet();
+                    if (from == 5) {
+                        throw new IllegalStateException("failed");
+                    }
+                }));
+            });
+            assertEquals("failed", thrown.getMessage());
+            assertEquals(10, executed.get(), "Remaining chunks executed");
+
+            /* the executor is still usable after a failed tick */
+            executor.tick(Phase.alone("alone", () -> {}));
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThrows(IllegalStateException.class, () -> {
+            executor.tick(Phase.alone("alone", () -> {}));
+        });
+    }
+}
@@ -0,0 +1,159 @@
+package io.denery.concurrentutil.queue;
+
+import ca.spottedleaf.concurrentutil.queue.MultiThreadedArrayQueue;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the full and empty boundaries of {@link MultiThreadedArrayQueue} over many laps of its ring, and that
+ * concurrent producers and consumers neither lose nor duplicate elements, nor reorder the elements of one producer.
+ */
+public class MultiThreadedArrayQueueTest {
+
+    private static final int LAPS = 1_000;
+
+    private static final int PRODUCERS = 4;
+    private static final int CONSUMERS = 4;
+    private static final int PER_PRODUCER = 50_000;
+
+    @Test
+    public void testCapacity() {
+        /* a single slot cannot tell a full slot from a free one */
+        assertEquals(2, new MultiThreadedArrayQueue<Integer>(1).capacity());
+        assertEquals(4, new MultiThreadedArrayQueue<Integer>(3).capacity());
+        assertEquals(64, new MultiThreadedArrayQueue<Integer>(64).capacity());
+        assertThrows(IllegalArgumentException.class, () -> new MultiThreadedArrayQueue<Integer>(0));
+        assertThrows(IllegalArgumentException.class, () -> new MultiThreadedArrayQueue<Integer>((1 << 30) + 1));
+        assertThrows(IllegalArgumentException.class, () -> new MultiThreadedArrayQueue<>(2, Arrays.asList(1, 2, 3)));
+    }
+
+    @Test
+    public void testBoundaries() {
+        for (final int requested : new int[] { 1, 2, 8 }) {
+            final MultiThreadedArrayQueue<Integer> queue = new MultiThreadedArrayQueue<>(requested);
+            final int capacity = queue.capacity();
+            int next = 0;
+            int expected = 0;
+
+            /* fill and empty the ring many times, so that every slot is reused across many laps */
+            for (int lap = 0; lap < LAPS; ++lap) {
+                final String name = "capacity " + capacity + " lap " + lap;
+                assertNull(queue.poll(), name + ": poll on empty queue");
+                assertNull(queue.peek(), name + ": peek on empty queue");
+                assertTrue(queue.isEmpty(), name + ": isEmpty");
+
+                for (int i = 0; i < capacity; ++i) {
+                    assertTrue(queue.offer(Integer.valueOf(next++)), name + ": offer " + i);
+                }
+                assertFalse(queue.offer(Integer.valueOf(-1)), name + ": offer on full queue");
+                assertFalse(queue.add(Integer.valueOf(-1)), name + ": add on full queue");
+                assertFalse(queue.addAll(new Integer[] { Integer.valueOf(-1) }), name + ": addAll on full queue");
+                assertEquals(capacity, queue.size(), name + ": size when full");
+
+                for (int i = 0; i < capacity; ++i) {
+                    assertEquals(Integer.valueOf(expected), queue.peek(), name + ": peek " + i);
+                    assertEquals(Integer.valueOf(expected++), queue.poll(), name + ": poll " + i);
+                }
+            }
+            assertNull(queue.poll(), "capacity " + capacity + ": poll after laps");
+        }
+    }
+
+    @Test
+    public void testPartialLaps() {
+        /* the head and tail move through the ring at different offsets instead of always starting at slot 0 */
+        final MultiThreadedArrayQueue<Integer> queue = new MultiThreadedArrayQueue<>(8);
+        int next = 0;
+        int expected = 0;
+        for (int i = 0; i < LAPS * 8; ++i) {
+            final int size = next - expected;
+            if (size < 8 && (size == 0 || (i % 3) != 0)) {
+                assertTrue(queue.offer(Integer.valueOf(next++)), "offer at " + i);
+            } else {
+                assertEquals(Integer.valueOf(expected++), queue.poll(), "poll at " + i);
+            }
+            assertEquals(next - expected, queue.size(), "size at " + i);
+            if (next - expected == 8) {
+                assertFalse(queue.offer(Integer.valueOf(-1)), "offer on full queue at " + i);
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentOfferPoll() throws InterruptedException {
+        final MultiThreadedArrayQueue<Integer> queue = new MultiThreadedArrayQueue<>(64);
+        final AtomicIntegerArray seen = new AtomicIntegerArray(PRODUCERS * PER_PRODUCER);
+        final AtomicInteger consumed = new AtomicInteger();
+        final AtomicInteger full = new AtomicInteger();
+        final List<Throwable> failures = new ArrayList<>();
+        final List<Thread> threads = new ArrayList<>();
+
+        for (int p = 0; p < PRODUCERS; ++p) {
+            final int producer = p;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < PER_PRODUCER; ++i) {
+                    final Integer element = Integer.valueOf(producer * PER_PRODUCER + i);
+                    while (!queue.offer(element)) {
+                        full.getAndIncrement();
+                        /* let the consumers run */
+                        Thread.yield();
+                    }
+                }
+            }, "Producer " + p));
+        }
+        for (int c = 0; c < CONSUMERS; ++c) {
+            threads.add(new Thread(() -> {
+                /* a consumer polls the elements of one producer in the order that producer offered them */
+                final int[] last = new int[PRODUCERS];
+                Arrays.fill(last, -1);
+                while (consumed.get() < PRODUCERS * PER_PRODUCER) {
+                    final Integer element = queue.poll();
+                    if (element == null) {
+                        Thread.yield();
+                        continue;
+                    }
+                    final int producer = element.intValue() / PER_PRODUCER;
+                    if (element.intValue() <= last[producer]) {
+                        throw new IllegalStateException("Out of order: " + element + " after " + last[producer]);
+                    }
+                    last[producer] = element.intValue();
+                    if (seen.getAndIncrement(element.intValue()) != 0) {
+                        throw new IllegalStateException("Duplicate: " + element);
+                    }
+                    consumed.getAndIncrement();
+                }
+            }, "Consumer " + c));
+        }
+
+        for (final Thread thread : threads) {
+            thread.setUncaughtExceptionHandler((final Thread t, final Throwable ex) -> {
+                synchronized (failures) {
+                    failures.add(ex);
+                }
+            });
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join(60_000L);
+            assertTrue(!thread.isAlive(), "Thread hung: " + thread.getName());
+        }
+
+        assertTrue(failures.isEmpty(), () -> failures.toString());
+        for (int i = 0; i < seen.length(); ++i) {
+            assertEquals(1, seen.get(i), "consumptions of " + i);
+        }
+        assertNull(queue.poll(), "leftover element");
+        assertTrue(queue.isEmpty(), "isEmpty");
+    }
+}
@@ -0,0 +1,262 @@
+package io.denery.concurrentutil.queue;
+
+import ca.spottedleaf.concurrentutil.queue.MultiThreadedArrayQueue;
+import ca.spottedleaf.concurrentutil.queue.MultiThreadedQueue;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks {@code pollBatch} and the limited {@code drain} of {@link MultiThreadedQueue} and
+ * {@link MultiThreadedArrayQueue}, both alone and with concurrent producers.
+ */
+public class MultiThreadedQueueBatchTest {
+
+    private static final int ELEMENTS = 100;
+
+    private static final int PRODUCERS = 4;
+    private static final int PER_PRODUCER = 20_000;
+
+    private interface BatchQueue {
+
+        Queue<Integer> queue();
+
+        int pollBatch(final Integer[] dst, final int off, final int max);
+
+        int drain(final List<Integer> dst, final int max);
+    }
+
+    private static BatchQueue linked() {
+        final MultiThreadedQueue<Integer> queue = new MultiThreadedQueue<>();
+        return new BatchQueue() {
+            @Override
+            public Queue<Integer> queue() {
+                return queue;
+            }
+
+            @Override
+            public int pollBatch(final Integer[] dst, final int off, final int max) {
+                return queue.pollBatch(dst, off, max);
+            }
+
+            @Override
+            public int drain(final List<Integer> dst, final int max) {
+                return queue.drain(dst::add, max);
+            }
+        };
+    }
+
+    private static BatchQueue array(final int capacity) {
+        final MultiThreadedArrayQueue<Integer> queue = new MultiThreadedArrayQueue<>(capacity);
+        return new BatchQueue() {
+            @Override
+            public Queue<Integer> queue() {
+                return queue;
+            }
+
+            @Override
+            public int pollBatch(final Integer[] dst, final int off, final int max) {
+                return queue.pollBatch(dst, off, max);
+            }
+
+            @Override
+            public int drain(final List<Integer> dst, final int max) {
+                return queue.drain(dst::add, max);
+            }
+        };
+    }
+
+    private static List<BatchQueue> implementations() {
+        return Arrays.asList(linked(), array(ELEMENTS), array(1024));
+    }
+
+    private static void fill(final Queue<Integer> queue, final int count) {
+        for (int i = 0; i < count; ++i) {
+            assertTrue(queue.offer(Integer.valueOf(i)), "offer " + i);
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        for (final BatchQueue batch : implementations()) {
+            final String name = batch.queue().getClass().getSimpleName();
+            final Integer[] dst = new Integer[8];
+
+            assertEquals(0, batch.pollBatch(dst, 0, dst.length), name + ": pollBatch on empty queue");
+            assertEquals(0, batch.drain(new ArrayList<>(), 8), name + ": drain on empty queue");
+            assertNull(dst[0], name + ": destination written");
+
+            /* emptied after holding elements */
+            fill(batch.queue(), 3);
+            assertEquals(3, batch.pollBatch(dst, 0, dst.length), name + ": pollBatch");
+            assertEquals(0, batch.pollBatch(dst, 0, dst.length), name + ": pollBatch after emptying");
+            assertNull(batch.queue().poll(), name + ": poll after emptying");
+        }
+    }
+
+    @Test
+    public void testBatchSizes() {
+        for (final int size : new int[] { 1, 7, 32, ELEMENTS, ELEMENTS + 1 }) {
+            for (final BatchQueue batch : implementations()) {
+                final String name = batch.queue().getClass().getSimpleName() + " batch " + size;
+                fill(batch.queue(), ELEMENTS);
+
+                /* leave room either side of the batch, which must not be written */
+                final Integer[] dst = new Integer[size + 2];
+                int next = 0;
+                while (next < ELEMENTS) {
+                    Arrays.fill(dst, null);
+                    final int polled = batch.pollBatch(dst, 1, size);
+                    assertEquals(Math.min(size, ELEMENTS - next), polled, name + ": polled at " + next);
+                    assertNull(dst[0], name + ": wrote before offset");
+                    assertNull(dst[polled + 1], name + ": wrote past batch");
+                    for (int i = 0; i < polled; ++i) {
+                        assertEquals(Integer.valueOf(next++), dst[i + 1], name + ": order");
+                    }
+                }
+                assertEquals(0, batch.pollBatch(dst, 1, size), name + ": after emptying");
+                assertEquals(0, batch.pollBatch(dst, 0, 0), name + ": zero max");
+
+                fill(batch.queue(), ELEMENTS);
+                final List<Integer> drained = new ArrayList<>();
+                next = 0;
+                while (next < ELEMENTS) {
+                    final int count = batch.drain(drained, size);
+                    assertEquals(Math.min(size, ELEMENTS - next), count, name + ": drained at " + next);
+                    assertEquals(next + count, drained.size(), name + ": drained elements");
+                    next += count;
+                }
+                for (int i = 0; i < ELEMENTS; ++i) {
+                    assertEquals(Integer.valueOf(i), drained.get(i), name + ": drain order");
+                }
+                assertEquals(0, batch.drain(drained, 0), name + ": zero max drain");
+                assertTrue(batch.queue().isEmpty(), name + ": empty");
+            }
+        }
+    }
+
+    @Test
+    public void testLimitsLeaveElements() {
+        for (final BatchQueue batch : implementations()) {
+            final String name = batch.queue().getClass().getSimpleName();
+            fill(batch.queue(), 10);
+
+            assertEquals(0, batch.drain(new ArrayList<>(), 0), name + ": zero max drain");
+            assertEquals(3, batch.pollBatch(new Integer[3], 0, 3), name + ": pollBatch");
+            assertEquals(4, batch.drain(new ArrayList<>(), 4), name + ": drain");
+            assertEquals(3, batch.queue().size(), name + ": remaining");
+            assertEquals(Integer.valueOf(7), batch.queue().poll(), name + ": head");
+        }
+    }
+
+    @Test
+    public void testValidation() {
+        final MultiThreadedQueue<Integer> linked = new MultiThreadedQueue<>();
+        final MultiThreadedArrayQueue<Integer> array = new MultiThreadedArrayQueue<>(16);
+
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> linked.pollBatch(new Integer[4], 2, 3));
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> array.pollBatch(new Integer[4], 2, 3));
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> linked.pollBatch(new Integer[4], -1, 1));
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> array.pollBatch(new Integer[4], 0, -1));
+        assertThrows(IllegalArgumentException.class, () -> linked.drain((final Integer element) -> {}, -1));
+        assertThrows(IllegalArgumentException.class, () -> array.drain((final Integer element) -> {}, -1));
+    }
+
+    /* every element is produced once, so it must be consumed exactly once and in order per producer per consumer */
+    private static void testConcurrent(final BatchQueue batch, final int consumers, final boolean drain) throws InterruptedException {
+        final String name = batch.queue().getClass().getSimpleName() + (drain ? " drain" : " pollBatch");
+        final AtomicIntegerArray seen = new AtomicIntegerArray(PRODUCERS * PER_PRODUCER);
+        final List<Throwable> failures = new ArrayList<>();
+        final List<Thread> threads = new ArrayList<>();
+
+        for (int p = 0; p < PRODUCERS; ++p) {
+            final int producer = p;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < PER_PRODUCER; ++i) {
+                    final Integer element = Integer.valueOf(producer * PER_PRODUCER + i);
+                    while (!batch.queue().offer(element)) {
+                        /* bounded queue is full, let the consumers run */
+                        Thread.yield();
+                    }
+                }
+            }, "Producer " + p));
+        }
+        final AtomicInteger consumed = new AtomicInteger();
+        for (int c = 0; c < consumers; ++c) {
+            final int consumer = c;
+            threads.add(new Thread(() -> {
+                final int[] last = new int[PRODUCERS];
+                Arrays.fill(last, -1);
+                final Integer[] dst = new Integer[1 + (drain ? 16 : consumer * 13)];
+                final List<Integer> drained = new ArrayList<>();
+                while (consumed.get() < PRODUCERS * PER_PRODUCER) {
+                    drained.clear();
+                    if (drain) {
+                        batch.drain(drained, dst.length);
+                    } else {
+                        drained.addAll(Arrays.asList(dst).subList(0, batch.pollBatch(dst, 0, dst.length)));
+                    }
+                    if (drained.isEmpty()) {
+                        /* let the producers run */
+                        Thread.yield();
+                    }
+                    for (final Integer element : drained) {
+                        final int producer = element.intValue() / PER_PRODUCER;
+                        if (element.intValue() <= last[producer]) {
+                            throw new IllegalStateException("Out of order: " + element + " after " + last[producer]);
+                        }
+                        last[producer] = element.intValue();
+                        if (seen.getAndIncrement(element.intValue()) != 0) {
+                            throw new IllegalStateException("Duplicate: " + element);
+                        }
+                        consumed.getAndIncrement();
+                    }
+                }
+            }, "Consumer " + c));
+        }
+
+        for (final Thread thread : threads) {
+            thread.setUncaughtExceptionHandler((final Thread t, final Throwable ex) -> {
+                synchronized (failures) {
+                    failures.add(ex);
+                }
+            });
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join(60_000L);
+            assertTrue(!thread.isAlive(), name + ": thread hung: " + thread.getName());
+        }
+
+        assertTrue(failures.isEmpty(), () -> name + ": " + failures);
+        for (int i = 0; i < seen.length(); ++i) {
+            assertEquals(1, seen.get(i), name + ": consumptions of " + i);
+        }
+        assertNull(batch.queue().poll(), name + ": leftover element");
+    }
+
+    @Test
+    public void testConcurrentPollBatch() throws InterruptedException {
+        for (final BatchQueue batch : Arrays.asList(linked(), array(64))) {
+            testConcurrent(batch, 4, false);
+        }
+    }
+
+    @Test
+    public void testConcurrentDrain() throws InterruptedException {
+        /* drain is single consumer */
+        for (final BatchQueue batch : Arrays.asList(linked(), array(64))) {
+            testConcurrent(batch, 1, true);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package io.denery.concurrentutil.queue;
+
+import ca.spottedleaf.concurrentutil.queue.MultiThreadedArrayQueue;
+import ca.spottedleaf.concurrentutil.queue.MultiThreadedQueue;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the spliterators of {@link MultiThreadedQueue} and {@link MultiThreadedArrayQueue}. Both are ordered, so
+ * every split must return a prefix of the remaining elements.
+ */
+public class MultiThreadedQueueSpliteratorTest {
+
+    private static final int ELEMENTS = 10_000;
+
+    private static final int CHARACTERISTICS = Spliterator.CONCURRENT | Spliterator.NONNULL | Spliterator.ORDERED;
+
+    private static List<Queue<Integer>> implementations(final int elements) {
+        final List<Queue<Integer>> ret = new ArrayList<>();
+        ret.add(new MultiThreadedQueue<>());
+        ret.add(new MultiThreadedArrayQueue<>(Math.max(1, elements)));
+        for (final Queue<Integer> queue : ret) {
+            for (int i = 0; i < elements; ++i) {
+                queue.add(Integer.valueOf(i));
+            }
+        }
+        return ret;
+    }
+
+    /* splits depth-first, so that the elements are collected in encounter order */
+    private static void collect(final Spliterator<Integer> spliterator, final List<Integer> into, final int depth) {
+        /* split prefixes are copied into arrays, so they may also report SIZED */
+        assertEquals(CHARACTERISTICS, spliterator.characteristics() & CHARACTERISTICS, "characteristics");
+        if (depth > 0) {
+            final Spliterator<Integer> prefix = spliterator.trySplit();
+            if (prefix != null) {
+                collect(prefix, into, depth - 1);
+            }
+        }
+        /* alternate between both ways to consume */
+        if ((depth & 1) == 0) {
+            spliterator.forEachRemaining(into::add);
+        } else {
+            while (spliterator.tryAdvance(into::add));
+        }
+        assertFalse(spliterator.tryAdvance((final Integer element) -> {}), "advanced past end");
+    }
+
+    private static List<Integer> expected(final int elements) {
+        return IntStream.range(0, elements).boxed().collect(Collectors.toList());
+    }
+
+    @Test
+    public void testSplitCoverage() {
+        for (final int elements : new int[] { 0, 1, 1023, 1024, 1025, ELEMENTS }) {
+            for (final Queue<Integer> queue : implementations(elements)) {
+                for (final int depth : new int[] { 0, 1, 4, 32 }) {
+                    final String name = queue.getClass().getSimpleName() + " " + elements + " elements depth " + depth;
+                    final Spliterator<Integer> spliterator = queue.spliterator();
+                    assertEquals(CHARACTERISTICS, spliterator.characteristics(), name + ": characteristics");
+
+                    final List<Integer> collected = new ArrayList<>();
+                    collect(spliterator, collected, depth);
+                    assertEquals(expected(elements), collected, name);
+                }
+                assertEquals(elements, queue.size(), "spliterator removed elements");
+            }
+        }
+    }
+
+    @Test
+    public void testSkipsRemoved() {
+        for (final Queue<Integer> queue : implementations(ELEMENTS)) {
+            final String name = queue.getClass().getSimpleName();
+            final List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < ELEMENTS; ++i) {
+                if (i % 3 == 0) {
+                    assertTrue(queue.remove(Integer.valueOf(i)), name + ": remove " + i);
+                } else {
+                    expected.add(Integer.valueOf(i));
+                }
+            }
+            final List<Integer> collected = new ArrayList<>();
+            collect(queue.spliterator(), collected, 32);
+            assertEquals(expected, collected, name);
+        }
+    }
+
+    @Test
+    public void testEstimateSize() {
+        for (final Queue<Integer> queue : implementations(ELEMENTS)) {
+            final String name = queue.getClass().getSimpleName();
+            final Spliterator<Integer> spliterator = queue.spliterator();
+
+            /* the size of a concurrent queue is unknown */
+            assertEquals(Long.MAX_VALUE, spliterator.estimateSize(), name);
+            assertFalse(spliterator.hasCharacteristics(Spliterator.SIZED), name);
+
+            /* a split prefix holds a copy of its elements, so it knows its size */
+            final Spliterator<Integer> prefix = spliterator.trySplit();
+            final long prefixSize = prefix.estimateSize();
+            assertTrue(prefixSize > 0L && prefixSize <= ELEMENTS, name + ": prefix size " + prefixSize);
+            assertEquals(prefixSize, prefix.getExactSizeIfKnown(), name + ": prefix exact size");
+            assertEquals(prefixSize, StreamSupport.stream(prefix, false).count(), name + ": prefix elements");
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        for (final Queue<Integer> queue : implementations(0)) {
+            final String name = queue.getClass().getSimpleName();
+            final Spliterator<Integer> spliterator = queue.spliterator();
+            assertNull(spliterator.trySplit(), name + ": split empty queue");
+            assertFalse(spliterator.tryAdvance((final Integer element) -> {}), name + ": advanced empty queue");
+        }
+    }
+
+    @Test
+    public void testParallelStream() {
+        for (final Queue<Integer> queue : implementations(ELEMENTS)) {
+            final String name = queue.getClass().getSimpleName();
+            assertEquals(expected(ELEMENTS), StreamSupport.stream(queue.spliterator(), true).collect(Collectors.toList()), name);
+            assertEquals((long)ELEMENTS * (ELEMENTS - 1) / 2,
+                    StreamSupport.stream(queue.spliterator(), true).mapToLong(Integer::longValue).sum(), name + ": sum");
+        }
+        assertEquals(Arrays.asList(), StreamSupport.stream(new MultiThreadedQueue<Integer>().spliterator(), true)
+                .collect(Collectors.toList()), "empty parallel stream");
+    }
+}
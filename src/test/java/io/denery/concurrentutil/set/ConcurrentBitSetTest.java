@@ -0,0 +1,295 @@
+package io.denery.concurrentutil.set;
+
+import ca.spottedleaf.concurrentutil.set.ConcurrentBitSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the operations of every {@link ConcurrentBitSet} implementation against {@link BitSet}. The capacities are
+ * chosen so that the last word of each bitset is partial.
+ */
+public class ConcurrentBitSetTest {
+
+    private static final int BITS = 3 * Long.SIZE + 5;
+
+    private static List<IntFunction<ConcurrentBitSet>> implementations(final int bits) {
+        final List<IntFunction<ConcurrentBitSet>> ret = new ArrayList<>();
+        if (bits <= Long.SIZE) {
+            ret.add(ConcurrentBitSet.SmallConcurrentBitSet::new);
+        }
+        ret.add(ConcurrentBitSet.LargeConcurrentBitset::new);
+        ret.add((final int maxBits) -> new ConcurrentBitSet.ContendedConcurrentBitSet(maxBits, Long.SIZE));
+        ret.add(ConcurrentBitSet.ContendedConcurrentBitSet::new);
+        ret.add(ConcurrentBitSet.FastLargeConcurrentBitset::new);
+        ret.add((final int maxBits) -> new ConcurrentBitSet.OffHeapConcurrentBitSet((long)maxBits));
+        ret.add(ConcurrentBitSet.HierarchicalConcurrentBitSet::new);
+        return ret;
+    }
+
+    private static void assertMatches(final BitSet expected, final ConcurrentBitSet bitset, final String description) {
+        final String name = bitset.getClass().getSimpleName() + " " + description;
+        for (int bit = 0; bit < bitset.totalBits(); ++bit) {
+            assertEquals(expected.get(bit), bitset.get(bit), name + ": bit " + bit);
+        }
+        final long[] words = expected.toLongArray();
+        for (int word = 0; word < bitset.totalWords(); ++word) {
+            assertEquals(word < words.length ? words[word] : 0L, bitset.getWord(word), name + ": word " + word);
+        }
+        assertEquals(expected, bitset.toBitSet(), name);
+        assertEquals(expected.cardinality(), bitset.getOnBits(), name + ": ON bits");
+    }
+
+    @Test
+    public void testRanges() {
+        final int[][] ranges = new int[][] {
+                { 0, 0 }, { 7, 7 }, { 0, 1 }, { 3, 9 }, { 0, 64 }, { 63, 64 }, { 63, 65 }, { 64, 128 },
+                { 1, 191 }, { 65, BITS }, { BITS - 1, BITS }, { 0, BITS }
+        };
+        for (final int bits : new int[] { 7, Long.SIZE, BITS }) {
+            for (final IntFunction<ConcurrentBitSet> constructor : implementations(bits)) {
+                for (final int[] range : ranges) {
+                    if (range[1] > bits) {
+                        continue;
+                    }
+                    final String description = bits + " bits [" + range[0] + "," + range[1] + ")";
+
+                    final ConcurrentBitSet set = constructor.apply(bits);
+                    final BitSet expected = new BitSet();
+                    set.setRange(range[0], range[1]);
+                    expected.set(range[0], range[1]);
+                    assertMatches(expected, set, "set " + description);
+
+                    final ConcurrentBitSet clear = constructor.apply(bits);
+                    clear.setRange(0, bits);
+                    expected.set(0, bits);
+                    clear.clearRange(range[0], range[1]);
+                    expected.clear(range[0], range[1]);
+                    assertMatches(expected, clear, "clear " + description);
+                }
+
+                final ConcurrentBitSet set = constructor.apply(bits);
+                assertThrows(IllegalArgumentException.class, () -> set.setRange(-1, 1));
+                assertThrows(IllegalArgumentException.class, () -> set.setRange(0, bits + 1));
+                assertThrows(IllegalArgumentException.class, () -> set.clearRange(2, 1));
+            }
+        }
+    }
+
+    @Test
+    public void testClaimNextClearBit() {
+        for (final IntFunction<ConcurrentBitSet> constructor : implementations(BITS)) {
+            final ConcurrentBitSet set = constructor.apply(BITS);
+            final String name = set.getClass().getSimpleName();
+            set.setRange(60, 70);
+            set.setOn(BITS - 2);
+
+            assertEquals(70, set.claimNextClearBit(60), name);
+            assertEquals(0, set.claimNextClearBit(), name);
+            for (int bit = 1; bit < 60; ++bit) {
+                assertEquals(bit, set.claimNextClearBit(), name);
+            }
+            for (int bit = 71; bit < BITS - 2; ++bit) {
+                assertEquals(bit, set.claimNextClearBit(), name);
+            }
+            assertEquals(BITS - 1, set.claimNextClearBit(), name);
+            assertEquals(-1, set.claimNextClearBit(), name);
+            assertEquals(-1, set.claimNextClearBit(BITS), name);
+            assertEquals(BITS, set.getOnBits(), name);
+        }
+    }
+
+    @Test
+    public void testConcurrentClaims() throws InterruptedException {
+        final int threads = 4;
+        for (final IntFunction<ConcurrentBitSet> constructor : implementations(BITS)) {
+            final ConcurrentBitSet set = constructor.apply(BITS);
+            final String name = set.getClass().getSimpleName();
+            final int[][] claimed = new int[threads][BITS + 1];
+            final Thread[] workers = new Thread[threads];
+
+            for (int i = 0; i < threads; ++i) {
+                final int[] claims = claimed[i];
+                workers[i] = new Thread(() -> {
+                    int count = 0;
+                    for (int bit; (bit = set.claimNextClearBit()) != -1;) {
+                        claims[++count] = bit;
+                    }
+                    claims[0] = count;
+                });
+                workers[i].start();
+            }
+
+            final BitSet seen = new BitSet();
+            for (int i = 0; i < threads; ++i) {
+                workers[i].join();
+                for (int j = 1; j <= claimed[i][0]; ++j) {
+                    final int bit = claimed[i][j];
+                    assertTrue(!seen.get(bit), name + ": bit " + bit + " claimed twice");
+                    seen.set(bit);
+                }
+            }
+            assertEquals(BITS, seen.cardinality(), name + ": claimed bits");
+            assertEquals(BITS, set.getOnBits(), name + ": ON bits");
+        }
+    }
+
+    @Test
+    public void testCountedOnBits() throws InterruptedException {
+        final List<IntFunction<ConcurrentBitSet>> counted = new ArrayList<>();
+        counted.add((final int maxBits) -> new ConcurrentBitSet.LargeConcurrentBitset(maxBits, true));
+        counted.add((final int maxBits) -> new ConcurrentBitSet.ContendedConcurrentBitSet(maxBits, Long.SIZE, true));
+        counted.add((final int maxBits) -> new ConcurrentBitSet.FastLargeConcurrentBitset(maxBits, true));
+        counted.add((final int maxBits) -> new ConcurrentBitSet.OffHeapConcurrentBitSet((long)maxBits, true));
+
+        final int threads = 4;
+        for (final IntFunction<ConcurrentBitSet> constructor : counted) {
+            final ConcurrentBitSet set = constructor.apply(BITS);
+            final String name = set.getClass().getSimpleName();
+            final Thread[] workers = new Thread[threads];
+
+            /* every writer touches the same few words, so that counter updates race with writes to the same word */
+            for (int i = 0; i < threads; ++i) {
+                workers[i] = new Thread(() -> {
+                    final ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int j = 0; j < 20_000; ++j) {
+                        final int bit = random.nextInt(BITS);
+                        switch (random.nextInt(9)) {
+                            case 0 -> set.setOn(bit);
+                            case 1 -> set.setOff(bit);
+                            case 2 -> set.flip(bit);
+                            case 3 -> set.getAndSet(bit, random.nextBoolean());
+                            case 4 -> set.setRange(bit, Math.min(BITS, bit + random.nextInt(100)));
+                            case 5 -> set.clearRange(bit, Math.min(BITS, bit + random.nextInt(100)));
+                            case 6 -> set.getAndOrWord(bit >>> 6, random.nextLong());
+                            case 7 -> set.getAndAndWord(bit >>> 6, random.nextLong());
+                            default -> set.claimNextClearBit(bit);
+                        }
+                    }
+                });
+                workers[i].start();
+            }
+            for (final Thread worker : workers) {
+                worker.join();
+            }
+
+            final int onBits = set.getOnBits();
+            assertEquals(0, Long.bitCount(set.getWord(set.totalWords() - 1) >>> (BITS & (Long.SIZE - 1))), name + ": bits past the capacity");
+            assertEquals(onBits, set.getOnBitsApproximate(), name + ": counter drifted");
+            assertEquals(onBits, set.copy().getOnBitsApproximate(), name + ": copied counter");
+        }
+    }
+
+    @Test
+    public void testInitialWords() {
+        for (final int bits : new int[] { 7, Long.SIZE, BITS }) {
+            final long[] words = new long[(bits + (Long.SIZE - 1)) >>> 6];
+            for (int bit = 0; bit < bits; bit += 3) {
+                words[bit >>> 6] |= 1L << bit;
+            }
+            final BitSet expected = BitSet.valueOf(words);
+
+            final ConcurrentBitSet set = ConcurrentBitSet.of(bits, words);
+            words[0] = 0L;
+            assertMatches(expected, set, bits + " bits from words");
+            assertMatches(expected, ConcurrentBitSet.of(bits, expected), bits + " bits from BitSet");
+            assertMatches(new BitSet(), ConcurrentBitSet.of(bits, new long[0]), bits + " bits from no words");
+
+            final long[] tooMany = new long[words.length + 1];
+            assertThrows(IllegalArgumentException.class, () -> ConcurrentBitSet.of(bits, tooMany));
+            final long[] pastCapacity = new long[words.length];
+            pastCapacity[words.length - 1] = 1L << ((bits - 1) & (Long.SIZE - 1));
+            ConcurrentBitSet.of(bits, pastCapacity);
+            if ((bits & (Long.SIZE - 1)) != 0) {
+                pastCapacity[words.length - 1] = 1L << (bits & (Long.SIZE - 1));
+                assertThrows(IllegalArgumentException.class, () -> ConcurrentBitSet.of(bits, pastCapacity));
+                assertThrows(IllegalArgumentException.class, () -> ConcurrentBitSet.of(bits, BitSet.valueOf(pastCapacity)));
+            }
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> ConcurrentBitSet.of(0, new long[0]));
+        assertThrows(NullPointerException.class, () -> ConcurrentBitSet.of(BITS, (long[])null));
+    }
+
+    @Test
+    public void testInitialWordsConstructors() {
+        final long[] words = new long[] { -1L, 1L << 63, 0x5555L, (1L << 5) - 1L };
+        final BitSet expected = BitSet.valueOf(words);
+        final List<ConcurrentBitSet> sets = new ArrayList<>();
+        sets.add(new ConcurrentBitSet.LargeConcurrentBitset(BITS, words, true));
+        sets.add(new ConcurrentBitSet.ContendedConcurrentBitSet(BITS, Long.SIZE, true, words));
+        sets.add(new ConcurrentBitSet.ContendedConcurrentBitSet(BITS, ConcurrentBitSet.ContendedConcurrentBitSet.MAX_BITS_PER_LINE, true, words));
+        sets.add(new ConcurrentBitSet.OffHeapConcurrentBitSet((long)BITS, words, true));
+        sets.add(new ConcurrentBitSet.HierarchicalConcurrentBitSet(BITS, words));
+        for (final ConcurrentBitSet set : sets) {
+            assertMatches(expected, set, "from words");
+            assertEquals(expected.cardinality(), set.getOnBitsApproximate(), set.getClass().getSimpleName() + ": counted ON bits");
+        }
+
+        final long[] pastCapacity = words.clone();
+        pastCapacity[3] = 1L << 5;
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentBitSet.LargeConcurrentBitset(BITS, pastCapacity));
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentBitSet.ContendedConcurrentBitSet(BITS, Long.SIZE, false, pastCapacity));
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentBitSet.OffHeapConcurrentBitSet((long)BITS, pastCapacity, false));
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentBitSet.HierarchicalConcurrentBitSet(BITS, pastCapacity));
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentBitSet.LargeConcurrentBitset(BITS, new long[5]));
+    }
+
+    @Test
+    public void testBitsOutOfRange() {
+        for (final int bits : new int[] { 7, Long.SIZE, BITS }) {
+            for (final IntFunction<ConcurrentBitSet> constructor : implementations(bits)) {
+                final ConcurrentBitSet set = constructor.apply(bits);
+                final int past = set.totalBits();
+                final String name = set.getClass().getSimpleName() + " " + bits + " bits";
+
+                /* a shift by the bit index wraps, so an unchecked bit past the end would modify a bit in range */
+                assertThrows(IllegalArgumentException.class, () -> set.flip(past), name + ": flip past end");
+                assertThrows(IllegalArgumentException.class, () -> set.flip(-1), name + ": flip negative");
+                assertThrows(IllegalArgumentException.class, () -> set.setOn(past), name + ": setOn past end");
+                assertThrows(IllegalArgumentException.class, () -> set.setOff(past), name + ": setOff past end");
+                assertThrows(IllegalArgumentException.class, () -> set.getAndSetOn(past), name + ": getAndSetOn past end");
+                assertMatches(new BitSet(), set, "after out of range bits");
+            }
+        }
+    }
+
+    @Test
+    public void testCopy() {
+        for (final int bits : new int[] { 7, BITS }) {
+            for (final IntFunction<ConcurrentBitSet> constructor : implementations(bits)) {
+                final ConcurrentBitSet set = constructor.apply(bits);
+                final BitSet expected = new BitSet();
+                for (int bit = 1; bit < bits; bit += 5) {
+                    set.setOn(bit);
+                    expected.set(bit);
+                }
+
+                final ConcurrentBitSet copy = set.copy();
+                final long[] snapshot = set.toLongArray();
+                assertNotSame(set, copy);
+                assertEquals(set.getClass(), copy.getClass());
+                assertMatches(expected, copy, "copy");
+
+                /* the copy and the snapshot are independent of the original */
+                set.setRange(0, bits);
+                copy.setOff(1);
+                assertMatches(BitSet.valueOf(snapshot), ConcurrentBitSet.of(bits, snapshot), "snapshot");
+                final BitSet full = new BitSet();
+                full.set(0, bits);
+                assertMatches(full, set, "original");
+                expected.clear(1);
+                assertMatches(expected, copy, "modified copy");
+            }
+        }
+    }
+}
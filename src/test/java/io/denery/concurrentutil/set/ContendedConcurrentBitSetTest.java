@@ -0,0 +1,114 @@
+package io.denery.concurrentutil.set;
+
+import ca.spottedleaf.concurrentutil.ConcurrentUtil;
+import ca.spottedleaf.concurrentutil.set.ConcurrentBitSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the mapping of the words of {@link ConcurrentBitSet.ContendedConcurrentBitSet} to its backing array: every
+ * word must have its own index, at most {@code bitsPerLine} bits may share a cache line, and the padding lines at the
+ * start and end of the array must never be written.
+ */
+public class ContendedConcurrentBitSetTest {
+
+    private static final int BITS = 20 * Long.SIZE + 3;
+    private static final int LINE_WORDS = ConcurrentUtil.CACHE_LINE_SIZE / Long.BYTES;
+
+    private static final class Mapping extends ConcurrentBitSet.ContendedConcurrentBitSet {
+
+        Mapping(final int maxBits, final int bitsPerLine) {
+            super(maxBits, bitsPerLine, true);
+        }
+
+        Mapping(final int maxBits, final int bitsPerLine, final long[] words) {
+            super(maxBits, bitsPerLine, true, words);
+        }
+
+        void assertMapping() {
+            final int wordsPerLine = this.bitsPerLine / Long.SIZE;
+            final int[] lineWords = new int[this.bitset.length / LINE_WORDS];
+            final BitSet indices = new BitSet();
+            for (int word = 0; word < this.words; ++word) {
+                final int index = this.getIndexForWord(word);
+                final String name = this.bitsPerLine + " bits per line, word " + word + " at " + index;
+                assertTrue(index >= LINE_WORDS && index < this.bitset.length - LINE_WORDS, "Padding used: " + name);
+                assertTrue(!indices.get(index), "Index shared: " + name);
+                indices.set(index);
+                /* words are grouped in order, wordsPerLine at a time */
+                assertEquals(word / wordsPerLine + 1, index / LINE_WORDS, "Line: " + name);
+                ++lineWords[index / LINE_WORDS];
+            }
+            for (final int count : lineWords) {
+                assertTrue(count <= wordsPerLine, "Too many words on a line: " + count);
+            }
+        }
+
+        void assertOnlyWordsWritten(final long[] expected) {
+            for (int word = 0; word < this.words; ++word) {
+                assertEquals(expected[word], this.bitset[this.getIndexForWord(word)], "Word " + word);
+            }
+            long total = 0L;
+            for (final long bits : this.bitset) {
+                total += Long.bitCount(bits);
+            }
+            assertEquals((long)BitSet.valueOf(expected).cardinality(), total, "Bits written outside of the words");
+        }
+    }
+
+    @Test
+    public void testIndexMapping() {
+        for (int bitsPerLine = Long.SIZE; bitsPerLine <= ConcurrentBitSet.ContendedConcurrentBitSet.MAX_BITS_PER_LINE; bitsPerLine <<= 1) {
+            for (final int bits : new int[] { 1, Long.SIZE, BITS }) {
+                new Mapping(bits, bitsPerLine).assertMapping();
+            }
+        }
+    }
+
+    @Test
+    public void testWordsRoundTrip() {
+        for (int bitsPerLine = Long.SIZE; bitsPerLine <= ConcurrentBitSet.ContendedConcurrentBitSet.MAX_BITS_PER_LINE; bitsPerLine <<= 1) {
+            final Mapping bitset = new Mapping(BITS, bitsPerLine);
+            final long[] expected = new long[bitset.totalWords()];
+            for (int bit = 0; bit < BITS; bit += 7) {
+                bitset.setOn(bit);
+                expected[bit >>> 6] |= 1L << bit;
+            }
+            bitset.setOn(BITS - 1);
+            expected[(BITS - 1) >>> 6] |= 1L << (BITS - 1);
+
+            bitset.assertOnlyWordsWritten(expected);
+            assertArrayEquals(expected, bitset.toLongArray());
+            for (int word = 0; word < expected.length; ++word) {
+                assertEquals(expected[word], bitset.getWord(word), "Word " + word);
+            }
+
+            final Mapping copy = new Mapping(BITS, bitsPerLine, expected);
+            copy.assertOnlyWordsWritten(expected);
+            assertArrayEquals(expected, copy.toLongArray());
+
+            /* the padding stays clear even with every bit ON */
+            final Mapping full = new Mapping(BITS, bitsPerLine);
+            full.setRange(0, BITS);
+            final long[] all = new long[expected.length];
+            Arrays.fill(all, -1L);
+            all[all.length - 1] = (1L << (BITS & (Long.SIZE - 1))) - 1L;
+            full.assertOnlyWordsWritten(all);
+            assertEquals(BITS, full.getOnBits());
+        }
+    }
+
+    @Test
+    public void testBitsPerLineValidation() {
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentBitSet.ContendedConcurrentBitSet(BITS, 32));
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentBitSet.ContendedConcurrentBitSet(BITS, 96));
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentBitSet.ContendedConcurrentBitSet(BITS, ConcurrentBitSet.ContendedConcurrentBitSet.MAX_BITS_PER_LINE * 2));
+    }
+}
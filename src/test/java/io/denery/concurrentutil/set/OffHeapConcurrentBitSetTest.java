@@ -0,0 +1,137 @@
+package io.denery.concurrentutil.set;
+
+import ca.spottedleaf.concurrentutil.set.ConcurrentBitSet;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the bit and word accesses of {@link ConcurrentBitSet.OffHeapConcurrentBitSet} around the boundaries of its
+ * buffers. The buffers are shrunk to a few words so that the boundaries can be crossed without allocating the
+ * gigabytes needed with {@link ConcurrentBitSet.OffHeapConcurrentBitSet#CHUNK_WORDS}.
+ */
+public class OffHeapConcurrentBitSetTest {
+
+    /* 7 words, the last one partial, so the last buffer is shorter than the others */
+    private static final long BITS = 6L * Long.SIZE + 3L;
+
+    private static final class SmallChunks extends ConcurrentBitSet.OffHeapConcurrentBitSet {
+
+        SmallChunks(final long maxBits, final int chunkShift) {
+            super(maxBits, true, chunkShift);
+        }
+
+        SmallChunks(final long maxBits, final long[] words, final int chunkShift) {
+            super(maxBits, words, true, chunkShift);
+        }
+
+        void assertChunks(final int expectedChunks) {
+            assertEquals(expectedChunks, this.chunks.length, "Chunks");
+            long words = 0L;
+            for (final ByteBuffer chunk : this.chunks) {
+                assertEquals(0, chunk.alignmentOffset(0, Long.BYTES), "Unaligned chunk");
+                assertTrue(chunk.capacity() <= (this.chunkWords * Long.BYTES), "Chunk too large: " + chunk.capacity());
+                words += chunk.capacity() / Long.BYTES;
+            }
+            assertEquals(this.words, words, "Words");
+        }
+    }
+
+    private static void assertMatches(final BitSet expected, final ConcurrentBitSet.OffHeapConcurrentBitSet bitset) {
+        for (long bit = 0L; bit < BITS; ++bit) {
+            assertEquals(expected.get((int)bit), bitset.get(bit), "Bit " + bit);
+        }
+        final long[] words = expected.toLongArray();
+        for (int i = 0; i < bitset.totalWords(); ++i) {
+            assertEquals(i < words.length ? words[i] : 0L, bitset.getWord(i), "Word " + i);
+        }
+        assertArrayEquals(Arrays.copyOf(words, bitset.totalWords()), bitset.toLongArray());
+        assertEquals(expected.cardinality(), bitset.getOnBits(), "ON bits");
+        assertEquals(expected.cardinality(), bitset.getOnBitsApproximate(), "Counted ON bits");
+    }
+
+    @Test
+    public void testChunkLayout() {
+        new SmallChunks(BITS, 0).assertChunks(7);
+        new SmallChunks(BITS, 1).assertChunks(4);
+        new SmallChunks(BITS, 3).assertChunks(1);
+        new SmallChunks(BITS * 2L, 2).assertChunks(4);
+    }
+
+    @Test
+    public void testBitsAcrossChunks() {
+        for (int chunkShift = 0; chunkShift <= 2; ++chunkShift) {
+            final SmallChunks bitset = new SmallChunks(BITS, chunkShift);
+            final BitSet expected = new BitSet();
+            final int chunkBits = Long.SIZE << chunkShift;
+
+            /* first and last bit of every chunk, and the last bit of the set */
+            for (int bit = 0; bit < BITS; bit += chunkBits) {
+                bitset.setOn((long)bit);
+                expected.set(bit);
+                final int last = (int)Math.min(BITS, (long)bit + chunkBits) - 1;
+                assertFalse(bitset.getAndSetOn((long)last), "Bit " + last);
+                expected.set(last);
+            }
+            assertMatches(expected, bitset);
+
+            assertTrue(bitset.flip((long)(chunkBits - 1)), "Flip");
+            expected.clear(chunkBits - 1);
+            assertTrue(bitset.getAndSetOff((long)chunkBits), "Bit " + chunkBits);
+            expected.clear(chunkBits);
+            assertMatches(expected, bitset);
+
+            assertThrows(IllegalArgumentException.class, () -> bitset.get(BITS));
+        }
+    }
+
+    @Test
+    public void testWordsAcrossChunks() {
+        final SmallChunks bitset = new SmallChunks(BITS, 1);
+        final BitSet expected = new BitSet();
+
+        assertEquals(0L, bitset.getAndOrWord(1, -1L), "Word 1");
+        assertEquals(0L, bitset.getAndOrWord(2, 1L << 63), "Word 2");
+        /* bits past the capacity in the last word are never set */
+        assertEquals(0L, bitset.getAndOrWord(6, -1L), "Word 6");
+        expected.set(Long.SIZE, 2 * Long.SIZE);
+        expected.set(3 * Long.SIZE - 1);
+        expected.set(6 * Long.SIZE, (int)BITS);
+        assertMatches(expected, bitset);
+
+        assertEquals(-1L, bitset.getAndAndWord(1, ~1L), "Word 1");
+        expected.clear(Long.SIZE);
+        assertMatches(expected, bitset);
+    }
+
+    @Test
+    public void testInitialWordsAcrossChunks() {
+        final long[] words = new long[] { 1L, -1L, 1L << 63, 0x5555L, -1L, 3L };
+        final BitSet expected = BitSet.valueOf(words);
+        for (int chunkShift = 0; chunkShift <= 3; ++chunkShift) {
+            final SmallChunks bitset = new SmallChunks(BITS, words, chunkShift);
+            assertMatches(expected, bitset);
+
+            final ConcurrentBitSet.OffHeapConcurrentBitSet copy = bitset.copy();
+            bitset.setOff(Long.SIZE);
+            assertMatches(expected, copy);
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> new SmallChunks(BITS, new long[] { 0L, 0L, 0L, 0L, 0L, 0L, 1L << 3 }, 1));
+        assertThrows(IllegalArgumentException.class, () -> new SmallChunks(BITS, new long[8], 1));
+    }
+
+    @Test
+    public void testChunkShiftValidation() {
+        assertThrows(IllegalArgumentException.class, () -> new SmallChunks(BITS, -1));
+        assertThrows(IllegalArgumentException.class, () -> new SmallChunks(BITS, 28));
+    }
+}